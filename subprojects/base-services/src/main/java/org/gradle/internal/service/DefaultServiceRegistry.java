@@ -239,7 +239,7 @@ public class DefaultServiceRegistry implements ServiceRegistry {
     private static abstract class ManagedObjectProvider<T> implements Provider {
         private T instance;
 
-        public T getInstance() {
+        public synchronized T getInstance() {
             if (instance == null) {
                 instance = create();
                 assert instance != null : String.format("create() of %s returned null", toString());
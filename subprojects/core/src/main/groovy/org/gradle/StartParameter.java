@@ -66,6 +66,9 @@ public class StartParameter extends LoggingConfiguration implements Serializable
     private File projectCacheDir;
     private boolean refreshDependencies;
     private boolean recompileScripts;
+    private boolean configureOnDemand;
+    private boolean parallelProjectEvaluation;
+    private boolean cacheTaskGraph;
 
     /**
      * Sets the project's cache location. Set to null to use the default location.
@@ -130,6 +133,9 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         startParameter.continueOnFailure = continueOnFailure;
         startParameter.offline = offline;
         startParameter.refreshDependencies = refreshDependencies;
+        startParameter.configureOnDemand = configureOnDemand;
+        startParameter.parallelProjectEvaluation = parallelProjectEvaluation;
+        startParameter.cacheTaskGraph = cacheTaskGraph;
         return startParameter;
     }
 
@@ -152,6 +158,9 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         startParameter.rerunTasks = rerunTasks;
         startParameter.recompileScripts = recompileScripts;
         startParameter.refreshDependencies = refreshDependencies;
+        startParameter.configureOnDemand = configureOnDemand;
+        startParameter.parallelProjectEvaluation = parallelProjectEvaluation;
+        startParameter.cacheTaskGraph = cacheTaskGraph;
         return startParameter;
     }
 
@@ -585,6 +594,56 @@ public class StartParameter extends LoggingConfiguration implements Serializable
         this.recompileScripts = recompileScripts;
     }
 
+    /**
+     * Specifies whether projects should be configured only when they are required to run the requested tasks, rather
+     * than all projects being configured before the tasks are selected.
+     */
+    public boolean isConfigureOnDemand() {
+        return configureOnDemand;
+    }
+
+    /**
+     * Specifies whether projects should be configured only when they are required to run the requested tasks, rather
+     * than all projects being configured before the tasks are selected.
+     */
+    public void setConfigureOnDemand(boolean configureOnDemand) {
+        this.configureOnDemand = configureOnDemand;
+    }
+
+    /**
+     * Specifies whether the build scripts of sibling projects should be evaluated concurrently. A project is always
+     * evaluated after its parent project. Has no effect when projects are configured on demand.
+     */
+    public boolean isParallelProjectEvaluation() {
+        return parallelProjectEvaluation;
+    }
+
+    /**
+     * Specifies whether the build scripts of sibling projects should be evaluated concurrently. A project is always
+     * evaluated after its parent project. Has no effect when projects are configured on demand.
+     */
+    public void setParallelProjectEvaluation(boolean parallelProjectEvaluation) {
+        this.parallelProjectEvaluation = parallelProjectEvaluation;
+    }
+
+    /**
+     * Specifies whether the execution plan of the build should be cached. When the build scripts and the other inputs
+     * of the build have not changed since the plan was cached, only the projects which own the planned tasks, their
+     * parent projects and the projects which configured other projects are configured.
+     */
+    public boolean isCacheTaskGraph() {
+        return cacheTaskGraph;
+    }
+
+    /**
+     * Specifies whether the execution plan of the build should be cached. When the build scripts and the other inputs
+     * of the build have not changed since the plan was cached, only the projects which own the planned tasks, their
+     * parent projects and the projects which configured other projects are configured.
+     */
+    public void setCacheTaskGraph(boolean cacheTaskGraph) {
+        this.cacheTaskGraph = cacheTaskGraph;
+    }
+
     @Override
     public String toString() {
         return "StartParameter{"
@@ -605,6 +664,9 @@ public class StartParameter extends LoggingConfiguration implements Serializable
                 + ", recompileScripts=" + recompileScripts
                 + ", offline=" + offline
                 + ", refreshDependencies=" + refreshDependencies
+                + ", configureOnDemand=" + configureOnDemand
+                + ", parallelProjectEvaluation=" + parallelProjectEvaluation
+                + ", cacheTaskGraph=" + cacheTaskGraph
                 + '}';
     }
 }
\ No newline at end of file
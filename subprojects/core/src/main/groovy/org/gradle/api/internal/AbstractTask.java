@@ -35,7 +35,6 @@ import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.api.specs.AndSpec;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.TaskDependency;
-import org.gradle.api.tasks.TaskInputs;
 import org.gradle.api.tasks.TaskInstantiationException;
 import org.gradle.api.tasks.TaskState;
 import org.gradle.internal.Factory;
@@ -79,7 +78,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
 
     private final TaskOutputsInternal outputs;
 
-    private final TaskInputs inputs;
+    private final TaskInputsInternal inputs;
 
     private TaskExecuter executer;
 
@@ -114,7 +113,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
         services = project.getServices().createFor(this);
         extensibleDynamicObject = new ExtensibleDynamicObject(this, getServices().get(Instantiator.class));
         outputs = services.get(TaskOutputsInternal.class);
-        inputs = services.get(TaskInputs.class);
+        inputs = services.get(TaskInputsInternal.class);
         executer = services.get(TaskExecuter.class);
         loggingManager = services.get(LoggingManagerInternal.class);
     }
@@ -346,7 +345,7 @@ public abstract class AbstractTask implements TaskInternal, DynamicObjectAware {
         this.group = group;
     }
 
-    public TaskInputs getInputs() {
+    public TaskInputsInternal getInputs() {
         return inputs;
     }
 
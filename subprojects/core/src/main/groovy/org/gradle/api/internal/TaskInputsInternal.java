@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal;
+
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.TaskInputs;
+
+public interface TaskInputsInternal extends TaskInputs {
+    /**
+     * Registers some input files which form a compile classpath. Only the ABI of the classes in these files is
+     * considered when checking whether the task is up-to-date.
+     */
+    TaskInputsInternal compileClasspath(Object... paths);
+
+    /**
+     * Returns the input files which form a compile classpath.
+     */
+    FileCollection getCompileClasspathFiles();
+
+    /**
+     * Returns the input files, excluding those which form a compile classpath.
+     */
+    FileCollection getNonCompileClasspathFiles();
+}
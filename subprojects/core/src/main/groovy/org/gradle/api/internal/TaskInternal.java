@@ -40,6 +40,8 @@ public interface TaskInternal extends Task, Configurable<Task> {
 
     void setExecuter(TaskExecuter executer);
 
+    TaskInputsInternal getInputs();
+
     TaskOutputsInternal getOutputs();
 
     List<TaskValidator> getValidators();
@@ -27,6 +27,7 @@ import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.AbstractTaskDependency;
 import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
 import org.gradle.api.tasks.TaskDependency;
+import org.gradle.configuration.OnDemandProjectEvaluation;
 
 import java.io.File;
 import java.util.Set;
@@ -67,6 +68,7 @@ public class DefaultProjectDependency extends AbstractModuleDependency implement
     }
 
     public Configuration getProjectConfiguration() {
+        OnDemandProjectEvaluation.evaluate(dependencyProject);
         return dependencyProject.getConfigurations().getByName(getConfiguration());
     }
 
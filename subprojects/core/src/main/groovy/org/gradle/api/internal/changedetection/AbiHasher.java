@@ -0,0 +1,308 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.util.hash.HashUtil;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.EmptyVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A {@link Hasher} for the files of a compile classpath. The hash of a class file, or of a jar containing class files,
+ * is calculated from the signatures of the class and its non-private members only, so that it does not change when
+ * only the implementation of a class changes. Other files are hashed using the given fallback hasher.
+ *
+ * <p>Annotation processors and Groovy AST transformations are hashed using the fallback hasher, as a change to their
+ * implementation may change the result of a compilation. This applies to jars and class directories which declare an
+ * annotation processor or a global AST transformation in {@code META-INF/services}, and to classes which are annotated
+ * as AST transformations.</p>
+ */
+public class AbiHasher implements Hasher {
+    private static final String ANNOTATION_PROCESSOR_SERVICE = "META-INF/services/javax.annotation.processing.Processor";
+    private static final String AST_TRANSFORMATION_SERVICE = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+    private static final String AST_TRANSFORMATION_ANNOTATION = "Lorg/codehaus/groovy/transform/GroovyASTTransformation;";
+    private final Hasher fallbackHasher;
+
+    public AbiHasher(Hasher fallbackHasher) {
+        this.fallbackHasher = fallbackHasher;
+    }
+
+    public byte[] hash(File file) {
+        String name = file.getName();
+        if (name.endsWith(".class") && !declaresCompilerExtensions(file.getParentFile())) {
+            byte[] classBytes;
+            try {
+                classBytes = FileUtils.readFileToByteArray(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            String abi = abi(classBytes);
+            return abi == null ? fallbackHasher.hash(file) : HashUtil.createHash(abi, "MD5").asByteArray();
+        }
+        if (name.endsWith(".jar")) {
+            try {
+                byte[] hash = hashJar(file);
+                if (hash != null) {
+                    return hash;
+                }
+            } catch (IOException e) {
+                // Not a valid jar - hash the contents instead
+            }
+        }
+        return fallbackHasher.hash(file);
+    }
+
+    private byte[] hashJar(File file) throws IOException {
+        ZipFile zipFile = new ZipFile(file);
+        try {
+            if (zipFile.getEntry(ANNOTATION_PROCESSOR_SERVICE) != null || zipFile.getEntry(AST_TRANSFORMATION_SERVICE) != null) {
+                return null;
+            }
+            SortedMap<String, ZipEntry> entries = new TreeMap<String, ZipEntry>();
+            Enumeration<? extends ZipEntry> enumeration = zipFile.entries();
+            while (enumeration.hasMoreElements()) {
+                ZipEntry entry = enumeration.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.put(entry.getName(), entry);
+                }
+            }
+
+            MessageDigest digest = HashUtil.createMessageDigest("MD5");
+            for (ZipEntry entry : entries.values()) {
+                digest.update(entry.getName().getBytes("UTF-8"));
+                byte[] content = readFully(zipFile, entry);
+                String abi = entry.getName().endsWith(".class") ? abi(content) : null;
+                if (abi != null) {
+                    digest.update(abi.getBytes("UTF-8"));
+                } else {
+                    digest.update(content);
+                }
+            }
+            return digest.digest();
+        } finally {
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Returns true when the given directory, or one of its ancestors, declares an annotation processor or a global AST
+     * transformation. As the root of the class directory is not known, all ancestors are checked.
+     */
+    private static boolean declaresCompilerExtensions(File dir) {
+        for (File current = dir; current != null; current = current.getParentFile()) {
+            if (new File(current, ANNOTATION_PROCESSOR_SERVICE).isFile() || new File(current, AST_TRANSFORMATION_SERVICE).isFile()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] readFully(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream inputStream = zipFile.getInputStream(entry);
+        try {
+            return IOUtils.toByteArray(inputStream);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Returns a canonical description of the ABI of the given class, or null when the class file cannot be read or the
+     * class is an AST transformation.
+     */
+    String abi(byte[] classBytes) {
+        AbiCollector collector = new AbiCollector();
+        try {
+            new ClassReader(classBytes).accept(collector, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return collector.astTransformation ? null : collector.toString();
+    }
+
+    private static boolean isVisible(int access) {
+        return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) == 0;
+    }
+
+    private static class AbiCollector extends EmptyVisitor {
+        private final StringBuilder header = new StringBuilder();
+        private final SortedSet<String> members = new TreeSet<String>();
+        private boolean astTransformation;
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            header.append("class ").append(access & ~Opcodes.ACC_SUPER).append(' ').append(name).append(' ').append(signature);
+            header.append(" extends ").append(superName).append(" implements");
+            if (interfaces != null) {
+                for (String anInterface : interfaces) {
+                    header.append(' ').append(anInterface);
+                }
+            }
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            if (desc.equals(AST_TRANSFORMATION_ANNOTATION)) {
+                astTransformation = true;
+            }
+            return new AnnotationCollector(header.append(" @").append(desc).append(visible ? " visible" : " invisible"));
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (isVisible(access)) {
+                members.add("inner " + access + " " + name + " " + outerName + " " + innerName);
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            if (!isVisible(access)) {
+                return null;
+            }
+            final StringBuilder field = new StringBuilder();
+            field.append("field ").append(access).append(' ').append(name).append(' ').append(desc).append(' ').append(signature);
+            if (value != null) {
+                // Constants are inlined into the classes that use them
+                field.append(" = ").append(value);
+            }
+            return new EmptyVisitor() {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return new AnnotationCollector(field.append(" @").append(desc).append(visible ? " visible" : " invisible"));
+                }
+
+                @Override
+                public void visitEnd() {
+                    members.add(field.toString());
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if (!isVisible(access)) {
+                return null;
+            }
+            final StringBuilder method = new StringBuilder();
+            method.append("method ").append(access).append(' ').append(name).append(' ').append(desc).append(' ').append(signature).append(" throws");
+            if (exceptions != null) {
+                for (String exception : exceptions) {
+                    method.append(' ').append(exception);
+                }
+            }
+            return new EmptyVisitor() {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    return new AnnotationCollector(method.append(" @").append(desc).append(visible ? " visible" : " invisible"));
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                    return new AnnotationCollector(method.append(" @").append(parameter).append(':').append(desc).append(visible ? " visible" : " invisible"));
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    return new AnnotationCollector(method.append(" default"));
+                }
+
+                @Override
+                public void visitEnd() {
+                    members.add(method.toString());
+                }
+            };
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder abi = new StringBuilder(header);
+            for (String member : members) {
+                abi.append('\n').append(member);
+            }
+            return abi.toString();
+        }
+    }
+
+    private static class AnnotationCollector extends EmptyVisitor {
+        private final StringBuilder builder;
+
+        private AnnotationCollector(StringBuilder builder) {
+            this.builder = builder;
+            builder.append('(');
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            builder.append(name).append('=');
+            if (value instanceof byte[]) {
+                builder.append(Arrays.toString((byte[]) value));
+            } else if (value instanceof char[]) {
+                builder.append(Arrays.toString((char[]) value));
+            } else if (value instanceof short[]) {
+                builder.append(Arrays.toString((short[]) value));
+            } else if (value instanceof int[]) {
+                builder.append(Arrays.toString((int[]) value));
+            } else if (value instanceof long[]) {
+                builder.append(Arrays.toString((long[]) value));
+            } else if (value instanceof float[]) {
+                builder.append(Arrays.toString((float[]) value));
+            } else if (value instanceof double[]) {
+                builder.append(Arrays.toString((double[]) value));
+            } else if (value instanceof boolean[]) {
+                builder.append(Arrays.toString((boolean[]) value));
+            } else {
+                builder.append(value);
+            }
+            builder.append(',');
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            builder.append(name).append('=').append(desc).append('.').append(value).append(',');
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            return new AnnotationCollector(builder.append(name).append("=@").append(desc));
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            return new AnnotationCollector(builder.append(name).append('='));
+        }
+
+        @Override
+        public void visitEnd() {
+            builder.append(')');
+        }
+    }
+}
@@ -26,8 +26,12 @@ public class CachingHasher implements Hasher {
     private long timestamp;
 
     public CachingHasher(Hasher hasher, TaskArtifactStateCacheAccess cacheAccess) {
+        this(hasher, cacheAccess, "fileHashes");
+    }
+
+    public CachingHasher(Hasher hasher, TaskArtifactStateCacheAccess cacheAccess, String cacheName) {
         this.hasher = hasher;
-        cache = cacheAccess.createCache("fileHashes", File.class, FileInfo.class, new FileInfoSerializer());
+        cache = cacheAccess.createCache(cacheName, File.class, FileInfo.class, new FileInfoSerializer());
     }
 
     public byte[] hash(File file) {
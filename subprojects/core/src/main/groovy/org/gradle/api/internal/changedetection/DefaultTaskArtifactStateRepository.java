@@ -36,12 +36,17 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private final UpToDateRule upToDateRule;
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, FileSnapshotter inputFilesSnapshotter, FileSnapshotter outputFilesSnapshotter) {
+        this(taskHistoryRepository, inputFilesSnapshotter, outputFilesSnapshotter, inputFilesSnapshotter);
+    }
+
+    public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, FileSnapshotter inputFilesSnapshotter, FileSnapshotter outputFilesSnapshotter,
+                                              FileSnapshotter compileClasspathSnapshotter) {
         this.taskHistoryRepository = taskHistoryRepository;
         upToDateRule = new CompositeUpToDateRule(
                 new TaskTypeChangedUpToDateRule(),
                 new InputPropertiesChangedUpToDateRule(),
                 new OutputFilesChangedUpToDateRule(outputFilesSnapshotter),
-                new InputFilesChangedUpToDateRule(inputFilesSnapshotter));
+                new InputFilesChangedUpToDateRule(inputFilesSnapshotter, compileClasspathSnapshotter));
     }
 
     public TaskArtifactState getStateFor(final TaskInternal task) {
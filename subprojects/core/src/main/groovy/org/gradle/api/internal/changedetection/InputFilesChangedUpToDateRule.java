@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.changedetection;
 
+import org.gradle.api.internal.TaskInputsInternal;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.util.ChangeListener;
 
@@ -22,17 +23,20 @@ import java.io.File;
 import java.util.Collection;
 
 /**
- * A rule which marks a task out-of-date when its input files change.
+ * A rule which marks a task out-of-date when its input files change. Input files which form a compile classpath are
+ * snapshotted using a separate snapshotter, so that only changes to their ABI are detected.
  */
 public class InputFilesChangedUpToDateRule implements UpToDateRule {
     private final FileSnapshotter inputFilesSnapshotter;
+    private final FileSnapshotter compileClasspathSnapshotter;
 
-    public InputFilesChangedUpToDateRule(FileSnapshotter inputFilesSnapshotter) {
+    public InputFilesChangedUpToDateRule(FileSnapshotter inputFilesSnapshotter, FileSnapshotter compileClasspathSnapshotter) {
         this.inputFilesSnapshotter = inputFilesSnapshotter;
+        this.compileClasspathSnapshotter = compileClasspathSnapshotter;
     }
 
     public TaskUpToDateState create(final TaskInternal task, final TaskExecution previousExecution, final TaskExecution currentExecution) {
-        final FileCollectionSnapshot inputFilesSnapshot = inputFilesSnapshotter.snapshot(task.getInputs().getFiles());
+        final FileCollectionSnapshot inputFilesSnapshot = snapshot(task.getInputs());
 
         return new TaskUpToDateState() {
             public void checkUpToDate(final Collection<String> messages) {
@@ -60,4 +64,11 @@ public class InputFilesChangedUpToDateRule implements UpToDateRule {
             }
         };
     }
+
+    private FileCollectionSnapshot snapshot(TaskInputsInternal inputs) {
+        FileCollectionSnapshot inputFilesSnapshot = inputFilesSnapshotter.snapshot(inputs.getNonCompileClasspathFiles());
+        FileCollectionSnapshot compileClasspathSnapshot = compileClasspathSnapshotter.snapshot(inputs.getCompileClasspathFiles());
+        // Merge the snapshots, so that a file which is also an ordinary input file is compared using its full contents
+        return inputFilesSnapshot.changesSince(inputFilesSnapshotter.emptySnapshot()).applyTo(compileClasspathSnapshot);
+    }
 }
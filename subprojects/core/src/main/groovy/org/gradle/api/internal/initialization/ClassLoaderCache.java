@@ -0,0 +1,260 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.initialization;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.MultiParentClassLoader;
+import org.gradle.util.MutableURLClassLoader;
+import org.gradle.util.hash.HashUtil;
+import org.gradle.util.hash.HashValue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * A cache of the ClassLoaders for script classpaths, shared by all builds in a given process. ClassLoaders are keyed by
+ * their parent ClassLoader and by the files of their classpath along with their content, so that scripts which declare
+ * the same classpath share a single ClassLoader, rather than each opening the same jars and defining the same classes.
+ *
+ * <p>The ClassLoaders of the enclosing scopes are created afresh by each build. Where possible, the requested parent is
+ * replaced by an equivalent ClassLoader which outlives the build: either the root ClassLoader, or a ClassLoader from
+ * this cache, for a scope which adds a classpath. This allows the ClassLoaders to be reused by later builds, without
+ * holding on to the ClassLoaders of earlier builds.</p>
+ *
+ * <p>Each ClassLoader handed out by {@link #get(ClassLoader, Collection)} must be handed back to {@link
+ * #release(ClassLoader)}. ClassLoaders which are no longer in use are retained for reuse by later builds, up to a
+ * fixed number, after which the least recently used are discarded. A ClassLoader whose parent has no such equivalent is
+ * discarded as soon as it is no longer in use.</p>
+ */
+@ThreadSafe
+public class ClassLoaderCache {
+    private static final int DEFAULT_MAX_UNUSED = 16;
+    private static final int MAX_FILE_HASHES = 1000;
+
+    private final ClassLoader rootClassLoader;
+    private final int maxUnused;
+    private final Map<Key, CachedClassLoader> classLoaders = new LinkedHashMap<Key, CachedClassLoader>();
+    private final Map<ClassLoader, CachedClassLoader> inUse = new IdentityHashMap<ClassLoader, CachedClassLoader>();
+    private final Map<File, FileHash> fileHashes = new LinkedHashMap<File, FileHash>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<File, FileHash> eldest) {
+            return size() > MAX_FILE_HASHES;
+        }
+    };
+    private int unused;
+
+    public ClassLoaderCache(ClassLoader rootClassLoader) {
+        this(rootClassLoader, DEFAULT_MAX_UNUSED);
+    }
+
+    public ClassLoaderCache(ClassLoader rootClassLoader, int maxUnused) {
+        this.rootClassLoader = rootClassLoader;
+        this.maxUnused = maxUnused;
+    }
+
+    /**
+     * Returns a ClassLoader for the given classpath, with the given parent. The ClassLoader must later be released.
+     */
+    public ClassLoader get(ClassLoader parent, Collection<File> classpath) {
+        // Hash the classpath before locking, so that builds using classpaths which are already cached do not wait
+        List<String> classpathHashes = hash(classpath);
+        return get(parent, classpath, classpathHashes);
+    }
+
+    private synchronized ClassLoader get(ClassLoader parent, Collection<File> classpath, List<String> classpathHashes) {
+        ClassLoader longLivedParent = longLivedEquivalent(parent);
+        Key key = longLivedParent != null ? new Key(longLivedParent, classpathHashes, true) : new Key(parent, classpathHashes, false);
+        CachedClassLoader cached = classLoaders.remove(key);
+        if (cached == null) {
+            cached = new CachedClassLoader(key, new MutableURLClassLoader(key.parent, GFileUtils.toURLs(classpath)));
+        } else if (cached.references == 0) {
+            unused--;
+        }
+        // Reinsert, so that the entries are kept in order of last use
+        classLoaders.put(key, cached);
+        cached.references++;
+        inUse.put(cached.classLoader, cached);
+        return cached.classLoader;
+    }
+
+    /**
+     * Releases a ClassLoader previously returned by {@link #get(ClassLoader, Collection)}.
+     */
+    public synchronized void release(ClassLoader classLoader) {
+        CachedClassLoader cached = inUse.get(classLoader);
+        if (cached == null) {
+            throw new IllegalArgumentException(String.format("ClassLoader %s is not in use.", classLoader));
+        }
+        cached.references--;
+        if (cached.references > 0) {
+            return;
+        }
+        inUse.remove(classLoader);
+        classLoaders.remove(cached.key);
+        if (!cached.key.retainable) {
+            return;
+        }
+        unused++;
+        classLoaders.put(cached.key, cached);
+
+        Iterator<CachedClassLoader> iterator = classLoaders.values().iterator();
+        while (unused > maxUnused && iterator.hasNext()) {
+            if (iterator.next().references == 0) {
+                iterator.remove();
+                unused--;
+            }
+        }
+    }
+
+    /**
+     * Returns a ClassLoader which outlives the current build and which loads the same classes as the given ClassLoader,
+     * or null when there is no such ClassLoader.
+     */
+    private ClassLoader longLivedEquivalent(ClassLoader classLoader) {
+        if (classLoader == rootClassLoader) {
+            return classLoader;
+        }
+        CachedClassLoader cached = inUse.get(classLoader);
+        if (cached != null) {
+            return cached.key.retainable ? classLoader : null;
+        }
+        if (classLoader instanceof ScriptClassLoader) {
+            ScriptClassLoader scriptClassLoader = (ScriptClassLoader) classLoader;
+            if (scriptClassLoader.hasClasspath()) {
+                // The classpath ClassLoader already delegates to the enclosing scope
+                return longLivedEquivalent(scriptClassLoader.getClasspathClassLoader());
+            }
+            return longLivedEquivalent(scriptClassLoader.getParentClassLoader());
+        }
+        if (classLoader instanceof MultiParentClassLoader) {
+            ClassLoader equivalent = null;
+            for (ClassLoader parent : ((MultiParentClassLoader) classLoader).getParents()) {
+                ClassLoader parentEquivalent = longLivedEquivalent(parent);
+                if (parentEquivalent == null || (equivalent != null && parentEquivalent != equivalent)) {
+                    return null;
+                }
+                equivalent = parentEquivalent;
+            }
+            return equivalent;
+        }
+        if (classLoader instanceof URLClassLoader && ((URLClassLoader) classLoader).getURLs().length == 0) {
+            // For example, the ClassLoader for a build without buildSrc
+            return longLivedEquivalent(classLoader.getParent());
+        }
+        return null;
+    }
+
+    private List<String> hash(Collection<File> classpath) {
+        List<String> hashes = new ArrayList<String>(classpath.size());
+        for (File file : classpath) {
+            hashes.add(file.getAbsolutePath() + '=' + hash(file));
+        }
+        return hashes;
+    }
+
+    private String hash(File file) {
+        if (!file.exists()) {
+            return "missing";
+        }
+        if (file.isDirectory()) {
+            // Directories on a script classpath are hashed using the timestamps of their files, rather than the
+            // content, as they are rare and can be large
+            MessageDigest digest = HashUtil.createMessageDigest("MD5");
+            digest.update(file.getAbsolutePath().getBytes());
+            for (File child : new TreeSet<File>(listFiles(file))) {
+                digest.update(child.getAbsolutePath().getBytes());
+                digest.update(String.valueOf(child.lastModified()).getBytes());
+                digest.update(String.valueOf(child.length()).getBytes());
+            }
+            return new HashValue(digest.digest()).asCompactString();
+        }
+
+        long lastModified = file.lastModified();
+        long length = file.length();
+        FileHash fileHash;
+        synchronized (fileHashes) {
+            fileHash = fileHashes.get(file);
+        }
+        if (fileHash == null || fileHash.lastModified != lastModified || fileHash.length != length) {
+            fileHash = new FileHash(HashUtil.createHash(file, "MD5").asCompactString(), lastModified, length);
+            synchronized (fileHashes) {
+                fileHashes.put(file, fileHash);
+            }
+        }
+        return fileHash.hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<File> listFiles(File directory) {
+        return GFileUtils.listFiles(directory, null, true);
+    }
+
+    private static class Key {
+        private final ClassLoader parent;
+        private final List<String> classpath;
+        private final boolean retainable;
+
+        private Key(ClassLoader parent, List<String> classpath, boolean retainable) {
+            this.parent = parent;
+            this.classpath = classpath;
+            this.retainable = retainable;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return other.parent == parent && other.classpath.equals(classpath);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(parent) ^ classpath.hashCode();
+        }
+    }
+
+    private static class CachedClassLoader {
+        private final Key key;
+        private final ClassLoader classLoader;
+        private int references;
+
+        private CachedClassLoader(Key key, ClassLoader classLoader) {
+            this.key = key;
+            this.classLoader = classLoader;
+        }
+    }
+
+    private static class FileHash {
+        private final String hash;
+        private final long lastModified;
+        private final long length;
+
+        private FileHash(String hash, long lastModified, long length) {
+            this.hash = hash;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -19,26 +19,26 @@ import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.artifacts.dsl.DependencyHandler;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
 import org.gradle.groovy.scripts.ScriptSource;
-import org.gradle.util.MutableURLClassLoader;
 
 import java.io.File;
-import java.net.MalformedURLException;
+import java.util.Set;
 
 public class DefaultScriptHandler extends AbstractScriptHandler {
+    private final ScopedClassLoaderCache classLoaderCache;
 
     public DefaultScriptHandler(ScriptSource scriptSource, RepositoryHandler repositoryHandler,
                                 DependencyHandler dependencyHandler, ConfigurationContainer configContainer,
-                                MutableURLClassLoader classLoader) {
+                                ScriptClassLoader classLoader, ScopedClassLoaderCache classLoaderCache) {
         super(classLoader, repositoryHandler, dependencyHandler, scriptSource, configContainer);
+        this.classLoaderCache = classLoaderCache;
     }
 
     public void updateClassPath() {
-        for (File file : getClasspathConfiguration().getFiles()) {
-            try {
-                getClassLoader().addURL(file.toURI().toURL());
-            } catch (MalformedURLException e) {
-                throw new RuntimeException(e);
-            }
+        Set<File> classpath = getClasspathConfiguration().getFiles();
+        if (classpath.isEmpty()) {
+            return;
         }
+        ScriptClassLoader classLoader = getClassLoader();
+        classLoader.addClasspath(classLoaderCache.get(classLoader.getParentClassLoader(), classpath));
     }
 }
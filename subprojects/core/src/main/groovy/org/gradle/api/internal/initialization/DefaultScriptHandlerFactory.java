@@ -28,7 +28,6 @@ import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.groovy.scripts.ScriptSource;
-import org.gradle.util.MutableURLClassLoader;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -38,8 +37,9 @@ import java.util.Map;
 public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
     private final DependencyManagementServices dependencyManagementServices;
     private final DependencyMetaDataProvider dependencyMetaDataProvider;
-    private final Map<Collection<Object>, MutableURLClassLoader> classLoaderCache = new HashMap<Collection<Object>, MutableURLClassLoader>();
+    private final Map<Collection<Object>, ScriptClassLoader> classLoaderCache = new HashMap<Collection<Object>, ScriptClassLoader>();
     private final FileResolver fileResolver;
+    private final ScopedClassLoaderCache classpathClassLoaderCache;
     private final ProjectFinder projectFinder = new ProjectFinder() {
         public ProjectInternal getProject(String path) {
             throw new UnknownProjectException("Cannot use project dependencies in a script classpath definition.");
@@ -48,8 +48,10 @@ public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
 
     public DefaultScriptHandlerFactory(DependencyManagementServices dependencyManagementServices,
                                        FileResolver fileResolver,
-                                       DependencyMetaDataProvider dependencyMetaDataProvider) {
+                                       DependencyMetaDataProvider dependencyMetaDataProvider,
+                                       ScopedClassLoaderCache classpathClassLoaderCache) {
         this.dependencyManagementServices = dependencyManagementServices;
+        this.classpathClassLoaderCache = classpathClassLoaderCache;
         this.fileResolver = fileResolver;
         this.dependencyMetaDataProvider = dependencyMetaDataProvider;
     }
@@ -64,11 +66,11 @@ public class DefaultScriptHandlerFactory implements ScriptHandlerFactory {
         ConfigurationContainer configurationContainer = services.getConfigurationContainer();
         DependencyHandler dependencyHandler = services.getDependencyHandler();
         Collection<Object> key = Arrays.asList(scriptSource.getClassName(), parentClassLoader);
-        MutableURLClassLoader classLoader = classLoaderCache.get(key);
+        ScriptClassLoader classLoader = classLoaderCache.get(key);
         if (classLoader == null) {
-            classLoader = new MutableURLClassLoader(parentClassLoader);
+            classLoader = new ScriptClassLoader(parentClassLoader);
             classLoaderCache.put(key, classLoader);
-            return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader);
+            return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classpathClassLoaderCache);
         }
 
         return new NoClassLoaderUpdateScriptHandler(classLoader, repositoryHandler, dependencyHandler, scriptSource, configurationContainer);
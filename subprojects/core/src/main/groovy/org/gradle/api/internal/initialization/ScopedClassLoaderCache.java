@@ -0,0 +1,55 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.initialization;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.internal.Stoppable;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Acquires ClassLoaders from a {@link ClassLoaderCache} on behalf of a single build, and releases them all when the
+ * build is finished.
+ */
+@ThreadSafe
+public class ScopedClassLoaderCache implements Stoppable {
+    private final ClassLoaderCache cache;
+    private final List<ClassLoader> acquired = new ArrayList<ClassLoader>();
+
+    public ScopedClassLoaderCache(ClassLoaderCache cache) {
+        this.cache = cache;
+    }
+
+    public ClassLoader get(ClassLoader parent, Collection<File> classpath) {
+        ClassLoader classLoader = cache.get(parent, classpath);
+        synchronized (acquired) {
+            acquired.add(classLoader);
+        }
+        return classLoader;
+    }
+
+    public void stop() {
+        synchronized (acquired) {
+            for (ClassLoader classLoader : acquired) {
+                cache.release(classLoader);
+            }
+            acquired.clear();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.initialization;
+
+import org.gradle.util.MultiParentClassLoader;
+
+/**
+ * The ClassLoader for a script. Delegates to the ClassLoader of the enclosing scope, and to the ClassLoader for the
+ * classpath declared by the script, once this has been added.
+ */
+public class ScriptClassLoader extends MultiParentClassLoader {
+    private final ClassLoader parentClassLoader;
+    private volatile ClassLoader classpathClassLoader;
+
+    public ScriptClassLoader(ClassLoader parentClassLoader) {
+        super(parentClassLoader);
+        this.parentClassLoader = parentClassLoader;
+    }
+
+    /**
+     * Returns the ClassLoader of the enclosing scope.
+     */
+    public ClassLoader getParentClassLoader() {
+        return parentClassLoader;
+    }
+
+    /**
+     * Returns true when a classpath has been added to this ClassLoader.
+     */
+    public boolean hasClasspath() {
+        return classpathClassLoader != null;
+    }
+
+    /**
+     * Returns the ClassLoader for the classpath of the script, or null when no classpath has been added.
+     */
+    public ClassLoader getClasspathClassLoader() {
+        return classpathClassLoader;
+    }
+
+    /**
+     * Adds the ClassLoader for the classpath of the script. The given ClassLoader is expected to delegate to the
+     * ClassLoader of the enclosing scope.
+     */
+    public void addClasspath(ClassLoader classpathClassLoader) {
+        addParent(classpathClassLoader);
+        this.classpathClassLoader = classpathClassLoader;
+    }
+}
@@ -19,6 +19,7 @@ package org.gradle.api.internal.project;
 import groovy.lang.Closure;
 import groovy.lang.MissingPropertyException;
 import groovy.lang.Script;
+import org.gradle.StartParameter;
 import org.gradle.api.*;
 import org.gradle.api.artifacts.Module;
 import org.gradle.api.artifacts.dsl.ArtifactHandler;
@@ -49,6 +50,7 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.configuration.ProjectEvaluator;
 import org.gradle.configuration.ScriptPlugin;
 import org.gradle.configuration.ScriptPluginFactory;
+import org.gradle.execution.TaskGraphCache;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Factory;
 import org.gradle.listener.ListenerBroadcast;
@@ -261,6 +263,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public DynamicObject getAsDynamicObject() {
+        assertCanAccessModel();
         return extensibleDynamicObject;
     }
 
@@ -277,6 +280,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void setDescription(String description) {
+        assertCanAccessModel();
         this.description = description;
     }
 
@@ -290,6 +294,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void setGroup(Object group) {
+        assertCanAccessModel();
         this.group = group;
     }
 
@@ -298,6 +303,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void setVersion(Object version) {
+        assertCanAccessModel();
         this.version = version;
     }
 
@@ -306,6 +312,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void setStatus(Object status) {
+        assertCanAccessModel();
         this.status = status;
     }
 
@@ -318,6 +325,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void setDefaultTasks(List<String> defaultTasks) {
+        assertCanAccessModel();
         this.defaultTasks = defaultTasks;
     }
 
@@ -435,6 +443,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
 
     public <T> Iterable<T> configure(Iterable<T> objects, Action<? super T> configureAction) {
         for (T object : objects) {
+            assertCanConfigure(object);
             configureAction.execute(object);
         }
         return objects;
@@ -473,6 +482,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void defaultTasks(String... defaultTasks) {
+        assertCanAccessModel();
         if (defaultTasks == null) {
             throw new InvalidUserDataException("Default tasks must not be null!");
         }
@@ -486,6 +496,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Task createTask(Map args, String name, Closure action) {
+        assertCanAccessModel();
         warnCreateTaskDeprecated();
         Map<String, Object> allArgs = new HashMap<String, Object>(args);
         allArgs.put(Task.TASK_NAME, name);
@@ -494,6 +505,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Task createTask(Map<String, ?> args, String name, Action<? super Task> action) {
+        assertCanAccessModel();
         warnCreateTaskDeprecated();
         Map<String, Object> allArgs = new HashMap<String, Object>(args);
         allArgs.put(Task.TASK_NAME, name);
@@ -520,6 +532,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void setBuildDir(Object path) {
+        assertCanAccessModel();
         buildDir = path;
     }
 
@@ -559,7 +572,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().getExecuting()) {
+        if (projectToEvaluate.getState().isExecutingOnCurrentThread()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                     projectToEvaluate));
         }
@@ -618,7 +631,9 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
             }
         };
         if (recursive) {
-            allprojects(action);
+            for (Project project : getAllprojects()) {
+                action.execute(project);
+            }
         } else {
             action.execute(this);
         }
@@ -639,7 +654,9 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
             }
         };
         if (recursive) {
-            allprojects(action);
+            for (Project project : getAllprojects()) {
+                action.execute(project);
+            }
         } else {
             action.execute(this);
         }
@@ -755,18 +772,22 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void beforeEvaluate(Action<? super Project> action) {
+        assertCanAccessModel();
         evaluationListener.add("beforeEvaluate", action);
     }
 
     public void afterEvaluate(Action<? super Project> action) {
+        assertCanAccessModel();
         evaluationListener.add("afterEvaluate", action);
     }
 
     public void beforeEvaluate(Closure closure) {
+        assertCanAccessModel();
         evaluationListener.add("beforeEvaluate", closure);
     }
 
     public void afterEvaluate(Closure closure) {
+        assertCanAccessModel();
         evaluationListener.add("afterEvaluate", closure);
     }
 
@@ -783,18 +804,22 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Object property(String propertyName) throws MissingPropertyException {
+        assertCanAccessModel();
         return extensibleDynamicObject.getProperty(propertyName);
     }
 
     public void setProperty(String name, Object value) {
+        assertCanAccessModel();
         extensibleDynamicObject.setProperty(name, value);
     }
 
     public boolean hasProperty(String propertyName) {
+        assertCanAccessModel();
         return extensibleDynamicObject.hasProperty(propertyName);
     }
 
     public Map<String, ?> getProperties() {
+        assertCanAccessModel();
         return DeprecationLogger.whileDisabled(new Factory<Map<String, ?>>() {
             public Map<String, ?> create() {
                 return extensibleDynamicObject.getProperties();
@@ -827,6 +852,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void apply(Closure closure) {
+        assertCanAccessModel();
         DefaultObjectConfigurationAction action = new DefaultObjectConfigurationAction(fileResolver, services.get(
                 ScriptPluginFactory.class), this);
         configure(action, closure);
@@ -834,6 +860,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void apply(Map<String, ?> options) {
+        assertCanAccessModel();
         DefaultObjectConfigurationAction action = new DefaultObjectConfigurationAction(fileResolver, services.get(
                 ScriptPluginFactory.class), this);
         ConfigureUtil.configureByMap(options, action);
@@ -841,6 +868,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public AntBuilder ant(Closure configureClosure) {
+        assertCanAccessModel();
         return ConfigureUtil.configure(configureClosure, getAnt());
     }
 
@@ -853,13 +881,49 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Project project(String path, Closure configureClosure) {
-        return ConfigureUtil.configure(configureClosure, project(path));
+        ProjectInternal project = project(path);
+        assertCanConfigure(project);
+        return ConfigureUtil.configure(configureClosure, project);
     }
 
     public Object configure(Object object, Closure configureClosure) {
+        assertCanConfigure(object);
         return ConfigureUtil.configure(configureClosure, object);
     }
 
+    private void assertCanConfigure(Object object) {
+        if (object instanceof AbstractProject) {
+            ((AbstractProject) object).assertCanAccessModel();
+        }
+    }
+
+    /**
+     * When projects are evaluated in parallel, the model of a project may only be accessed by the thread which is
+     * evaluating the project or one of its ancestors, as the other projects may be being evaluated by other threads. A
+     * thread which is not evaluating any project may access any project. When the task graph is cached, the access is
+     * recorded with the task graph.
+     */
+    private void assertCanAccessModel() {
+        StartParameter startParameter = gradle.getStartParameter();
+        if (startParameter.isCacheTaskGraph()) {
+            services.get(TaskGraphCache.class).modelAccessed(this);
+        }
+        if (!startParameter.isParallelProjectEvaluation()) {
+            return;
+        }
+        for (ProjectInternal project = this; project != null; project = project.getParent()) {
+            if (project.getState().isEvaluatingOnCurrentThread()) {
+                return;
+            }
+        }
+        for (Project project : getRootProject().getAllprojects()) {
+            ProjectInternal evaluating = (ProjectInternal) project;
+            if (evaluating.getState().isEvaluatingOnCurrentThread()) {
+                throw new InvalidUserDataException(String.format("Cannot access %s while evaluating %s, as projects are being evaluated in parallel. A project can only access itself and its subprojects.", this, evaluating));
+            }
+        }
+    }
+
     public Iterable<?> configure(Iterable<?> objects, Closure configureClosure) {
         for (Object object : objects) {
             configure(object, configureClosure);
@@ -868,34 +932,42 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public void configurations(Closure configureClosure) {
+        assertCanAccessModel();
         ((Configurable<?>) getConfigurations()).configure(configureClosure);
     }
 
     public void repositories(Closure configureClosure) {
+        assertCanAccessModel();
         ConfigureUtil.configure(configureClosure, getRepositories());
     }
 
     public void dependencies(Closure configureClosure) {
+        assertCanAccessModel();
         ConfigureUtil.configure(configureClosure, getDependencies());
     }
 
     public void artifacts(Closure configureClosure) {
+        assertCanAccessModel();
         ConfigureUtil.configure(configureClosure, getArtifacts());
     }
 
     public void buildscript(Closure configureClosure) {
+        assertCanAccessModel();
         ConfigureUtil.configure(configureClosure, getBuildscript());
     }
 
     public Task task(String task) {
+        assertCanAccessModel();
         return taskContainer.add(task);
     }
 
     public Task task(Object task) {
+        assertCanAccessModel();
         return taskContainer.add(task.toString());
     }
 
     public Task task(String task, Closure configureClosure) {
+        assertCanAccessModel();
         return taskContainer.add(task).configure(configureClosure);
     }
 
@@ -904,6 +976,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Task task(Map options, String task) {
+        assertCanAccessModel();
         return taskContainer.add(addMaps(options, singletonMap(Task.TASK_NAME, task)));
     }
 
@@ -912,6 +985,7 @@ public abstract class AbstractProject implements ProjectInternal, DynamicObjectA
     }
 
     public Task task(Map options, String task, Closure configureClosure) {
+        assertCanAccessModel();
         return taskContainer.add(addMaps(options, singletonMap(Task.TASK_NAME, task))).configure(configureClosure);
     }
 
@@ -17,7 +17,6 @@ package org.gradle.api.internal.project;
 
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.specs.Spec;
-import org.gradle.util.GUtil;
 
 import java.io.File;
 import java.util.Map;
@@ -32,13 +31,13 @@ public class DefaultProjectRegistry<T extends ProjectIdentifier> implements IPro
     private Map<String, T> projects = new HashMap<String, T>();
     private Map<String, Set<T>> subProjects = new HashMap<String, Set<T>>();
 
-    public void addProject(T project) {
+    public synchronized void addProject(T project) {
         projects.put(project.getPath(), project);
         subProjects.put(project.getPath(), new HashSet<T>());
         addProjectToParentSubProjects(project);
     }
 
-    public T removeProject(String path) {
+    public synchronized T removeProject(String path) {
         T project = projects.remove(path);
         assert project != null;
         subProjects.remove(path);
@@ -58,15 +57,15 @@ public class DefaultProjectRegistry<T extends ProjectIdentifier> implements IPro
         }
     }
 
-    public Set<T> getAllProjects() {
+    public synchronized Set<T> getAllProjects() {
         return new HashSet<T>(projects.values());
     }
 
-    public T getProject(String path) {
+    public synchronized T getProject(String path) {
         return projects.get(path);
     }
 
-    public T getProject(final File projectDir) {
+    public synchronized T getProject(final File projectDir) {
         Set<T> projects = findAll(new Spec<T>() {
             public boolean isSatisfiedBy(T element) {
                 return element.getProjectDir().equals(projectDir);
@@ -79,7 +78,7 @@ public class DefaultProjectRegistry<T extends ProjectIdentifier> implements IPro
         return projects.size() == 1 ? projects.iterator().next() : null;
     }
 
-    public Set<T> getAllProjects(String path) {
+    public synchronized Set<T> getAllProjects(String path) {
         Set<T> result = new HashSet<T>(getSubProjects(path));
         if (projects.get(path) != null) {
             result.add(projects.get(path));
@@ -87,11 +86,12 @@ public class DefaultProjectRegistry<T extends ProjectIdentifier> implements IPro
         return result;
     }
 
-    public Set<T> getSubProjects(String path) {
-        return GUtil.elvis(subProjects.get(path), new HashSet<T>());
+    public synchronized Set<T> getSubProjects(String path) {
+        Set<T> projects = subProjects.get(path);
+        return projects == null ? new HashSet<T>() : new HashSet<T>(projects);
     }
 
-    public Set<T> findAll(Spec<? super T> constraint) {
+    public synchronized Set<T> findAll(Spec<? super T> constraint) {
         Set<T> matches = new HashSet<T>();
         for (T project : projects.values()) {
             if (constraint.isSatisfiedBy(project)) {
@@ -22,8 +22,11 @@ import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.DefaultPluginModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
+import org.gradle.api.internal.initialization.ClassLoaderCache;
 import org.gradle.cache.internal.*;
 import org.gradle.cli.CommandLineConverter;
+import org.gradle.groovy.scripts.internal.ScriptSourceHasher;
+import org.gradle.initialization.BuildProcess;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
 import org.gradle.initialization.DefaultCommandLineConverter;
@@ -51,6 +54,16 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
     public GlobalServicesRegistry(ServiceRegistry loggingServices) {
         super(loggingServices);
         add(new NativeServices());
+        add(new PluginServices(this) {
+            @Override
+            protected ServiceRegistry createServices(PluginServiceRegistry pluginServiceRegistry) {
+                return pluginServiceRegistry.createGlobalServices(GlobalServicesRegistry.this);
+            }
+        });
+    }
+
+    protected BuildProcess createBuildProcess() {
+        return new BuildProcess(false);
     }
 
     protected CommandLineConverter<StartParameter> createCommandLine2StartParameterConverter() {
@@ -104,4 +117,12 @@ public class GlobalServicesRegistry extends DefaultServiceRegistry {
     protected FileLockManager createFileLockManager() {
         return new DefaultFileLockManager(new DefaultProcessMetaDataProvider(get(ProcessEnvironment.class)));
     }
+
+    protected ClassLoaderCache createClassLoaderCache() {
+        return new ClassLoaderCache(get(ClassLoaderRegistry.class).getRootClassLoader());
+    }
+
+    protected ScriptSourceHasher createScriptSourceHasher() {
+        return new ScriptSourceHasher();
+    }
 }
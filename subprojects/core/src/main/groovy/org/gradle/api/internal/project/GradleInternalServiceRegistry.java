@@ -21,6 +21,8 @@ import org.gradle.api.internal.changedetection.TaskArtifactStateCacheAccess;
 import org.gradle.api.internal.changedetection.TaskCacheLockHandlingBuildExecuter;
 import org.gradle.api.internal.plugins.DefaultPluginRegistry;
 import org.gradle.api.internal.plugins.PluginRegistry;
+import org.gradle.cache.CacheRepository;
+import org.gradle.configuration.AppliedScripts;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.execution.*;
 import org.gradle.internal.service.ServiceRegistry;
@@ -42,7 +44,8 @@ public class GradleInternalServiceRegistry extends DefaultServiceRegistry implem
 
     protected BuildExecuter createBuildExecuter() {
         return new DefaultBuildExecuter(
-                asList(new DefaultTasksBuildExecutionAction(),
+                asList(new TaskGraphCachingBuildConfigurationAction(get(TaskGraphCache.class)),
+                        new DefaultTasksBuildExecutionAction(),
                         new ExcludedTaskFilteringBuildConfigurationAction(),
                         new TaskNameResolvingBuildConfigurationAction()),
                 asList(new DryRunBuildExecutionAction(),
@@ -66,6 +69,10 @@ public class GradleInternalServiceRegistry extends DefaultServiceRegistry implem
         return new DefaultTaskGraphExecuter(get(ListenerManager.class));
     }
 
+    protected TaskGraphCache createTaskGraphCache() {
+        return new TaskGraphCache(gradle, get(CacheRepository.class), get(AppliedScripts.class));
+    }
+
     protected PluginRegistry createPluginRegistry() {
         return new DefaultPluginRegistry(gradle.getScriptClassLoader());
     }
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.project;
+
+import org.gradle.internal.service.ServiceRegistry;
+
+/**
+ * Contributes the services of a plugin module to the build process and to each build. An implementation is located using the {@code
+ * META-INF/services/org.gradle.api.internal.project.PluginServiceRegistry} resource of the plugins class loader.
+ */
+public interface PluginServiceRegistry {
+    /**
+     * Creates the services which are shared by all builds run by the build process. The returned registry is closed
+     * when the process no longer runs builds.
+     *
+     * @param globalServices The services of the build process, which the returned services can use.
+     */
+    ServiceRegistry createGlobalServices(ServiceRegistry globalServices);
+
+    /**
+     * Creates the services which are shared by all projects of a build. The returned registry is closed when the build
+     * has finished.
+     *
+     * @param buildServices The services of the build, which the returned services can use.
+     */
+    ServiceRegistry createBuildServices(ServiceRegistry buildServices);
+}
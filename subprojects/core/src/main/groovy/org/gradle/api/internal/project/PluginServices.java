@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.project;
+
+import org.gradle.initialization.ClassLoaderRegistry;
+import org.gradle.internal.CompositeStoppable;
+import org.gradle.internal.Factory;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+import org.gradle.internal.service.UnknownServiceException;
+import org.gradle.util.ServiceLocator;
+
+/**
+ * The services contributed by the plugin modules, which are created when a service is first requested that the
+ * owning registry does not provide itself.
+ */
+abstract class PluginServices implements ServiceRegistry {
+    private final ServiceRegistry parent;
+    private ServiceRegistry services;
+
+    PluginServices(ServiceRegistry parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Creates the services which the given plugin module contributes to the owning registry.
+     */
+    protected abstract ServiceRegistry createServices(PluginServiceRegistry pluginServiceRegistry);
+
+    public <T> T get(Class<T> serviceType) throws UnknownServiceException {
+        return getServices().get(serviceType);
+    }
+
+    public <T> Factory<T> getFactory(Class<T> type) throws UnknownServiceException {
+        return getServices().getFactory(type);
+    }
+
+    public <T> T newInstance(Class<T> type) throws UnknownServiceException {
+        return getServices().newInstance(type);
+    }
+
+    private synchronized ServiceRegistry getServices() {
+        if (services == null) {
+            ClassLoader pluginsClassLoader = parent.get(ClassLoaderRegistry.class).getPluginsClassLoader();
+            ServiceLocator.ServiceFactory<PluginServiceRegistry> factory = pluginsClassLoader == null ? null : new ServiceLocator(pluginsClassLoader).findFactory(PluginServiceRegistry.class);
+            services = factory == null ? new DefaultServiceRegistry() : createServices(factory.create());
+        }
+        return services;
+    }
+
+    public synchronized void close() {
+        if (services != null) {
+            new CompositeStoppable(services).stop();
+        }
+    }
+}
@@ -39,6 +39,8 @@ public interface ProjectInternal extends Project, ProjectIdentifier, ScriptAware
 
     Project evaluate();
 
+    ProjectStateInternal getState();
+
     TaskContainerInternal getTasks();
 
     TaskContainerInternal getImplicitTasks();
@@ -32,6 +32,7 @@ import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvid
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.file.*;
 import org.gradle.api.internal.initialization.DefaultScriptHandlerFactory;
+import org.gradle.api.internal.initialization.ScopedClassLoaderCache;
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
 import org.gradle.api.internal.initialization.ScriptHandlerFactory;
 import org.gradle.api.internal.initialization.ScriptHandlerInternal;
@@ -138,7 +139,8 @@ public class ProjectInternalServiceRegistry extends DefaultServiceRegistry imple
         ScriptHandlerFactory factory = new DefaultScriptHandlerFactory(
                 get(DependencyManagementServices.class),
                 get(FileResolver.class),
-                get(DependencyMetaDataProvider.class));
+                get(DependencyMetaDataProvider.class),
+                get(ScopedClassLoaderCache.class));
         ClassLoader parentClassLoader;
         if (project.getParent() != null) {
             parentClassLoader = project.getParent().getBuildscript().getClassLoader();
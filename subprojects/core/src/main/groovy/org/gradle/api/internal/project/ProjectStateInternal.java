@@ -20,9 +20,11 @@ import org.gradle.api.ProjectState;
 import org.gradle.internal.UncheckedException;
 
 public class ProjectStateInternal implements ProjectState {
-    private boolean executing;
-    private boolean executed;
-    private Throwable failure;
+    private volatile boolean executing;
+    private volatile Thread executingThread;
+    private volatile Thread evaluatingThread;
+    private volatile boolean executed;
+    private volatile Throwable failure;
 
     public boolean getExecuted() {
         return executed;
@@ -43,9 +45,33 @@ public class ProjectStateInternal implements ProjectState {
     }
 
     public void setExecuting(boolean executing) {
+        this.executingThread = executing ? Thread.currentThread() : null;
         this.executing = executing;
     }
 
+    /**
+     * Returns true when the project is being evaluated by the current thread.
+     */
+    public boolean isExecutingOnCurrentThread() {
+        return executing && executingThread == Thread.currentThread();
+    }
+
+    /**
+     * Records the thread which owns the evaluation of the project, from before its evaluation listeners are notified
+     * until after they have been notified.
+     */
+    public void setEvaluatingThread(Thread evaluatingThread) {
+        this.evaluatingThread = evaluatingThread;
+    }
+
+    /**
+     * Returns true when the evaluation of the project, including the notification of its evaluation listeners, is owned
+     * by the current thread.
+     */
+    public boolean isEvaluatingOnCurrentThread() {
+        return evaluatingThread == Thread.currentThread();
+    }
+
     public Throwable getFailure() {
         return failure;
     }
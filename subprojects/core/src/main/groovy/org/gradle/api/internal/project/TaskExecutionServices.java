@@ -54,13 +54,23 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
         return new DefaultTaskArtifactStateCacheAccess(gradle, get(CacheRepository.class));
     }
 
+    protected FileSnapshotter createFileSnapshotter() {
+        return new DefaultFileSnapshotter(
+                new CachingHasher(
+                        new DefaultHasher(),
+                        get(TaskArtifactStateCacheAccess.class)));
+    }
+
     protected TaskArtifactStateRepository createTaskArtifactStateRepository() {
         TaskArtifactStateCacheAccess cacheAccess = get(TaskArtifactStateCacheAccess.class);
 
-        FileSnapshotter fileSnapshotter = new DefaultFileSnapshotter(
+        FileSnapshotter fileSnapshotter = get(FileSnapshotter.class);
+
+        FileSnapshotter compileClasspathSnapshotter = new DefaultFileSnapshotter(
                 new CachingHasher(
-                        new DefaultHasher(),
-                        cacheAccess));
+                        new AbiHasher(new DefaultHasher()),
+                        cacheAccess,
+                        "abiHashes"));
 
         FileSnapshotter outputFilesSnapshotter = new OutputFilesSnapshotter(fileSnapshotter, new RandomLongIdGenerator(), cacheAccess);
 
@@ -72,7 +82,8 @@ public class TaskExecutionServices extends DefaultServiceRegistry {
                         new DefaultTaskArtifactStateRepository(
                                 taskHistoryRepository,
                                 fileSnapshotter,
-                                outputFilesSnapshotter)),
+                                outputFilesSnapshotter,
+                                compileClasspathSnapshotter)),
                 new DefaultFileCacheListener());
     }
 }
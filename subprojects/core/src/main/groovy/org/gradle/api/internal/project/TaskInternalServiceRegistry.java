@@ -17,11 +17,11 @@
 package org.gradle.api.internal.project;
 
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.TaskInputsInternal;
 import org.gradle.api.internal.TaskOutputsInternal;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.api.internal.tasks.DefaultTaskInputs;
 import org.gradle.api.internal.tasks.DefaultTaskOutputs;
-import org.gradle.api.tasks.TaskInputs;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.logging.LoggingManagerInternal;
 
@@ -38,7 +38,7 @@ public class TaskInternalServiceRegistry extends DefaultServiceRegistry implemen
         this.taskInternal = taskInternal;
     }
 
-    protected TaskInputs createTaskInputs() {
+    protected TaskInputsInternal createTaskInputs() {
         return new DefaultTaskInputs(project.getFileResolver(), taskInternal);
     }
 
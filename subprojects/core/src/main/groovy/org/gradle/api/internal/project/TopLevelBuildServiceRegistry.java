@@ -27,7 +27,9 @@ import org.gradle.api.internal.classpath.ModuleRegistry;
 import org.gradle.api.internal.classpath.PluginModuleRegistry;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.IdentityFileResolver;
+import org.gradle.api.internal.initialization.ClassLoaderCache;
 import org.gradle.api.internal.initialization.DefaultScriptHandlerFactory;
+import org.gradle.api.internal.initialization.ScopedClassLoaderCache;
 import org.gradle.api.internal.initialization.ScriptHandlerFactory;
 import org.gradle.api.internal.project.taskfactory.AnnotationProcessingTaskFactory;
 import org.gradle.api.internal.project.taskfactory.DependencyAutoWireTaskFactory;
@@ -74,6 +76,12 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         super(parent);
         this.startParameter = startParameter;
         add(StartParameter.class, startParameter);
+        add(new PluginServices(parent) {
+            @Override
+            protected ServiceRegistry createServices(PluginServiceRegistry pluginServiceRegistry) {
+                return pluginServiceRegistry.createBuildServices(TopLevelBuildServiceRegistry.this);
+            }
+        });
     }
 
     protected ImportsReader createImportsReader() {
@@ -116,9 +124,12 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
 
     protected BuildLoader createBuildLoader() {
-        return new ProjectPropertySettingBuildLoader(
-                get(IGradlePropertiesLoader.class),
-                new InstantiatingBuildLoader(get(IProjectFactory.class)));
+        return new ScriptPrecompilingBuildLoader(
+                new ProjectPropertySettingBuildLoader(
+                        get(IGradlePropertiesLoader.class),
+                        new InstantiatingBuildLoader(get(IProjectFactory.class))),
+                get(ScriptPrecompiler.class),
+                get(ImportsReader.class));
     }
 
     protected CacheFactory createCacheFactory() {
@@ -132,9 +143,13 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
     }
     
     protected ProjectEvaluator createProjectEvaluator() {
-        return new LifecycleProjectEvaluator(
+        ProjectEvaluator evaluator = new LifecycleProjectEvaluator(
                 new BuildScriptProcessor(
                         get(ScriptPluginFactory.class)));
+        if (startParameter.isParallelProjectEvaluation()) {
+            return new ConcurrentProjectEvaluator(evaluator);
+        }
+        return evaluator;
     }
 
     protected ITaskFactory createITaskFactory() {
@@ -144,9 +159,24 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                                 get(ClassGenerator.class))));
     }
 
+    protected EmptyScriptGenerator createEmptyScriptGenerator() {
+        return new AsmBackedEmptyScriptGenerator();
+    }
+
+    protected ScriptCompilationHandler createScriptCompilationHandler() {
+        return new DefaultScriptCompilationHandler(get(EmptyScriptGenerator.class));
+    }
+
+    protected ScriptPrecompiler createScriptPrecompiler() {
+        return new ScriptPrecompiler(
+                get(ScriptCompilationHandler.class),
+                get(ScriptSourceHasher.class),
+                get(ExecutorFactory.class));
+    }
+
     protected ScriptCompilerFactory createScriptCompileFactory() {
         ScriptExecutionListener scriptExecutionListener = get(ListenerManager.class).getBroadcaster(ScriptExecutionListener.class);
-        EmptyScriptGenerator emptyScriptGenerator = new AsmBackedEmptyScriptGenerator();
+        EmptyScriptGenerator emptyScriptGenerator = get(EmptyScriptGenerator.class);
         CacheValidator scriptCacheInvalidator =  new CacheValidator() {
             public boolean isValid() {
                 return !get(StartParameter.class).isRecompileScripts();
@@ -158,8 +188,9 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                                 new FileCacheBackedScriptClassCompiler(
                                         get(CacheRepository.class),
                                         scriptCacheInvalidator,
-                                        new DefaultScriptCompilationHandler(
-                                                emptyScriptGenerator)),
+                                        get(ScriptCompilationHandler.class),
+                                        get(ScriptSourceHasher.class),
+                                        get(ScriptPrecompiler.class)),
                                 emptyScriptGenerator)),
                 new DefaultScriptRunnerFactory(scriptExecutionListener));
     }
@@ -170,7 +201,12 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
                 get(ImportsReader.class),
                 get(ScriptHandlerFactory.class),
                 get(ClassLoader.class),
-                getFactory(LoggingManagerInternal.class));
+                getFactory(LoggingManagerInternal.class),
+                get(AppliedScripts.class));
+    }
+
+    protected AppliedScripts createAppliedScripts() {
+        return new AppliedScripts();
     }
 
     protected MultiParentClassLoader createRootClassLoader() {
@@ -203,11 +239,16 @@ public class TopLevelBuildServiceRegistry extends DefaultServiceRegistry impleme
         return new DefaultExceptionAnalyser(get(ListenerManager.class));
     }
 
+    protected ScopedClassLoaderCache createScopedClassLoaderCache() {
+        return new ScopedClassLoaderCache(get(ClassLoaderCache.class));
+    }
+
     protected ScriptHandlerFactory createScriptHandlerFactory() {
         return new DefaultScriptHandlerFactory(
                 get(DependencyManagementServices.class),
                 get(FileResolver.class),
-                new DependencyMetaDataProviderImpl());
+                new DependencyMetaDataProviderImpl(),
+                get(ScopedClassLoaderCache.class));
     }
 
     protected FileResolver createFileResolver() {
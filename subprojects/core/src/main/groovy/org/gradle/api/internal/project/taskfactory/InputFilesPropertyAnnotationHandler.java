@@ -16,6 +16,8 @@
 package org.gradle.api.internal.project.taskfactory;
 
 import org.gradle.api.Task;
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.tasks.CompileClasspath;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.SkipWhenEmpty;
 
@@ -29,10 +31,13 @@ public class InputFilesPropertyAnnotationHandler implements PropertyAnnotationHa
 
     public void attachActions(PropertyActionContext context) {
         final boolean isSourceFiles = context.getTarget().getAnnotation(SkipWhenEmpty.class) != null;
+        final boolean isCompileClasspath = context.getTarget().getAnnotation(CompileClasspath.class) != null;
         context.setConfigureAction(new UpdateAction() {
             public void update(Task task, Callable<Object> futureValue) {
                 if (isSourceFiles) {
                     task.getInputs().source(futureValue);
+                } else if (isCompileClasspath) {
+                    ((TaskInternal) task).getInputs().compileClasspath(futureValue);
                 } else {
                     task.getInputs().files(futureValue);
                 }
@@ -17,6 +17,7 @@ package org.gradle.api.internal.tasks;
 
 import groovy.lang.Closure;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskInputsInternal;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.UnionFileCollection;
@@ -28,9 +29,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
-public class DefaultTaskInputs implements TaskInputs {
+public class DefaultTaskInputs implements TaskInputsInternal {
     private final DefaultConfigurableFileCollection inputFiles;
     private final DefaultConfigurableFileCollection sourceFiles;
+    private final DefaultConfigurableFileCollection compileClasspathFiles;
     private final FileResolver resolver;
     private final Map<String, Object> properties = new HashMap<String, Object>();
 
@@ -38,16 +40,30 @@ public class DefaultTaskInputs implements TaskInputs {
         this.resolver = resolver;
         inputFiles = new DefaultConfigurableFileCollection(String.format("%s input files", task), resolver, null);
         sourceFiles = new DefaultConfigurableFileCollection(String.format("%s source files", task), resolver, null);
+        compileClasspathFiles = new DefaultConfigurableFileCollection(String.format("%s compile classpath files", task), resolver, null);
     }
 
     public boolean getHasInputs() {
-        return !inputFiles.getFrom().isEmpty() || !properties.isEmpty() || !sourceFiles.getFrom().isEmpty();
+        return !inputFiles.getFrom().isEmpty() || !properties.isEmpty() || !sourceFiles.getFrom().isEmpty() || !compileClasspathFiles.getFrom().isEmpty();
     }
 
     public FileCollection getFiles() {
+        return new UnionFileCollection(inputFiles, sourceFiles, compileClasspathFiles);
+    }
+
+    public FileCollection getNonCompileClasspathFiles() {
         return new UnionFileCollection(inputFiles, sourceFiles);
     }
 
+    public FileCollection getCompileClasspathFiles() {
+        return compileClasspathFiles;
+    }
+
+    public TaskInputsInternal compileClasspath(Object... paths) {
+        compileClasspathFiles.from(paths);
+        return this;
+    }
+
     public TaskInputs files(Object... paths) {
         inputFiles.from(paths);
         return this;
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.groovy.scripts.ScriptSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records the scripts which have been applied during a build, including the scripts applied by other scripts.
+ */
+public class AppliedScripts {
+    private final Set<ScriptSource> scripts = new LinkedHashSet<ScriptSource>();
+
+    public synchronized void add(ScriptSource source) {
+        scripts.add(source);
+    }
+
+    /**
+     * Returns the scripts applied so far, in the order they were first applied.
+     */
+    public synchronized List<ScriptSource> getScripts() {
+        return new ArrayList<ScriptSource>(scripts);
+    }
+}
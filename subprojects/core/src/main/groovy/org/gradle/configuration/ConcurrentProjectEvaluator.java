@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.CircularReferenceException;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ProjectEvaluator} which allows projects to be evaluated by multiple threads. A project is evaluated by one
+ * thread at a time: a thread which requires a project that is being evaluated by another thread, for example through
+ * {@code evaluationDependsOn()}, waits for that evaluation to complete. A cycle of threads waiting for each other's
+ * projects is reported as a circular reference, as it would be when the projects are evaluated sequentially.
+ */
+public class ConcurrentProjectEvaluator implements ProjectEvaluator {
+    private final ProjectEvaluator evaluator;
+    private final Object lock = new Object();
+    private final Map<ProjectInternal, Thread> evaluating = new HashMap<ProjectInternal, Thread>();
+    private final Map<Thread, ProjectInternal> waitingFor = new HashMap<Thread, ProjectInternal>();
+
+    public ConcurrentProjectEvaluator(ProjectEvaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public void evaluate(ProjectInternal project, ProjectStateInternal state) {
+        boolean owner;
+        synchronized (lock) {
+            owner = waitForEvaluation(project);
+            if (owner) {
+                if (state.getExecuted()) {
+                    return;
+                }
+                evaluating.put(project, Thread.currentThread());
+            }
+        }
+        if (!owner) {
+            // A nested evaluation of the project, on the thread which is evaluating it
+            evaluator.evaluate(project, state);
+            return;
+        }
+        try {
+            evaluator.evaluate(project, state);
+        } finally {
+            synchronized (lock) {
+                evaluating.remove(project);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until the given project is not being evaluated by another thread.
+     *
+     * @return false when the project is being evaluated by the current thread.
+     */
+    private boolean waitForEvaluation(ProjectInternal project) {
+        Thread currentThread = Thread.currentThread();
+        Thread owner = evaluating.get(project);
+        if (owner == currentThread) {
+            return false;
+        }
+        while (owner != null) {
+            assertNoCycle(project, owner);
+            waitingFor.put(currentThread, project);
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } finally {
+                waitingFor.remove(currentThread);
+            }
+            owner = evaluating.get(project);
+        }
+        return true;
+    }
+
+    private void assertNoCycle(ProjectInternal project, Thread owner) {
+        Thread thread = owner;
+        while (thread != null) {
+            if (thread == Thread.currentThread()) {
+                throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
+                        project));
+            }
+            ProjectInternal blockedOn = waitingFor.get(thread);
+            thread = blockedOn == null ? null : evaluating.get(blockedOn);
+        }
+    }
+}
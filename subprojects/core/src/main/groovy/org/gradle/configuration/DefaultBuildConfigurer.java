@@ -17,14 +17,24 @@ package org.gradle.configuration;
 
 import org.gradle.api.Action;
 import org.gradle.api.Project;
+import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.ProjectState;
+import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.execution.TaskGraphCache;
+import org.gradle.messaging.concurrent.DefaultExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class DefaultBuildConfigurer implements BuildConfigurer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBuildConfigurer.class);
     private List<Action<? super ProjectInternal>> actions;
 
     public DefaultBuildConfigurer(Action<? super ProjectInternal>... actions) {
@@ -32,12 +42,139 @@ public class DefaultBuildConfigurer implements BuildConfigurer {
     }
 
     public void configure(GradleInternal gradle) {
+        if (gradle.getStartParameter().isCacheTaskGraph()) {
+            TaskGraphCache taskGraphCache = gradle.getServices().get(TaskGraphCache.class);
+            List<String> taskPaths = taskGraphCache.load();
+            if (taskPaths != null) {
+                configureForTasks(gradle, taskGraphCache, taskPaths);
+                return;
+            }
+        }
+        if (gradle.getStartParameter().isConfigureOnDemand()) {
+            configureOnDemand(gradle);
+            return;
+        }
+        if (gradle.getStartParameter().isParallelProjectEvaluation()) {
+            configureInParallel(gradle);
+            return;
+        }
         gradle.getRootProject().allprojects(new Action<Project>() {
             public void execute(Project project) {
-                for (Action<? super ProjectInternal> action : actions) {
-                    action.execute((ProjectInternal) project);
+                configure((ProjectInternal) project);
+            }
+        });
+    }
+
+    /**
+     * Configures the root project only. Other projects are configured as they are evaluated, when they are required by
+     * the selected tasks. See {@link OnDemandProjectEvaluation}.
+     */
+    private void configureOnDemand(GradleInternal gradle) {
+        configureWhenEvaluated(gradle);
+        gradle.getRootProject().evaluate();
+    }
+
+    /**
+     * Configures the root project, the projects which own the tasks of the cached plan and the projects recorded with the
+     * plan, along with their parent projects. The projects are configured in the same order as when configuring all
+     * projects. When one of the projects or tasks cannot be found, configures the remaining projects and does not use
+     * the cached plan.
+     */
+    private void configureForTasks(GradleInternal gradle, TaskGraphCache taskGraphCache, List<String> taskPaths) {
+        configureWhenEvaluated(gradle);
+        ProjectInternal rootProject = gradle.getRootProject();
+
+        Set<String> projectPaths = new HashSet<String>(taskGraphCache.getConfiguredProjectPaths());
+        for (String taskPath : taskPaths) {
+            projectPaths.add(getProjectPath(taskPath));
+        }
+        Set<ProjectInternal> projects = new HashSet<ProjectInternal>();
+        projects.add(rootProject);
+        for (String projectPath : projectPaths) {
+            ProjectInternal project = rootProject.findProject(projectPath);
+            if (project == null) {
+                configureAll(rootProject, String.format("project %s", projectPath));
+                return;
+            }
+            for (; project != null; project = project.getParent()) {
+                projects.add(project);
+            }
+        }
+        for (Project project : rootProject.getAllprojects()) {
+            if (projects.contains(project)) {
+                ((ProjectInternal) project).evaluate();
+            }
+        }
+
+        List<Task> tasks = new ArrayList<Task>(taskPaths.size());
+        for (String taskPath : taskPaths) {
+            Task task = findTask(rootProject.findProject(getProjectPath(taskPath)), taskPath);
+            if (task == null) {
+                configureAll(rootProject, String.format("task %s", taskPath));
+                return;
+            }
+            tasks.add(task);
+        }
+        taskGraphCache.useCachedTasks(tasks);
+    }
+
+    private void configureAll(ProjectInternal rootProject, String missing) {
+        LOGGER.info("Cannot locate {} of the cached task graph. Configuring all projects.", missing);
+        rootProject.allprojects(new Action<Project>() {
+            public void execute(Project project) {
+                ((ProjectInternal) project).evaluate();
+            }
+        });
+    }
+
+    private String getProjectPath(String taskPath) {
+        int separator = taskPath.lastIndexOf(Project.PATH_SEPARATOR);
+        return separator == 0 ? Project.PATH_SEPARATOR : taskPath.substring(0, separator);
+    }
+
+    private Task findTask(ProjectInternal project, String taskPath) {
+        String taskName = taskPath.substring(taskPath.lastIndexOf(Project.PATH_SEPARATOR) + 1);
+        Task task = project.getTasks().findByName(taskName);
+        return task != null ? task : project.getImplicitTasks().findByName(taskName);
+    }
+
+    /**
+     * Applies the configuration actions to each project once it has been evaluated.
+     */
+    private void configureWhenEvaluated(GradleInternal gradle) {
+        gradle.addProjectEvaluationListener(new ProjectEvaluationListener() {
+            public void beforeEvaluate(Project project) {
+            }
+
+            public void afterEvaluate(Project project, ProjectState state) {
+                if (state.getFailure() == null) {
+                    configure((ProjectInternal) project);
                 }
             }
         });
     }
+
+    /**
+     * Configures the root project, and then the remaining projects using a number of worker threads. See {@link
+     * ParallelProjectConfigurer}.
+     */
+    private void configureInParallel(GradleInternal gradle) {
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+        try {
+            int maxWorkers = Runtime.getRuntime().availableProcessors();
+            new ParallelProjectConfigurer(executorFactory, maxWorkers).configure(gradle.getRootProject(), new Action<ProjectInternal>() {
+                public void execute(ProjectInternal project) {
+                    configure(project);
+                }
+            });
+        } finally {
+            executorFactory.stop();
+        }
+    }
+
+    private void configure(ProjectInternal project) {
+        for (Action<? super ProjectInternal> action : actions) {
+            action.execute(project);
+        }
+    }
 }
@@ -32,17 +32,20 @@ public class DefaultScriptPluginFactory implements ScriptPluginFactory {
     private final ScriptHandlerFactory scriptHandlerFactory;
     private final ClassLoader defaultClassLoader;
     private final Factory<LoggingManagerInternal> loggingManagerFactory;
+    private final AppliedScripts appliedScripts;
 
     public DefaultScriptPluginFactory(ScriptCompilerFactory scriptCompilerFactory,
                                                 ImportsReader importsReader,
                                                 ScriptHandlerFactory scriptHandlerFactory,
                                                 ClassLoader defaultClassLoader,
-                                                Factory<LoggingManagerInternal> loggingManagerFactory) {
+                                                Factory<LoggingManagerInternal> loggingManagerFactory,
+                                                AppliedScripts appliedScripts) {
         this.scriptCompilerFactory = scriptCompilerFactory;
         this.importsReader = importsReader;
         this.scriptHandlerFactory = scriptHandlerFactory;
         this.defaultClassLoader = defaultClassLoader;
         this.loggingManagerFactory = loggingManagerFactory;
+        this.appliedScripts = appliedScripts;
     }
 
     public ScriptPlugin create(ScriptSource scriptSource) {
@@ -85,6 +88,8 @@ public class DefaultScriptPluginFactory implements ScriptPluginFactory {
         }
 
         public void apply(Object target) {
+            appliedScripts.add(scriptSource);
+
             DefaultServiceRegistry services = new DefaultServiceRegistry();
             services.add(ScriptPluginFactory.class, DefaultScriptPluginFactory.this);
             services.add(LoggingManagerInternal.class, loggingManagerFactory.create());
@@ -20,8 +20,9 @@ import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
 
 /**
- * Manages lifecycle concerns while delegating actual evaluation to another evaluator
- * 
+ * Manages lifecycle concerns while delegating actual evaluation to another evaluator. Records the current thread as
+ * the thread which evaluates the project while the evaluation listeners are notified and the project is evaluated.
+ *
  * @see org.gradle.api.internal.project.TopLevelBuildServiceRegistry#createProjectEvaluator()
  */
 public class LifecycleProjectEvaluator implements ProjectEvaluator {
@@ -36,15 +37,25 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
             return;
         }
 
-        ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
-        listener.beforeEvaluate(project);
-        state.setExecuting(true);
+        boolean owner = !state.isEvaluatingOnCurrentThread();
+        if (owner) {
+            state.setEvaluatingThread(Thread.currentThread());
+        }
         try {
-            evaluator.evaluate(project, state);
+            ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
+            listener.beforeEvaluate(project);
+            state.setExecuting(true);
+            try {
+                evaluator.evaluate(project, state);
+            } finally {
+                state.setExecuting(false);
+                state.executed();
+                listener.afterEvaluate(project, state);
+            }
         } finally {
-            state.setExecuting(false);
-            state.executed();
-            listener.afterEvaluate(project, state);
+            if (owner) {
+                state.setEvaluatingThread(null);
+            }
         }
     }
 }
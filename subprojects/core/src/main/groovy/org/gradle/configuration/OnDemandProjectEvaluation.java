@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
+
+/**
+ * Evaluates projects as they are discovered, when the build is configured on demand. When the build is not configured
+ * on demand, all projects are evaluated by the {@link BuildConfigurer} and the methods of this class do nothing.
+ */
+public class OnDemandProjectEvaluation {
+    private OnDemandProjectEvaluation() {
+    }
+
+    /**
+     * Evaluates the given project, if the build is configured on demand and the project has not been evaluated yet. The
+     * parents of the project are evaluated first, as they may configure the project. A project which is currently being
+     * evaluated is ignored.
+     */
+    public static void evaluate(ProjectInternal project) {
+        if (!project.getGradle().getStartParameter().isConfigureOnDemand()) {
+            return;
+        }
+        evaluateWithParents(project);
+    }
+
+    private static void evaluateWithParents(ProjectInternal project) {
+        if (project.getParent() != null) {
+            evaluateWithParents(project.getParent());
+        }
+        ProjectStateInternal state = project.getState();
+        if (state.getExecuted() || state.getExecuting()) {
+            return;
+        }
+        project.evaluate();
+    }
+}
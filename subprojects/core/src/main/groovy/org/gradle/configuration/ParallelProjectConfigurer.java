@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration;
+
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+import java.util.LinkedList;
+import java.util.TreeMap;
+
+/**
+ * Applies an action to each project of a build using a number of worker threads. The root project is configured first,
+ * on the calling thread. Each other project is configured after its parent project, so that any configuration injected
+ * by the parent is applied before the project's own build script is evaluated. Sibling projects are configured
+ * concurrently.
+ *
+ * <p>When the action fails for a project, no further projects are started, and the first failure is rethrown once the
+ * projects already started have completed.</p>
+ */
+public class ParallelProjectConfigurer {
+    private final ExecutorFactory executorFactory;
+    private final int maxWorkers;
+
+    public ParallelProjectConfigurer(ExecutorFactory executorFactory, int maxWorkers) {
+        this.executorFactory = executorFactory;
+        this.maxWorkers = maxWorkers;
+    }
+
+    public void configure(ProjectInternal rootProject, Action<? super ProjectInternal> action) {
+        action.execute(rootProject);
+
+        int projectCount = rootProject.getSubprojects().size();
+        int workerCount = Math.min(maxWorkers, projectCount);
+        if (workerCount == 0) {
+            return;
+        }
+
+        ProjectQueue queue = new ProjectQueue(rootProject, projectCount, action);
+        StoppableExecutor executor = executorFactory.create("Project evaluation");
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(queue);
+            }
+        } finally {
+            executor.stop();
+        }
+        queue.rethrowFailure();
+    }
+
+    private static class ProjectQueue implements Runnable {
+        private final Action<? super ProjectInternal> action;
+        private final LinkedList<ProjectInternal> ready = new LinkedList<ProjectInternal>();
+        private int remaining;
+        private Throwable failure;
+
+        private ProjectQueue(ProjectInternal rootProject, int projectCount, Action<? super ProjectInternal> action) {
+            this.action = action;
+            this.remaining = projectCount;
+            addChildren(rootProject);
+        }
+
+        public void run() {
+            ProjectInternal project;
+            while ((project = next()) != null) {
+                Throwable projectFailure = null;
+                try {
+                    action.execute(project);
+                } catch (Throwable t) {
+                    projectFailure = t;
+                }
+                completed(project, projectFailure);
+            }
+        }
+
+        private synchronized ProjectInternal next() {
+            while (ready.isEmpty() && remaining > 0 && failure == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (failure != null || ready.isEmpty()) {
+                return null;
+            }
+            return ready.removeFirst();
+        }
+
+        private synchronized void completed(ProjectInternal project, Throwable projectFailure) {
+            remaining--;
+            if (projectFailure != null) {
+                if (failure == null) {
+                    failure = projectFailure;
+                }
+            } else {
+                addChildren(project);
+            }
+            notifyAll();
+        }
+
+        private void addChildren(ProjectInternal project) {
+            for (Project child : new TreeMap<String, Project>(project.getChildProjects()).values()) {
+                ready.add((ProjectInternal) child);
+            }
+        }
+
+        synchronized void rethrowFailure() {
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+        }
+    }
+}
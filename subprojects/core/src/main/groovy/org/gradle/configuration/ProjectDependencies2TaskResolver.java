@@ -19,6 +19,7 @@ package org.gradle.configuration;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.internal.project.ProjectInternal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +32,7 @@ public class ProjectDependencies2TaskResolver implements Action<Project> {
     public void execute(Project project) {
         for (Project dependsOnProject : project.getDependsOnProjects()) {
             logger.debug("Checking task dependencies for project: {} dependsOn: {}", project, dependsOnProject);
+            OnDemandProjectEvaluation.evaluate((ProjectInternal) dependsOnProject);
             for (Task task : project.getTasks()) {
                 String taskName = task.getName();
                 Task dependentTask = dependsOnProject.getTasks().findByName(taskName);
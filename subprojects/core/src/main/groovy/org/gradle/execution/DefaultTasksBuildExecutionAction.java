@@ -18,6 +18,7 @@ package org.gradle.execution;
 import org.gradle.StartParameter;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.configuration.ImplicitTasksConfigurer;
+import org.gradle.configuration.OnDemandProjectEvaluation;
 import org.gradle.util.GUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +42,7 @@ public class DefaultTasksBuildExecutionAction implements BuildConfigurationActio
 
         // Gather the default tasks from this first group project
         ProjectInternal project = context.getGradle().getDefaultProject();
+        OnDemandProjectEvaluation.evaluate(project);
         List<String> defaultTasks = project.getDefaultTasks();
         if (defaultTasks.size() == 0) {
             defaultTasks = Arrays.asList(ImplicitTasksConfigurer.HELP_TASK);
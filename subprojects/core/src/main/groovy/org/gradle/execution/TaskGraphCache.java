@@ -0,0 +1,317 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.StartParameter;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.configuration.AppliedScripts;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.UncheckedException;
+import org.gradle.util.hash.HashUtil;
+import org.gradle.util.hash.HashValue;
+
+import java.io.File;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.*;
+
+/**
+ * Caches the execution plan of a build, as the paths of the planned tasks in execution order. Plans are cached per
+ * requested tasks and task selection options, along with a fingerprint of the inputs which determine the plan: the
+ * start parameters, the content of the settings, build and init scripts and of the {@code gradle.properties} files,
+ * and the script classpath, which includes the output of buildSrc. The content of every other script file applied
+ * while the plan was calculated is recorded with the plan. A cached plan is only used when the fingerprint of the
+ * current build matches and none of the recorded scripts have changed.
+ *
+ * <p>A plan only requires the projects which own its tasks to be configured. While a plan is calculated, the projects
+ * which access the model of another project are recorded with the plan, as are the projects whose model is accessed
+ * once they have been configured and no project is being evaluated, such as from a {@code projectsEvaluated} hook.
+ * These projects are configured as well when the plan is used. A project accessing the model of one of its
+ * subprojects is not recorded, as the parents of a project are always configured before the project.</p>
+ *
+ * <p>A plan is not cached when a script applied from a location other than a file contributed to it. Environment
+ * variables read by the build scripts are not part of the fingerprint.</p>
+ */
+public class TaskGraphCache {
+    private static final String MISSING = "missing";
+    private final GradleInternal gradle;
+    private final CacheRepository cacheRepository;
+    private final AppliedScripts appliedScripts;
+    private PersistentIndexedCache<String, CachedTaskGraph> cache;
+    private String requestKey;
+    private String fingerprint;
+    private List<Task> cachedTasks;
+    private Set<String> cachedProjectPaths;
+    private final Set<String> projectPaths = new HashSet<String>();
+    private volatile boolean recording = true;
+
+    public TaskGraphCache(GradleInternal gradle, CacheRepository cacheRepository, AppliedScripts appliedScripts) {
+        this.gradle = gradle;
+        this.cacheRepository = cacheRepository;
+        this.appliedScripts = appliedScripts;
+    }
+
+    /**
+     * Returns the paths of the tasks of the plan cached for this build, in execution order. Must be called once the
+     * projects of the build have been loaded.
+     *
+     * @return The task paths, or null when there is no usable cached plan.
+     */
+    public List<String> load() {
+        if (!isCacheable()) {
+            return null;
+        }
+        CachedTaskGraph taskGraph = getCache().get(getRequestKey());
+        if (taskGraph == null || !taskGraph.fingerprint.equals(getFingerprint())) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : taskGraph.scriptHashes.entrySet()) {
+            if (!hash(new File(entry.getKey())).equals(entry.getValue())) {
+                return null;
+            }
+        }
+        cachedProjectPaths = taskGraph.projectPaths;
+        return taskGraph.taskPaths;
+    }
+
+    /**
+     * Returns the paths of the projects, other than the owners of the tasks, which need to be configured in order to use
+     * the plan returned by {@link #load()}.
+     */
+    public Set<String> getConfiguredProjectPaths() {
+        return cachedProjectPaths;
+    }
+
+    /**
+     * Records an access to the model of the given project, while the plan for this build is being calculated.
+     */
+    public void modelAccessed(ProjectInternal project) {
+        if (!recording || project.getState().isEvaluatingOnCurrentThread()) {
+            return;
+        }
+        boolean evaluating = false;
+        for (ProjectInternal accessor : gradle.getProjectRegistry().getAllProjects()) {
+            if (accessor.getState().isEvaluatingOnCurrentThread()) {
+                evaluating = true;
+                if (!isParent(accessor, project)) {
+                    record(accessor);
+                }
+            }
+        }
+        if (!evaluating && project.getState().getExecuted()) {
+            record(project);
+        }
+    }
+
+    private static boolean isParent(ProjectInternal candidate, ProjectInternal project) {
+        for (ProjectInternal parent = project.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent == candidate) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void record(ProjectInternal project) {
+        synchronized (projectPaths) {
+            projectPaths.add(project.getPath());
+        }
+    }
+
+    /**
+     * Records the tasks of the cached plan, once they have been located in the configured projects.
+     */
+    public void useCachedTasks(List<Task> tasks) {
+        recording = false;
+        cachedTasks = tasks;
+    }
+
+    /**
+     * Returns the tasks of the cached plan, or null when the plan for this build needs to be calculated.
+     */
+    public List<Task> getCachedTasks() {
+        return cachedTasks;
+    }
+
+    /**
+     * Caches the given tasks as the plan for this build.
+     */
+    public void store(Collection<? extends Task> tasks) {
+        recording = false;
+        if (!isCacheable()) {
+            return;
+        }
+        Map<String, String> scriptHashes = new TreeMap<String, String>();
+        for (ScriptSource script : appliedScripts.getScripts()) {
+            File file = script.getResource().getFile();
+            if (file != null) {
+                scriptHashes.put(file.getAbsolutePath(), hash(file));
+            } else if (script.getResource().getURI() != null) {
+                // Cannot cheaply check a remote script for changes
+                return;
+            }
+            // Otherwise, the script is a built-in default, such as the empty build script of a project without one
+        }
+        List<String> taskPaths = new ArrayList<String>(tasks.size());
+        for (Task task : tasks) {
+            taskPaths.add(task.getPath());
+        }
+        Set<String> configuredProjectPaths;
+        synchronized (projectPaths) {
+            configuredProjectPaths = new TreeSet<String>(projectPaths);
+        }
+        getCache().put(getRequestKey(), new CachedTaskGraph(getFingerprint(), scriptHashes, taskPaths, configuredProjectPaths));
+    }
+
+    private boolean isCacheable() {
+        // Command-line options for the selected tasks are applied during task selection, so cannot be replayed
+        for (String taskName : gradle.getStartParameter().getTaskNames()) {
+            if (taskName.startsWith("-")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PersistentIndexedCache<String, CachedTaskGraph> getCache() {
+        if (cache == null) {
+            cache = cacheRepository
+                    .indexedCache(String.class, CachedTaskGraph.class, "taskGraph")
+                    .forObject(gradle)
+                    .open();
+        }
+        return cache;
+    }
+
+    private String getRequestKey() {
+        if (requestKey == null) {
+            StartParameter startParameter = gradle.getStartParameter();
+            requestKey = String.format("%s;%s;%s;%s;%s", startParameter.getCurrentDir(), startParameter.getTaskNames(),
+                    new TreeSet<String>(startParameter.getExcludedTaskNames()),
+                    startParameter.isBuildProjectDependencies(), startParameter.isUseEmptySettings());
+        }
+        return requestKey;
+    }
+
+    private String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = calculateFingerprint();
+        }
+        return fingerprint;
+    }
+
+    private String calculateFingerprint() {
+        StartParameter startParameter = gradle.getStartParameter();
+        MessageDigest digest = HashUtil.createMessageDigest("MD5");
+
+        update(digest, startParameter.getBuildFile());
+        update(digest, startParameter.getSettingsFile());
+        update(digest, startParameter.getProjectDir());
+        update(digest, startParameter.isSearchUpwards());
+        update(digest, new TreeMap<String, String>(startParameter.getProjectProperties()));
+        update(digest, new TreeMap<String, String>(startParameter.getSystemPropertiesArgs()));
+
+        File settingsFile = startParameter.getSettingsFile();
+        if (settingsFile == null) {
+            settingsFile = new File(gradle.getRootProject().getProjectDir(), Settings.DEFAULT_SETTINGS_FILE);
+        }
+        updateWithContent(digest, settingsFile);
+        for (File initScript : startParameter.getInitScripts()) {
+            updateWithContent(digest, initScript);
+        }
+        File userHomeDir = startParameter.getGradleUserHomeDir();
+        updateWithContent(digest, new File(userHomeDir, "init.gradle"));
+        File[] initScripts = new File(userHomeDir, "init.d").listFiles();
+        if (initScripts != null) {
+            Arrays.sort(initScripts);
+            for (File initScript : initScripts) {
+                updateWithContent(digest, initScript);
+            }
+        }
+        updateWithContent(digest, new File(userHomeDir, Project.GRADLE_PROPERTIES));
+
+        for (Project project : new TreeSet<Project>(gradle.getRootProject().getAllprojects())) {
+            update(digest, project.getPath());
+            updateWithContent(digest, project.getBuildFile());
+            updateWithContent(digest, new File(project.getProjectDir(), Project.GRADLE_PROPERTIES));
+        }
+
+        // Jars are fingerprinted by size and timestamp, as hashing the content of the whole script classpath would
+        // cost more than it saves
+        List<URL> classpath = new ArrayList<URL>();
+        gradle.getScriptClassLoader().collectClasspath(classpath);
+        for (URL url : classpath) {
+            update(digest, url);
+            if (url.getProtocol().equals("file")) {
+                File file = toFile(url);
+                update(digest, file.length());
+                update(digest, file.lastModified());
+            }
+        }
+
+        return new HashValue(digest.digest()).asCompactString();
+    }
+
+    private static File toFile(URL url) {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, Object value) {
+        digest.update(String.valueOf(value).getBytes());
+        digest.update((byte) 0);
+    }
+
+    private static void updateWithContent(MessageDigest digest, File file) {
+        update(digest, file);
+        if (file != null && file.isFile()) {
+            digest.update(HashUtil.createHash(file, "MD5").asByteArray());
+        } else {
+            update(digest, MISSING);
+        }
+    }
+
+    private static String hash(File file) {
+        return file.isFile() ? HashUtil.createHash(file, "MD5").asHexString() : MISSING;
+    }
+
+    private static class CachedTaskGraph implements Serializable {
+        private final String fingerprint;
+        private final Map<String, String> scriptHashes;
+        private final List<String> taskPaths;
+        private final Set<String> projectPaths;
+
+        private CachedTaskGraph(String fingerprint, Map<String, String> scriptHashes, List<String> taskPaths,
+                                Set<String> projectPaths) {
+            this.fingerprint = fingerprint;
+            this.scriptHashes = scriptHashes;
+            this.taskPaths = taskPaths;
+            this.projectPaths = projectPaths;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.Task;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.specs.Spec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link BuildConfigurationAction} which populates the task graph from the plan cached by a previous build, when
+ * there is one. Otherwise, selects the tasks using the remaining actions and caches the resulting plan. See {@link
+ * TaskGraphCache}.
+ */
+public class TaskGraphCachingBuildConfigurationAction implements BuildConfigurationAction {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskGraphCachingBuildConfigurationAction.class);
+    private final TaskGraphCache taskGraphCache;
+
+    public TaskGraphCachingBuildConfigurationAction(TaskGraphCache taskGraphCache) {
+        this.taskGraphCache = taskGraphCache;
+    }
+
+    public void configure(BuildExecutionContext context) {
+        GradleInternal gradle = context.getGradle();
+        if (!gradle.getStartParameter().isCacheTaskGraph()) {
+            context.proceed();
+            return;
+        }
+
+        List<Task> cachedTasks = taskGraphCache.getCachedTasks();
+        if (cachedTasks != null) {
+            LOGGER.info("Using cached task graph.");
+            populate(gradle.getTaskGraph(), cachedTasks);
+            return;
+        }
+
+        context.proceed();
+        taskGraphCache.store(gradle.getTaskGraph().getAllTasks());
+    }
+
+    private void populate(TaskGraphExecuter executer, List<Task> tasks) {
+        // Only the cached tasks are added, so that tasks excluded from the cached plan stay excluded
+        final Set<Task> plannedTasks = new HashSet<Task>(tasks);
+        executer.useFilter(new Spec<Task>() {
+            public boolean isSatisfiedBy(Task task) {
+                return plannedTasks.contains(task);
+            }
+        });
+        // Adding the tasks one at a time, in plan order, keeps the cached execution order
+        for (Task task : tasks) {
+            executer.addTasks(Collections.singleton(task));
+        }
+    }
+}
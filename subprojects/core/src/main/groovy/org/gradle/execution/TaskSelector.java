@@ -21,6 +21,7 @@ import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.configuration.OnDemandProjectEvaluation;
 import org.gradle.util.NameMatcher;
 
 import java.util.Map;
@@ -53,11 +54,16 @@ public class TaskSelector {
             baseName = StringUtils.substringAfterLast(path, Project.PATH_SEPARATOR);
             prefix = project.getPath() + Project.PATH_SEPARATOR;
 
+            OnDemandProjectEvaluation.evaluate(project);
             tasksByName = taskNameResolver.select(baseName, project);
         } else {
             baseName = path;
             prefix = "";
 
+            OnDemandProjectEvaluation.evaluate(project);
+            for (Project subproject : project.getSubprojects()) {
+                OnDemandProjectEvaluation.evaluate((ProjectInternal) subproject);
+            }
             tasksByName = taskNameResolver.selectAll(path, project);
         }
 
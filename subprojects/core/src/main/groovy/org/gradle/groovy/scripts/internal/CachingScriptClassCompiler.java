@@ -23,6 +23,7 @@ import java.util.*;
 
 public class CachingScriptClassCompiler implements ScriptClassCompiler {
     private final Map<Collection<Object>, Class<?>> cachedClasses = new HashMap<Collection<Object>, Class<?>>();
+    private final Map<Collection<Object>, Object> compileLocks = new HashMap<Collection<Object>, Object>();
     private final ScriptClassCompiler scriptClassCompiler;
 
     public CachingScriptClassCompiler(ScriptClassCompiler scriptClassCompiler) {
@@ -31,11 +32,37 @@ public class CachingScriptClassCompiler implements ScriptClassCompiler {
 
     public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
         List<Object> key = Arrays.asList(source.getClassName(), classLoader, transformer.getId(), scriptBaseClass.getName());
-        Class<?> c = cachedClasses.get(key);
+        Class<?> c = getCachedClass(key);
         if (c == null) {
-            c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
-            cachedClasses.put(key, c);
+            // Different scripts can be compiled concurrently. A given script is compiled by one thread at a time, as
+            // the compilations of a script share a class cache directory
+            synchronized (getCompileLock(Arrays.<Object>asList(source.getClassName(), transformer.getId(), scriptBaseClass.getName()))) {
+                c = getCachedClass(key);
+                if (c == null) {
+                    c = scriptClassCompiler.compile(source, classLoader, transformer, scriptBaseClass);
+                    synchronized (cachedClasses) {
+                        cachedClasses.put(key, c);
+                    }
+                }
+            }
         }
         return c.asSubclass(scriptBaseClass);
     }
+
+    private Class<?> getCachedClass(Collection<Object> key) {
+        synchronized (cachedClasses) {
+            return cachedClasses.get(key);
+        }
+    }
+
+    private Object getCompileLock(Collection<Object> key) {
+        synchronized (cachedClasses) {
+            Object lock = compileLocks.get(key);
+            if (lock == null) {
+                lock = new Object();
+                compileLocks.put(key, lock);
+            }
+            return lock;
+        }
+    }
 }
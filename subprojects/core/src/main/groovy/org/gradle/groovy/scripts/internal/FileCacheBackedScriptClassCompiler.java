@@ -22,7 +22,6 @@ import org.gradle.cache.CacheValidator;
 import org.gradle.cache.PersistentCache;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.groovy.scripts.Transformer;
-import org.gradle.util.hash.HashUtil;
 
 import java.io.File;
 import java.util.HashMap;
@@ -35,17 +34,22 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler {
     private final ScriptCompilationHandler scriptCompilationHandler;
     private final CacheRepository cacheRepository;
     private final CacheValidator validator;
+    private final ScriptSourceHasher hasher;
+    private final ScriptPrecompiler precompiler;
 
-    public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler) {
+    public FileCacheBackedScriptClassCompiler(CacheRepository cacheRepository, CacheValidator validator, ScriptCompilationHandler scriptCompilationHandler,
+                                              ScriptSourceHasher hasher, ScriptPrecompiler precompiler) {
         this.cacheRepository = cacheRepository;
         this.validator = validator;
         this.scriptCompilationHandler = scriptCompilationHandler;
+        this.hasher = hasher;
+        this.precompiler = precompiler;
     }
 
     public <T extends Script> Class<? extends T> compile(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<T> scriptBaseClass) {
         Map<String, Object> properties = new HashMap<String, Object>();
         properties.put("source.filename", source.getFileName());
-        properties.put("source.hash", HashUtil.createCompactMD5(source.getResource().getText()));
+        properties.put("source.hash", hasher.hash(source));
 
         String cacheName = String.format("scripts/%s/%s/%s", source.getClassName(), scriptBaseClass.getSimpleName(), transformer.getId());
         PersistentCache cache = cacheRepository.cache(cacheName)
@@ -77,6 +81,9 @@ public class FileCacheBackedScriptClassCompiler implements ScriptClassCompiler {
 
         public void execute(PersistentCache cache) {
             File classesDir = classesDir(cache);
+            if (precompiler.copyPrecompiled(source, classLoader, transformer, scriptBaseClass, classesDir)) {
+                return;
+            }
             scriptCompilationHandler.compileToDir(source, classLoader, classesDir, transformer, scriptBaseClass);
         }
     }
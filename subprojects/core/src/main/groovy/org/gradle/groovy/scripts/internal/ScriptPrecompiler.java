@@ -0,0 +1,245 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal;
+
+import groovy.lang.Script;
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
+import org.gradle.api.internal.initialization.ScriptClassLoader;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.Transformer;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Compiles scripts which are likely to be required later in the build, using a pool of worker threads.
+ *
+ * <p>Candidate scripts are registered up front, using the ClassLoader they are expected to be compiled against.
+ * Nothing is compiled until the first candidate is found to be missing from the script cache, which typically means
+ * that all scripts need to be compiled, for example after an upgrade. At that point, all the other candidates are
+ * compiled in the background into temporary directories.</p>
+ *
+ * <p>When a candidate is later missing from the script cache, its precompiled classes are used to populate the cache,
+ * provided that the script has not changed and that the actual ClassLoader does not add anything to the expected
+ * ClassLoader.</p>
+ */
+@ThreadSafe
+public class ScriptPrecompiler implements Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(ScriptPrecompiler.class);
+    private final ScriptCompilationHandler compilationHandler;
+    private final ScriptSourceHasher hasher;
+    private final ExecutorFactory executorFactory;
+    private final TmpDirTemporaryFileProvider temporaryFileProvider = new TmpDirTemporaryFileProvider();
+    private final Object lock = new Object();
+    private final Map<List<Object>, Candidate> candidates = new LinkedHashMap<List<Object>, Candidate>();
+    private final LinkedList<Candidate> queue = new LinkedList<Candidate>();
+    private StoppableExecutor executor;
+    private File classesBaseDir;
+    private int counter;
+    private boolean started;
+    private boolean stopped;
+
+    public ScriptPrecompiler(ScriptCompilationHandler compilationHandler, ScriptSourceHasher hasher, ExecutorFactory executorFactory) {
+        this.compilationHandler = compilationHandler;
+        this.hasher = hasher;
+        this.executorFactory = executorFactory;
+    }
+
+    /**
+     * Registers a script which is likely to be compiled later in the build.
+     */
+    public void addCandidate(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<? extends Script> scriptBaseClass) {
+        synchronized (lock) {
+            if (started) {
+                return;
+            }
+            List<Object> key = key(source, transformer, scriptBaseClass);
+            if (!candidates.containsKey(key)) {
+                candidates.put(key, new Candidate(source, classLoader, transformer, scriptBaseClass));
+            }
+        }
+    }
+
+    /**
+     * Populates the given directory with the precompiled classes for the given script, when available.
+     *
+     * @return true if the directory has been populated, false if the caller should compile the script itself.
+     */
+    public boolean copyPrecompiled(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<? extends Script> scriptBaseClass, File classesDir) {
+        Candidate candidate;
+        synchronized (lock) {
+            candidate = candidates.get(key(source, transformer, scriptBaseClass));
+            if (candidate == null || stopped) {
+                return false;
+            }
+            if (!started) {
+                if (candidate != candidates.values().iterator().next()) {
+                    // Only the first candidate is used to decide whether to compile the others
+                    return false;
+                }
+                start(candidate);
+                return false;
+            }
+            if (candidate.state == State.Pending) {
+                // Compile the script in the calling thread, rather than wait for a worker
+                queue.remove(candidate);
+                candidate.state = State.Failed;
+                return false;
+            }
+            while (candidate.state == State.Compiling) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+            if (candidate.state != State.Compiled) {
+                return false;
+            }
+        }
+
+        if (!candidate.hash.equals(hasher.hash(source)) || !isEquivalent(classLoader, candidate.classLoader)) {
+            return false;
+        }
+        LOGGER.debug("Using precompiled classes for {}.", source.getDisplayName());
+        GFileUtils.deleteDirectory(classesDir);
+        GFileUtils.copyDirectory(candidate.classesDir, classesDir);
+        return true;
+    }
+
+    public void stop() {
+        StoppableExecutor executor;
+        synchronized (lock) {
+            stopped = true;
+            for (Candidate candidate : queue) {
+                candidate.state = State.Failed;
+            }
+            queue.clear();
+            executor = this.executor;
+        }
+        try {
+            if (executor != null) {
+                executor.stop();
+            }
+        } finally {
+            temporaryFileProvider.deleteAllCreated();
+        }
+    }
+
+    private void start(Candidate first) {
+        started = true;
+        first.state = State.Failed;
+        for (Candidate candidate : candidates.values()) {
+            if (candidate != first) {
+                queue.add(candidate);
+            }
+        }
+        if (queue.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Compiling {} scripts in the background.", queue.size());
+        classesBaseDir = temporaryFileProvider.createTemporaryDirectory("gradle", "scripts");
+        int workers = Math.min(queue.size(), Runtime.getRuntime().availableProcessors());
+        executor = executorFactory.create("Script precompiler");
+        for (int i = 0; i < workers; i++) {
+            executor.execute(new Worker());
+        }
+    }
+
+    private static List<Object> key(ScriptSource source, Transformer transformer, Class<? extends Script> scriptBaseClass) {
+        return Arrays.<Object>asList(source.getClassName(), transformer.getId(), scriptBaseClass.getName());
+    }
+
+    /**
+     * Determines whether a script compiled against the expected ClassLoader can be used with the actual ClassLoader.
+     * This is the case when the actual ClassLoader is the expected ClassLoader, or a script ClassLoader to which no
+     * classpath has been added, whose parent can be used.
+     */
+    private static boolean isEquivalent(ClassLoader actual, ClassLoader expected) {
+        ClassLoader classLoader = actual;
+        while (classLoader != expected) {
+            if (!(classLoader instanceof ScriptClassLoader) || ((ScriptClassLoader) classLoader).hasClasspath()) {
+                return false;
+            }
+            classLoader = ((ScriptClassLoader) classLoader).getParentClassLoader();
+        }
+        return true;
+    }
+
+    private enum State {
+        Pending, Compiling, Compiled, Failed
+    }
+
+    private static class Candidate {
+        private final ScriptSource source;
+        private final ClassLoader classLoader;
+        private final Transformer transformer;
+        private final Class<? extends Script> scriptBaseClass;
+        private State state = State.Pending;
+        private String hash;
+        private File classesDir;
+
+        private Candidate(ScriptSource source, ClassLoader classLoader, Transformer transformer, Class<? extends Script> scriptBaseClass) {
+            this.source = source;
+            this.classLoader = classLoader;
+            this.transformer = transformer;
+            this.scriptBaseClass = scriptBaseClass;
+        }
+    }
+
+    private class Worker implements Runnable {
+        public void run() {
+            while (true) {
+                Candidate candidate;
+                File classesDir;
+                synchronized (lock) {
+                    candidate = queue.poll();
+                    if (candidate == null) {
+                        return;
+                    }
+                    candidate.state = State.Compiling;
+                    classesDir = new File(classesBaseDir, String.valueOf(++counter));
+                }
+
+                State result = State.Failed;
+                String hash = null;
+                try {
+                    hash = hasher.hash(candidate.source);
+                    compilationHandler.compileToDir(candidate.source, candidate.classLoader, classesDir, candidate.transformer, candidate.scriptBaseClass);
+                    result = State.Compiled;
+                } catch (Throwable e) {
+                    // The script will be compiled again when it is used, and any failure reported then
+                    LOGGER.debug(String.format("Could not precompile %s.", candidate.source.getDisplayName()), e);
+                }
+
+                synchronized (lock) {
+                    candidate.hash = hash;
+                    candidate.classesDir = classesDir;
+                    candidate.state = result;
+                    lock.notifyAll();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.api.internal.resource.Resource;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.util.hash.HashUtil;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Calculates the hash of the text of a script. For a script which is backed by a file, the hash is remembered along
+ * with the timestamp and length of the file, and reused for as long as these do not change.
+ */
+@ThreadSafe
+public class ScriptSourceHasher {
+    private final ConcurrentMap<String, FileHash> hashes = new ConcurrentHashMap<String, FileHash>();
+
+    public String hash(ScriptSource source) {
+        Resource resource = source.getResource();
+        File file = resource.getFile();
+        if (file == null) {
+            return HashUtil.createCompactMD5(resource.getText());
+        }
+
+        // The text of a script source may be decorated, so the type of the source is part of the key
+        String key = source.getClass().getName() + ':' + file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        FileHash fileHash = hashes.get(key);
+        if (fileHash != null && fileHash.lastModified == lastModified && fileHash.length == length) {
+            return fileHash.hash;
+        }
+
+        String hash = HashUtil.createCompactMD5(resource.getText());
+        hashes.put(key, new FileHash(hash, lastModified, length));
+        return hash;
+    }
+
+    private static class FileHash {
+        private final String hash;
+        private final long lastModified;
+        private final long length;
+
+        private FileHash(String hash, long lastModified, long length) {
+            this.hash = hash;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.initialization;
+
+/**
+ * Describes the process which builds run in.
+ */
+public class BuildProcess {
+    private final boolean longLived;
+
+    public BuildProcess(boolean longLived) {
+        this.longLived = longLived;
+    }
+
+    /**
+     * Returns true when this process runs many builds, such as the Gradle daemon, so that resources created by a build
+     * may be kept for later builds. Returns false when the process finishes after a single build.
+     */
+    public boolean isLongLived() {
+        return longLived;
+    }
+}
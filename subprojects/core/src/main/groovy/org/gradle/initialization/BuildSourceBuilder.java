@@ -74,6 +74,8 @@ public class BuildSourceBuilder {
         startParameterArg.setProjectProperties(startParameter.getProjectProperties());
         startParameterArg.setSearchUpwards(false);
         startParameterArg.setProfile(startParameter.isProfile());
+        // The tasks of the buildSrc build are chosen after it has been configured, so its task graph cannot be cached
+        startParameterArg.setCacheTaskGraph(false);
 
         // If we were not the most recent version of Gradle to build the buildSrc dir, then do a clean build
         // Otherwise, just to a regular build
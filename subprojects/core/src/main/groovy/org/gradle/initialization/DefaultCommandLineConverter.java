@@ -52,6 +52,9 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
     private static final String REFRESH_DEPENDENCIES = "refresh-dependencies";
     private static final String PROJECT_CACHE_DIR = "project-cache-dir";
     private static final String RECOMPILE_SCRIPTS = "recompile-scripts";
+    private static final String CONFIGURE_ON_DEMAND = "configure-on-demand";
+    private static final String PARALLEL_EVALUATION = "parallel-evaluation";
+    private static final String CACHE_TASK_GRAPH = "cache-task-graph";
 
     private final CommandLineConverter<LoggingConfiguration> loggingConfigurationCommandLineConverter = new LoggingCommandLineConverter();
     private final SystemPropertiesCommandLineConverter systemPropertiesCommandLineConverter = new SystemPropertiesCommandLineConverter();
@@ -82,6 +85,9 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
         parser.option(OFFLINE).hasDescription("The build should operate without accessing network resources.");
         parser.option(REFRESH).hasArguments().hasDescription("Refresh the state of resources of the type(s) specified. Currently only 'dependencies' is supported.").deprecated("Use '--refresh-dependencies' instead.");
         parser.option(REFRESH_DEPENDENCIES).hasDescription("Refresh the state of dependencies.");
+        parser.option(CONFIGURE_ON_DEMAND).hasDescription("Only configure the projects required to run the requested tasks.").experimental();
+        parser.option(PARALLEL_EVALUATION).hasDescription("Evaluate the build scripts of sibling projects in parallel.").experimental();
+        parser.option(CACHE_TASK_GRAPH).hasDescription("Reuse the task graph of a previous build when the build scripts have not changed.").experimental();
     }
 
     @Override
@@ -180,6 +186,21 @@ public class DefaultCommandLineConverter extends AbstractCommandLineConverter<St
             startParameter.setRefreshDependencies(true);
         }
 
+        if (options.hasOption(CONFIGURE_ON_DEMAND)) {
+            startParameter.setConfigureOnDemand(true);
+        }
+
+        if (options.hasOption(PARALLEL_EVALUATION)) {
+            if (options.hasOption(CONFIGURE_ON_DEMAND)) {
+                throw new CommandLineArgumentException(String.format("Command-line option '--%s' cannot be used with '--%s'.", PARALLEL_EVALUATION, CONFIGURE_ON_DEMAND));
+            }
+            startParameter.setParallelProjectEvaluation(true);
+        }
+
+        if (options.hasOption(CACHE_TASK_GRAPH)) {
+            startParameter.setCacheTaskGraph(true);
+        }
+
         return startParameter;
     }
 
@@ -56,7 +56,7 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         this(new GlobalServicesRegistry());
     }
 
-    private DefaultGradleLauncherFactory(GlobalServicesRegistry globalServices) {
+    public DefaultGradleLauncherFactory(GlobalServicesRegistry globalServices) {
         sharedServices = globalServices;
         tracker = new NestedBuildTracker();
 
@@ -83,6 +83,16 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         return commandLineConverter.convert(Arrays.asList(commandLineArgs));
     }
 
+    /**
+     * Creates the services shared by all builds, such as the class loaders which builds run in, ahead of the first
+     * build.
+     */
+    public void preloadSharedServices() {
+        sharedServices.get(ClassLoaderRegistry.class).getPluginsClassLoader();
+        sharedServices.get(Instantiator.class);
+        createStartParameter();
+    }
+
     public DefaultGradleLauncher newInstance(StartParameter startParameter) {
         BuildRequestMetaData requestMetaData;
         if (tracker.getCurrentBuild() != null) {
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.initialization;
+
+import org.gradle.api.Project;
+import org.gradle.api.initialization.ProjectDescriptor;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.artifacts.dsl.BuildScriptClasspathScriptTransformer;
+import org.gradle.api.internal.artifacts.dsl.BuildScriptTransformer;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectScript;
+import org.gradle.configuration.ImportsReader;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.groovy.scripts.internal.ScriptPrecompiler;
+
+/**
+ * A {@link BuildLoader} which registers the build scripts of the loaded projects with a {@link ScriptPrecompiler}, so
+ * that they can be compiled in parallel ahead of project evaluation.
+ *
+ * <p>A build script which declares a script classpath is not registered, as its class loader is not known until the
+ * script is executed. The build scripts of its child projects are still registered, as their precompiled classes can be
+ * used whenever the script classpath turns out to be empty.</p>
+ */
+public class ScriptPrecompilingBuildLoader implements BuildLoader {
+    private static final String CLASSPATH_CLOSURE_NAME = "buildscript";
+
+    private final BuildLoader buildLoader;
+    private final ScriptPrecompiler precompiler;
+    private final ImportsReader importsReader;
+
+    public ScriptPrecompilingBuildLoader(BuildLoader buildLoader, ScriptPrecompiler precompiler, ImportsReader importsReader) {
+        this.buildLoader = buildLoader;
+        this.precompiler = precompiler;
+        this.importsReader = importsReader;
+    }
+
+    public void load(ProjectDescriptor rootProjectDescriptor, GradleInternal gradle) {
+        buildLoader.load(rootProjectDescriptor, gradle);
+        addCandidates(gradle.getRootProject(), gradle.getScriptClassLoader());
+    }
+
+    private void addCandidates(ProjectInternal project, ClassLoader classLoader) {
+        ScriptSource source = project.getBuildScriptSource();
+        if (source.getResource().getExists()) {
+            String text = source.getResource().getText();
+            if (!text.contains(CLASSPATH_CLOSURE_NAME) && !text.matches("\\s*")) {
+                ScriptSource withImports = importsReader.withImports(source);
+                BuildScriptClasspathScriptTransformer classpathTransformer = new BuildScriptClasspathScriptTransformer(CLASSPATH_CLOSURE_NAME);
+                precompiler.addCandidate(withImports, classLoader, classpathTransformer, ProjectScript.class);
+                precompiler.addCandidate(withImports, classLoader, new BuildScriptTransformer(classpathTransformer), ProjectScript.class);
+            }
+        }
+        for (Project childProject : project.getChildProjects().values()) {
+            addCandidates((ProjectInternal) childProject, classLoader);
+        }
+    }
+}
@@ -21,14 +21,23 @@ import org.gradle.BuildAdapter;
 import org.gradle.BuildListener;
 import org.gradle.StartParameter;
 import org.gradle.api.Action;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Project;
 import org.gradle.api.ProjectEvaluationListener;
+import org.gradle.api.internal.DynamicObject;
+import org.gradle.api.internal.DynamicObjectAware;
+import org.gradle.api.internal.ExtensibleDynamicObject;
 import org.gradle.api.internal.GradleDistributionLocator;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.HasConvention;
+import org.gradle.api.internal.ThreadGlobalInstantiator;
 import org.gradle.api.internal.project.IProjectRegistry;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ServiceRegistryFactory;
 import org.gradle.api.invocation.Gradle;
+import org.gradle.api.plugins.Convention;
+import org.gradle.api.plugins.ExtensionAware;
+import org.gradle.api.plugins.ExtensionContainer;
 import org.gradle.execution.TaskGraphExecuter;
 import org.gradle.listener.ActionBroadcast;
 import org.gradle.listener.ListenerBroadcast;
@@ -38,7 +47,7 @@ import org.gradle.util.MultiParentClassLoader;
 
 import java.io.File;
 
-public class DefaultGradle implements GradleInternal {
+public class DefaultGradle implements GradleInternal, DynamicObjectAware, ExtensionAware, HasConvention {
     private ProjectInternal rootProject;
     private ProjectInternal defaultProject;
     private TaskGraphExecuter taskGraph;
@@ -52,10 +61,12 @@ public class DefaultGradle implements GradleInternal {
     private final ListenerBroadcast<BuildListener> buildListenerBroadcast;
     private final ListenerBroadcast<ProjectEvaluationListener> projectEvaluationListenerBroadcast;
     private ActionBroadcast<Project> rootProjectActions = new ActionBroadcast<Project>();
+    private final ExtensibleDynamicObject dynamicObject;
 
     public DefaultGradle(Gradle parent, StartParameter startParameter, ServiceRegistryFactory parentRegistry) {
         this.parent = parent;
         this.startParameter = startParameter;
+        this.dynamicObject = new ExtensibleDynamicObject(this, ThreadGlobalInstantiator.getOrCreate());
         this.services = parentRegistry.createFor(this);
         this.listenerManager = services.get(ListenerManager.class);
         projectRegistry = services.get(IProjectRegistry.class);
@@ -218,4 +229,34 @@ public class DefaultGradle implements GradleInternal {
     public ServiceRegistryFactory getServices() {
         return services;
     }
+
+    public DynamicObject getAsDynamicObject() {
+        assertCanAccessModel();
+        return dynamicObject;
+    }
+
+    public Convention getConvention() {
+        return dynamicObject.getConvention();
+    }
+
+    public ExtensionContainer getExtensions() {
+        return getConvention();
+    }
+
+    /**
+     * When projects are evaluated in parallel, the model of the build is treated as part of the model of the root
+     * project. It may only be accessed by the thread which is evaluating the root project, or by a thread which is not
+     * evaluating any project.
+     */
+    private void assertCanAccessModel() {
+        if (!startParameter.isParallelProjectEvaluation() || rootProject == null
+                || rootProject.getState().isEvaluatingOnCurrentThread()) {
+            return;
+        }
+        for (ProjectInternal project : projectRegistry.getAllProjects()) {
+            if (project.getState().isEvaluatingOnCurrentThread()) {
+                throw new InvalidUserDataException(String.format("Cannot access %s while evaluating %s, as projects are being evaluated in parallel. Only the root project can access the build.", this, project));
+            }
+        }
+    }
 }
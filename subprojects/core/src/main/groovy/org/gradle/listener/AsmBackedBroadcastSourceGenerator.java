@@ -0,0 +1,322 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.listener;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.util.ReflectionUtil;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Generates broadcast sources which call listeners directly, rather than via a {@link java.lang.reflect.Proxy} and
+ * reflection. For a listener type T, the generated class extends {@link BroadcastSource} and implements T. Each method
+ * calls the method on each listener in turn, when all the listeners are objects of type T, and otherwise falls back to
+ * dispatching a {@link org.gradle.messaging.dispatch.MethodInvocation}.
+ *
+ * <p>The generated classes are cached without holding on to the listener types, so that the ClassLoader of a listener
+ * type, such as the ClassLoader of a build script, can be collected once it is no longer used. The generated class is
+ * defined in the ClassLoader of its listener type, and keeps the listener methods in a static field.</p>
+ */
+class AsmBackedBroadcastSourceGenerator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsmBackedBroadcastSourceGenerator.class);
+    private static final String METHODS_FIELD_NAME = "METHODS";
+    private static final Map<Class<?>, WeakReference<Class<?>>> CACHED_CLASSES = new WeakHashMap<Class<?>, WeakReference<Class<?>>>();
+    private static final Type SOURCE_TYPE = Type.getType(BroadcastSource.class);
+    private static final Type OBJECT_TYPE = Type.getType(Object.class);
+    private static final Type OBJECT_ARRAY_TYPE = Type.getType(Object[].class);
+    private static final Type THROWABLE_TYPE = Type.getType(Throwable.class);
+
+    /**
+     * Creates a source for the given broadcast.
+     *
+     * @return The source, or null when a source cannot be generated for the given type.
+     */
+    public <T> T generate(Class<T> type, BroadcastDispatch<T> broadcast) {
+        Class<?> generatedClass;
+        synchronized (CACHED_CLASSES) {
+            if (CACHED_CLASSES.containsKey(type)) {
+                // A null entry means that a source cannot be generated for the type
+                WeakReference<Class<?>> reference = CACHED_CLASSES.get(type);
+                generatedClass = reference == null ? null : reference.get();
+            } else {
+                generatedClass = generateSourceClass(type);
+                CACHED_CLASSES.put(type, generatedClass == null ? null : new WeakReference<Class<?>>(generatedClass));
+            }
+        }
+        if (generatedClass == null) {
+            return null;
+        }
+        try {
+            return type.cast(generatedClass.getConstructor(BroadcastDispatch.class).newInstance(broadcast));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private Class<?> generateSourceClass(Class<?> type) {
+        if (!type.isInterface() || !isAccessible(type) || !canSeeSourceType(type.getClassLoader())) {
+            return null;
+        }
+        Map<String, Method> methods = new LinkedHashMap<String, Method>();
+        for (Method method : type.getMethods()) {
+            if (method.getReturnType() != void.class) {
+                return null;
+            }
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (!isAccessible(parameterType)) {
+                    return null;
+                }
+            }
+            String key = method.getName() + Type.getMethodDescriptor(method);
+            if (!methods.containsKey(key)) {
+                methods.put(key, method);
+            }
+        }
+
+        Method[] methodArray = methods.values().toArray(new Method[methods.size()]);
+        String typeName = type.getName() + "_Broadcast";
+        byte[] bytecode = generateBytecode(type, typeName, methodArray);
+        try {
+            Class<?> generatedClass = (Class<?>) ReflectionUtil.invoke(type.getClassLoader(), "defineClass", new Object[]{
+                    typeName, bytecode, 0, bytecode.length
+            });
+            generatedClass.getField(METHODS_FIELD_NAME).set(null, methodArray);
+            return generatedClass;
+        } catch (Throwable e) {
+            LOGGER.debug(String.format("Could not generate broadcast source for %s. Using a proxy instead.", type), e);
+            return null;
+        }
+    }
+
+    private static boolean isAccessible(Class<?> type) {
+        Class<?> candidate = type;
+        while (candidate.isArray()) {
+            candidate = candidate.getComponentType();
+        }
+        for (; candidate != null && !candidate.isPrimitive(); candidate = candidate.getEnclosingClass()) {
+            if (!Modifier.isPublic(candidate.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean canSeeSourceType(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return false;
+        }
+        try {
+            return classLoader.loadClass(BroadcastSource.class.getName()) == BroadcastSource.class;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private byte[] generateBytecode(Class<?> type, String typeName, Method[] methods) {
+        ClassWriter visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        Type generatedType = Type.getType("L" + typeName.replaceAll("\\.", "/") + ";");
+        Type listenerType = Type.getType(type);
+        visitor.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, generatedType.getInternalName(), null,
+                SOURCE_TYPE.getInternalName(), new String[]{listenerType.getInternalName()});
+
+        // Listener methods field, set once the class has been defined
+
+        Type methodArrayType = Type.getType(Method[].class);
+        visitor.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, METHODS_FIELD_NAME, methodArrayType.getDescriptor(),
+                null, null).visitEnd();
+
+        // Constructor
+
+        String constructorDescriptor = Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{
+                Type.getType(BroadcastDispatch.class)
+        });
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, "<init>", constructorDescriptor, null,
+                new String[0]);
+        methodVisitor.visitCode();
+
+        // super(broadcast, METHODS)
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+        methodVisitor.visitFieldInsn(Opcodes.GETSTATIC, generatedType.getInternalName(), METHODS_FIELD_NAME,
+                methodArrayType.getDescriptor());
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, SOURCE_TYPE.getInternalName(), "<init>",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{Type.getType(BroadcastDispatch.class), methodArrayType}));
+
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+
+        // Listener methods
+
+        for (int i = 0; i < methods.length; i++) {
+            addListenerMethod(visitor, listenerType, methods[i], i);
+        }
+
+        visitor.visitEnd();
+        return visitor.toByteArray();
+    }
+
+    private void addListenerMethod(ClassWriter visitor, Type listenerType, Method method, int methodIndex) {
+        String methodDescriptor = Type.getMethodDescriptor(method);
+        Type[] parameterTypes = Type.getArgumentTypes(method);
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), methodDescriptor, null,
+                new String[0]);
+        methodVisitor.visitCode();
+
+        int listenersVar = 1;
+        for (Type parameterType : parameterTypes) {
+            listenersVar += parameterType.getSize();
+        }
+        int failureVar = listenersVar + 1;
+        int indexVar = listenersVar + 2;
+        int caughtVar = listenersVar + 3;
+
+        // Object[] listeners = getListeners()
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, SOURCE_TYPE.getInternalName(), "getListeners",
+                Type.getMethodDescriptor(OBJECT_ARRAY_TYPE, new Type[0]));
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, listenersVar);
+
+        // if (listeners == null) { dispatch(methodIndex, new Object[]{params}); return; }
+        Label direct = new Label();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenersVar);
+        methodVisitor.visitJumpInsn(Opcodes.IFNONNULL, direct);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitLdcInsn(methodIndex);
+        methodVisitor.visitLdcInsn(parameterTypes.length);
+        methodVisitor.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT_TYPE.getInternalName());
+        int var = 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitLdcInsn(i);
+            methodVisitor.visitVarInsn(parameterTypes[i].getOpcode(Opcodes.ILOAD), var);
+            box(methodVisitor, parameterTypes[i]);
+            methodVisitor.visitInsn(Opcodes.AASTORE);
+            var += parameterTypes[i].getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, SOURCE_TYPE.getInternalName(), "dispatch",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{Type.INT_TYPE, OBJECT_ARRAY_TYPE}));
+        methodVisitor.visitInsn(Opcodes.RETURN);
+
+        // Throwable failure = null; for (int i = 0; i < listeners.length; i++) { ... }
+        methodVisitor.visitLabel(direct);
+        methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, failureVar);
+        methodVisitor.visitInsn(Opcodes.ICONST_0);
+        methodVisitor.visitVarInsn(Opcodes.ISTORE, indexVar);
+
+        Label loop = new Label();
+        Label next = new Label();
+        Label end = new Label();
+        Label tryStart = new Label();
+        Label tryEnd = new Label();
+        Label handler = new Label();
+        methodVisitor.visitTryCatchBlock(tryStart, tryEnd, handler, THROWABLE_TYPE.getInternalName());
+
+        methodVisitor.visitLabel(loop);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, indexVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenersVar);
+        methodVisitor.visitInsn(Opcodes.ARRAYLENGTH);
+        methodVisitor.visitJumpInsn(Opcodes.IF_ICMPGE, end);
+
+        // try { ((T) listeners[i]).method(params); }
+        methodVisitor.visitLabel(tryStart);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, listenersVar);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, indexVar);
+        methodVisitor.visitInsn(Opcodes.AALOAD);
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, listenerType.getInternalName());
+        var = 1;
+        for (Type parameterType : parameterTypes) {
+            methodVisitor.visitVarInsn(parameterType.getOpcode(Opcodes.ILOAD), var);
+            var += parameterType.getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEINTERFACE, listenerType.getInternalName(), method.getName(),
+                methodDescriptor);
+        methodVisitor.visitLabel(tryEnd);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, next);
+
+        // catch (Throwable t) { failure = listenerFailed(failure, t); }
+        methodVisitor.visitLabel(handler);
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, caughtVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, failureVar);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, caughtVar);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, SOURCE_TYPE.getInternalName(), "listenerFailed",
+                Type.getMethodDescriptor(THROWABLE_TYPE, new Type[]{THROWABLE_TYPE, THROWABLE_TYPE}));
+        methodVisitor.visitVarInsn(Opcodes.ASTORE, failureVar);
+
+        methodVisitor.visitLabel(next);
+        methodVisitor.visitIincInsn(indexVar, 1);
+        methodVisitor.visitJumpInsn(Opcodes.GOTO, loop);
+
+        // complete(failure)
+        methodVisitor.visitLabel(end);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, failureVar);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, SOURCE_TYPE.getInternalName(), "complete",
+                Type.getMethodDescriptor(Type.VOID_TYPE, new Type[]{THROWABLE_TYPE}));
+        methodVisitor.visitInsn(Opcodes.RETURN);
+
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+
+    private void box(MethodVisitor methodVisitor, Type type) {
+        Class<?> boxedType;
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                boxedType = Boolean.class;
+                break;
+            case Type.CHAR:
+                boxedType = Character.class;
+                break;
+            case Type.BYTE:
+                boxedType = Byte.class;
+                break;
+            case Type.SHORT:
+                boxedType = Short.class;
+                break;
+            case Type.INT:
+                boxedType = Integer.class;
+                break;
+            case Type.FLOAT:
+                boxedType = Float.class;
+                break;
+            case Type.LONG:
+                boxedType = Long.class;
+                break;
+            case Type.DOUBLE:
+                boxedType = Double.class;
+                break;
+            default:
+                return;
+        }
+        Type boxed = Type.getType(boxedType);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, boxed.getInternalName(), "valueOf",
+                Type.getMethodDescriptor(boxed, new Type[]{type}));
+    }
+}
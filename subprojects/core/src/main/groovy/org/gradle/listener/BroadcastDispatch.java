@@ -27,6 +27,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation> {
@@ -34,6 +35,7 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
     private final Class<T> type;
     private final Map<Object, Dispatch<MethodInvocation>> handlers
             = new LinkedHashMap<Object, Dispatch<MethodInvocation>>();
+    private volatile Object[] directListeners = new Object[0];
 
     public BroadcastDispatch(Class<T> type) {
         this.type = type;
@@ -43,22 +45,26 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
         return type;
     }
 
-    public void add(Dispatch<MethodInvocation> dispatch) {
+    public synchronized void add(Dispatch<MethodInvocation> dispatch) {
         handlers.put(dispatch, dispatch);
+        handlersChanged();
     }
 
-    public void add(T listener) {
+    public synchronized void add(T listener) {
         handlers.put(listener, new ReflectionDispatch(listener));
+        handlersChanged();
     }
 
-    public void add(String methodName, Closure closure) {
+    public synchronized void add(String methodName, Closure closure) {
         assertIsMethod(methodName);
         handlers.put(closure, new ClosureInvocationHandler(methodName, closure));
+        handlersChanged();
     }
 
-    public void add(String methodName, Action<?> action) {
+    public synchronized void add(String methodName, Action<?> action) {
         assertIsMethod(methodName);
         handlers.put(action, new ActionInvocationHandler(methodName, action));
+        handlersChanged();
     }
 
     private void assertIsMethod(String methodName) {
@@ -71,8 +77,51 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
                 type.getSimpleName()));
     }
 
-    public void remove(Object listener) {
+    public synchronized void remove(Object listener) {
         handlers.remove(listener);
+        handlersChanged();
+    }
+
+    private synchronized List<Dispatch<MethodInvocation>> getHandlers() {
+        return new ArrayList<Dispatch<MethodInvocation>>(handlers.values());
+    }
+
+    private void handlersChanged() {
+        Object[] listeners = new Object[handlers.size()];
+        int i = 0;
+        for (Map.Entry<Object, Dispatch<MethodInvocation>> entry : handlers.entrySet()) {
+            if (entry.getKey() == entry.getValue() || !(entry.getValue() instanceof ReflectionDispatch)) {
+                directListeners = null;
+                return;
+            }
+            listeners[i++] = entry.getKey();
+        }
+        directListeners = listeners;
+    }
+
+    /**
+     * Returns a snapshot of the listeners, when every handler is a listener of type T which can be called directly.
+     * Returns null when there are handlers which must receive a {@link MethodInvocation}.
+     */
+    Object[] getDirectListeners() {
+        return directListeners;
+    }
+
+    /**
+     * Records a failure to notify a listener, and returns the failure to report. The first failure is reported, later
+     * failures are logged.
+     */
+    Throwable listenerFailed(Throwable previousFailure, Throwable failure) {
+        Throwable cause = failure instanceof UncheckedException ? failure.getCause() : failure;
+        if (previousFailure == null) {
+            return cause;
+        }
+        LOGGER.error(cause.getMessage(), cause);
+        return previousFailure;
+    }
+
+    void notificationFailed(Throwable failure) {
+        throw new ListenerNotificationException(getErrorMessage(), failure);
     }
 
     private String getErrorMessage() {
@@ -83,7 +132,7 @@ public class BroadcastDispatch<T> implements StoppableDispatch<MethodInvocation>
     public void dispatch(MethodInvocation invocation) {
         try {
             ExceptionTrackingFailureHandler tracker = new ExceptionTrackingFailureHandler(LOGGER);
-            for (Dispatch<MethodInvocation> handler : new ArrayList<Dispatch<MethodInvocation>>(handlers.values())) {
+            for (Dispatch<MethodInvocation> handler : getHandlers()) {
                 try {
                     handler.dispatch(invocation);
                 } catch (UncheckedException e) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.listener;
+
+import org.gradle.messaging.dispatch.MethodInvocation;
+
+import java.lang.reflect.Method;
+
+/**
+ * The base class for broadcast sources generated by {@link AsmBackedBroadcastSourceGenerator}. A generated source calls
+ * each listener directly when all listeners have been added as objects of the listener type, and otherwise dispatches a
+ * {@link MethodInvocation} to the broadcast.
+ */
+public abstract class BroadcastSource {
+    private final BroadcastDispatch<?> broadcast;
+    private final Method[] methods;
+
+    protected BroadcastSource(BroadcastDispatch<?> broadcast, Method[] methods) {
+        this.broadcast = broadcast;
+        this.methods = methods;
+    }
+
+    protected final Object[] getListeners() {
+        return broadcast.getDirectListeners();
+    }
+
+    protected final void dispatch(int method, Object[] parameters) {
+        broadcast.dispatch(new MethodInvocation(methods[method], parameters));
+    }
+
+    protected final Throwable listenerFailed(Throwable previousFailure, Throwable failure) {
+        return broadcast.listenerFailed(previousFailure, failure);
+    }
+
+    protected final void complete(Throwable failure) {
+        if (failure != null) {
+            broadcast.notificationFailed(failure);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        return ((BroadcastSource) obj).broadcast == broadcast;
+    }
+
+    @Override
+    public int hashCode() {
+        return broadcast.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s broadcast", broadcast.getType().getSimpleName());
+    }
+}
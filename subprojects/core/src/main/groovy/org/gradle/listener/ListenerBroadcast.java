@@ -31,7 +31,8 @@ import org.gradle.messaging.dispatch.*;
  * @param <T> The listener type.
  */
 public class ListenerBroadcast<T> implements StoppableDispatch<MethodInvocation> {
-    private final ProxyDispatchAdapter<T> source;
+    private static final AsmBackedBroadcastSourceGenerator SOURCE_GENERATOR = new AsmBackedBroadcastSourceGenerator();
+    private final T source;
     private final BroadcastDispatch<T> broadcast;
     private final Class<T> type;
     private final StoppableDispatch<MethodInvocation> dispatch;
@@ -48,7 +49,17 @@ public class ListenerBroadcast<T> implements StoppableDispatch<MethodInvocation>
         this.type = type;
         broadcast = new BroadcastDispatch<T>(type);
         dispatch = transformer.transform(broadcast);
-        source = new ProxyDispatchAdapter<T>(dispatch, type);
+        source = createSource();
+    }
+
+    private T createSource() {
+        if (dispatch == broadcast) {
+            T generatedSource = SOURCE_GENERATOR.generate(type, broadcast);
+            if (generatedSource != null) {
+                return generatedSource;
+            }
+        }
+        return new ProxyDispatchAdapter<T>(dispatch, type).getSource();
     }
 
     /**
@@ -57,7 +68,7 @@ public class ListenerBroadcast<T> implements StoppableDispatch<MethodInvocation>
      * @return The broadcaster.
      */
     public T getSource() {
-        return source.getSource();
+        return source;
     }
 
     /**
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal;
+
+import org.gradle.api.logging.LogLevel;
+import org.gradle.logging.StyledTextOutput;
+import org.gradle.messaging.remote.internal.BinaryMessageSerializer;
+import org.gradle.messaging.remote.internal.TypeSerializer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary serializers for the {@link OutputEvent} types that are relayed from daemons and worker processes.
+ */
+public class OutputEventSerializers {
+    private static final LogLevel[] LOG_LEVELS = LogLevel.values();
+    private static final StyledTextOutput.Style[] STYLES = StyledTextOutput.Style.values();
+
+    public static void register(BinaryMessageSerializer<?> serializer) {
+        serializer.register(LogEvent.class, new LogEventSerializer());
+        serializer.register(StyledTextOutputEvent.class, new StyledTextOutputEventSerializer());
+        serializer.register(ProgressStartEvent.class, new ProgressStartEventSerializer());
+        serializer.register(ProgressEvent.class, new ProgressEventSerializer());
+        serializer.register(ProgressCompleteEvent.class, new ProgressCompleteEventSerializer());
+        serializer.register(LogLevelChangeEvent.class, new LogLevelChangeEventSerializer());
+    }
+
+    private static void writeLogLevel(DataOutputStream outputStream, LogLevel logLevel) throws IOException {
+        outputStream.writeByte(logLevel == null ? -1 : logLevel.ordinal());
+    }
+
+    private static LogLevel readLogLevel(DataInputStream inputStream) throws IOException {
+        byte ordinal = inputStream.readByte();
+        return ordinal < 0 ? null : LOG_LEVELS[ordinal];
+    }
+
+    private static class LogEventSerializer implements TypeSerializer<LogEvent> {
+        public LogEvent read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            long timestamp = inputStream.readLong();
+            String category = serializer.readString(inputStream);
+            LogLevel logLevel = readLogLevel(inputStream);
+            String message = serializer.readString(inputStream);
+            Throwable throwable = (Throwable) serializer.readObject(inputStream);
+            return new LogEvent(timestamp, category, logLevel, message, throwable);
+        }
+
+        public void write(DataOutputStream outputStream, LogEvent value, BinaryMessageSerializer<?> serializer) throws Exception {
+            outputStream.writeLong(value.getTimestamp());
+            serializer.writeString(outputStream, value.getCategory());
+            writeLogLevel(outputStream, value.getLogLevel());
+            serializer.writeString(outputStream, value.getMessage());
+            serializer.writeObject(outputStream, value.getThrowable());
+        }
+    }
+
+    private static class StyledTextOutputEventSerializer implements TypeSerializer<StyledTextOutputEvent> {
+        public StyledTextOutputEvent read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            long timestamp = inputStream.readLong();
+            String category = serializer.readString(inputStream);
+            LogLevel logLevel = readLogLevel(inputStream);
+            int spanCount = inputStream.readInt();
+            List<StyledTextOutputEvent.Span> spans = new ArrayList<StyledTextOutputEvent.Span>(spanCount);
+            for (int i = 0; i < spanCount; i++) {
+                byte style = inputStream.readByte();
+                spans.add(new StyledTextOutputEvent.Span(style < 0 ? null : STYLES[style], serializer.readString(inputStream)));
+            }
+            return new StyledTextOutputEvent(timestamp, category, logLevel, spans);
+        }
+
+        public void write(DataOutputStream outputStream, StyledTextOutputEvent value, BinaryMessageSerializer<?> serializer) throws Exception {
+            outputStream.writeLong(value.getTimestamp());
+            serializer.writeString(outputStream, value.getCategory());
+            writeLogLevel(outputStream, value.getLogLevel());
+            List<StyledTextOutputEvent.Span> spans = value.getSpans();
+            outputStream.writeInt(spans.size());
+            for (StyledTextOutputEvent.Span span : spans) {
+                outputStream.writeByte(span.getStyle() == null ? -1 : span.getStyle().ordinal());
+                serializer.writeString(outputStream, span.getText());
+            }
+        }
+    }
+
+    private static class ProgressStartEventSerializer implements TypeSerializer<ProgressStartEvent> {
+        public ProgressStartEvent read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            long timestamp = inputStream.readLong();
+            String category = serializer.readString(inputStream);
+            String description = serializer.readString(inputStream);
+            String shortDescription = serializer.readString(inputStream);
+            String loggingHeader = serializer.readString(inputStream);
+            String status = serializer.readString(inputStream);
+            return new ProgressStartEvent(timestamp, category, description, shortDescription, loggingHeader, status);
+        }
+
+        public void write(DataOutputStream outputStream, ProgressStartEvent value, BinaryMessageSerializer<?> serializer) throws Exception {
+            outputStream.writeLong(value.getTimestamp());
+            serializer.writeString(outputStream, value.getCategory());
+            serializer.writeString(outputStream, value.getDescription());
+            serializer.writeString(outputStream, value.getShortDescription());
+            serializer.writeString(outputStream, value.getLoggingHeader());
+            serializer.writeString(outputStream, value.getStatus());
+        }
+    }
+
+    private static class ProgressEventSerializer implements TypeSerializer<ProgressEvent> {
+        public ProgressEvent read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            long timestamp = inputStream.readLong();
+            String category = serializer.readString(inputStream);
+            return new ProgressEvent(timestamp, category, serializer.readString(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, ProgressEvent value, BinaryMessageSerializer<?> serializer) throws Exception {
+            outputStream.writeLong(value.getTimestamp());
+            serializer.writeString(outputStream, value.getCategory());
+            serializer.writeString(outputStream, value.getStatus());
+        }
+    }
+
+    private static class ProgressCompleteEventSerializer implements TypeSerializer<ProgressCompleteEvent> {
+        public ProgressCompleteEvent read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            long timestamp = inputStream.readLong();
+            String category = serializer.readString(inputStream);
+            return new ProgressCompleteEvent(timestamp, category, serializer.readString(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, ProgressCompleteEvent value, BinaryMessageSerializer<?> serializer) throws Exception {
+            outputStream.writeLong(value.getTimestamp());
+            serializer.writeString(outputStream, value.getCategory());
+            serializer.writeString(outputStream, value.getStatus());
+        }
+    }
+
+    private static class LogLevelChangeEventSerializer implements TypeSerializer<LogLevelChangeEvent> {
+        public LogLevelChangeEvent read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            return new LogLevelChangeEvent(readLogLevel(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, LogLevelChangeEvent value, BinaryMessageSerializer<?> serializer) throws Exception {
+            writeLogLevel(outputStream, value.getNewLogLevel());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal;
+
+import org.gradle.api.Action;
+import org.gradle.api.logging.StandardOutputListener;
+import org.gradle.logging.StandardOutputCapture;
+import org.gradle.logging.StandardOutputRedirector;
+import org.gradle.util.LinePerThreadBufferingOutputStream;
+
+import java.io.PrintStream;
+
+/**
+ * A {@link StandardOutputRedirector} which can be used by several threads at the same time. Each thread has its own
+ * destinations, and each line written to System.out or System.err is forwarded to the destination of the thread which
+ * wrote it. Threads inherit the destinations of the thread which created them. Lines written by a thread without a
+ * destination are written to the original System.out or System.err.
+ *
+ * <p>System.out and System.err are replaced when the first thread calls {@link #start()}, and restored when the last
+ * thread calls {@link #stop()}.</p>
+ */
+public class PerThreadStandardOutputRedirector implements StandardOutputRedirector {
+    private final Object lock = new Object();
+    private final WriteAction stdOut = new WriteAction();
+    private final WriteAction stdErr = new WriteAction();
+    private final PrintStream redirectedStdOut = new LinePerThreadBufferingOutputStream(stdOut, true);
+    private final PrintStream redirectedStdErr = new LinePerThreadBufferingOutputStream(stdErr, true);
+    private int activeThreads;
+
+    public void redirectStandardOutputTo(StandardOutputListener stdOutDestination) {
+        stdOut.destination.set(stdOutDestination);
+    }
+
+    public void redirectStandardErrorTo(StandardOutputListener stdErrDestination) {
+        stdErr.destination.set(stdErrDestination);
+    }
+
+    public StandardOutputCapture start() {
+        synchronized (lock) {
+            if (activeThreads == 0) {
+                stdOut.original = System.out;
+                stdErr.original = System.err;
+                System.setOut(redirectedStdOut);
+                System.setErr(redirectedStdErr);
+            }
+            activeThreads++;
+        }
+        return this;
+    }
+
+    public StandardOutputCapture stop() {
+        try {
+            redirectedStdOut.flush();
+            redirectedStdErr.flush();
+        } finally {
+            stdOut.destination.remove();
+            stdErr.destination.remove();
+            synchronized (lock) {
+                activeThreads--;
+                if (activeThreads == 0) {
+                    System.setOut(stdOut.original);
+                    System.setErr(stdErr.original);
+                }
+            }
+        }
+        return this;
+    }
+
+    private static class WriteAction implements Action<String> {
+        private final ThreadLocal<StandardOutputListener> destination = new InheritableThreadLocal<StandardOutputListener>();
+        private volatile PrintStream original;
+
+        public void execute(String message) {
+            StandardOutputListener listener = destination.get();
+            if (listener != null) {
+                listener.onOutput(message);
+                return;
+            }
+            PrintStream original = this.original;
+            if (original != null) {
+                original.print(message);
+            }
+        }
+    }
+}
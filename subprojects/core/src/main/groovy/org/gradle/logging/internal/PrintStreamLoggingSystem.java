@@ -22,27 +22,35 @@ import org.gradle.internal.TimeProvider;
 import org.gradle.util.LinePerThreadBufferingOutputStream;
 
 import java.io.PrintStream;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A {@link LoggingSystem} which routes content written to a {@code PrintStream} to a {@link OutputEventListener}.
- * Generates a {@link StyledTextOutputEvent} instance when a line of text is written to the {@code PrintStream}.
- * Generates a {@link LogLevelChangeEvent} when the log level for this {@code LoggingSystem} is changed.
+ * Generates a {@link StyledTextOutputEvent} with the current log level when a line of text is written to the {@code
+ * PrintStream}.
+ *
+ * <p>The log level is held per thread. The first thread to change the log level owns the default level, which is used
+ * by every thread which has not changed the log level itself. A thread which changes the log level and later restores
+ * a snapshot taken before the change uses the default level again. This way, threads which capture output at the same
+ * time do not overwrite each other's level.</p>
  */
 abstract class PrintStreamLoggingSystem implements LoggingSystem {
-    private final AtomicReference<StandardOutputListener> destination = new AtomicReference<StandardOutputListener>();
+    private final Object lock = new Object();
+    private final ThreadLocal<State> threadState = new ThreadLocal<State>();
     private final PrintStream outstr = new LinePerThreadBufferingOutputStream(new Action<String>() {
         public void execute(String output) {
-            destination.get().onOutput(output);
+            LogLevel logLevel = currentState().logLevel;
+            if (logLevel == null) {
+                original.onOutput(output);
+            } else {
+                listener.onOutput(output, logLevel);
+            }
         }
     }, true);
-    private StandardOutputListener original;
-    private LogLevel logLevel;
-    private final StandardOutputListener listener;
-    private final OutputEventListener outputEventListener;
+    private volatile StandardOutputListener original;
+    private volatile State defaultState;
+    private final OutputEventDestination listener;
 
     protected PrintStreamLoggingSystem(OutputEventListener listener, String category, TimeProvider timeProvider) {
-        outputEventListener = listener;
         this.listener = new OutputEventDestination(listener, category, timeProvider);
     }
 
@@ -57,27 +65,29 @@ abstract class PrintStreamLoggingSystem implements LoggingSystem {
     protected abstract void set(PrintStream printStream);
 
     public Snapshot snapshot() {
-        return new SnapshotImpl(logLevel);
+        State state = threadState.get();
+        if (state != null) {
+            return new SnapshotImpl(true, state.logLevel);
+        }
+        state = defaultState;
+        return new SnapshotImpl(false, state == null ? null : state.logLevel);
     }
 
     public void restore(Snapshot state) {
         SnapshotImpl snapshot = (SnapshotImpl) state;
         install();
-        if (snapshot.logLevel == null) {
-            destination.set(original);
-        } else {
-            this.logLevel = snapshot.logLevel;
-            outputEventListener.onOutput(new LogLevelChangeEvent(snapshot.logLevel));
-            destination.set(listener);
+        State current = threadState.get();
+        if (snapshot.ownState || current == defaultState) {
+            setLogLevel(snapshot.logLevel);
+        } else if (current != null) {
+            threadState.remove();
         }
     }
 
     public Snapshot on(final LogLevel level) {
         Snapshot snapshot = snapshot();
         install();
-        this.logLevel = level;
-        outputEventListener.onOutput(new LogLevelChangeEvent(logLevel));
-        destination.set(listener);
+        setLogLevel(level);
         return snapshot;
     }
 
@@ -85,23 +95,47 @@ abstract class PrintStreamLoggingSystem implements LoggingSystem {
         Snapshot snapshot = snapshot();
         if (original != null) {
             outstr.flush();
-            destination.set(original);
-            logLevel = null;
+            setLogLevel(null);
         }
         return snapshot;
     }
 
-    private void install() {
-        if (original == null) {
-            PrintStream originalStream = get();
-            original = new PrintStreamDestination(originalStream);
+    private State currentState() {
+        State state = threadState.get();
+        return state != null ? state : defaultState;
+    }
+
+    private void setLogLevel(LogLevel logLevel) {
+        State state = threadState.get();
+        if (state == null) {
+            state = new State();
+            synchronized (lock) {
+                if (defaultState == null) {
+                    defaultState = state;
+                }
+            }
+            threadState.set(state);
         }
-        outstr.flush();
-        if (get() != outstr) {
-            set(outstr);
+        state.logLevel = logLevel;
+    }
+
+    private void install() {
+        synchronized (lock) {
+            if (original == null) {
+                PrintStream originalStream = get();
+                original = new PrintStreamDestination(originalStream);
+            }
+            outstr.flush();
+            if (get() != outstr) {
+                set(outstr);
+            }
         }
     }
 
+    private static class State {
+        private volatile LogLevel logLevel;
+    }
+
     private static class PrintStreamDestination implements StandardOutputListener {
         private final PrintStream originalStream;
 
@@ -115,14 +149,16 @@ abstract class PrintStreamLoggingSystem implements LoggingSystem {
     }
 
     private static class SnapshotImpl implements Snapshot {
+        private final boolean ownState;
         private final LogLevel logLevel;
 
-        public SnapshotImpl(LogLevel logLevel) {
+        public SnapshotImpl(boolean ownState, LogLevel logLevel) {
+            this.ownState = ownState;
             this.logLevel = logLevel;
         }
     }
 
-    private static class OutputEventDestination implements StandardOutputListener {
+    private static class OutputEventDestination {
         private final OutputEventListener listener;
         private final String category;
         private final TimeProvider timeProvider;
@@ -133,8 +169,8 @@ abstract class PrintStreamLoggingSystem implements LoggingSystem {
             this.timeProvider = timeProvider;
         }
 
-        public void onOutput(CharSequence output) {
-            listener.onOutput(new StyledTextOutputEvent(timeProvider.getCurrentTime(), category, output.toString()));
+        public void onOutput(CharSequence output, LogLevel logLevel) {
+            listener.onOutput(new StyledTextOutputEvent(timeProvider.getCurrentTime(), category, logLevel, output.toString()));
         }
     }
 }
@@ -75,6 +75,10 @@ public class StyledTextOutputEvent extends RenderableOutputEvent {
         return builder.toString();
     }
 
+    public List<Span> getSpans() {
+        return spans;
+    }
+
     public StyledTextOutputEvent withLogLevel(LogLevel logLevel) {
         return new StyledTextOutputEvent(getTimestamp(), getCategory(), logLevel, spans);
     }
@@ -100,5 +104,13 @@ public class StyledTextOutputEvent extends RenderableOutputEvent {
             this.style = Normal;
             this.text = text;
         }
+
+        public String getText() {
+            return text;
+        }
+
+        public StyledTextOutput.Style getStyle() {
+            return style;
+        }
     }
 }
@@ -136,7 +136,7 @@ public class DefaultActorFactory implements ActorFactory, Stoppable {
         public NonBlockingActor(Object targetObject) {
             executor = executorFactory.create(String.format("Dispatch %s", targetObject));
             failureHandler = new ExceptionTrackingFailureHandler(LoggerFactory.getLogger(NonBlockingActor.class));
-            dispatch = new AsyncDispatch<MethodInvocation>(executor,
+            dispatch = new RingBufferAsyncDispatch<MethodInvocation>(executor,
                     new FailureHandlingDispatch<MethodInvocation>(
                             new ReflectionDispatch(targetObject),
                             failureHandler));
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.messaging.dispatch;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.AsyncStoppable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>A {@link Dispatch} implementation which delivers messages asynchronously to a single delegate {@link Dispatch},
+ * in the order they have been received. It is an alternative to {@link AsyncDispatch} for the case where many threads
+ * dispatch messages to a single handler.</p>
+ *
+ * <p>Messages are queued in a bounded ring buffer which producers claim slots of without taking a lock. The dispatch
+ * thread drains the queued messages in batches, and only parks when the queue is empty. Calls to {@link #dispatch}
+ * block while the queue is full.</p>
+ */
+public class RingBufferAsyncDispatch<T> implements StoppableDispatch<T>, AsyncStoppable {
+    private static final int MAX_QUEUE_SIZE = 256;
+    private static final int MAX_BATCH_SIZE = 64;
+    private static final long FULL_QUEUE_PARK_NANOS = 50000;
+    private final Executor executor;
+    private final int mask;
+    private final AtomicReferenceArray<T> messages;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicInteger producers = new AtomicInteger();
+    private final CountDownLatch dispatcherFinished = new CountDownLatch(1);
+    private long head;
+    private volatile Thread dispatcher;
+    private volatile boolean dispatcherWaiting;
+    private volatile boolean started;
+    private volatile boolean stopped;
+
+    public RingBufferAsyncDispatch(Executor executor) {
+        this(executor, null, MAX_QUEUE_SIZE);
+    }
+
+    public RingBufferAsyncDispatch(Executor executor, Dispatch<? super T> dispatch) {
+        this(executor, dispatch, MAX_QUEUE_SIZE);
+    }
+
+    /**
+     * @param maxQueueSize The maximum number of queued messages. Rounded up to the next power of 2.
+     */
+    public RingBufferAsyncDispatch(Executor executor, Dispatch<? super T> dispatch, int maxQueueSize) {
+        this.executor = executor;
+        int capacity = Integer.highestOneBit(Math.max(maxQueueSize, 2) - 1) << 1;
+        mask = capacity - 1;
+        messages = new AtomicReferenceArray<T>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        if (dispatch != null) {
+            dispatchTo(dispatch);
+        }
+    }
+
+    /**
+     * Starts dispatching messages to the given handler. The handler does not need to be thread-safe. Can only be called
+     * once.
+     */
+    public synchronized void dispatchTo(final Dispatch<? super T> dispatch) {
+        if (stopped) {
+            throw new IllegalStateException("This dispatch has been stopped.");
+        }
+        if (started) {
+            throw new IllegalStateException("This dispatch is already dispatching messages to a handler.");
+        }
+        started = true;
+        executor.execute(new Runnable() {
+            public void run() {
+                dispatcher = Thread.currentThread();
+                try {
+                    dispatchMessages(dispatch);
+                } finally {
+                    dispatcher = null;
+                    dispatcherFinished.countDown();
+                }
+            }
+        });
+    }
+
+    private void dispatchMessages(Dispatch<? super T> dispatch) {
+        List<T> batch = new ArrayList<T>(MAX_BATCH_SIZE);
+        while (true) {
+            drainTo(batch);
+            if (!batch.isEmpty()) {
+                for (int i = 0; i < batch.size(); i++) {
+                    dispatch.dispatch(batch.get(i));
+                }
+                batch.clear();
+                continue;
+            }
+            if (isFinished()) {
+                // Have been stopped and nothing to deliver
+                return;
+            }
+            dispatcherWaiting = true;
+            if (isEmpty() && !isFinished()) {
+                LockSupport.park(this);
+            }
+            dispatcherWaiting = false;
+        }
+    }
+
+    private boolean isFinished() {
+        return stopped && producers.get() == 0 && isEmpty();
+    }
+
+    private boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    private void drainTo(List<T> batch) {
+        while (batch.size() < MAX_BATCH_SIZE) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                return;
+            }
+            batch.add(messages.get(index));
+            messages.lazySet(index, null);
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+        }
+    }
+
+    private boolean offer(T message) {
+        while (true) {
+            long pos = tail.get();
+            int index = (int) pos & mask;
+            long available = sequences.get(index) - pos;
+            if (available < 0) {
+                return false;
+            }
+            if (available == 0 && tail.compareAndSet(pos, pos + 1)) {
+                messages.lazySet(index, message);
+                sequences.set(index, pos + 1);
+                return true;
+            }
+        }
+    }
+
+    public void dispatch(T message) {
+        producers.incrementAndGet();
+        try {
+            while (true) {
+                if (stopped) {
+                    throw new IllegalStateException("Cannot dispatch message, as this message dispatch has been stopped. Message: " + message);
+                }
+                if (offer(message)) {
+                    break;
+                }
+                LockSupport.parkNanos(this, FULL_QUEUE_PARK_NANOS);
+            }
+        } finally {
+            producers.decrementAndGet();
+            // Wake the dispatcher even when this dispatch has failed, as the dispatcher may be waiting for the
+            // producers to finish after a stop
+            if (dispatcherWaiting) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+    }
+
+    /**
+     * Commences a shutdown of this dispatch.
+     */
+    public void requestStop() {
+        stopped = true;
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Stops accepting new messages, and blocks until all queued messages have been dispatched.
+     */
+    public void stop() {
+        synchronized (this) {
+            requestStop();
+        }
+        if (started) {
+            try {
+                dispatcherFinished.await();
+            } catch (InterruptedException e) {
+                throw new UncheckedException(e);
+            }
+        }
+        if (!isEmpty()) {
+            throw new IllegalStateException("Cannot wait for messages to be dispatched, as there are no dispatch threads running.");
+        }
+    }
+}
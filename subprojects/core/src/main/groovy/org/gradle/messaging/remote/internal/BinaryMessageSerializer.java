@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.remote.internal;
+
+import org.gradle.messaging.remote.internal.inet.InetEndpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.*;
+
+/**
+ * A {@link MessageSerializer} which writes registered message types using a compact binary format. Any other object is
+ * written using Java serialization. Each class descriptor written by Java serialization is sent only once per stream.
+ *
+ * <p>Types must be registered in the same order at both ends of a connection, and before the serializer is used.</p>
+ */
+public class BinaryMessageSerializer<T> implements MessageSerializer<T> {
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte UNIQUE_ID = 4;
+    private static final byte JAVA_SERIALIZED = 5;
+    private static final int FIRST_REGISTERED = 6;
+
+    private final ClassLoader classLoader;
+    private final Map<Class<?>, Integer> tags = new HashMap<Class<?>, Integer>();
+    private final List<TypeSerializer<?>> serializers = new ArrayList<TypeSerializer<?>>();
+    private final Map<Object, ClassDescriptorCache> descriptorCaches = new WeakHashMap<Object, ClassDescriptorCache>();
+
+    public BinaryMessageSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Registers the serializer to use for objects of the given type. Subtypes of the given type are not written using
+     * the serializer.
+     */
+    public <S> BinaryMessageSerializer<T> register(Class<S> type, TypeSerializer<S> serializer) {
+        if (tags.containsKey(type)) {
+            throw new IllegalArgumentException(String.format("A serializer for %s has already been registered.", type.getName()));
+        }
+        if (FIRST_REGISTERED + serializers.size() > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many message types registered.");
+        }
+        tags.put(type, FIRST_REGISTERED + serializers.size());
+        serializers.add(serializer);
+        return this;
+    }
+
+    public T read(DataInputStream inputStream, InetEndpoint localAddress, InetEndpoint remoteAddress) throws Exception {
+        return (T) readObject(inputStream);
+    }
+
+    public void write(T message, DataOutputStream outputStream) throws Exception {
+        ClassDescriptorCache descriptors = descriptorCache(outputStream);
+        try {
+            writeObject(outputStream, message);
+        } catch (Exception e) {
+            // The partially written message is discarded, so the receiver never sees the descriptors written for it
+            descriptors.rollback();
+            throw e;
+        }
+        descriptors.commit();
+    }
+
+    public Object readObject(DataInputStream inputStream) throws Exception {
+        byte tag = inputStream.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(inputStream);
+            case INTEGER:
+                return inputStream.readInt();
+            case LONG:
+                return inputStream.readLong();
+            case UNIQUE_ID:
+                return new UUID(inputStream.readLong(), inputStream.readLong());
+            case JAVA_SERIALIZED:
+                return Message.receive(inputStream, classLoader, descriptorCache(inputStream));
+            default:
+                return serializers.get(tag - FIRST_REGISTERED).read(inputStream, this);
+        }
+    }
+
+    public void writeObject(DataOutputStream outputStream, Object value) throws Exception {
+        if (value == null) {
+            outputStream.writeByte(NULL);
+            return;
+        }
+        if (value instanceof String) {
+            outputStream.writeByte(STRING);
+            writeString(outputStream, (String) value);
+            return;
+        }
+        if (value instanceof Integer) {
+            outputStream.writeByte(INTEGER);
+            outputStream.writeInt((Integer) value);
+            return;
+        }
+        if (value instanceof Long) {
+            outputStream.writeByte(LONG);
+            outputStream.writeLong((Long) value);
+            return;
+        }
+        if (value instanceof UUID) {
+            UUID uuid = (UUID) value;
+            outputStream.writeByte(UNIQUE_ID);
+            outputStream.writeLong(uuid.getMostSignificantBits());
+            outputStream.writeLong(uuid.getLeastSignificantBits());
+            return;
+        }
+        Integer tag = tags.get(value.getClass());
+        if (tag == null) {
+            outputStream.writeByte(JAVA_SERIALIZED);
+            Message.send(value, outputStream, descriptorCache(outputStream));
+            return;
+        }
+        outputStream.writeByte(tag);
+        TypeSerializer<Object> serializer = (TypeSerializer<Object>) serializers.get(tag - FIRST_REGISTERED);
+        serializer.write(outputStream, value, this);
+    }
+
+    /**
+     * Reads a string of any length, which may be null.
+     */
+    public String readString(DataInputStream inputStream) throws Exception {
+        int length = inputStream.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        inputStream.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * Writes a string of any length, which may be null.
+     */
+    public void writeString(DataOutputStream outputStream, String value) throws Exception {
+        if (value == null) {
+            outputStream.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes("UTF-8");
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private ClassDescriptorCache descriptorCache(Object stream) {
+        synchronized (descriptorCaches) {
+            ClassDescriptorCache cache = descriptorCaches.get(stream);
+            if (cache == null) {
+                cache = new ClassDescriptorCache();
+                descriptorCaches.put(stream, cache);
+            }
+            return cache;
+        }
+    }
+}
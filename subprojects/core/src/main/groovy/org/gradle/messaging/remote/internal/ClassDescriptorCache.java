@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.remote.internal;
+
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class descriptors that have been sent over one direction of a connection. Each descriptor is sent in full once,
+ * and is then referenced by its position in the cache. Both ends of the connection add descriptors in the same order.
+ *
+ * <p>The descriptors added by the sender while writing a message are pending until the message has been written. They
+ * are discarded when the message cannot be written, as the receiver will never see them.</p>
+ */
+class ClassDescriptorCache {
+    static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new HashMap<String, Integer>();
+    private final List<ObjectStreamClass> descriptors = new ArrayList<ObjectStreamClass>();
+    private int committed;
+
+    int getId(String className) {
+        Integer id = ids.get(className);
+        return id == null ? UNKNOWN : id;
+    }
+
+    ObjectStreamClass get(int id) {
+        return descriptors.get(id);
+    }
+
+    void add(ObjectStreamClass descriptor) {
+        ids.put(descriptor.getName(), descriptors.size());
+        descriptors.add(descriptor);
+    }
+
+    /**
+     * Keeps the descriptors added since the last commit or rollback.
+     */
+    void commit() {
+        committed = descriptors.size();
+    }
+
+    /**
+     * Discards the descriptors added since the last commit or rollback.
+     */
+    void rollback() {
+        while (descriptors.size() > committed) {
+            ids.remove(descriptors.remove(descriptors.size() - 1).getName());
+        }
+    }
+}
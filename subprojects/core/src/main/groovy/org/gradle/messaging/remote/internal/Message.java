@@ -38,6 +38,25 @@ public abstract class Message implements Serializable {
         return ois.readObject();
     }
 
+    /**
+     * Writes the given message, replacing the descriptor of each class that has already been sent on the stream with a
+     * reference into the given cache.
+     */
+    static void send(Object message, OutputStream outputSteam, ClassDescriptorCache descriptors) throws IOException {
+        ObjectOutputStream oos = new ExceptionReplacingObjectOutputStream(outputSteam, descriptors);
+        try {
+            oos.writeObject(message);
+        } finally {
+            oos.flush();
+        }
+    }
+
+    static Object receive(InputStream inputSteam, ClassLoader classLoader, ClassDescriptorCache descriptors)
+            throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = new ExceptionReplacingObjectInputStream(inputSteam, classLoader, descriptors);
+        return ois.readObject();
+    }
+
     private static class ExceptionPlaceholder implements Serializable {
         private byte[] serializedException;
         private String type;
@@ -132,11 +151,32 @@ public abstract class Message implements Serializable {
     }
 
     private static class ExceptionReplacingObjectOutputStream extends ObjectOutputStream {
+        private final ClassDescriptorCache descriptors;
+
         public ExceptionReplacingObjectOutputStream(OutputStream outputSteam) throws IOException {
+            this(outputSteam, null);
+        }
+
+        public ExceptionReplacingObjectOutputStream(OutputStream outputSteam, ClassDescriptorCache descriptors) throws IOException {
             super(outputSteam);
+            this.descriptors = descriptors;
             enableReplaceObject(true);
         }
 
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+            if (descriptors == null) {
+                super.writeClassDescriptor(desc);
+                return;
+            }
+            int id = descriptors.getId(desc.getName());
+            writeInt(id);
+            if (id == ClassDescriptorCache.UNKNOWN) {
+                super.writeClassDescriptor(desc);
+                descriptors.add(desc);
+            }
+        }
+
         @Override
         protected Object replaceObject(Object obj) throws IOException {
             if (obj instanceof Throwable) {
@@ -147,11 +187,33 @@ public abstract class Message implements Serializable {
     }
 
     private static class ExceptionReplacingObjectInputStream extends ClassLoaderObjectInputStream {
+        private final ClassDescriptorCache descriptors;
+
         public ExceptionReplacingObjectInputStream(InputStream inputSteam, ClassLoader classLoader) throws IOException {
+            this(inputSteam, classLoader, null);
+        }
+
+        public ExceptionReplacingObjectInputStream(InputStream inputSteam, ClassLoader classLoader, ClassDescriptorCache descriptors) throws IOException {
             super(inputSteam, classLoader);
+            this.descriptors = descriptors;
             enableResolveObject(true);
         }
 
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            if (descriptors == null) {
+                return super.readClassDescriptor();
+            }
+            int id = readInt();
+            if (id != ClassDescriptorCache.UNKNOWN) {
+                return descriptors.get(id);
+            }
+            // Use the sender's descriptor, which may differ from the local version of the class
+            ObjectStreamClass desc = super.readClassDescriptor();
+            descriptors.add(desc);
+            return desc;
+        }
+
         @Override
         protected Object resolveObject(Object obj) throws IOException {
             if (obj instanceof TopLevelExceptionPlaceholder) {
@@ -16,6 +16,7 @@
 package org.gradle.messaging.remote.internal;
 
 import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.logging.internal.OutputEventSerializers;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.CompositeStoppable;
 import org.gradle.messaging.concurrent.DefaultExecutorFactory;
@@ -27,6 +28,7 @@ import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.messaging.remote.internal.inet.*;
 import org.gradle.messaging.remote.internal.protocol.DiscoveryMessage;
 import org.gradle.messaging.remote.internal.protocol.DiscoveryProtocolSerializer;
+import org.gradle.messaging.remote.internal.protocol.ProtocolMessageSerializers;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.UncheckedException;
 import org.slf4j.LoggerFactory;
@@ -125,20 +127,25 @@ public class MessagingServices extends DefaultServiceRegistry implements Stoppab
 
     protected OutgoingConnector<Message> createOutgoingConnector() {
         return new TcpOutgoingConnector<Message>(
-                new DefaultMessageSerializer<Message>(
-                        messageClassLoader));
+                createMessageSerializer());
     }
 
     protected IncomingConnector<Message> createIncomingConnector() {
         incomingConnector = new TcpIncomingConnector<Message>(
                 get(ExecutorFactory.class),
-                new DefaultMessageSerializer<Message>(
-                        messageClassLoader),
+                createMessageSerializer(),
                 new InetAddressFactory(),
                 idGenerator);
         return incomingConnector;
     }
 
+    private MessageSerializer<Message> createMessageSerializer() {
+        BinaryMessageSerializer<Message> serializer = new BinaryMessageSerializer<Message>(messageClassLoader);
+        ProtocolMessageSerializers.register(serializer);
+        OutputEventSerializers.register(serializer);
+        return serializer;
+    }
+
     protected MultiChannelConnector createMultiChannelConnector() {
         multiChannelConnector = new DefaultMultiChannelConnector(
                 get(OutgoingConnector.class),
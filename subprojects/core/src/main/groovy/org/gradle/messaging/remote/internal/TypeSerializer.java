@@ -0,0 +1,29 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.remote.internal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+/**
+ * Writes and reads instances of a single message type for a {@link BinaryMessageSerializer}. Nested objects should be
+ * written through the given serializer, so that they also use the binary format where possible.
+ */
+public interface TypeSerializer<T> {
+    T read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception;
+
+    void write(DataOutputStream outputStream, T value, BinaryMessageSerializer<?> serializer) throws Exception;
+}
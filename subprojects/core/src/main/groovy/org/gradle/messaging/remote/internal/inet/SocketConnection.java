@@ -32,13 +32,29 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 
+/**
+ * A connection over a socket channel. Each message is sent as a frame made up of a 4 byte length header followed by the
+ * serialized message. Messages are serialized into and deserialized from direct buffers, which the connection keeps
+ * for reuse, and the header and the message are written to the channel using a single gathering write.
+ *
+ * <p>The direct buffers grow to at most {@link #MAX_DIRECT_BUFFER_SIZE} bytes. Larger messages use a heap buffer which
+ * is discarded once the message has been handled, and are transferred in chunks of at most that size, so that the
+ * channel does not cache a temporary direct buffer as large as the message.</p>
+ *
+ * <p>A frame carries at most {@link #MAX_FRAME_SIZE} bytes. A frame whose header announces a larger message is
+ * rejected before any buffer is allocated for it.</p>
+ */
 public class SocketConnection<T> implements Connection<T> {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final int MAX_DIRECT_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
     private final SocketChannel socket;
     private final SocketInetAddress localAddress;
     private final SocketInetAddress remoteAddress;
     private final MessageSerializer<T> serializer;
-    private final DataInputStream instr;
-    private final DataOutputStream outstr;
+    private final FrameReader reader;
+    private final FrameWriter writer;
+    private boolean writeFailed;
 
     public SocketConnection(SocketChannel socket, MessageSerializer<T> serializer) {
         this.socket = socket;
@@ -47,8 +63,8 @@ public class SocketConnection<T> implements Connection<T> {
             // NOTE: we use non-blocking IO as there is no reliable way when using blocking IO to shutdown reads while
             // keeping writes active. For example, Socket.shutdownInput() does not work on Windows.
             socket.configureBlocking(false);
-            outstr = new DataOutputStream(new SocketOutputStream(socket));
-            instr = new DataInputStream(new SocketInputStream(socket));
+            writer = new FrameWriter(socket);
+            reader = new FrameReader(socket);
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
@@ -73,7 +89,11 @@ public class SocketConnection<T> implements Connection<T> {
 
     public T receive() {
         try {
-            return serializer.read(instr, localAddress, remoteAddress);
+            DataInputStream frame = reader.readFrame();
+            if (frame == null) {
+                return null;
+            }
+            return serializer.read(frame, localAddress, remoteAddress);
         } catch (Exception e) {
             if (isEndOfStream(e)) {
                 return null;
@@ -101,133 +121,222 @@ public class SocketConnection<T> implements Connection<T> {
     }
 
     public void dispatch(T message) {
+        if (writeFailed) {
+            throw new MessageIOException(String.format("Could not write message %s to '%s' as an earlier message could not be written.", message, remoteAddress), null);
+        }
         try {
-            serializer.write(message, outstr);
-            outstr.flush();
+            serializer.write(message, writer.startFrame());
         } catch (Exception e) {
             throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
         }
+        try {
+            writer.writeFrame();
+        } catch (Exception e) {
+            // Part of the frame may have been sent, and the peer may have seen class descriptors which the serializer
+            // has already committed, so the stream can no longer be used
+            writeFailed = true;
+            throw new MessageIOException(String.format("Could not write message %s to '%s'.", message, remoteAddress), e);
+        }
     }
 
     public void requestStop() {
-        new CompositeStoppable(instr).stop();
+        new CompositeStoppable(reader).stop();
     }
 
     public void stop() {
-        new CompositeStoppable(instr, outstr, socket).stop();
+        new CompositeStoppable(reader, writer, socket).stop();
     }
 
-    private static class SocketInputStream extends InputStream {
+    private static class FrameReader implements Closeable {
         private final Selector selector;
-        private final ByteBuffer buffer;
         private final SocketChannel socket;
-        private final byte[] readBuffer = new byte[1];
+        private final ByteBuffer header = ByteBuffer.allocateDirect(4);
+        private final ByteBufferInputStream payloadInput = new ByteBufferInputStream();
+        private final DataInputStream payloadStream = new DataInputStream(payloadInput);
+        private ByteBuffer payload = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
 
-        public SocketInputStream(SocketChannel socket) throws IOException {
+        public FrameReader(SocketChannel socket) throws IOException {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_READ);
-            buffer = ByteBuffer.allocateDirect(4096);
-            buffer.limit(0);
         }
 
-        @Override
-        public int read() throws IOException {
-            int nread = read(readBuffer, 0, 1);
-            if (nread <= 0) {
-                return nread;
+        /**
+         * Reads the next frame, returning a stream over its content, or null at the end of the stream.
+         */
+        public DataInputStream readFrame() throws IOException {
+            header.clear();
+            if (!readFully(header)) {
+                return null;
             }
-            return readBuffer[0];
-        }
-
-        @Override
-        public int read(byte[] dest, int offset, int max) throws IOException {
-            if (max == 0) {
-                return 0;
+            header.flip();
+            int length = header.getInt();
+            if (length < 0 || length > MAX_FRAME_SIZE) {
+                throw new IOException(String.format("Received a message with invalid length %s.", length));
             }
-
-            if (buffer.remaining() == 0) {
-                try {
-                    selector.select();
-                } catch (ClosedSelectorException e) {
-                    return -1;
+            ByteBuffer buffer;
+            if (length > MAX_DIRECT_BUFFER_SIZE) {
+                buffer = ByteBuffer.allocate(length);
+            } else {
+                if (payload.capacity() < length) {
+                    payload = ByteBuffer.allocateDirect(Math.min(Math.max(length, payload.capacity() * 2), MAX_DIRECT_BUFFER_SIZE));
                 }
-                if (!selector.isOpen()) {
-                    return -1;
-                }
-
+                buffer = payload;
                 buffer.clear();
-                int nread = socket.read(buffer);
-                buffer.flip();
+                buffer.limit(length);
+            }
+            if (!readFully(buffer)) {
+                return null;
+            }
+            buffer.flip();
+            payloadInput.buffer = buffer;
+            return payloadStream;
+        }
 
+        private boolean readFully(ByteBuffer buffer) throws IOException {
+            int end = buffer.limit();
+            while (buffer.position() < end) {
+                buffer.limit(Math.min(end, buffer.position() + MAX_DIRECT_BUFFER_SIZE));
+                int nread = socket.read(buffer);
                 if (nread < 0) {
-                    return -1;
+                    return false;
+                }
+                if (nread == 0) {
+                    try {
+                        selector.select();
+                    } catch (ClosedSelectorException e) {
+                        return false;
+                    }
+                    if (!selector.isOpen()) {
+                        return false;
+                    }
+                    selector.selectedKeys().clear();
                 }
             }
-
-            int count = Math.min(buffer.remaining(), max);
-            buffer.get(dest, offset, count);
-            return count;
+            return true;
         }
 
-        @Override
         public void close() throws IOException {
             selector.close();
         }
     }
 
-    private static class SocketOutputStream extends OutputStream {
+    private static class FrameWriter implements Closeable {
         private final Selector selector;
         private final SocketChannel socket;
-        private final ByteBuffer buffer;
-        private final byte[] writeBuffer = new byte[1];
+        private final ByteBuffer header = ByteBuffer.allocateDirect(4);
+        private final ByteBufferOutputStream payloadOutput = new ByteBufferOutputStream();
+        private final DataOutputStream payloadStream = new DataOutputStream(payloadOutput);
+        private final ByteBuffer[] frame = new ByteBuffer[2];
 
-        public SocketOutputStream(SocketChannel socket) throws IOException {
+        public FrameWriter(SocketChannel socket) throws IOException {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_WRITE);
-            buffer = ByteBuffer.allocateDirect(4096);
         }
 
-        @Override
-        public void write(int b) throws IOException {
-            writeBuffer[0] = (byte) b;
-            write(writeBuffer);
+        /**
+         * Starts a new frame, returning the stream to write its content to.
+         */
+        public DataOutputStream startFrame() {
+            payloadOutput.reset();
+            return payloadStream;
         }
 
-        @Override
-        public void write(byte[] src, int offset, int max) throws IOException {
-            int remaining = max;
-            int currentPos = offset;
-            while (remaining > 0) {
-                int count = Math.min(remaining, buffer.remaining());
-                if (count > 0) {
-                    buffer.put(src, currentPos, count);
-                    remaining -= count;
-                    currentPos += count;
-                }
-                if (buffer.remaining() == 0) {
-                    flush();
+        /**
+         * Writes the current frame to the socket.
+         */
+        public void writeFrame() throws IOException {
+            payloadStream.flush();
+            ByteBuffer payload = payloadOutput.buffer;
+            payload.flip();
+            header.clear();
+            header.putInt(payload.remaining());
+            header.flip();
+            frame[0] = header;
+            frame[1] = payload;
+            int end = payload.limit();
+            while (header.hasRemaining() || payload.position() < end) {
+                payload.limit(Math.min(end, payload.position() + MAX_DIRECT_BUFFER_SIZE));
+                if (socket.write(frame) == 0) {
+                    selector.select();
+                    if (!selector.isOpen()) {
+                        throw new EOFException();
+                    }
+                    selector.selectedKeys().clear();
                 }
             }
         }
 
+        public void close() throws IOException {
+            selector.close();
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private ByteBuffer buffer;
+
         @Override
-        public void flush() throws IOException {
-            buffer.flip();
-            while (buffer.remaining() > 0) {
-                selector.select();
-                if (!selector.isOpen()) {
-                    throw new EOFException();
-                }
-                socket.write(buffer);
+        public int read() throws IOException {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] dest, int offset, int max) throws IOException {
+            if (max == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
             }
+            int count = Math.min(buffer.remaining(), max);
+            buffer.get(dest, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return buffer.remaining();
+        }
+    }
+
+    private static class ByteBufferOutputStream extends OutputStream {
+        private ByteBuffer retained = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+        private ByteBuffer buffer = retained;
+
+        void reset() {
+            buffer = retained;
             buffer.clear();
         }
 
         @Override
-        public void close() throws IOException {
-            selector.close();
+        public void write(int b) throws IOException {
+            ensureRemaining(1);
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] src, int offset, int max) throws IOException {
+            ensureRemaining(max);
+            buffer.put(src, offset, max);
+        }
+
+        private void ensureRemaining(int count) {
+            if (buffer.remaining() >= count) {
+                return;
+            }
+            int required = buffer.position() + count;
+            int capacity = Math.max(buffer.capacity() * 2, required);
+            ByteBuffer larger;
+            if (required <= MAX_DIRECT_BUFFER_SIZE) {
+                larger = ByteBuffer.allocateDirect(Math.min(capacity, MAX_DIRECT_BUFFER_SIZE));
+                retained = larger;
+            } else {
+                larger = ByteBuffer.allocate(capacity);
+            }
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
         }
     }
 }
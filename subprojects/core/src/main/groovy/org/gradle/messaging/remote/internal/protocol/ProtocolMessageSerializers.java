@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.messaging.remote.internal.protocol;
+
+import org.gradle.messaging.remote.internal.BinaryMessageSerializer;
+import org.gradle.messaging.remote.internal.TypeSerializer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+/**
+ * Binary serializers for the protocol messages that carry remote method invocations.
+ */
+public class ProtocolMessageSerializers {
+    public static void register(BinaryMessageSerializer<?> serializer) {
+        serializer.register(Request.class, new RequestSerializer());
+        serializer.register(RemoteMethodInvocation.class, new RemoteMethodInvocationSerializer());
+    }
+
+    private static class RequestSerializer implements TypeSerializer<Request> {
+        public Request read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            Object consumerId = serializer.readObject(inputStream);
+            return new Request(consumerId, serializer.readObject(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, Request value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getDestination());
+            serializer.writeObject(outputStream, value.getPayload());
+        }
+    }
+
+    private static class RemoteMethodInvocationSerializer implements TypeSerializer<RemoteMethodInvocation> {
+        public RemoteMethodInvocation read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            Object key = serializer.readObject(inputStream);
+            int argCount = inputStream.readInt();
+            Object[] arguments = argCount < 0 ? null : new Object[argCount];
+            for (int i = 0; i < argCount; i++) {
+                arguments[i] = serializer.readObject(inputStream);
+            }
+            return new RemoteMethodInvocation(key, arguments);
+        }
+
+        public void write(DataOutputStream outputStream, RemoteMethodInvocation value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getKey());
+            Object[] arguments = value.getArguments();
+            outputStream.writeInt(arguments == null ? -1 : arguments.length);
+            if (arguments != null) {
+                for (Object argument : arguments) {
+                    serializer.writeObject(outputStream, argument);
+                }
+            }
+        }
+    }
+}
@@ -94,6 +94,42 @@ public class LineBufferingOutputStream extends OutputStream {
         }
     }
 
+    /**
+     * Writes the given bytes to this output stream. Each complete line is passed on as it is written, in the same way as
+     * when the bytes are written one at a time.
+     */
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (hasBeenClosed) {
+            throw new IOException("The stream has been closed.");
+        }
+
+        byte lineSeparatorEnd = lineSeparator[lineSeparator.length - 1];
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] == lineSeparatorEnd) {
+                append(bytes, start, i + 1 - start);
+                start = i + 1;
+                if (endsWithLineSeparator()) {
+                    flush();
+                }
+            }
+        }
+        append(bytes, start, end - start);
+    }
+
+    private void append(byte[] bytes, int offset, int length) {
+        if (count + length > buf.length) {
+            // grow the buffer
+            final byte[] newBuf = new byte[Math.max(buf.length + bufferIncrement, count + length)];
+            System.arraycopy(buf, 0, newBuf, 0, count);
+            buf = newBuf;
+        }
+        System.arraycopy(bytes, offset, buf, count, length);
+        count += length;
+    }
+
     private boolean endsWithLineSeparator() {
         if (count < lineSeparator.length) {
             return false;
@@ -53,6 +53,9 @@ class StartParameterTest {
         testObj.rerunTasks = true;
         testObj.refreshDependencies = true;
         testObj.recompileScripts = true;
+        testObj.configureOnDemand = true;
+        testObj.parallelProjectEvaluation = true;
+        testObj.cacheTaskGraph = true;
 
         StartParameter startParameter = testObj.newInstance()
         assertEquals(testObj, startParameter)
@@ -78,6 +81,9 @@ class StartParameterTest {
         assertThat(parameter.rerunTasks, equalTo(false))
         assertThat(parameter.recompileScripts, equalTo(false))
         assertFalse(parameter.refreshDependencies)
+        assertFalse(parameter.configureOnDemand)
+        assertFalse(parameter.parallelProjectEvaluation)
+        assertFalse(parameter.cacheTaskGraph)
         assertThat(parameter, isSerializable())
     }
 
@@ -189,6 +195,9 @@ class StartParameterTest {
         parameter.recompileScripts = true
         parameter.rerunTasks = true
         parameter.refreshDependencies = true
+        parameter.configureOnDemand = true
+        parameter.parallelProjectEvaluation = true
+        parameter.cacheTaskGraph = true
 
         assertThat(parameter, isSerializable())
 
@@ -204,6 +213,9 @@ class StartParameterTest {
         assertThat(newParameter.refreshDependencies, equalTo(parameter.refreshDependencies))
         assertThat(newParameter.rerunTasks, equalTo(parameter.rerunTasks))
         assertThat(newParameter.recompileScripts, equalTo(parameter.recompileScripts))
+        assertThat(newParameter.configureOnDemand, equalTo(parameter.configureOnDemand))
+        assertThat(newParameter.parallelProjectEvaluation, equalTo(parameter.parallelProjectEvaluation))
+        assertThat(newParameter.cacheTaskGraph, equalTo(parameter.cacheTaskGraph))
 
         assertThat(newParameter.buildFile, nullValue())
         assertThat(newParameter.taskNames, isEmpty())
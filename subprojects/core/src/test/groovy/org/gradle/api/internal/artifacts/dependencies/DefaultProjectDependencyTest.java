@@ -16,8 +16,10 @@
 
 package org.gradle.api.internal.artifacts.dependencies;
 
+import org.gradle.StartParameter;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.*;
+import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.artifacts.DependencyResolveContext;
 import org.gradle.api.internal.artifacts.ProjectDependenciesBuildInstruction;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationContainerInternal;
@@ -47,6 +49,7 @@ import static org.junit.Assert.*;
 public class DefaultProjectDependencyTest extends AbstractModuleDependencyTest {
     private final ProjectDependenciesBuildInstruction instruction = new ProjectDependenciesBuildInstruction(true);
     private final ProjectInternal dependencyProjectStub = context.mock(ProjectInternal.class);
+    private final GradleInternal gradleStub = context.mock(GradleInternal.class);
     private final ConfigurationContainerInternal projectConfigurationsStub = context.mock(ConfigurationContainerInternal.class);
     private final ConfigurationInternal projectConfigurationStub = context.mock(ConfigurationInternal.class);
     private final TaskContainer dependencyProjectTaskContainerStub = context.mock(TaskContainer.class);
@@ -76,6 +79,10 @@ public class DefaultProjectDependencyTest extends AbstractModuleDependencyTest {
         context.checking(new Expectations() {{
             allowing(dependencyProjectStub).getConfigurations();
             will(returnValue(projectConfigurationsStub));
+            allowing(dependencyProjectStub).getGradle();
+            will(returnValue(gradleStub));
+            allowing(gradleStub).getStartParameter();
+            will(returnValue(new StartParameter()));
             allowing(projectConfigurationsStub).getByName("default");
             will(returnValue(projectConfigurationStub));
             allowing(dependencyProjectStub).getTasks();
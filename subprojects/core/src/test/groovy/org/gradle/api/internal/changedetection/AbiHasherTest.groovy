@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.changedetection
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+class AbiHasherTest extends Specification {
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
+    final AbiHasher hasher = new AbiHasher(new DefaultHasher())
+
+    def "class hash does not change when method implementation changes"() {
+        expect:
+        hashClass(classBytes(returnValue: 1)) == hashClass(classBytes(returnValue: 2))
+    }
+
+    def "class hash does not change when private member is added"() {
+        expect:
+        hashClass(classBytes()) == hashClass(classBytes(privateMethod: true))
+    }
+
+    def "class hash changes when public signature changes"() {
+        expect:
+        hashClass(classBytes()) != hashClass(classBytes(methodName: 'other'))
+        hashClass(classBytes()) != hashClass(classBytes(superName: 'java/lang/Thread'))
+    }
+
+    def "class hash changes when value of constant changes"() {
+        expect:
+        hashClass(classBytes(constant: 1)) != hashClass(classBytes(constant: 2))
+    }
+
+    def "jar hash does not change when method implementation changes"() {
+        expect:
+        hashJar(classBytes(returnValue: 1)) == hashJar(classBytes(returnValue: 2))
+        hashJar(classBytes(returnValue: 1)) != hashJar(classBytes(methodName: 'other'))
+    }
+
+    def "jar hash changes when resource changes"() {
+        expect:
+        hashJar(classBytes(), 'a') != hashJar(classBytes(), 'b')
+    }
+
+    def "jar containing annotation processor is hashed using its contents"() {
+        def processor = 'META-INF/services/javax.annotation.processing.Processor'
+
+        expect:
+        hashJar(classBytes(returnValue: 1), 'a', processor) != hashJar(classBytes(returnValue: 2), 'a', processor)
+    }
+
+    def "jar containing global AST transformation is hashed using its contents"() {
+        def transformation = 'META-INF/services/org.codehaus.groovy.transform.ASTTransformation'
+
+        expect:
+        hashJar(classBytes(returnValue: 1), 'a', transformation) != hashJar(classBytes(returnValue: 2), 'a', transformation)
+    }
+
+    def "class in directory declaring global AST transformation is hashed using its contents"() {
+        def transformation = 'META-INF/services/org.codehaus.groovy.transform.ASTTransformation'
+
+        expect:
+        hashClass(classBytes(returnValue: 1), transformation) != hashClass(classBytes(returnValue: 2), transformation)
+    }
+
+    def "class in directory declaring annotation processor is hashed using its contents"() {
+        def processor = 'META-INF/services/javax.annotation.processing.Processor'
+
+        expect:
+        hashClass(classBytes(returnValue: 1), processor) != hashClass(classBytes(returnValue: 2), processor)
+    }
+
+    def "class annotated as AST transformation is hashed using its contents"() {
+        expect:
+        hashClass(classBytes(returnValue: 1, astTransformation: true)) != hashClass(classBytes(returnValue: 2, astTransformation: true))
+        hashJar(classBytes(returnValue: 1, astTransformation: true)) != hashJar(classBytes(returnValue: 2, astTransformation: true))
+    }
+
+    def "uses fallback hasher for other files"() {
+        TestFile file = tmpDir.file('some.txt')
+        file.text = 'content'
+
+        expect:
+        hasher.hash(file) == new DefaultHasher().hash(file)
+    }
+
+    def hashClass(byte[] classBytes, String serviceName = null) {
+        TestFile classesDir = tmpDir.file("${classBytes.hashCode()}")
+        if (serviceName != null) {
+            classesDir.file(serviceName).write('org.gradle.Thing')
+        }
+        TestFile file = classesDir.file('org/gradle/Thing.class')
+        file.parentFile.mkdirs()
+        file.bytes = classBytes
+        return hasher.hash(file) as List
+    }
+
+    def hashJar(byte[] classBytes, String resourceContent = 'resource', String resourceName = 'thing.properties') {
+        TestFile file = tmpDir.file("${classBytes.hashCode()}${resourceContent.hashCode()}/lib.jar")
+        file.parentFile.mkdirs()
+        ZipOutputStream outstr = new ZipOutputStream(new FileOutputStream(file))
+        try {
+            outstr.putNextEntry(new ZipEntry('org/gradle/Thing.class'))
+            outstr.write(classBytes)
+            outstr.putNextEntry(new ZipEntry(resourceName))
+            outstr.write(resourceContent.bytes)
+        } finally {
+            outstr.close()
+        }
+        return hasher.hash(file) as List
+    }
+
+    def classBytes(Map options = [:]) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, 'org/gradle/Thing', null, options.superName ?: 'java/lang/Object', null)
+        if (options.astTransformation) {
+            writer.visitAnnotation('Lorg/codehaus/groovy/transform/GroovyASTTransformation;', false).visitEnd()
+        }
+        if (options.constant != null) {
+            writer.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, 'CONSTANT', 'I', null, options.constant).visitEnd()
+        }
+        method(writer, Opcodes.ACC_PUBLIC, options.methodName ?: 'value', options.returnValue ?: 0)
+        if (options.privateMethod) {
+            method(writer, Opcodes.ACC_PRIVATE, 'helper', 0)
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    def method(ClassWriter writer, int access, String name, int returnValue) {
+        MethodVisitor methodVisitor = writer.visitMethod(access, name, '()I', null, null)
+        methodVisitor.visitCode()
+        methodVisitor.visitLdcInsn(returnValue)
+        methodVisitor.visitInsn(Opcodes.IRETURN)
+        methodVisitor.visitMaxs(0, 0)
+        methodVisitor.visitEnd()
+    }
+}
@@ -16,16 +16,16 @@
 package org.gradle.api.internal.changedetection
 
 import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInputsInternal
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.TaskOutputsInternal
-import org.gradle.api.tasks.TaskInputs
 import spock.lang.Specification
 
 class FileCacheBroadcastTaskArtifactStateRepositoryTest extends Specification {
     final TaskArtifactStateRepository target = Mock()
     final TaskArtifactState targetState = Mock()
     final TaskInternal task = Mock()
-    final TaskInputs taskInputs = Mock()
+    final TaskInputsInternal taskInputs = Mock()
     final TaskOutputsInternal taskOutputs = Mock()
     final FileCollection outputs = Mock()
     final FileCollection inputs = Mock()
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.initialization
+
+import org.gradle.util.MultiParentClassLoader
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class ClassLoaderCacheTest extends Specification {
+    @Rule TemporaryFolder tmpDir = new TemporaryFolder()
+    final ClassLoader parent = new ClassLoader() {}
+    final ClassLoaderCache cache = new ClassLoaderCache(parent, 1)
+
+    def "reuses ClassLoader for classpath with same content and parent"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+        def dir = tmpDir.createDir('classes')
+        dir.file('Thing.class').write('class')
+
+        when:
+        def classLoader = cache.get(parent, [jar, dir])
+
+        then:
+        classLoader.parent == parent
+        cache.get(parent, [jar, dir]).is(classLoader)
+        !cache.get(parent, [dir, jar]).is(classLoader)
+        !cache.get(new ClassLoader() {}, [jar, dir]).is(classLoader)
+    }
+
+    def "does not reuse ClassLoader when content of classpath has changed"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+
+        when:
+        def classLoader = cache.get(parent, [jar])
+        jar.write('changed content')
+
+        then:
+        !cache.get(parent, [jar]).is(classLoader)
+    }
+
+    def "does not reuse ClassLoader for classpath with same content in different files"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+        def copy = tmpDir.file('copy/lib.jar').write('content')
+
+        when:
+        def classLoader = cache.get(parent, [jar])
+
+        then:
+        !cache.get(parent, [copy]).is(classLoader)
+        cache.get(parent, [copy]).URLs == [copy.toURI().toURL()] as URL[]
+    }
+
+    def "reuses ClassLoader which has been released"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+
+        when:
+        def classLoader = cache.get(parent, [jar])
+        cache.release(classLoader)
+
+        then:
+        cache.get(parent, [jar]).is(classLoader)
+    }
+
+    def "discards least recently used ClassLoaders which are no longer in use"() {
+        def jar1 = tmpDir.file('lib1.jar').write('content 1')
+        def jar2 = tmpDir.file('lib2.jar').write('content 2')
+        def jar3 = tmpDir.file('lib3.jar').write('content 3')
+
+        when:
+        def classLoader1 = cache.get(parent, [jar1])
+        def classLoader2 = cache.get(parent, [jar2])
+        def classLoader3 = cache.get(parent, [jar3])
+        cache.release(classLoader1)
+        cache.release(classLoader3)
+        cache.release(classLoader2)
+
+        then:
+        !cache.get(parent, [jar1]).is(classLoader1)
+        !cache.get(parent, [jar3]).is(classLoader3)
+        cache.get(parent, [jar2]).is(classLoader2)
+    }
+
+    def "does not discard ClassLoaders which are in use"() {
+        def cache = new ClassLoaderCache(parent, 0)
+        def jar = tmpDir.file('lib.jar').write('content')
+
+        when:
+        def classLoader = cache.get(parent, [jar])
+        cache.get(parent, [jar])
+        cache.release(classLoader)
+
+        then:
+        cache.get(parent, [jar]).is(classLoader)
+
+        when:
+        cache.release(classLoader)
+        cache.release(classLoader)
+
+        then:
+        !cache.get(parent, [jar]).is(classLoader)
+    }
+
+    def "uses root ClassLoader in place of script ClassLoaders which do not add a classpath"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+        def buildSrcClassLoader = new URLClassLoader([] as URL[], parent)
+        def buildScriptClassLoader = new ScriptClassLoader(new MultiParentClassLoader(parent, buildSrcClassLoader))
+
+        when:
+        def classLoader = cache.get(buildScriptClassLoader, [jar])
+
+        then:
+        classLoader.parent == parent
+        cache.get(parent, [jar]).is(classLoader)
+    }
+
+    def "uses cached classpath ClassLoader in place of script ClassLoader which adds a classpath"() {
+        def jar1 = tmpDir.file('lib1.jar').write('content 1')
+        def jar2 = tmpDir.file('lib2.jar').write('content 2')
+
+        when:
+        def rootClasspathClassLoader = cache.get(parent, [jar1])
+        def rootScriptClassLoader = new ScriptClassLoader(new MultiParentClassLoader(parent))
+        rootScriptClassLoader.addClasspath(rootClasspathClassLoader)
+        def classLoader = cache.get(new ScriptClassLoader(rootScriptClassLoader), [jar2])
+
+        then:
+        classLoader.parent == rootClasspathClassLoader
+    }
+
+    def "reuses ClassLoader in later build whose script ClassLoaders are equivalent"() {
+        def cache = new ClassLoaderCache(parent, 2)
+        def jar1 = tmpDir.file('lib1.jar').write('content 1')
+        def jar2 = tmpDir.file('lib2.jar').write('content 2')
+
+        when:
+        def rootScriptClassLoader = new ScriptClassLoader(new MultiParentClassLoader(parent))
+        def rootClasspathClassLoader = cache.get(rootScriptClassLoader.parentClassLoader, [jar1])
+        rootScriptClassLoader.addClasspath(rootClasspathClassLoader)
+        def childClasspathClassLoader = cache.get(rootScriptClassLoader, [jar2])
+        cache.release(childClasspathClassLoader)
+        cache.release(rootClasspathClassLoader)
+
+        def laterRootScriptClassLoader = new ScriptClassLoader(new MultiParentClassLoader(parent))
+        def laterRootClasspathClassLoader = cache.get(laterRootScriptClassLoader.parentClassLoader, [jar1])
+        laterRootScriptClassLoader.addClasspath(laterRootClasspathClassLoader)
+
+        then:
+        laterRootClasspathClassLoader.is(rootClasspathClassLoader)
+        cache.get(laterRootScriptClassLoader, [jar2]).is(childClasspathClassLoader)
+    }
+
+    def "discards ClassLoader whose parent has no long-lived equivalent once it is no longer in use"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+        def buildSrcClassLoader = new URLClassLoader([tmpDir.createDir('buildSrc').toURI().toURL()] as URL[], parent)
+        def buildScriptClassLoader = new ScriptClassLoader(new MultiParentClassLoader(parent, buildSrcClassLoader))
+
+        when:
+        def classLoader = cache.get(buildScriptClassLoader, [jar])
+
+        then:
+        classLoader.parent == buildScriptClassLoader
+        cache.get(buildScriptClassLoader, [jar]).is(classLoader)
+
+        when:
+        cache.release(classLoader)
+        cache.release(classLoader)
+
+        then:
+        !cache.get(buildScriptClassLoader, [jar]).is(classLoader)
+    }
+
+    def "cannot release ClassLoader which is not in use"() {
+        when:
+        cache.release(parent)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -24,7 +24,6 @@ import org.gradle.api.internal.file.FileResolver
 import org.gradle.groovy.scripts.ScriptSource
 
 import spock.lang.Specification
-import org.gradle.util.MutableURLClassLoader
 
 class DefaultScriptHandlerFactoryTest extends Specification {
     private final DependencyMetaDataProvider metaDataProvider = Mock()
@@ -33,7 +32,8 @@ class DefaultScriptHandlerFactoryTest extends Specification {
     private final ConfigurationContainerInternal configurationContainer = Mock()
     private final FileResolver fileResolver = Mock()
     private final DependencyManagementServices dependencyManagementServices = Mock()
-    private final DefaultScriptHandlerFactory factory = new DefaultScriptHandlerFactory(dependencyManagementServices, fileResolver, metaDataProvider)
+    private final ScopedClassLoaderCache classLoaderCache = Mock()
+    private final DefaultScriptHandlerFactory factory = new DefaultScriptHandlerFactory(dependencyManagementServices, fileResolver, metaDataProvider, classLoaderCache)
 
     def createsScriptHandler() {
         ScriptSource script = scriptSource()
@@ -44,8 +44,8 @@ class DefaultScriptHandlerFactoryTest extends Specification {
 
         then:
         handler instanceof DefaultScriptHandler
-        handler.classLoader instanceof MutableURLClassLoader
-        handler.classLoader.parent == parentClassLoader
+        handler.classLoader instanceof ScriptClassLoader
+        handler.classLoader.parentClassLoader == parentClassLoader
     }
 
     def reusesClassLoaderForGivenScriptClassAndParentClassLoader() {
@@ -28,7 +28,6 @@ import org.junit.runner.RunWith
 import static org.hamcrest.Matchers.*
 import static org.junit.Assert.*
 import org.gradle.groovy.scripts.ScriptSource
-import org.gradle.util.MutableURLClassLoader
 import org.gradle.util.ConfigureUtil
 
 @RunWith(JMock)
@@ -39,17 +38,19 @@ public class DefaultScriptHandlerTest {
     private final ConfigurationContainer configurationContainer = context.mock(ConfigurationContainer.class)
     private final Configuration configuration = context.mock(Configuration.class)
     private final ScriptSource scriptSource = context.mock(ScriptSource.class)
-    private final MutableURLClassLoader classLoader = context.mock(MutableURLClassLoader.class)
+    private final ClassLoader parentClassLoader = new ClassLoader() {}
+    private final ScriptClassLoader classLoader = new ScriptClassLoader(parentClassLoader)
+    private final ScopedClassLoaderCache classLoaderCache = context.mock(ScopedClassLoaderCache.class)
 
     @Test void addsClasspathConfiguration() {
         context.checking {
             one(configurationContainer).add('classpath')
         }
 
-        new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader)
+        new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classLoaderCache)
     }
 
-    @Test void createsAClassLoaderAndAddsContentsOfClassPathConfiguration() {
+    @Test void addsSharedClassLoaderForContentsOfClassPathConfiguration() {
         DefaultScriptHandler handler = handler()
 
         ClassLoader classLoader = handler.classLoader
@@ -57,14 +58,30 @@ public class DefaultScriptHandlerTest {
 
         File file1 = new File('a')
         File file2 = new File('b')
+        ClassLoader classpathClassLoader = new ClassLoader(parentClassLoader) {}
         context.checking {
             one(configuration).getFiles()
             will(returnValue(WrapUtil.toSet(file1, file2)))
-            one(classLoader).addURL(file1.toURI().toURL())
-            one(classLoader).addURL(file2.toURI().toURL())
+            one(classLoaderCache).get(parentClassLoader, WrapUtil.toSet(file1, file2))
+            will(returnValue(classpathClassLoader))
         }
 
         handler.updateClassPath()
+
+        assertTrue(this.classLoader.hasClasspath())
+    }
+
+    @Test void doesNotAddClassLoaderForEmptyClassPathConfiguration() {
+        DefaultScriptHandler handler = handler()
+
+        context.checking {
+            one(configuration).getFiles()
+            will(returnValue(WrapUtil.toSet()))
+        }
+
+        handler.updateClassPath()
+
+        assertFalse(classLoader.hasClasspath())
     }
 
     @Test void canConfigureRepositories() {
@@ -100,6 +117,6 @@ public class DefaultScriptHandlerTest {
             one(configurationContainer).add('classpath')
             will(returnValue(configuration))
         }
-        return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader)
+        return new DefaultScriptHandler(scriptSource, repositoryHandler, dependencyHandler, configurationContainer, classLoader, classLoaderCache)
     }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ package org.gradle.api.internal.project
 import java.awt.Point
 import java.text.FieldPosition
 import org.apache.tools.ant.types.FileSet
+import org.gradle.StartParameter
 import org.gradle.api.artifacts.Module
 import org.gradle.api.artifacts.dsl.ArtifactHandler
 import org.gradle.api.artifacts.dsl.DependencyHandler
@@ -101,6 +102,7 @@ class DefaultProjectTest {
     ProcessOperations processOperationsMock = context.mock(ProcessOperations)
     LoggingManagerInternal loggingManagerMock = context.mock(LoggingManagerInternal.class)
     Instantiator instantiatorMock = context.mock(Instantiator)
+    StartParameter startParameter = new StartParameter()
 
     @Before
     void setUp() {
@@ -149,6 +151,7 @@ class DefaultProjectTest {
             ignoring(listener)
             allowing(build).getProjectEvaluationBroadcaster();
             will(returnValue(listener))
+            allowing(build).getStartParameter(); will(returnValue(startParameter))
         }
 
         // TODO - don't decorate the project objects
@@ -905,6 +908,66 @@ def scriptMethod(Closure closure) {
         checkConfigureProject('configure', [project, child1] as Set)
     }
 
+    @Test void canConfigureOtherProjectsWhenEvaluatingSequentially() {
+        child1.state.evaluatingThread = Thread.currentThread()
+        try {
+            child1.project(':child2') { testSubProp = 'value' }
+        } finally {
+            child1.state.evaluatingThread = null
+        }
+        assertEquals('value', child2.testSubProp)
+    }
+
+    @Test void canOnlyConfigureProjectAndItsSubprojectsWhenEvaluatingInParallel() {
+        startParameter.parallelProjectEvaluation = true
+        child1.state.evaluatingThread = Thread.currentThread()
+        try {
+            child1.subprojects { testSubProp = 'value' }
+            assertEquals('value', childchild.testSubProp)
+            try {
+                child1.project(':child2') { testSubProp = 'value' }
+                fail()
+            } catch (InvalidUserDataException e) {
+                assertThat(e.message, startsWith("Cannot access project ':child2' while evaluating project ':child1'"))
+            }
+        } finally {
+            child1.state.evaluatingThread = null
+        }
+    }
+
+    @Test void cannotAccessModelOfParentOrSiblingProjectWhenEvaluatingInParallel() {
+        startParameter.parallelProjectEvaluation = true
+        child1.state.evaluatingThread = Thread.currentThread()
+        try {
+            try {
+                project.description = 'value'
+                fail()
+            } catch (InvalidUserDataException e) {
+                assertThat(e.message, startsWith("Cannot access root project 'root' while evaluating project ':child1'"))
+            }
+            try {
+                child2.apply(plugin: 'java')
+                fail()
+            } catch (InvalidUserDataException e) {
+                assertThat(e.message, startsWith("Cannot access project ':child2' while evaluating project ':child1'"))
+            }
+            try {
+                child2.task('someTask')
+                fail()
+            } catch (InvalidUserDataException e) {
+                assertThat(e.message, startsWith("Cannot access project ':child2' while evaluating project ':child1'"))
+            }
+        } finally {
+            child1.state.evaluatingThread = null
+        }
+    }
+
+    @Test void canAccessModelOfAnyProjectWhenNotEvaluatingAProjectInParallel() {
+        startParameter.parallelProjectEvaluation = true
+        child2.description = 'value'
+        assertEquals('value', child2.description)
+    }
+
     @Test void testHasUsefulToString() {
         assertEquals('root project \'root\'', project.toString())
         assertEquals('project \':child1\'', child1.toString())
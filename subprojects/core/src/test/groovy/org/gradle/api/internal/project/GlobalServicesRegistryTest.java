@@ -25,6 +25,7 @@ import org.gradle.cache.internal.CacheFactory;
 import org.gradle.cache.internal.DefaultCacheFactory;
 import org.gradle.cache.internal.DefaultFileLockManager;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.initialization.BuildProcess;
 import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.cli.CommandLineConverter;
 import org.gradle.initialization.DefaultClassLoaderRegistry;
@@ -44,6 +45,7 @@ import org.junit.Test;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 
 public class GlobalServicesRegistryTest {
@@ -55,6 +57,11 @@ public class GlobalServicesRegistryTest {
                 DefaultCommandLineConverter.class));
     }
 
+    @Test
+    public void providesABuildProcessWhichIsNotLongLived() {
+        assertFalse(registry.get(BuildProcess.class).isLongLived());
+    }
+
     @Test
     public void providesACacheFactoryFactory() {
         assertThat(registry.getFactory(CacheFactory.class), instanceOf(DefaultCacheFactory.class));
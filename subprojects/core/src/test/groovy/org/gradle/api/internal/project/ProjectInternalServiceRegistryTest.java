@@ -30,7 +30,9 @@ import org.gradle.api.internal.artifacts.configurations.DependencyMetaDataProvid
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory;
 import org.gradle.api.internal.artifacts.dsl.dependencies.ProjectFinder;
 import org.gradle.api.internal.file.*;
+import org.gradle.api.internal.initialization.ClassLoaderCache;
 import org.gradle.api.internal.initialization.DefaultScriptHandler;
+import org.gradle.api.internal.initialization.ScopedClassLoaderCache;
 import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
 import org.gradle.api.internal.plugins.DefaultProjectsPluginContainer;
 import org.gradle.api.internal.plugins.PluginRegistry;
@@ -94,6 +96,8 @@ public class ProjectInternalServiceRegistryTest {
             will(returnValue(new DirectInstantiator()));
             allowing(parent).get(FileSystem.class);
             will(returnValue(context.mock(FileSystem.class)));
+            allowing(parent).get(ScopedClassLoaderCache.class);
+            will(returnValue(new ScopedClassLoaderCache(new ClassLoaderCache(getClass().getClassLoader()))));
         }});
     }
 
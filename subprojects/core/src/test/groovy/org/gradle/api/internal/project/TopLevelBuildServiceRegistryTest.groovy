@@ -21,6 +21,7 @@ import org.gradle.StartParameter
 import org.gradle.api.internal.classpath.DefaultModuleRegistry
 import org.gradle.api.internal.classpath.ModuleRegistry
 import org.gradle.api.internal.classpath.PluginModuleRegistry
+import org.gradle.api.internal.initialization.ScopedClassLoaderCache
 import org.gradle.cache.CacheRepository
 import org.gradle.cache.internal.CacheFactory
 import org.gradle.cache.internal.DefaultCacheRepository
@@ -30,6 +31,7 @@ import org.gradle.configuration.DefaultScriptPluginFactory
 import org.gradle.configuration.ScriptPluginFactory
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory
 import org.gradle.groovy.scripts.ScriptCompilerFactory
+import org.gradle.groovy.scripts.internal.ScriptPrecompiler
 import org.gradle.internal.Factory
 import org.gradle.internal.service.ServiceRegistry
 import org.gradle.listener.DefaultListenerManager
@@ -196,6 +198,18 @@ public class TopLevelBuildServiceRegistryTest extends Specification {
         assertThat(registry.get(IProjectFactory.class), sameInstance(registry.get(IProjectFactory.class)));
     }
 
+    def providesAScopedClassLoaderCache() {
+        expect:
+        assertThat(registry.get(ScopedClassLoaderCache.class), instanceOf(ScopedClassLoaderCache.class));
+        assertThat(registry.get(ScopedClassLoaderCache.class), sameInstance(registry.get(ScopedClassLoaderCache.class)));
+    }
+
+    def providesAScriptPrecompiler() {
+        expect:
+        assertThat(registry.get(ScriptPrecompiler.class), instanceOf(ScriptPrecompiler.class));
+        assertThat(registry.get(ScriptPrecompiler.class), sameInstance(registry.get(ScriptPrecompiler.class)));
+    }
+
     def providesAnExecutorFactory() {
         expect:
         assertThat(registry.get(ExecutorFactory.class), instanceOf(DefaultExecutorFactory.class));
@@ -218,7 +232,7 @@ public class TopLevelBuildServiceRegistryTest extends Specification {
         setup:
         expectParentServiceLocated(Instantiator.class);
         expect:
-        assertThat(registry.get(BuildLoader.class), instanceOf(ProjectPropertySettingBuildLoader.class));
+        assertThat(registry.get(BuildLoader.class), instanceOf(ScriptPrecompilingBuildLoader.class));
         assertThat(registry.get(BuildLoader.class), sameInstance(registry.get(BuildLoader.class)));
     }
 
@@ -369,6 +369,13 @@ public class AnnotationProcessingTaskFactoryTest {
         assertThat(task.getInputs().getFiles().getFiles(), equalTo(toSet(testDir, missingFile)));
     }
 
+    @Test
+    public void registersSpecifiedCompileClasspathFiles() {
+        TaskWithCompileClasspath task = expectTaskCreated(TaskWithCompileClasspath.class, toList(testDir, missingFile));
+        assertThat(task.getInputs().getCompileClasspathFiles().getFiles(), equalTo(toSet(testDir, missingFile)));
+        assertThat(task.getInputs().getFiles().getFiles(), equalTo(toSet(testDir, missingFile)));
+    }
+
     @Test
     public void doesNotRegisterInputFilesWhenNoneSpecified() {
         TaskWithInputFiles task = expectTaskCreated(TaskWithInputFiles.class, new Object[]{null});
@@ -885,6 +892,17 @@ public class AnnotationProcessingTaskFactoryTest {
         }
     }
 
+    public static class TaskWithCompileClasspath extends TaskWithInputFiles {
+        public TaskWithCompileClasspath(Iterable<? extends File> input) {
+            super(input);
+        }
+
+        @InputFiles @CompileClasspath
+        public Iterable<? extends File> getInput() {
+            return input;
+        }
+    }
+
     public static class BrokenTaskWithInputFiles extends TaskWithInputFiles {
         public BrokenTaskWithInputFiles(Iterable<? extends File> input) {
             super(input);
@@ -16,9 +16,9 @@
 package org.gradle.api.internal.project.taskfactory;
 
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.TaskInputsInternal;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.ProjectInternal;
-import org.gradle.api.tasks.TaskInputs;
 import static org.gradle.util.GUtil.*;
 import static org.hamcrest.Matchers.*;
 import org.jmock.Expectations;
@@ -38,7 +38,7 @@ public class DependencyAutoWireTaskFactoryTest {
     public void addsDependencyOnInputFiles() {
         final TaskInternal task = context.mock(TaskInternal.class);
         final ProjectInternal project = context.mock(ProjectInternal.class);
-        final TaskInputs taskInputs = context.mock(TaskInputs.class);
+        final TaskInputsInternal taskInputs = context.mock(TaskInputsInternal.class);
         final FileCollection inputFiles = context.mock(FileCollection.class);
 
         context.checking(new Expectations() {{
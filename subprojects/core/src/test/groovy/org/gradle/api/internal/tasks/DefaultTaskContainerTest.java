@@ -16,10 +16,12 @@
 package org.gradle.api.internal.tasks;
 
 import groovy.lang.Closure;
+import org.gradle.StartParameter;
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Rule;
 import org.gradle.api.Task;
 import org.gradle.api.UnknownTaskException;
+import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.Instantiator;
 import org.gradle.api.internal.TaskInternal;
 import org.gradle.api.internal.project.ProjectInternal;
@@ -266,10 +268,17 @@ public class DefaultTaskContainerTest {
         context.checking(new Expectations() {{
             ProjectInternal otherProject = context.mock(ProjectInternal.class);
             TaskContainerInternal otherTaskContainer = context.mock(TaskContainerInternal.class);
+            GradleInternal gradle = context.mock(GradleInternal.class);
 
             allowing(project).findProject(projectPath);
             will(returnValue(otherProject));
 
+            allowing(otherProject).getGradle();
+            will(returnValue(gradle));
+
+            allowing(gradle).getStartParameter();
+            will(returnValue(new StartParameter()));
+
             allowing(otherProject).getTasks();
             will(returnValue(otherTaskContainer));
 
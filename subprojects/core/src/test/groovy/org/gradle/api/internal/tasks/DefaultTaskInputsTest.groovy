@@ -38,6 +38,7 @@ class DefaultTaskInputsTest extends Specification {
         !inputs.hasInputs
         !inputs.hasSourceFiles
         inputs.sourceFiles.empty
+        inputs.compileClasspathFiles.empty
     }
 
     def canRegisterInputFiles() {
@@ -135,6 +136,19 @@ class DefaultTaskInputsTest extends Specification {
         inputs.files.files == ([new File('file')] as Set)
     }
 
+    def compileClasspathFilesAreAlsoInputFiles() {
+        when:
+        inputs.files('a')
+        inputs.compileClasspath('lib.jar')
+
+        then:
+        inputs.compileClasspathFiles.files == ([new File('lib.jar')] as Set)
+        inputs.nonCompileClasspathFiles.files == ([new File('a')] as Set)
+        inputs.files.files == ([new File('a'), new File('lib.jar')] as Set)
+        inputs.hasInputs
+        !inputs.hasSourceFiles
+    }
+
     def hasInputsWhenEmptyInputFilesRegistered() {
         when:
         inputs.files([])
@@ -16,17 +16,17 @@
 package org.gradle.api.internal.tasks.execution
 
 import org.gradle.api.file.FileCollection
+import org.gradle.api.internal.TaskInputsInternal
 import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.tasks.TaskExecuter
 import org.gradle.api.internal.tasks.TaskStateInternal
-import org.gradle.api.tasks.TaskInputs
 import spock.lang.Specification
 
 class SkipEmptySourceFilesTaskExecuterTest extends Specification {
     final TaskExecuter target = Mock()
     final TaskInternal task = Mock()
     final TaskStateInternal state = Mock()
-    final TaskInputs taskInputs = Mock()
+    final TaskInputsInternal taskInputs = Mock()
     final FileCollection sourceFiles = Mock()
     final SkipEmptySourceFilesTaskExecuter executer = new SkipEmptySourceFilesTaskExecuter(target)
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.api.CircularReferenceException
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.util.ConcurrentSpecification
+
+import java.util.concurrent.CountDownLatch
+
+class ConcurrentProjectEvaluatorTest extends ConcurrentSpecification {
+    final ProjectInternal project1 = Mock()
+    final ProjectInternal project2 = Mock()
+    final ProjectStateInternal state1 = new ProjectStateInternal()
+    final ProjectStateInternal state2 = new ProjectStateInternal()
+    final List<ProjectInternal> evaluated = Collections.synchronizedList([])
+    Closure action = {}
+    final ProjectEvaluator target = { project, state ->
+        evaluated << project
+        try {
+            action.call(project)
+            state.executed()
+        } catch (Throwable t) {
+            state.executed(t)
+            throw t
+        }
+    } as ProjectEvaluator
+    final ConcurrentProjectEvaluator evaluator = new ConcurrentProjectEvaluator(target)
+
+    def "evaluates project"() {
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        evaluated == [project1]
+        state1.executed
+    }
+
+    def "does not evaluate project which has been evaluated by another thread"() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        action = { started.countDown(); release.await() }
+
+        when:
+        def first = start { evaluator.evaluate(project1, state1) }
+        started.await()
+        def second = start { evaluator.evaluate(project1, state1) }
+        release.countDown()
+        first.completed()
+        second.completed()
+
+        then:
+        evaluated == [project1]
+    }
+
+    def "allows nested evaluation of project by the thread which is evaluating it"() {
+        action = { if (evaluated.size() == 1) { evaluator.evaluate(project1, state1) } }
+
+        when:
+        evaluator.evaluate(project1, state1)
+
+        then:
+        evaluated == [project1, project1]
+    }
+
+    def "reports threads which wait for each other's projects as a circular reference"() {
+        def bothStarted = new CountDownLatch(2)
+        def failures = Collections.synchronizedList([])
+        action = { project ->
+            bothStarted.countDown()
+            bothStarted.await()
+            if (project == project1) {
+                evaluator.evaluate(project2, state2)
+            } else {
+                Thread.sleep(100)
+                evaluator.evaluate(project1, state1)
+            }
+        }
+
+        when:
+        def thread1 = start { try { evaluator.evaluate(project1, state1) } catch (CircularReferenceException e) { failures << e } }
+        def thread2 = start { try { evaluator.evaluate(project2, state2) } catch (CircularReferenceException e) { failures << e } }
+        thread1.completed()
+        thread2.completed()
+
+        then:
+        failures.size() == 1
+        failures[0].message.startsWith("Circular referencing during evaluation for ")
+    }
+}
@@ -15,17 +15,29 @@
  */
 package org.gradle.configuration
 
+import org.gradle.StartParameter
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.project.ProjectInternal
 import spock.lang.Specification
 import org.gradle.api.Action
+import org.gradle.api.ProjectEvaluationListener
+import org.gradle.api.ProjectState
+import org.gradle.api.Task
+import org.gradle.api.internal.project.ServiceRegistryFactory
+import org.gradle.api.internal.tasks.TaskContainerInternal
+import org.gradle.execution.TaskGraphCache
 
 class DefaultBuildConfigurerTest extends Specification {
+    private final StartParameter startParameter = new StartParameter()
     private final GradleInternal gradle = Mock()
     private final ProjectInternal rootProject = Mock()
     private final Action<? super ProjectInternal> action = Mock()
     private final DefaultBuildConfigurer configurer = new DefaultBuildConfigurer(action)
 
+    def setup() {
+        _ * gradle.startParameter >> startParameter
+    }
+
     def executesActionsForEachProject() {
         when:
         configurer.configure(gradle)
@@ -37,4 +49,179 @@ class DefaultBuildConfigurerTest extends Specification {
         }
         1 * action.execute(rootProject)
     }
+
+    def evaluatesOnlyRootProjectWhenConfiguringOnDemand() {
+        ProjectEvaluationListener listener = null
+        startParameter.configureOnDemand = true
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        1 * gradle.addProjectEvaluationListener(!null) >> { args -> listener = args[0] }
+        1 * rootProject.evaluate()
+        0 * rootProject.allprojects(_)
+        0 * action._
+
+        when:
+        listener.afterEvaluate(rootProject, Mock(ProjectState))
+
+        then:
+        1 * action.execute(rootProject)
+    }
+
+    def doesNotExecuteActionsForProjectWhichFailedToEvaluateWhenConfiguringOnDemand() {
+        ProjectEvaluationListener listener = null
+        ProjectState state = Mock()
+        startParameter.configureOnDemand = true
+        _ * gradle.rootProject >> rootProject
+        _ * gradle.addProjectEvaluationListener(!null) >> { args -> listener = args[0] }
+        _ * state.failure >> new RuntimeException()
+
+        when:
+        configurer.configure(gradle)
+        listener.afterEvaluate(rootProject, state)
+
+        then:
+        0 * action._
+    }
+
+    def executesActionsForEachProjectWhenEvaluatingInParallel() {
+        ProjectInternal child = Mock()
+        startParameter.parallelProjectEvaluation = true
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        _ * rootProject.subprojects >> ([child] as Set)
+        _ * rootProject.childProjects >> [child: child]
+        _ * child.childProjects >> [:]
+        1 * action.execute(rootProject)
+        1 * action.execute(child)
+        0 * rootProject.allprojects(_)
+    }
+
+    def configuresOnlyProjectsWhichOwnCachedTasks() {
+        ProjectInternal child = Mock()
+        TaskContainerInternal tasks = Mock()
+        TaskGraphCache taskGraphCache = Mock()
+        Task task = Mock()
+        startParameter.cacheTaskGraph = true
+        ServiceRegistryFactory services = Mock()
+        _ * gradle.services >> services
+        _ * services.get(TaskGraphCache) >> taskGraphCache
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        1 * taskGraphCache.load() >> [':child:compile']
+        _ * taskGraphCache.configuredProjectPaths >> ([] as Set)
+        _ * rootProject.allprojects >> ([rootProject, child] as Set)
+        _ * rootProject.findProject(':child') >> child
+        _ * child.parent >> rootProject
+        _ * child.tasks >> tasks
+        _ * tasks.findByName('compile') >> task
+        1 * rootProject.evaluate()
+        1 * child.evaluate()
+        1 * taskGraphCache.useCachedTasks([task])
+        0 * rootProject.allprojects(_)
+    }
+
+    def configuresProjectsRecordedWithCachedTaskGraph() {
+        ProjectInternal child = Mock()
+        ProjectInternal other = Mock()
+        ProjectInternal unused = Mock()
+        TaskContainerInternal tasks = Mock()
+        TaskGraphCache taskGraphCache = Mock()
+        Task task = Mock()
+        startParameter.cacheTaskGraph = true
+        ServiceRegistryFactory services = Mock()
+        _ * gradle.services >> services
+        _ * services.get(TaskGraphCache) >> taskGraphCache
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        1 * taskGraphCache.load() >> [':child:compile']
+        _ * taskGraphCache.configuredProjectPaths >> ([':other'] as Set)
+        _ * rootProject.allprojects >> ([rootProject, child, other, unused] as Set)
+        _ * rootProject.findProject(':child') >> child
+        _ * rootProject.findProject(':other') >> other
+        _ * child.parent >> rootProject
+        _ * other.parent >> rootProject
+        _ * child.tasks >> tasks
+        _ * tasks.findByName('compile') >> task
+        1 * rootProject.evaluate()
+        1 * child.evaluate()
+        1 * other.evaluate()
+        0 * unused.evaluate()
+        1 * taskGraphCache.useCachedTasks([task])
+    }
+
+    def configuresAllProjectsWhenRecordedProjectCannotBeFound() {
+        TaskGraphCache taskGraphCache = Mock()
+        startParameter.cacheTaskGraph = true
+        ServiceRegistryFactory services = Mock()
+        _ * gradle.services >> services
+        _ * services.get(TaskGraphCache) >> taskGraphCache
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        1 * taskGraphCache.load() >> [':compile']
+        _ * taskGraphCache.configuredProjectPaths >> ([':unknown'] as Set)
+        1 * rootProject.allprojects(!null)
+        0 * taskGraphCache.useCachedTasks(_)
+    }
+
+    def configuresAllProjectsWhenCachedTaskCannotBeFound() {
+        TaskContainerInternal tasks = Mock()
+        TaskGraphCache taskGraphCache = Mock()
+        startParameter.cacheTaskGraph = true
+        ServiceRegistryFactory services = Mock()
+        _ * gradle.services >> services
+        _ * services.get(TaskGraphCache) >> taskGraphCache
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        1 * taskGraphCache.load() >> [':unknown']
+        _ * taskGraphCache.configuredProjectPaths >> ([] as Set)
+        _ * rootProject.allprojects >> ([rootProject] as Set)
+        _ * rootProject.findProject(':') >> rootProject
+        _ * rootProject.tasks >> tasks
+        _ * rootProject.implicitTasks >> tasks
+        1 * rootProject.allprojects(!null)
+        0 * taskGraphCache.useCachedTasks(_)
+    }
+
+    def configuresAllProjectsWhenThereIsNoCachedTaskGraph() {
+        TaskGraphCache taskGraphCache = Mock()
+        startParameter.cacheTaskGraph = true
+        ServiceRegistryFactory services = Mock()
+        _ * gradle.services >> services
+        _ * services.get(TaskGraphCache) >> taskGraphCache
+
+        when:
+        configurer.configure(gradle)
+
+        then:
+        _ * gradle.rootProject >> rootProject
+        1 * taskGraphCache.load() >> null
+        1 * rootProject.allprojects(!null) >> { args ->
+            args[0].execute(rootProject)
+        }
+        1 * action.execute(rootProject)
+    }
 }
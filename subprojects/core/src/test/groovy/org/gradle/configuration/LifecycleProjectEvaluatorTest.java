@@ -63,8 +63,14 @@ public class LifecycleProjectEvaluatorTest {
             allowing(state).getExecuted();
             will(returnValue(false));
 
+            allowing(state).isEvaluatingOnCurrentThread();
+            will(returnValue(false));
+
             Sequence sequence = context.sequence("seq");
 
+            one(state).setEvaluatingThread(Thread.currentThread());
+            inSequence(sequence);
+
             one(listener).beforeEvaluate(project);
             inSequence(sequence);
 
@@ -82,6 +88,9 @@ public class LifecycleProjectEvaluatorTest {
 
             one(listener).afterEvaluate(project, state);
             inSequence(sequence);
+
+            one(state).setEvaluatingThread(null);
+            inSequence(sequence);
         }});
 
         evaluator.evaluate(project, state);
@@ -95,8 +104,14 @@ public class LifecycleProjectEvaluatorTest {
             allowing(state).getExecuted();
             will(returnValue(false));
 
+            allowing(state).isEvaluatingOnCurrentThread();
+            will(returnValue(false));
+
             Sequence sequence = context.sequence("seq");
 
+            one(state).setEvaluatingThread(Thread.currentThread());
+            inSequence(sequence);
+
             one(listener).beforeEvaluate(project);
             inSequence(sequence);
 
@@ -115,6 +130,9 @@ public class LifecycleProjectEvaluatorTest {
             
             one(listener).afterEvaluate(project, state);
             inSequence(sequence);
+
+            one(state).setEvaluatingThread(null);
+            inSequence(sequence);
         }});
 
         try {
@@ -124,4 +142,23 @@ public class LifecycleProjectEvaluatorTest {
             assertThat(e, Matchers.sameInstance(failure));
         }
     }
+
+    @Test
+    public void doesNotChangeEvaluatingThreadForNestedEvaluationOfProject() {
+        context.checking(new Expectations() {{
+            allowing(state).getExecuted();
+            will(returnValue(false));
+
+            allowing(state).isEvaluatingOnCurrentThread();
+            will(returnValue(true));
+
+            ignoring(listener);
+            ignoring(delegate);
+            allowing(state).setExecuting(true);
+            allowing(state).setExecuting(false);
+            allowing(state).executed();
+        }});
+
+        evaluator.evaluate(project, state);
+    }
 }
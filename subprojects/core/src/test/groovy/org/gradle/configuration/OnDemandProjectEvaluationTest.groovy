@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.StartParameter
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import spock.lang.Specification
+
+class OnDemandProjectEvaluationTest extends Specification {
+    final StartParameter startParameter = new StartParameter()
+    final ProjectStateInternal state = new ProjectStateInternal()
+    final ProjectInternal project = Mock()
+
+    def setup() {
+        GradleInternal gradle = Mock()
+        _ * project.gradle >> gradle
+        _ * gradle.startParameter >> startParameter
+        _ * project.state >> state
+    }
+
+    def "evaluates project when configuring on demand"() {
+        startParameter.configureOnDemand = true
+
+        when:
+        OnDemandProjectEvaluation.evaluate(project)
+
+        then:
+        1 * project.evaluate()
+    }
+
+    def "evaluates parents of project before the project"() {
+        startParameter.configureOnDemand = true
+        ProjectInternal parent = Mock()
+        ProjectInternal evaluatedGrandParent = Mock()
+        def grandParentState = new ProjectStateInternal()
+        grandParentState.executed()
+        _ * project.parent >> parent
+        _ * parent.parent >> evaluatedGrandParent
+        _ * parent.state >> new ProjectStateInternal()
+        _ * evaluatedGrandParent.state >> grandParentState
+
+        when:
+        OnDemandProjectEvaluation.evaluate(project)
+
+        then:
+        0 * evaluatedGrandParent.evaluate()
+        1 * parent.evaluate()
+
+        then:
+        1 * project.evaluate()
+    }
+
+    def "does not evaluate project when not configuring on demand"() {
+        when:
+        OnDemandProjectEvaluation.evaluate(project)
+
+        then:
+        0 * project.evaluate()
+    }
+
+    def "does not evaluate project which has been evaluated"() {
+        startParameter.configureOnDemand = true
+        state.executed()
+
+        when:
+        OnDemandProjectEvaluation.evaluate(project)
+
+        then:
+        0 * project.evaluate()
+    }
+
+    def "does not evaluate project which is being evaluated"() {
+        startParameter.configureOnDemand = true
+        state.executing = true
+
+        when:
+        OnDemandProjectEvaluation.evaluate(project)
+
+        then:
+        0 * project.evaluate()
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configuration
+
+import org.gradle.api.Action
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.util.ConcurrentSpecification
+
+class ParallelProjectConfigurerTest extends ConcurrentSpecification {
+    final List<String> configured = Collections.synchronizedList([])
+    final Action<ProjectInternal> action = { configured << it.name } as Action
+    final ParallelProjectConfigurer configurer = new ParallelProjectConfigurer(executorFactory, 4)
+
+    def "configures root project only when there are no subprojects"() {
+        def root = project("root")
+
+        when:
+        configurer.configure(root, action)
+
+        then:
+        configured == ["root"]
+    }
+
+    def "configures each project after its parent project"() {
+        def a1 = project("a1")
+        def a2 = project("a2")
+        def a = project("a", a1, a2)
+        def b = project("b")
+        def root = project("root", a, b)
+
+        when:
+        configurer.configure(root, action)
+
+        then:
+        configured.size() == 5
+        configured[0] == "root"
+        configured.indexOf("a") < configured.indexOf("a1")
+        configured.indexOf("a") < configured.indexOf("a2")
+    }
+
+    def "does not configure children of a project which fails and rethrows the failure"() {
+        def failure = new RuntimeException("broken")
+        def a1 = project("a1")
+        def a = project("a", a1)
+        def root = project("root", a)
+        def failingAction = { if (it.name == "a") { throw failure }; configured << it.name } as Action
+
+        when:
+        configurer.configure(root, failingAction)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+        configured == ["root"]
+    }
+
+    def project(String name, ProjectInternal... children) {
+        Map<String, ProjectInternal> childProjects = children.collectEntries { [it.name, it] }
+        Set<ProjectInternal> subprojects = children.collect { [it] + it.subprojects }.flatten() as Set
+        return [getName: { name }, getChildProjects: { childProjects }, getSubprojects: { subprojects }] as ProjectInternal
+    }
+}
@@ -31,6 +31,7 @@ class DefaultTasksBuildExecutionActionTest extends Specification {
         _ * context.gradle >> gradle
         _ * gradle.startParameter >> startParameter
         _ * gradle.defaultProject >> defaultProject
+        _ * defaultProject.gradle >> gradle
     }
 
     def "proceeds when task names specified in StartParameter"() {
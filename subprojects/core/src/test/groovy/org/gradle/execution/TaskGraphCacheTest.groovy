@@ -0,0 +1,225 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.api.internal.changedetection.InMemoryIndexedCache
+import org.gradle.api.internal.project.DefaultProject
+import org.gradle.cache.CacheRepository
+import org.gradle.cache.ObjectCacheBuilder
+import org.gradle.configuration.AppliedScripts
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.groovy.scripts.UriScriptSource
+import org.gradle.util.HelperUtil
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class TaskGraphCacheTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final CacheRepository cacheRepository = Mock()
+    final ObjectCacheBuilder cacheBuilder = Mock()
+    final InMemoryIndexedCache indexedCache = new InMemoryIndexedCache()
+    final AppliedScripts appliedScripts = new AppliedScripts()
+    DefaultProject project
+
+    def setup() {
+        project = HelperUtil.createRootProject(tmpDir.dir)
+        project.gradle.startParameter.taskNames = ['b']
+        _ * cacheRepository.indexedCache(String, _, "taskGraph") >> cacheBuilder
+        _ * cacheBuilder.forObject(project.gradle) >> cacheBuilder
+        _ * cacheBuilder.open() >> indexedCache
+    }
+
+    def "returns null when no task graph has been cached"() {
+        expect:
+        newCache().load() == null
+    }
+
+    def "returns cached task paths when the build has not changed"() {
+        def a = project.tasks.add('a')
+        def b = project.tasks.add('b')
+
+        when:
+        newCache().store([a, b])
+
+        then:
+        newCache().load() == [':a', ':b']
+    }
+
+    def "does not return task graph cached for other requested tasks"() {
+        newCache().store([project.tasks.add('b')])
+
+        when:
+        project.gradle.startParameter.taskNames = ['c']
+
+        then:
+        newCache().load() == null
+    }
+
+    def "does not return cached task graph when a project property has changed"() {
+        newCache().store([project.tasks.add('b')])
+
+        when:
+        project.gradle.startParameter.projectProperties = [prop: 'value']
+
+        then:
+        newCache().load() == null
+    }
+
+    def "does not return cached task graph when a properties file has changed"() {
+        tmpDir.file('gradle.properties').text = 'prop=1'
+        newCache().store([project.tasks.add('b')])
+
+        when:
+        tmpDir.file('gradle.properties').text = 'prop=2'
+
+        then:
+        newCache().load() == null
+    }
+
+    def "does not return task graph cached for other task selection options"() {
+        newCache().store([project.tasks.add('b')])
+
+        when:
+        project.gradle.startParameter.setBuildProjectDependencies(false)
+
+        then:
+        newCache().load() == null
+
+        when:
+        project.gradle.startParameter.setBuildProjectDependencies(true)
+        project.gradle.startParameter.useEmptySettings()
+
+        then:
+        newCache().load() == null
+    }
+
+    def "does not return cached task graph when an applied script has changed"() {
+        def script = tmpDir.file('other.gradle')
+        script.text = 'version 1'
+        appliedScripts.add(new UriScriptSource('script', script))
+        appliedScripts.add(new StringScriptSource('empty build file', ''))
+        newCache().store([project.tasks.add('b')])
+
+        expect:
+        newCache().load() == [':b']
+
+        when:
+        script.text = 'version 2'
+
+        then:
+        newCache().load() == null
+
+        when:
+        script.delete()
+
+        then:
+        newCache().load() == null
+    }
+
+    def "does not cache task graph when a script was applied from a remote location"() {
+        appliedScripts.add(new UriScriptSource('script', new URI('http://localhost/other.gradle')))
+
+        when:
+        newCache().store([project.tasks.add('b')])
+
+        then:
+        newCache().load() == null
+    }
+
+    def "does not cache task graph when the requested tasks include command-line options"() {
+        project.gradle.startParameter.taskNames = ['b', '--option']
+
+        when:
+        newCache().store([project.tasks.add('b')])
+
+        then:
+        newCache().load() == null
+    }
+
+    def "records projects which access the model of another project while being evaluated"() {
+        def child = HelperUtil.createChildProject(project, 'child')
+        def other = HelperUtil.createChildProject(project, 'other')
+        def cache = newCache()
+
+        when:
+        child.state.evaluatingThread = Thread.currentThread()
+        cache.modelAccessed(child)
+        cache.modelAccessed(other)
+        child.state.evaluatingThread = null
+        cache.store([project.tasks.add('b')])
+        def loaded = newCache()
+
+        then:
+        loaded.load() == [':b']
+        loaded.configuredProjectPaths == [':child'] as Set
+    }
+
+    def "does not record project which accesses the model of its subprojects while being evaluated"() {
+        def child = HelperUtil.createChildProject(project, 'child')
+        def cache = newCache()
+
+        when:
+        project.state.evaluatingThread = Thread.currentThread()
+        cache.modelAccessed(project)
+        cache.modelAccessed(child)
+        project.state.evaluatingThread = null
+        cache.store([project.tasks.add('b')])
+        def loaded = newCache()
+
+        then:
+        loaded.load() == [':b']
+        loaded.configuredProjectPaths.empty
+    }
+
+    def "records configured projects whose model is accessed when no project is being evaluated"() {
+        def child = HelperUtil.createChildProject(project, 'child')
+        def other = HelperUtil.createChildProject(project, 'other')
+        def cache = newCache()
+
+        when:
+        other.state.executed()
+        cache.modelAccessed(child)
+        cache.modelAccessed(other)
+        cache.store([project.tasks.add('b')])
+        def loaded = newCache()
+
+        then:
+        loaded.load() == [':b']
+        loaded.configuredProjectPaths == [':other'] as Set
+    }
+
+    def "does not record accesses once the cached tasks are used"() {
+        def other = HelperUtil.createChildProject(project, 'other')
+        def cache = newCache()
+
+        when:
+        other.state.executed()
+        cache.useCachedTasks([])
+        cache.modelAccessed(other)
+        cache.store([project.tasks.add('b')])
+        def loaded = newCache()
+
+        then:
+        loaded.load() == [':b']
+        loaded.configuredProjectPaths.empty
+    }
+
+    def newCache() {
+        return new TaskGraphCache(project.gradle, cacheRepository, appliedScripts)
+    }
+}
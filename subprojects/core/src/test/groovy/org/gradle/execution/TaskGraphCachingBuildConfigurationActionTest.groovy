@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.StartParameter
+import org.gradle.api.Task
+import org.gradle.api.internal.GradleInternal
+import spock.lang.Specification
+
+class TaskGraphCachingBuildConfigurationActionTest extends Specification {
+    final BuildExecutionContext context = Mock()
+    final StartParameter startParameter = new StartParameter()
+    final TaskGraphExecuter taskGraph = Mock()
+    final GradleInternal gradle = Mock()
+    final TaskGraphCache taskGraphCache = Mock()
+    final TaskGraphCachingBuildConfigurationAction action = new TaskGraphCachingBuildConfigurationAction(taskGraphCache)
+
+    def setup() {
+        _ * context.gradle >> gradle
+        _ * gradle.startParameter >> startParameter
+        _ * gradle.taskGraph >> taskGraph
+    }
+
+    def "calls proceed when task graph caching is disabled"() {
+        when:
+        action.configure(context)
+
+        then:
+        1 * context.proceed()
+        0 * taskGraphCache._
+    }
+
+    def "populates task graph from cached tasks in cached order"() {
+        Task a = Mock()
+        Task b = Mock()
+        startParameter.cacheTaskGraph = true
+
+        when:
+        action.configure(context)
+
+        then:
+        _ * taskGraphCache.cachedTasks >> [b, a]
+        1 * taskGraph.useFilter(!null)
+
+        then:
+        1 * taskGraph.addTasks([b] as Set)
+
+        then:
+        1 * taskGraph.addTasks([a] as Set)
+        0 * context.proceed()
+        0 * taskGraphCache.store(_)
+    }
+
+    def "selects tasks and caches the task graph when there are no cached tasks"() {
+        Task a = Mock()
+        startParameter.cacheTaskGraph = true
+
+        when:
+        action.configure(context)
+
+        then:
+        _ * taskGraphCache.cachedTasks >> null
+        1 * context.proceed()
+
+        then:
+        _ * taskGraph.allTasks >> [a]
+        1 * taskGraphCache.store([a])
+    }
+}
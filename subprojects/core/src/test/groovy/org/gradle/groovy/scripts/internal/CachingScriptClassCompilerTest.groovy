@@ -21,6 +21,9 @@ import org.gradle.groovy.scripts.Transformer
 import org.gradle.groovy.scripts.Script
 import org.gradle.groovy.scripts.TestScript
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 class CachingScriptClassCompilerTest extends Specification {
     private final ScriptClassCompiler target = Mock()
     private final CachingScriptClassCompiler compiler = new CachingScriptClassCompiler(target)
@@ -103,6 +106,31 @@ class CachingScriptClassCompilerTest extends Specification {
         1 * target.compile(script2, parentClassLoader, transformer, TestScript.class) >> TestScript.class
     }
 
+    def "compiles different scripts concurrently"() {
+        ScriptSource script1 = scriptSource('script')
+        ScriptSource script2 = scriptSource('other')
+        ClassLoader parentClassLoader = Mock()
+        Transformer transformer = transformer()
+        def compiling = new CountDownLatch(2)
+
+        when:
+        def thread = Thread.start { compiler.compile(script1, parentClassLoader, transformer, Script.class) }
+        compiler.compile(script2, parentClassLoader, transformer, Script.class)
+        thread.join()
+
+        then:
+        1 * target.compile(script1, parentClassLoader, transformer, Script.class) >> {
+            compiling.countDown()
+            assert compiling.await(20, TimeUnit.SECONDS)
+            Script.class
+        }
+        1 * target.compile(script2, parentClassLoader, transformer, Script.class) >> {
+            compiling.countDown()
+            assert compiling.await(20, TimeUnit.SECONDS)
+            Script.class
+        }
+    }
+
     def scriptSource(String className = 'script') {
         ScriptSource script = Mock()
         _ * script.className >> className
@@ -34,8 +34,9 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
     final ScriptSource source = Mock()
     final ClassLoader classLoader = Mock()
     final Transformer transformer = Mock()
+    final ScriptPrecompiler precompiler = Mock()
     final File cacheDir = new File("base-dir")
-    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler)
+    final FileCacheBackedScriptClassCompiler compiler = new FileCacheBackedScriptClassCompiler(cacheRepository, validator, scriptCompilationHandler, new ScriptSourceHasher(), precompiler)
 
     def setup() {
         Resource resource = Mock()
@@ -100,8 +101,28 @@ class FileCacheBackedScriptClassCompilerTest extends Specification {
         1 * cacheBuilder.withValidator(!null) >> cacheBuilder
         1 * cacheBuilder.withInitializer(!null) >> {args -> initializer = args[0]; return cacheBuilder}
         1 * cacheBuilder.open() >> {initializer.execute(cache); return cache}
+        1 * precompiler.copyPrecompiled(source, classLoader, transformer, Script, new File(cacheDir, "classes")) >> false
         1 * scriptCompilationHandler.compileToDir(source, classLoader, new File(cacheDir, "classes"), transformer, Script)
         1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), Script) >> Script
         0 * scriptCompilationHandler._
     }
+
+    def "uses precompiled classes when cache is invalid and script has been precompiled"() {
+        def initializer
+
+        when:
+        def result = compiler.compile(source, classLoader, transformer, Script)
+
+        then:
+        result == Script
+        1 * cacheRepository.cache("scripts/ScriptClassName/Script/TransformerId") >> cacheBuilder
+        1 * cacheBuilder.withProperties(!null) >> cacheBuilder
+        1 * cacheBuilder.withDisplayName(!null) >> cacheBuilder
+        1 * cacheBuilder.withValidator(!null) >> cacheBuilder
+        1 * cacheBuilder.withInitializer(!null) >> {args -> initializer = args[0]; return cacheBuilder}
+        1 * cacheBuilder.open() >> {initializer.execute(cache); return cache}
+        1 * precompiler.copyPrecompiled(source, classLoader, transformer, Script, new File(cacheDir, "classes")) >> true
+        1 * scriptCompilationHandler.loadFromDir(source, classLoader, new File(cacheDir, "classes"), Script) >> Script
+        0 * scriptCompilationHandler._
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.internal.initialization.ScriptClassLoader
+import org.gradle.api.internal.resource.Resource
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.groovy.scripts.Transformer
+import org.gradle.messaging.concurrent.ExecutorFactory
+import org.gradle.messaging.concurrent.StoppableExecutor
+import org.gradle.util.ConcurrentSpecification
+import org.gradle.util.MultiParentClassLoader
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+
+import java.util.concurrent.CountDownLatch
+
+class ScriptPrecompilerTest extends ConcurrentSpecification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ScriptCompilationHandler compilationHandler = Mock()
+    final ExecutorFactory executorFactory = Mock()
+    final StoppableExecutor executor = Mock()
+    final Transformer transformer = Mock()
+    final ClassLoader classLoader = new MultiParentClassLoader()
+    final ScriptSource a = new StringScriptSource('a', 'println "a"')
+    final ScriptSource b = new StringScriptSource('b', 'println "b"')
+    final ScriptSource c = new StringScriptSource('c', 'println "c"')
+    final List<Runnable> workers = []
+    final ScriptPrecompiler precompiler = new ScriptPrecompiler(compilationHandler, new ScriptSourceHasher(), executorFactory)
+    File classesDir
+
+    def setup() {
+        classesDir = tmpDir.file('classes')
+        _ * transformer.id >> 'transformer'
+        _ * executorFactory.create(!null) >> executor
+        _ * executor.execute(!null) >> { Runnable worker -> workers << worker }
+    }
+
+    def cleanup() {
+        precompiler.stop()
+    }
+
+    def "does not compile anything until the first candidate is missing from the cache"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+
+        when:
+        def result = precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+
+        then:
+        !result
+        0 * executorFactory._
+        0 * compilationHandler._
+    }
+
+    def "does not use precompiled classes for a script which is not a candidate"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+
+        expect:
+        !precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+    }
+
+    def "compiles the other candidates using worker threads once the first candidate is missing from the cache"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+        precompiler.addCandidate(c, classLoader, transformer, Script)
+
+        when:
+        def result = precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+
+        then:
+        !result
+        1 * executorFactory.create('Script precompiler') >> executor
+        (1.._) * executor.execute(!null) >> { Runnable worker -> workers << worker }
+        0 * compilationHandler._
+
+        when:
+        runWorkers()
+
+        then:
+        1 * compilationHandler.compileToDir(b, classLoader, !null, transformer, Script) >> { args -> writeClass(args[2], 'b') }
+        1 * compilationHandler.compileToDir(c, classLoader, !null, transformer, Script) >> { args -> writeClass(args[2], 'c') }
+        0 * compilationHandler._
+
+        when:
+        result = precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+
+        then:
+        result
+        new File(classesDir, 'Script.class').text == 'b'
+    }
+
+    def "ignores candidates which are added once compilation has started"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+
+        when:
+        runWorkers()
+
+        then:
+        0 * compilationHandler._
+        !precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+    }
+
+    def "compiles a candidate which has not been picked up by a worker in the calling thread"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+        precompiler.addCandidate(c, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+
+        when:
+        def result = precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+        runWorkers()
+
+        then:
+        !result
+        1 * compilationHandler.compileToDir(c, classLoader, !null, transformer, Script)
+        0 * compilationHandler._
+    }
+
+    def "waits for a candidate which is being compiled by a worker"() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def result = null
+
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+        _ * compilationHandler.compileToDir(b, classLoader, !null, transformer, Script) >> { args ->
+            started.countDown()
+            release.await()
+            writeClass(args[2], 'b')
+        }
+
+        when:
+        def worker = start { runWorkers() }
+        started.await()
+        def caller = start { result = precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir) }
+        release.countDown()
+        worker.completed()
+        caller.completed()
+
+        then:
+        result
+        new File(classesDir, 'Script.class').text == 'b'
+    }
+
+    def "does not use precompiled classes when compilation fails"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+        _ * compilationHandler.compileToDir(b, classLoader, !null, transformer, Script) >> { throw new RuntimeException('broken') }
+
+        when:
+        runWorkers()
+
+        then:
+        !precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+    }
+
+    def "does not use precompiled classes when script has changed since it was compiled"() {
+        def text = 'println "b"'
+        ScriptSource changing = Mock()
+        Resource resource = Mock()
+
+        given:
+        _ * changing.className >> 'script_b'
+        _ * changing.displayName >> 'b'
+        _ * changing.resource >> resource
+        _ * resource.text >> { text }
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(changing, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+        _ * compilationHandler.compileToDir(changing, classLoader, !null, transformer, Script) >> { args -> writeClass(args[2], 'b') }
+        runWorkers()
+
+        when:
+        text = 'println "changed"'
+
+        then:
+        !precompiler.copyPrecompiled(changing, classLoader, transformer, Script, classesDir)
+    }
+
+    def "uses precompiled classes with a script class loader which does not add a classpath"() {
+        given:
+        _ * compilationHandler.compileToDir(b, classLoader, !null, transformer, Script) >> { args -> writeClass(args[2], 'b') }
+        compileBInBackground()
+
+        expect:
+        precompiler.copyPrecompiled(b, new ScriptClassLoader(new ScriptClassLoader(classLoader)), transformer, Script, classesDir)
+    }
+
+    def "does not use precompiled classes with a script class loader which adds a classpath"() {
+        given:
+        def scriptClassLoader = new ScriptClassLoader(classLoader)
+        scriptClassLoader.addClasspath(new MultiParentClassLoader())
+        _ * compilationHandler.compileToDir(b, classLoader, !null, transformer, Script) >> { args -> writeClass(args[2], 'b') }
+        compileBInBackground()
+
+        expect:
+        !precompiler.copyPrecompiled(b, new ScriptClassLoader(scriptClassLoader), transformer, Script, classesDir)
+        !precompiler.copyPrecompiled(b, new MultiParentClassLoader(classLoader), transformer, Script, classesDir)
+    }
+
+    def "stop discards candidates which have not been picked up by a worker"() {
+        given:
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+
+        when:
+        precompiler.stop()
+
+        then:
+        1 * executor.stop()
+
+        when:
+        runWorkers()
+
+        then:
+        0 * compilationHandler._
+        !precompiler.copyPrecompiled(b, classLoader, transformer, Script, classesDir)
+    }
+
+    def compileBInBackground() {
+        precompiler.addCandidate(a, classLoader, transformer, Script)
+        precompiler.addCandidate(b, classLoader, transformer, Script)
+        precompiler.copyPrecompiled(a, classLoader, transformer, Script, classesDir)
+        runWorkers()
+    }
+
+    def runWorkers() {
+        workers.each { it.run() }
+    }
+
+    def writeClass(File dir, String content) {
+        dir.mkdirs()
+        new File(dir, 'Script.class').text = content
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.groovy.scripts.internal
+
+import org.gradle.api.internal.resource.Resource
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.gradle.util.hash.HashUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class ScriptSourceHasherTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final ScriptSource source = Mock()
+    final Resource resource = Mock()
+    final ScriptSourceHasher hasher = new ScriptSourceHasher()
+    TestFile file
+
+    def setup() {
+        file = tmpDir.file('build.gradle')
+        file.write('println "hello"')
+        _ * source.resource >> resource
+        _ * resource.file >> file
+    }
+
+    def "hashes text of script which is not backed by a file"() {
+        expect:
+        hasher.hash(new StringScriptSource('script', 'println "hello"')) == HashUtil.createCompactMD5('println "hello"')
+    }
+
+    def "reuses hash of file while its timestamp and length do not change"() {
+        when:
+        def first = hasher.hash(source)
+        def second = hasher.hash(source)
+
+        then:
+        first == HashUtil.createCompactMD5('println "hello"')
+        second == first
+        1 * resource.text >> 'println "hello"'
+    }
+
+    def "hashes file again when its length changes"() {
+        given:
+        def lastModified = file.lastModified()
+        _ * resource.text >>> ['println "hello"', 'println "hello world"']
+
+        when:
+        def first = hasher.hash(source)
+        file.write('println "hello world"')
+        file.setLastModified(lastModified)
+        def second = hasher.hash(source)
+
+        then:
+        first == HashUtil.createCompactMD5('println "hello"')
+        second == HashUtil.createCompactMD5('println "hello world"')
+    }
+
+    def "hashes file again when its timestamp changes"() {
+        given:
+        _ * resource.text >>> ['println "hello"', 'println "hallo"']
+
+        when:
+        def first = hasher.hash(source)
+        file.write('println "hallo"')
+        file.setLastModified(file.lastModified() + 2000)
+        def second = hasher.hash(source)
+
+        then:
+        first == HashUtil.createCompactMD5('println "hello"')
+        second == HashUtil.createCompactMD5('println "hallo"')
+    }
+}
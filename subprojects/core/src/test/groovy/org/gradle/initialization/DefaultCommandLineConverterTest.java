@@ -71,6 +71,9 @@ public class DefaultCommandLineConverterTest {
     private boolean expectedOffline;
     private RefreshOptions expectedRefreshOptions = RefreshOptions.NONE;
     private boolean expectedRecompileScripts;
+    private boolean expectedConfigureOnDemand;
+    private boolean expectedParallelProjectEvaluation;
+    private boolean expectedCacheTaskGraph;
 
     @Test
     public void withoutAnyOptions() {
@@ -108,6 +111,9 @@ public class DefaultCommandLineConverterTest {
         assertEquals(expectedRerunTasks, startParameter.isRerunTasks());
         assertEquals(expectedRefreshOptions, startParameter.getRefreshOptions());
         assertEquals(expectedRefreshDependencies, startParameter.isRefreshDependencies());
+        assertEquals(expectedConfigureOnDemand, startParameter.isConfigureOnDemand());
+        assertEquals(expectedParallelProjectEvaluation, startParameter.isParallelProjectEvaluation());
+        assertEquals(expectedCacheTaskGraph, startParameter.isCacheTaskGraph());
         assertEquals(expectedProjectCacheDir, startParameter.getProjectCacheDir());
     }
 
@@ -350,6 +356,29 @@ public class DefaultCommandLineConverterTest {
         checkConversion("--offline");
     }
 
+    @Test
+    public void withConfigureOnDemand() {
+        expectedConfigureOnDemand = true;
+        checkConversion("--configure-on-demand");
+    }
+
+    @Test
+    public void withParallelEvaluation() {
+        expectedParallelProjectEvaluation = true;
+        checkConversion("--parallel-evaluation");
+    }
+
+    @Test(expected = CommandLineArgumentException.class)
+    public void withParallelEvaluationAndConflictingConfigureOnDemandOption() {
+        checkConversion("--parallel-evaluation", "--configure-on-demand");
+    }
+
+    @Test
+    public void withCacheTaskGraph() {
+        expectedCacheTaskGraph = true;
+        checkConversion("--cache-task-graph");
+    }
+
     @Test
     public void withRefreshDependencies() {
         expectedRefreshDependencies = true;
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.initialization
+
+import org.gradle.api.initialization.ProjectDescriptor
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.artifacts.dsl.BuildScriptClasspathScriptTransformer
+import org.gradle.api.internal.artifacts.dsl.BuildScriptTransformer
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectScript
+import org.gradle.configuration.ImportsReader
+import org.gradle.groovy.scripts.ScriptSource
+import org.gradle.groovy.scripts.StringScriptSource
+import org.gradle.groovy.scripts.internal.ScriptPrecompiler
+import org.gradle.util.MultiParentClassLoader
+import spock.lang.Specification
+
+class ScriptPrecompilingBuildLoaderTest extends Specification {
+    final BuildLoader target = Mock()
+    final ScriptPrecompiler precompiler = Mock()
+    final ImportsReader importsReader = Mock()
+    final ProjectDescriptor projectDescriptor = Mock()
+    final GradleInternal gradle = Mock()
+    final ProjectInternal rootProject = Mock()
+    final ProjectInternal childProject = Mock()
+    final MultiParentClassLoader scriptClassLoader = new MultiParentClassLoader()
+    final ScriptPrecompilingBuildLoader loader = new ScriptPrecompilingBuildLoader(target, precompiler, importsReader)
+
+    def setup() {
+        _ * gradle.rootProject >> rootProject
+        _ * gradle.scriptClassLoader >> scriptClassLoader
+        _ * rootProject.childProjects >> [child: childProject]
+        _ * childProject.childProjects >> [:]
+        _ * importsReader.withImports(!null) >> { ScriptSource source -> source }
+    }
+
+    def "delegates to build loader"() {
+        given:
+        _ * rootProject.buildScriptSource >> new StringScriptSource('root', '')
+        _ * childProject.buildScriptSource >> new StringScriptSource('child', '')
+
+        when:
+        loader.load(projectDescriptor, gradle)
+
+        then:
+        1 * target.load(projectDescriptor, gradle)
+        0 * target._
+    }
+
+    def "registers both compilation passes of each build script in hierarchy"() {
+        given:
+        def rootScript = new StringScriptSource('root', 'println "root"')
+        def childScript = new StringScriptSource('child', 'println "child"')
+        _ * rootProject.buildScriptSource >> rootScript
+        _ * childProject.buildScriptSource >> childScript
+
+        when:
+        loader.load(projectDescriptor, gradle)
+
+        then:
+        1 * precompiler.addCandidate(rootScript, scriptClassLoader, { it instanceof BuildScriptClasspathScriptTransformer }, ProjectScript)
+        1 * precompiler.addCandidate(rootScript, scriptClassLoader, { it instanceof BuildScriptTransformer }, ProjectScript)
+
+        then:
+        1 * precompiler.addCandidate(childScript, scriptClassLoader, { it instanceof BuildScriptClasspathScriptTransformer }, ProjectScript)
+        1 * precompiler.addCandidate(childScript, scriptClassLoader, { it instanceof BuildScriptTransformer }, ProjectScript)
+        0 * precompiler._
+    }
+
+    def "does not register empty build scripts"() {
+        given:
+        def childScript = new StringScriptSource('child', 'println "child"')
+        _ * rootProject.buildScriptSource >> new StringScriptSource('root', '  \n')
+        _ * childProject.buildScriptSource >> childScript
+
+        when:
+        loader.load(projectDescriptor, gradle)
+
+        then:
+        2 * precompiler.addCandidate(childScript, scriptClassLoader, _, ProjectScript)
+        0 * precompiler._
+    }
+
+    def "does not register build scripts which declare a script classpath"() {
+        given:
+        def childScript = new StringScriptSource('child', 'println "child"')
+        _ * rootProject.buildScriptSource >> new StringScriptSource('root', 'buildscript { dependencies { classpath "a:b:1.0" } }')
+        _ * childProject.buildScriptSource >> childScript
+
+        when:
+        loader.load(projectDescriptor, gradle)
+
+        then:
+        1 * precompiler.addCandidate(childScript, scriptClassLoader, { it instanceof BuildScriptClasspathScriptTransformer }, ProjectScript)
+        1 * precompiler.addCandidate(childScript, scriptClassLoader, { it instanceof BuildScriptTransformer }, ProjectScript)
+        0 * precompiler._
+    }
+}
@@ -21,6 +21,7 @@ import org.gradle.BuildListener;
 import org.gradle.StartParameter;
 import org.gradle.api.Action;
 import org.gradle.api.Project;
+import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.initialization.dsl.ScriptHandler;
 import org.gradle.api.internal.GradleDistributionLocator;
@@ -28,6 +29,7 @@ import org.gradle.api.internal.initialization.ScriptClassLoaderProvider;
 import org.gradle.api.internal.plugins.PluginRegistry;
 import org.gradle.api.internal.project.IProjectRegistry;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.internal.project.ProjectStateInternal;
 import org.gradle.api.internal.project.ServiceRegistryFactory;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.execution.TaskGraphExecuter;
@@ -47,8 +49,10 @@ import org.junit.runner.RunWith;
 import java.io.File;
 import java.io.IOException;
 
+import static org.gradle.util.WrapUtil.toSet;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 
@@ -286,6 +290,48 @@ public class DefaultGradleTest {
         assertThat(gradle.toString(), equalTo("build 'rootProject'"));
     }
 
+    @Test
+    public void canAccessModelWhileEvaluatingRootProjectInParallel() {
+        final ProjectInternal rootProject = context.mock(ProjectInternal.class);
+        final ProjectStateInternal rootState = new ProjectStateInternal();
+        rootState.setEvaluatingThread(Thread.currentThread());
+        context.checking(new Expectations(){{
+            allowing(rootProject).getState();
+            will(returnValue(rootState));
+        }});
+        parameter.setParallelProjectEvaluation(true);
+        gradle.setRootProject(rootProject);
+
+        gradle.getAsDynamicObject();
+    }
+
+    @Test
+    public void cannotAccessModelWhileEvaluatingAnotherProjectInParallel() {
+        final ProjectInternal rootProject = context.mock(ProjectInternal.class, "rootProject");
+        final ProjectInternal childProject = context.mock(ProjectInternal.class, "childProject");
+        final ProjectStateInternal childState = new ProjectStateInternal();
+        childState.setEvaluatingThread(Thread.currentThread());
+        context.checking(new Expectations(){{
+            allowing(rootProject).getState();
+            will(returnValue(new ProjectStateInternal()));
+            allowing(rootProject).getName();
+            will(returnValue("root"));
+            allowing(childProject).getState();
+            will(returnValue(childState));
+            allowing(projectRegistry).getAllProjects();
+            will(returnValue(toSet(rootProject, childProject)));
+        }});
+        parameter.setParallelProjectEvaluation(true);
+        gradle.setRootProject(rootProject);
+
+        try {
+            gradle.getAsDynamicObject();
+            fail();
+        } catch (InvalidUserDataException e) {
+            assertThat(e.getMessage(), startsWith("Cannot access build 'root' while evaluating childProject"));
+        }
+    }
+
     private Closure closure() {
         final Closure mock = context.mock(Closure.class);
         context.checking(new Expectations(){{
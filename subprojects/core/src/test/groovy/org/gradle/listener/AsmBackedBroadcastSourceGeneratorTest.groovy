@@ -0,0 +1,106 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.listener
+
+import spock.lang.Specification
+
+class AsmBackedBroadcastSourceGeneratorTest extends Specification {
+    final AsmBackedBroadcastSourceGenerator generator = new AsmBackedBroadcastSourceGenerator()
+    final BroadcastDispatch<TestListener> broadcast = new BroadcastDispatch<TestListener>(TestListener)
+
+    def "generated source calls each listener directly"() {
+        TestListener listener1 = Mock()
+        TestListener listener2 = Mock()
+        def source = generator.generate(TestListener, broadcast)
+        broadcast.add(listener1)
+        broadcast.add(listener2)
+
+        when:
+        source.event("param", 12L, true)
+
+        then:
+        1 * listener1.event("param", 12L, true)
+        1 * listener2.event("param", 12L, true)
+        0 * _._
+
+        and:
+        source instanceof BroadcastSource
+        source.toString() == "TestListener broadcast"
+    }
+
+    def "generated source dispatches method invocation when a handler is not a listener"() {
+        TestListener listener = Mock()
+        def source = generator.generate(TestListener, broadcast)
+        def values = []
+        broadcast.add(listener)
+        broadcast.add("event", { String param, long value -> values << value })
+
+        when:
+        source.event("param", 12L, false)
+
+        then:
+        1 * listener.event("param", 12L, false)
+        values == [12L]
+    }
+
+    def "generated source notifies all listeners and rethrows first failure"() {
+        TestListener listener1 = Mock()
+        TestListener listener2 = Mock()
+        TestListener listener3 = Mock()
+        def failure = new RuntimeException()
+        def source = generator.generate(TestListener, broadcast)
+        broadcast.add(listener1)
+        broadcast.add(listener2)
+        broadcast.add(listener3)
+
+        when:
+        source.event("param", 1L, true)
+
+        then:
+        1 * listener1.event("param", 1L, true) >> { throw failure }
+        1 * listener2.event("param", 1L, true) >> { throw new RuntimeException("ignored") }
+        1 * listener3.event("param", 1L, true)
+        ListenerNotificationException e = thrown()
+        e.message == "Failed to notify test listener."
+        e.cause.is(failure)
+    }
+
+    def "generated sources are equal when they dispatch to the same broadcast"() {
+        def source = generator.generate(TestListener, broadcast)
+        def other = generator.generate(TestListener, broadcast)
+        def sourceForOtherBroadcast = generator.generate(TestListener, new BroadcastDispatch<TestListener>(TestListener))
+
+        expect:
+        source == other
+        source.hashCode() == other.hashCode()
+        source != sourceForOtherBroadcast
+        !source.equals(null)
+    }
+
+    def "does not generate source for listener type with non-void methods"() {
+        expect:
+        generator.generate(NonVoidListener, new BroadcastDispatch<NonVoidListener>(NonVoidListener)) == null
+    }
+
+    public interface TestListener {
+        void event(String param, long value, boolean flag)
+    }
+
+    public interface NonVoidListener {
+        String event()
+    }
+}
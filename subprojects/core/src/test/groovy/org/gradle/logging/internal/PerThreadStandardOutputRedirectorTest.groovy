@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.logging.internal
+
+import org.gradle.api.logging.StandardOutputListener
+import org.gradle.internal.SystemProperties
+import org.gradle.util.RedirectStdOutAndErr
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+
+class PerThreadStandardOutputRedirectorTest extends Specification {
+    private static final String EOL = SystemProperties.lineSeparator
+
+    @Rule public final RedirectStdOutAndErr outputs = new RedirectStdOutAndErr()
+    private final PerThreadStandardOutputRedirector redirector = new PerThreadStandardOutputRedirector()
+    private final StandardOutputListener stdOutListener = Mock()
+    private final StandardOutputListener stdErrListener = Mock()
+
+    def startAndStopRedirectsStdOutAndStdErr() {
+        when:
+        redirector.redirectStandardOutputTo(stdOutListener)
+        redirector.redirectStandardErrorTo(stdErrListener)
+        redirector.start()
+        System.out.println('this is stdout')
+        System.err.println('this is stderr')
+        redirector.stop()
+
+        then:
+        1 * stdOutListener.onOutput('this is stdout' + EOL)
+        1 * stdErrListener.onOutput('this is stderr' + EOL)
+        0 * _._
+        System.out == outputs.stdOutPrintStream
+        System.err == outputs.stdErrPrintStream
+    }
+
+    def forwardsOutputToDestinationOfWritingThread() {
+        StandardOutputListener otherListener = Mock()
+        def otherStarted = new CountDownLatch(1)
+        def written = new CountDownLatch(1)
+
+        when:
+        def other = Thread.start {
+            redirector.redirectStandardOutputTo(otherListener)
+            redirector.redirectStandardErrorTo(otherListener)
+            redirector.start()
+            otherStarted.countDown()
+            written.await()
+            System.out.println('from other thread')
+            redirector.stop()
+        }
+        otherStarted.await()
+        redirector.redirectStandardOutputTo(stdOutListener)
+        redirector.redirectStandardErrorTo(stdErrListener)
+        redirector.start()
+        System.out.println('from this thread')
+        written.countDown()
+        other.join()
+        redirector.stop()
+
+        then:
+        1 * stdOutListener.onOutput('from this thread' + EOL)
+        1 * otherListener.onOutput('from other thread' + EOL)
+        0 * _._
+        System.out == outputs.stdOutPrintStream
+    }
+
+    def restoresSystemStreamsOnlyWhenLastThreadStops() {
+        when:
+        def other = Thread.start {
+            redirector.redirectStandardOutputTo(stdOutListener)
+            redirector.start()
+        }
+        other.join()
+        redirector.redirectStandardOutputTo(stdOutListener)
+        redirector.start()
+        redirector.stop()
+
+        then:
+        System.out != outputs.stdOutPrintStream
+
+        cleanup:
+        redirector.stop()
+    }
+
+    def writesOutputOfThreadWithoutDestinationToOriginalStream() {
+        when:
+        redirector.redirectStandardOutputTo(stdOutListener)
+        redirector.start()
+        Thread.start {
+            redirector.redirectStandardOutputTo(null)
+            System.out.println('no destination')
+        }.join()
+        redirector.stop()
+
+        then:
+        0 * stdOutListener._
+        outputs.stdOut == 'no destination' + EOL
+    }
+}
@@ -41,8 +41,7 @@ class PrintStreamLoggingSystemTest extends Specification {
         stream.println('info')
 
         then:
-        1 * listener.onOutput({it instanceof LogLevelChangeEvent && it.newLogLevel == LogLevel.INFO})
-        1 * listener.onOutput({it instanceof StyledTextOutputEvent && it.spans[0].text == withEOL('info')})
+        1 * listener.onOutput({it instanceof StyledTextOutputEvent && it.logLevel == LogLevel.INFO && it.spans[0].text == withEOL('info')})
         original.toString() == ''
         0 * listener._
     }
@@ -64,8 +63,7 @@ class PrintStreamLoggingSystemTest extends Specification {
         stream.println('info')
 
         then:
-        1 * listener.onOutput({it instanceof LogLevelChangeEvent && it.newLogLevel == LogLevel.DEBUG})
-        1 * listener.onOutput({it instanceof StyledTextOutputEvent && it.spans[0].text == withEOL('info')})
+        1 * listener.onOutput({it instanceof StyledTextOutputEvent && it.logLevel == LogLevel.DEBUG && it.spans[0].text == withEOL('info')})
         original.toString() == ''
         0 * listener._
     }
@@ -131,8 +129,7 @@ class PrintStreamLoggingSystemTest extends Specification {
         stream.println('info')
 
         then:
-        1 * listener.onOutput({it instanceof LogLevelChangeEvent && it.newLogLevel == LogLevel.WARN})
-        1 * listener.onOutput({it.spans[0].text == withEOL('info')})
+        1 * listener.onOutput({it.logLevel == LogLevel.WARN && it.spans[0].text == withEOL('info')})
         original.toString() == ''
         0 * listener._
     }
@@ -147,12 +144,55 @@ class PrintStreamLoggingSystemTest extends Specification {
         stream.println('info')
 
         then:
-        1 * listener.onOutput({it instanceof LogLevelChangeEvent && it.newLogLevel == LogLevel.WARN})
-        1 * listener.onOutput({it.spans[0].text == withEOL('info')})
+        1 * listener.onOutput({it.logLevel == LogLevel.WARN && it.spans[0].text == withEOL('info')})
         original.toString() == ''
         0 * listener._
     }
 
+    def threadWhichHasNotChangedLogLevelUsesLevelOfFirstThreadToStartCapturing() {
+        loggingSystem.on(LogLevel.WARN)
+
+        when:
+        def thread = new Thread({ stream.println('info') })
+        thread.start()
+        thread.join()
+
+        then:
+        1 * listener.onOutput({it.logLevel == LogLevel.WARN && it.spans[0].text == withEOL('info')})
+        0 * listener._
+    }
+
+    def logLevelChangedByAnotherThreadDoesNotAffectCurrentThread() {
+        loggingSystem.on(LogLevel.WARN)
+
+        when:
+        def thread = new Thread({ loggingSystem.on(LogLevel.DEBUG) })
+        thread.start()
+        thread.join()
+        stream.println('info')
+
+        then:
+        1 * listener.onOutput({it.logLevel == LogLevel.WARN && it.spans[0].text == withEOL('info')})
+        0 * listener._
+    }
+
+    def threadUsesDefaultLevelAgainWhenItRestoresSnapshotTakenBeforeItChangedLevel() {
+        loggingSystem.on(LogLevel.WARN)
+
+        when:
+        def thread = new Thread({
+            def snapshot = loggingSystem.on(LogLevel.DEBUG)
+            loggingSystem.restore(snapshot)
+            stream.println('info')
+        })
+        thread.start()
+        thread.join()
+
+        then:
+        1 * listener.onOutput({it.logLevel == LogLevel.WARN && it.spans[0].text == withEOL('info')})
+        0 * listener._
+    }
+
     private String withEOL(String value) {
         return String.format('%s%n', value)
     }
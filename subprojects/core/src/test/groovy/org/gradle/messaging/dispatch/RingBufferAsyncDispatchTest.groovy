@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.messaging.dispatch
+
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+
+class RingBufferAsyncDispatchTest extends Specification {
+    final def executorFactory = new DefaultExecutorFactory()
+    final def executor = executorFactory.create("dispatch")
+    final def received = new CopyOnWriteArrayList<String>()
+    final Dispatch<String> target = { received << it } as Dispatch
+
+    def cleanup() {
+        executor.stop()
+    }
+
+    def "dispatches messages to handler in the order they are received"() {
+        def dispatch = new RingBufferAsyncDispatch<String>(executor, target)
+
+        when:
+        dispatch.dispatch("message1")
+        dispatch.dispatch("message2")
+        dispatch.dispatch("message3")
+        dispatch.stop()
+
+        then:
+        received == ["message1", "message2", "message3"]
+    }
+
+    def "dispatches messages queued before handler is attached"() {
+        def dispatch = new RingBufferAsyncDispatch<String>(executor)
+
+        when:
+        dispatch.dispatch("message1")
+        dispatch.dispatchTo(target)
+        dispatch.dispatch("message2")
+        dispatch.stop()
+
+        then:
+        received == ["message1", "message2"]
+    }
+
+    def "dispatches all messages from multiple threads when queue fills up"() {
+        def dispatch = new RingBufferAsyncDispatch<String>(executor, target, 4)
+        def threads = (0..<4).collect { producer ->
+            new Thread({
+                100.times { dispatch.dispatch("$producer:$it".toString()) }
+            })
+        }
+
+        when:
+        threads*.start()
+        threads*.join()
+        dispatch.stop()
+
+        then:
+        received.size() == 400
+        (0..<4).each { producer ->
+            assert received.findAll { it.startsWith("$producer:") } == (0..<100).collect { "$producer:$it".toString() }
+        }
+    }
+
+    def "stop blocks until queued messages have been dispatched"() {
+        def started = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def dispatch = new RingBufferAsyncDispatch<String>(executor, { message ->
+            started.countDown()
+            release.await()
+            received << message
+        } as Dispatch)
+
+        given:
+        dispatch.dispatch("message1")
+        dispatch.dispatch("message2")
+        started.await()
+
+        when:
+        def stopper = new Thread({ dispatch.stop() })
+        stopper.start()
+        stopper.join(200)
+
+        then:
+        stopper.alive
+        received.empty
+
+        when:
+        release.countDown()
+        stopper.join()
+
+        then:
+        received == ["message1", "message2"]
+    }
+
+    def "stop completes and dispatches every accepted message when racing with dispatch"() {
+        def accepted = new CopyOnWriteArrayList<String>()
+
+        expect:
+        20.times { attempt ->
+            received.clear()
+            accepted.clear()
+            def dispatch = new RingBufferAsyncDispatch<String>(executor, target, 4)
+            def start = new CountDownLatch(1)
+            def threads = (0..<4).collect { producer ->
+                new Thread({
+                    start.await()
+                    try {
+                        1000.times {
+                            def message = "$producer:$it".toString()
+                            dispatch.dispatch(message)
+                            accepted << message
+                        }
+                    } catch (IllegalStateException e) {
+                        // stopped
+                    }
+                })
+            }
+            def stopper = new Thread({
+                start.await()
+                dispatch.stop()
+            })
+
+            threads*.start()
+            stopper.start()
+            start.countDown()
+            stopper.join(20000)
+            assert !stopper.alive
+            threads*.join()
+            assert received.containsAll(accepted)
+        }
+    }
+
+    def "cannot dispatch message after stopped"() {
+        def dispatch = new RingBufferAsyncDispatch<String>(executor, target)
+        dispatch.stop()
+
+        when:
+        dispatch.dispatch("message")
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "Cannot dispatch message, as this message dispatch has been stopped. Message: message"
+    }
+
+    def "cannot dispatch to more than one handler"() {
+        def dispatch = new RingBufferAsyncDispatch<String>(executor, target)
+
+        when:
+        dispatch.dispatchTo(target)
+
+        then:
+        thrown(IllegalStateException)
+
+        cleanup:
+        dispatch.stop()
+    }
+
+    def "stop fails when there is no handler to deliver queued messages"() {
+        def dispatch = new RingBufferAsyncDispatch<String>(executor)
+        dispatch.dispatch("message")
+
+        when:
+        dispatch.stop()
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == "Cannot wait for messages to be dispatched, as there are no dispatch threads running."
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.messaging.remote.internal
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.logging.StyledTextOutput
+import org.gradle.logging.internal.*
+import org.gradle.messaging.remote.internal.protocol.ProtocolMessageSerializers
+import org.gradle.messaging.remote.internal.protocol.RemoteMethodInvocation
+import org.gradle.messaging.remote.internal.protocol.Request
+import spock.lang.Specification
+
+class BinaryMessageSerializerTest extends Specification {
+    final BinaryMessageSerializer<Object> serializer = new BinaryMessageSerializer<Object>(getClass().classLoader)
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream()
+    final DataOutputStream outputStream = new DataOutputStream(bytes)
+
+    def setup() {
+        ProtocolMessageSerializers.register(serializer)
+        OutputEventSerializers.register(serializer)
+    }
+
+    def "writes and reads built-in types"() {
+        def id = UUID.randomUUID()
+        def longString = "a" * 100000
+
+        expect:
+        transport(null) == null
+        transport("string") == "string"
+        transport(longString) == longString
+        transport(12) == 12
+        transport(12L) == 12L
+        transport(id) == id
+    }
+
+    def "writes and reads other objects using java serialization"() {
+        def value = [a: [1, "b", LogLevel.DEBUG]]
+
+        expect:
+        transport(value) == value
+    }
+
+    def "writes each class descriptor only once per stream"() {
+        def value = new ArrayList([new SerializableValue(value: "a")])
+
+        when:
+        serializer.write(value, outputStream)
+        def first = bytes.size()
+        serializer.write(value, outputStream)
+        def second = bytes.size() - first
+
+        then:
+        second < first
+
+        when:
+        def inputStream = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+
+        then:
+        serializer.read(inputStream, null, null) == value
+        serializer.read(inputStream, null, null) == value
+        inputStream.available() == 0
+    }
+
+    def "discards the class descriptors of a message which cannot be written"() {
+        when:
+        serializer.write([new SerializableValue(value: "a"), new Object()], outputStream)
+
+        then:
+        thrown(NotSerializableException)
+
+        when:
+        bytes.reset()
+        serializer.write([new SerializableValue(value: "b")], outputStream)
+        serializer.write([new SerializableValue(value: "c")], outputStream)
+        def inputStream = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+
+        then:
+        serializer.read(inputStream, null, null) == [new SerializableValue(value: "b")]
+        serializer.read(inputStream, null, null) == [new SerializableValue(value: "c")]
+        inputStream.available() == 0
+    }
+
+    def "writes and reads output events"() {
+        def failure = new RuntimeException("broken")
+
+        when:
+        LogEvent logEvent = transport(new LogEvent(12, "category", LogLevel.INFO, "message", failure))
+
+        then:
+        logEvent.timestamp == 12
+        logEvent.category == "category"
+        logEvent.logLevel == LogLevel.INFO
+        logEvent.message == "message"
+        logEvent.throwable.class == RuntimeException
+        logEvent.throwable.message == "broken"
+
+        when:
+        StyledTextOutputEvent styledTextEvent = transport(new StyledTextOutputEvent(12, "category", null, [new StyledTextOutputEvent.Span(StyledTextOutput.Style.Header, "header"), new StyledTextOutputEvent.Span("text")]))
+
+        then:
+        styledTextEvent.toString() == "[null] [category] <Header>header</Header><Normal>text</Normal>"
+
+        when:
+        ProgressStartEvent startEvent = transport(new ProgressStartEvent(12, "category", "description", "short", "header", "status"))
+
+        then:
+        startEvent.timestamp == 12
+        startEvent.category == "category"
+        startEvent.description == "description"
+        startEvent.shortDescription == "short"
+        startEvent.loggingHeader == "header"
+        startEvent.status == "status"
+
+        when:
+        ProgressEvent progressEvent = transport(new ProgressEvent(12, "category", "status"))
+        ProgressCompleteEvent completeEvent = transport(new ProgressCompleteEvent(12, "category", null))
+        LogLevelChangeEvent levelChangeEvent = transport(new LogLevelChangeEvent(LogLevel.DEBUG))
+
+        then:
+        progressEvent.status == "status"
+        completeEvent.status == null
+        levelChangeEvent.newLogLevel == LogLevel.DEBUG
+    }
+
+    def "writes and reads remote method invocations"() {
+        def request = new Request("consumer", new RemoteMethodInvocation(2, ["arg", 12, [1, 2], null] as Object[]))
+
+        expect:
+        transport(request) == request
+    }
+
+    def "cannot register a type twice"() {
+        when:
+        serializer.register(LogEvent, Mock(TypeSerializer))
+
+        then:
+        IllegalArgumentException e = thrown()
+        e.message == "A serializer for ${LogEvent.name} has already been registered."
+    }
+
+    def transport(Object value) {
+        def outstr = new ByteArrayOutputStream()
+        serializer.write(value, new DataOutputStream(outstr))
+        return serializer.read(new DataInputStream(new ByteArrayInputStream(outstr.toByteArray())), null, null)
+    }
+
+    static class SerializableValue implements Serializable {
+        String value
+
+        boolean equals(Object o) {
+            return o instanceof SerializableValue && o.value == value
+        }
+
+        int hashCode() {
+            return value.hashCode()
+        }
+    }
+}
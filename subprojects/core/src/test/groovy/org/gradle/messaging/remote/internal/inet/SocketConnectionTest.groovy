@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.messaging.remote.internal.inet
+
+import org.gradle.messaging.remote.internal.MessageIOException
+import org.gradle.messaging.remote.internal.MessageSerializer
+import spock.lang.Specification
+
+import java.nio.channels.ServerSocketChannel
+import java.nio.channels.SocketChannel
+
+class SocketConnectionTest extends Specification {
+    final ServerSocketChannel serverSocket = ServerSocketChannel.open()
+    final MessageSerializer<byte[]> serializer = new BytesSerializer()
+    SocketChannel peer
+    DataInputStream peerInput
+    DataOutputStream peerOutput
+    SocketConnection<byte[]> connection
+
+    def setup() {
+        serverSocket.socket().bind(new InetSocketAddress(InetAddress.getByName("localhost"), 0))
+        def socket = SocketChannel.open(serverSocket.socket().localSocketAddress)
+        peer = serverSocket.accept()
+        peerInput = new DataInputStream(peer.socket().inputStream)
+        peerOutput = new DataOutputStream(peer.socket().outputStream)
+        connection = new SocketConnection<byte[]>(socket, serializer)
+    }
+
+    def cleanup() {
+        connection?.stop()
+        peer?.close()
+        serverSocket.close()
+    }
+
+    def "reads frame whose header and payload arrive in pieces"() {
+        def payload = bytes(100)
+        def frame = frame(payload)
+
+        when:
+        def writer = Thread.start {
+            [frame[0..1], frame[2..3], frame[4..49], frame[50..-1]].each { piece ->
+                peerOutput.write(piece as byte[])
+                peerOutput.flush()
+                Thread.sleep(50)
+            }
+        }
+        def received = connection.receive()
+        writer.join()
+
+        then:
+        received == payload
+    }
+
+    def "reads successive frames"() {
+        when:
+        peerOutput.write(frame(bytes(3)))
+        peerOutput.write(frame(bytes(5)))
+        peerOutput.flush()
+
+        then:
+        connection.receive() == bytes(3)
+        connection.receive() == bytes(5)
+    }
+
+    def "reads and writes zero length payload"() {
+        when:
+        peerOutput.writeInt(0)
+        peerOutput.flush()
+
+        then:
+        connection.receive() == new byte[0]
+
+        when:
+        connection.dispatch(new byte[0])
+
+        then:
+        peerInput.readInt() == 0
+    }
+
+    def "returns null at end of stream part way through header"() {
+        when:
+        peerOutput.write([0, 0] as byte[])
+        peer.close()
+
+        then:
+        connection.receive() == null
+    }
+
+    def "returns null at end of stream part way through payload"() {
+        when:
+        peerOutput.writeInt(10)
+        peerOutput.write(bytes(3))
+        peer.close()
+
+        then:
+        connection.receive() == null
+    }
+
+    def "returns null at end of stream between frames"() {
+        when:
+        peerOutput.write(frame(bytes(3)))
+        peer.close()
+
+        then:
+        connection.receive() == bytes(3)
+        connection.receive() == null
+    }
+
+    def "fails on frame with negative length"() {
+        when:
+        peerOutput.writeInt(-1)
+        peerOutput.flush()
+        connection.receive()
+
+        then:
+        thrown(MessageIOException)
+    }
+
+    def "fails on frame whose length exceeds the maximum frame size"() {
+        when:
+        peerOutput.writeInt(SocketConnection.MAX_FRAME_SIZE + 1)
+        peerOutput.flush()
+        connection.receive()
+
+        then:
+        MessageIOException e = thrown()
+        e.cause.message.contains("invalid length ${SocketConnection.MAX_FRAME_SIZE + 1}")
+    }
+
+    def "reads and writes frames larger than the retained buffers"() {
+        def large = bytes(1024 * 1024)
+        def small = bytes(10)
+
+        when:
+        peerOutput.write(frame(large))
+        peerOutput.write(frame(small))
+        peerOutput.flush()
+
+        then:
+        connection.receive() == large
+        connection.receive() == small
+
+        when:
+        def writer = Thread.start {
+            connection.dispatch(large)
+            connection.dispatch(small)
+        }
+        def receivedLarge = readFrame()
+        def receivedSmall = readFrame()
+        writer.join()
+
+        then:
+        receivedLarge == large
+        receivedSmall == small
+    }
+
+    private byte[] readFrame() {
+        def payload = new byte[peerInput.readInt()]
+        peerInput.readFully(payload)
+        return payload
+    }
+
+    private static byte[] bytes(int count) {
+        def bytes = new byte[count]
+        for (int i = 0; i < count; i++) {
+            bytes[i] = (byte) i
+        }
+        return bytes
+    }
+
+    private static byte[] frame(byte[] payload) {
+        def frame = new ByteArrayOutputStream()
+        def output = new DataOutputStream(frame)
+        output.writeInt(payload.length)
+        output.write(payload)
+        return frame.toByteArray()
+    }
+
+    private static class BytesSerializer implements MessageSerializer<byte[]> {
+        byte[] read(DataInputStream inputStream, InetEndpoint localAddress, InetEndpoint remoteAddress) {
+            def bytes = new byte[inputStream.available()]
+            inputStream.readFully(bytes)
+            return bytes
+        }
+
+        void write(byte[] message, DataOutputStream outputStream) {
+            outputStream.write(message)
+        }
+    }
+}
@@ -101,6 +101,21 @@ public class LineBufferingOutputStreamTest {
         outputStream.write(String.format("line 1----line 2----").getBytes());
     }
 
+    @Test
+    public void handlesLineSeparatorSplitAcrossWrites() throws IOException {
+        context.checking(new Expectations() {{
+            one(action).execute("line 1");
+            one(action).execute("line 2");
+        }});
+
+        System.setProperty("line.separator", "----");
+        outputStream = new LineBufferingOutputStream(action, false, 8);
+
+        outputStream.write("line 1--".getBytes());
+        outputStream.write("--line 2-".getBytes());
+        outputStream.write("---".getBytes());
+    }
+
     @Test
     public void logsLineWhichIsLongerThanInitialBufferLength() throws IOException {
         context.checking(new Expectations() {{
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class ConfigurationOnDemandIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        settingsFile << "include 'a', 'b', 'c'"
+        file('b/build.gradle') << "throw new RuntimeException('project b should not be configured')"
+    }
+
+    def "configures only the projects required by the requested tasks"() {
+        given:
+        file('a/build.gradle') << """
+            task foo(dependsOn: ':c:bar')
+"""
+        file('c/build.gradle') << """
+            task bar
+"""
+
+        when:
+        executer.withArguments('--configure-on-demand')
+        run ':a:foo'
+
+        then:
+        executedTasks == [':c:bar', ':a:foo']
+    }
+
+    def "configures projects which are the target of a project dependency"() {
+        given:
+        file('a/build.gradle') << """
+            apply plugin: 'java'
+            dependencies { compile project(':c') }
+"""
+        file('c/build.gradle') << """
+            apply plugin: 'java'
+"""
+
+        when:
+        executer.withArguments('--configure-on-demand')
+        run ':a:build'
+
+        then:
+        executedTasks.contains(':c:jar')
+        executedTasks.contains(':a:compileJava')
+    }
+
+    def "configures the parents of a nested project before the project"() {
+        given:
+        settingsFile << "\ninclude 'c:d'"
+        file('c/build.gradle') << """
+            subprojects {
+                task bar
+            }
+"""
+
+        when:
+        executer.withArguments('--configure-on-demand')
+        run ':c:d:bar'
+
+        then:
+        executedTasks == [':c:d:bar']
+    }
+
+    def "configures all projects when not configuring on demand"() {
+        given:
+        file('a/build.gradle') << "task foo"
+
+        when:
+        fails ':a:foo'
+
+        then:
+        failureHasCause('project b should not be configured')
+    }
+}
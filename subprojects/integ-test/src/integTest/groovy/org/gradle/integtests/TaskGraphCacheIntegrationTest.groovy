@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class TaskGraphCacheIntegrationTest extends AbstractIntegrationSpec {
+    def setup() {
+        settingsFile << "include 'a', 'b'"
+        file('a/build.gradle') << """
+            task foo(dependsOn: 'bar')
+            task bar
+"""
+        file('b/build.gradle') << """
+            println 'configuring project b'
+"""
+    }
+
+    def "reuses cached task graph when the build has not changed"() {
+        when:
+        executer.withArguments('--cache-task-graph')
+        run ':a:foo'
+
+        then:
+        executedTasks == [':a:bar', ':a:foo']
+        output.contains('configuring project b')
+
+        when:
+        executer.withArguments('--cache-task-graph')
+        run ':a:foo'
+
+        then:
+        executedTasks == [':a:bar', ':a:foo']
+        !output.contains('configuring project b')
+    }
+
+    def "configures projects which configure the projects owning the cached tasks"() {
+        given:
+        settingsFile.text = "include 'a', 'b', 'c'"
+        file('c/build.gradle') << """
+            println 'configuring project c'
+            project(':a').bar.doLast { println 'configured by project c' }
+"""
+        buildFile << """
+            gradle.projectsEvaluated {
+                project(':b').ext.evaluated = true
+            }
+"""
+
+        when:
+        executer.withArguments('--cache-task-graph')
+        run ':a:foo'
+
+        then:
+        output.contains('configured by project c')
+
+        when:
+        executer.withArguments('--cache-task-graph')
+        run ':a:foo'
+
+        then:
+        executedTasks == [':a:bar', ':a:foo']
+        output.contains('configuring project c')
+        output.contains('configured by project c')
+        output.contains('configuring project b')
+    }
+
+    def "configures all projects when a build script has changed"() {
+        given:
+        executer.withArguments('--cache-task-graph')
+        run ':a:foo'
+
+        when:
+        file('a/build.gradle') << """
+            task baz
+            foo.dependsOn baz
+"""
+        executer.withArguments('--cache-task-graph')
+        run ':a:foo'
+
+        then:
+        executedTasks == [':a:bar', ':a:baz', ':a:foo']
+        output.contains('configuring project b')
+    }
+
+    def "does not cache task graph unless requested"() {
+        given:
+        run ':a:foo'
+
+        when:
+        run ':a:foo'
+
+        then:
+        output.contains('configuring project b')
+    }
+}
@@ -24,7 +24,9 @@ import org.gradle.launcher.bootstrap.ExecutionListener;
 import org.gradle.launcher.daemon.configuration.DaemonServerConfiguration;
 import org.gradle.launcher.daemon.configuration.DefaultDaemonServerConfiguration;
 import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.initialization.DefaultGradleLauncherFactory;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.DaemonStoppedException;
@@ -53,8 +55,8 @@ public class DaemonMain extends EntryPoint {
 
     public static void main(String[] args) {
         //The first argument is not really used but it is very useful in diagnosing, i.e. running 'jps -m'
-        if (args.length < 4) {
-            invalidArgs("Following arguments are required: <gradle-version> <daemon-dir> <timeout-millis> <daemonUid> <optional startup jvm opts>");
+        if (args.length < 5) {
+            invalidArgs("Following arguments are required: <gradle-version> <daemon-dir> <timeout-millis> <daemonUid> <standby> <optional startup jvm opts>");
         }
         File daemonBaseDir = new File(args[1]);
 
@@ -66,15 +68,16 @@ public class DaemonMain extends EntryPoint {
         }
 
         String daemonUid = args[3];
+        boolean standby = Boolean.parseBoolean(args[4]);
 
         List<String> startupOpts = new LinkedList<String>();
-        for (int i = 4; i < args.length; i++) {
+        for (int i = 5; i < args.length; i++) {
             startupOpts.add(args[i]);
         }
         LOGGER.debug("Assuming the daemon was started with following jvm opts: {}", startupOpts);
 
         DaemonServerConfiguration parameters = new DefaultDaemonServerConfiguration(
-                daemonUid, daemonBaseDir, idleTimeoutMs, startupOpts);
+                daemonUid, daemonBaseDir, idleTimeoutMs, startupOpts, standby);
         DaemonMain daemonMain = new DaemonMain(parameters);
 
         daemonMain.run();
@@ -165,7 +168,16 @@ public class DaemonMain extends EntryPoint {
 
     protected Daemon startDaemon(DaemonServices daemonServices) {
         Daemon daemon = daemonServices.get(Daemon.class);
+        if (configuration.isStandby()) {
+            // Nobody is waiting for a standby daemon, so get it warm before telling the clients about it
+            LOGGER.info("Preloading the shared build services of the standby daemon.");
+            daemonServices.get(DefaultGradleLauncherFactory.class).preloadSharedServices();
+        }
         daemon.start();
+        if (configuration.isStandby()) {
+            // A daemon starts as busy, so that only the client which started it connects to it
+            daemonServices.get(DaemonRegistry.class).markIdle(daemon.getAddress());
+        }
         return daemon;
     }
 
@@ -39,7 +39,7 @@ import java.io.InputStream;
  * The client piece of the build daemon.
  * <p>
  * Immediately upon forming a connection, the daemon may send {@link OutputEvent} messages back to the client and may do so
- * for as long as the connection is open.
+ * for as long as the connection is open. Output events may also arrive together in an {@link OutputEventBatch}.
  * <p>
  * The client is expected to send exactly one {@link Build} message as the first message it sends to the daemon. The daemon 
  * may either return {@link DaemonBusy} or {@link BuildStarted}. If the former is received, the client should not send any more
@@ -165,6 +165,10 @@ public class DaemonClient implements GradleLauncherActionExecuter<BuildActionPar
                 } else if (object instanceof Failure) {
                     // Could potentially distinguish between CommandFailure and DaemonFailure here.
                     throw UncheckedException.throwAsUncheckedException(((Failure) object).getValue());
+                } else if (object instanceof OutputEventBatch) {
+                    for (OutputEvent event : ((OutputEventBatch) object).getEvents()) {
+                        outputEventListener.onOutput(event);
+                    }
                 } else if (object instanceof OutputEvent) {
                     outputEventListener.onOutput((OutputEvent) object);
                 } else if (object instanceof Result) {
@@ -21,6 +21,7 @@ import org.gradle.launcher.daemon.bootstrap.DaemonGreeter;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
 
 import java.io.InputStream;
@@ -41,6 +42,16 @@ public class DaemonClientServices extends DaemonClientServicesSupport {
         return new DefaultDaemonStarter(get(DaemonDir.class), daemonParameters, get(DaemonGreeter.class));
     }
 
+    @Override
+    protected DefaultDaemonConnector createDaemonConnector() {
+        DefaultDaemonConnector connector = super.createDaemonConnector();
+        if (daemonParameters.getStandbyDaemons() > 0) {
+            DaemonStarter standbyStarter = new DefaultDaemonStarter(get(DaemonDir.class), daemonParameters, get(DaemonGreeter.class), true);
+            connector.setStandbyDaemonStarter(new StandbyDaemonStarter(get(DaemonRegistry.class), standbyStarter, daemonParameters.getStandbyDaemons()));
+        }
+        return connector;
+    }
+
     protected DaemonGreeter createDaemonGreeter() {
         return new DaemonGreeter(get(DocumentationRegistry.class));
     }
@@ -26,11 +26,11 @@ import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.launcher.daemon.context.DaemonCompatibilitySpec;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
+import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.logging.internal.OutputEventListener;
 import org.gradle.messaging.concurrent.DefaultExecutorFactory;
 import org.gradle.messaging.concurrent.ExecutorFactory;
-import org.gradle.messaging.remote.internal.DefaultMessageSerializer;
 import org.gradle.messaging.remote.internal.OutgoingConnector;
 import org.gradle.messaging.remote.internal.inet.TcpOutgoingConnector;
 import org.gradle.internal.id.CompositeIdGenerator;
@@ -99,10 +99,10 @@ abstract public class DaemonClientServicesSupport extends DefaultServiceRegistry
     }
 
     protected OutgoingConnector<Object> createOutgoingConnector() {
-        return new TcpOutgoingConnector<Object>(new DefaultMessageSerializer<Object>(getClass().getClassLoader()));
+        return new TcpOutgoingConnector<Object>(new DaemonMessageSerializer(getClass().getClassLoader()));
     }
 
-    protected DaemonConnector createDaemonConnector() {
+    protected DefaultDaemonConnector createDaemonConnector() {
         return new DefaultDaemonConnector(get(DaemonRegistry.class), get(OutgoingConnector.class), get(DaemonStarter.class));
     }
 
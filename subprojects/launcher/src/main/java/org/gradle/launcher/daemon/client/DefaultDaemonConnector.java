@@ -40,6 +40,7 @@ public class DefaultDaemonConnector implements DaemonConnector {
     private final OutgoingConnector<Object> connector;
     private final DaemonStarter daemonStarter;
     private long connectTimeout = DefaultDaemonConnector.DEFAULT_CONNECT_TIMEOUT;
+    private StandbyDaemonStarter standbyDaemonStarter;
 
     public DefaultDaemonConnector(DaemonRegistry daemonRegistry, OutgoingConnector<Object> connector, DaemonStarter daemonStarter) {
         this.daemonRegistry = daemonRegistry;
@@ -55,6 +56,13 @@ public class DefaultDaemonConnector implements DaemonConnector {
         return connectTimeout;
     }
 
+    /**
+     * Sets the starter to notify whenever this connector takes a daemon, or null to not keep standby daemons.
+     */
+    public void setStandbyDaemonStarter(StandbyDaemonStarter standbyDaemonStarter) {
+        this.standbyDaemonStarter = standbyDaemonStarter;
+    }
+
     public DaemonRegistry getDaemonRegistry() {
         return daemonRegistry;
     }
@@ -65,11 +73,13 @@ public class DefaultDaemonConnector implements DaemonConnector {
 
     public DaemonConnection connect(Spec<? super DaemonContext> constraint) {
         DaemonConnection connection = findConnection(daemonRegistry.getIdle(), constraint);
-        if (connection != null) {
-            return connection;
+        if (connection == null) {
+            connection = createConnection();
         }
-
-        return createConnection();
+        if (standbyDaemonStarter != null) {
+            standbyDaemonStarter.daemonTaken(connection.getUid(), constraint);
+        }
+        return connection;
     }
 
     private DaemonConnection findConnection(List<DaemonInfo> daemonInfos, Spec<? super DaemonContext> constraint) {
@@ -101,18 +111,23 @@ public class DefaultDaemonConnector implements DaemonConnector {
         LOGGER.info("Starting Gradle daemon");
         final DaemonStartupInfo startupInfo = daemonStarter.startDaemon();
         LOGGER.debug("Started Gradle Daemon: {}", startupInfo);
+        // The daemon announces itself only after it has registered, so it is usually in the registry already.
+        // Keep polling for a while in case the registry update is not yet visible.
         long expiry = System.currentTimeMillis() + connectTimeout;
-        do {
+        while (true) {
+            DaemonConnection daemonConnection = connectToDaemonWithId(startupInfo);
+            if (daemonConnection != null) {
+                return daemonConnection;
+            }
+            if (System.currentTimeMillis() >= expiry) {
+                break;
+            }
             try {
                 Thread.sleep(200L);
             } catch (InterruptedException e) {
                 throw UncheckedException.throwAsUncheckedException(e);
             }
-            DaemonConnection daemonConnection = connectToDaemonWithId(startupInfo);
-            if (daemonConnection != null) {
-                return daemonConnection;
-            }
-        } while (System.currentTimeMillis() < expiry);
+        }
 
         throw new GradleException("Timeout waiting to connect to Gradle daemon.\n" + startupInfo.describe());
     }
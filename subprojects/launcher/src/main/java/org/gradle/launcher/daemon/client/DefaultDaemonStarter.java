@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 public class DefaultDaemonStarter implements DaemonStarter {
 
@@ -45,11 +46,21 @@ public class DefaultDaemonStarter implements DaemonStarter {
     private final DaemonDir daemonDir;
     private final DaemonParameters daemonParameters;
     private DaemonGreeter daemonGreeter;
+    private final boolean standby;
 
     public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter) {
+        this(daemonDir, daemonParameters, daemonGreeter, false);
+    }
+
+    /**
+     * @param standby Whether to start standby daemons. A standby daemon has its own uid, and advertises itself as idle
+     * once it is ready, rather than waiting for the client which started it to connect.
+     */
+    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, boolean standby) {
         this.daemonDir = daemonDir;
         this.daemonParameters = daemonParameters;
         this.daemonGreeter = daemonGreeter;
+        this.standby = standby;
     }
 
     public DaemonStartupInfo startDaemon() {
@@ -79,7 +90,9 @@ public class DefaultDaemonStarter implements DaemonStarter {
         daemonArgs.add(GradleVersion.current().getVersion());
         daemonArgs.add(daemonDir.getBaseDir().getAbsolutePath());
         daemonArgs.add(String.valueOf(daemonParameters.getIdleTimeout()));
-        daemonArgs.add(daemonParameters.getUid());
+        String uid = standby ? UUID.randomUUID().toString() : daemonParameters.getUid();
+        daemonArgs.add(uid);
+        daemonArgs.add(String.valueOf(standby));
 
         //all remaining arguments are daemon startup jvm opts.
         //we need to pass them as *program* arguments to avoid problems with getInputArguments().
@@ -87,7 +100,7 @@ public class DefaultDaemonStarter implements DaemonStarter {
 
         DaemonDiagnostics diagnostics = startProcess(daemonArgs, daemonDir.getVersionedDir());
 
-        return new DaemonStartupInfo(daemonParameters.getUid(), diagnostics);
+        return new DaemonStartupInfo(uid, diagnostics);
     }
 
     private DaemonDiagnostics startProcess(final List<String> args, final File workingDir) {
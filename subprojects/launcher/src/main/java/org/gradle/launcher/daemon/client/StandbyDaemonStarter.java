@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.client;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.registry.DaemonInfo;
+import org.gradle.launcher.daemon.registry.DaemonRegistry;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps a number of idle daemons on standby, so that the next client does not have to wait for a daemon to start.
+ * Whenever a client takes a daemon, a standby daemon is started in the background if fewer than the given number of
+ * compatible daemons are idle. The standby daemon is started with the client's daemon parameters, so it is compatible
+ * with the daemon that was taken.
+ *
+ * <p>Clients do not coordinate with each other, so several clients starting at the same time may each start a standby
+ * daemon. Surplus daemons stop when they hit their idle timeout.</p>
+ */
+public class StandbyDaemonStarter {
+    private static final Logger LOGGER = Logging.getLogger(StandbyDaemonStarter.class);
+    private final DaemonRegistry daemonRegistry;
+    private final DaemonStarter daemonStarter;
+    private final int standbyDaemons;
+    private final AtomicBoolean starting = new AtomicBoolean();
+
+    public StandbyDaemonStarter(DaemonRegistry daemonRegistry, DaemonStarter daemonStarter, int standbyDaemons) {
+        this.daemonRegistry = daemonRegistry;
+        this.daemonStarter = daemonStarter;
+        this.standbyDaemons = standbyDaemons;
+    }
+
+    /**
+     * Called when a client has connected to the given daemon, which is about to become busy.
+     */
+    public void daemonTaken(String uid, Spec<? super DaemonContext> constraint) {
+        int idle = 0;
+        for (DaemonInfo daemonInfo : daemonRegistry.getIdle()) {
+            if (!daemonInfo.getContext().getUid().equals(uid) && constraint.isSatisfiedBy(daemonInfo.getContext())) {
+                idle++;
+            }
+        }
+        if (idle >= standbyDaemons) {
+            LOGGER.debug("Found {} compatible idle daemons. Not starting a standby daemon.", idle);
+            return;
+        }
+        if (!starting.compareAndSet(false, true)) {
+            return;
+        }
+
+        LOGGER.info("Found {} compatible idle daemons. Starting a standby daemon in the background.", idle);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    LOGGER.debug("Started standby Gradle daemon: {}", daemonStarter.startDaemon());
+                } catch (Throwable e) {
+                    LOGGER.info("Could not start a standby Gradle daemon.", e);
+                } finally {
+                    starting.set(false);
+                }
+            }
+        }, "Standby daemon starter");
+        // Don't keep the client running just to start a daemon nobody is waiting for
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
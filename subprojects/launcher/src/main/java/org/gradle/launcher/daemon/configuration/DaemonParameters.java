@@ -42,10 +42,12 @@ public class DaemonParameters {
     public static final String JVM_ARGS_SYS_PROPERTY = "org.gradle.jvmargs";
     public static final String JAVA_HOME_SYS_PROPERTY = "org.gradle.java.home";
     public static final String DAEMON_SYS_PROPERTY = "org.gradle.daemon";
+    public static final String STANDBY_SYS_PROPERTY = "org.gradle.daemon.standby";
     static final int DEFAULT_IDLE_TIMEOUT = 3 * 60 * 60 * 1000;
     private final String uid;
     private File baseDir = new File(StartParameter.DEFAULT_GRADLE_USER_HOME, "daemon");
     private int idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private int standbyDaemons;
     private final JvmOptions jvmOptions = new JvmOptions(new IdentityFileResolver());
     private boolean usingDefaultJvmArgs = true;
     private boolean enabled;
@@ -88,6 +90,18 @@ public class DaemonParameters {
         this.idleTimeout = idleTimeout;
     }
 
+    /**
+     * Returns the number of idle daemons to keep on standby for this client's daemon context. When a client takes a
+     * daemon and fewer daemons are idle, a new daemon is started in the background. Zero disables standby daemons.
+     */
+    public int getStandbyDaemons() {
+        return standbyDaemons;
+    }
+
+    public void setStandbyDaemons(int standbyDaemons) {
+        this.standbyDaemons = standbyDaemons;
+    }
+
     public List<String> getEffectiveJvmArgs() {
         return jvmOptions.getAllImmutableJvmArgs();
     }
@@ -184,6 +198,14 @@ public class DaemonParameters {
                 throw new GradleException(String.format("Unable to parse %s property. The value should be an int but is: %s", IDLE_TIMEOUT_SYS_PROPERTY, propertyValue));
             }
         }
+        propertyValue = properties.get(STANDBY_SYS_PROPERTY);
+        if (propertyValue != null) {
+            try {
+                standbyDaemons = Integer.parseInt(propertyValue.toString());
+            } catch (NumberFormatException e) {
+                throw new GradleException(String.format("Unable to parse %s property. The value should be an int but is: %s", STANDBY_SYS_PROPERTY, propertyValue));
+            }
+        }
         propertyValue = properties.get(JVM_ARGS_SYS_PROPERTY);
         if (propertyValue != null) {
             setJvmArgs(JvmOptions.fromString(propertyValue.toString()));
@@ -31,4 +31,10 @@ public interface DaemonServerConfiguration {
     String getUid();
 
     List<String> getJvmOptions();
+
+    /**
+     * Returns true when the daemon is started as a standby daemon, which is not started for a particular client and so
+     * advertises itself as idle once it is ready.
+     */
+    boolean isStandby();
 }
@@ -28,12 +28,18 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     private final File daemonBaseDir;
     private final int idleTimeoutMs;
     private final List<String> jvmOptions;
+    private final boolean standby;
 
     public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, List<String> jvmOptions) {
+        this(daemonUid, daemonBaseDir, idleTimeoutMs, jvmOptions, false);
+    }
+
+    public DefaultDaemonServerConfiguration(String daemonUid, File daemonBaseDir, int idleTimeoutMs, List<String> jvmOptions, boolean standby) {
         this.daemonUid = daemonUid;
         this.daemonBaseDir = daemonBaseDir;
         this.idleTimeoutMs = idleTimeoutMs;
         this.jvmOptions = jvmOptions;
+        this.standby = standby;
     }
 
     public File getBaseDir() {
@@ -51,4 +57,8 @@ public class DefaultDaemonServerConfiguration implements DaemonServerConfigurati
     public List<String> getJvmOptions() {
         return jvmOptions;
     }
+
+    public boolean isStandby() {
+        return standby;
+    }
 }
\ No newline at end of file
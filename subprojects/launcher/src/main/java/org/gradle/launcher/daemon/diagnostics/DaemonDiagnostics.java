@@ -30,11 +30,17 @@ public class DaemonDiagnostics implements Serializable {
 
     private final Long pid;
     private final File daemonLog;
+    private final String health;
     private final static int TAIL_SIZE = 20;
 
     public DaemonDiagnostics(File daemonLog, Long pid) {
+        this(daemonLog, pid, null);
+    }
+
+    public DaemonDiagnostics(File daemonLog, Long pid, String health) {
         this.daemonLog = daemonLog;
         this.pid = pid;
+        this.health = health;
     }
 
     /**
@@ -48,11 +54,19 @@ public class DaemonDiagnostics implements Serializable {
         return daemonLog;
     }
 
+    /**
+     * @return a summary of the health of the daemon process, such as its garbage collection activity. Can be null, it means the health is not known.
+     */
+    public String getHealth() {
+        return health;
+    }
+
     @Override
     public String toString() {
         return "{"
                 + "pid=" + pid
                 + ", daemonLog=" + daemonLog
+                + ", health=" + health
                 + '}';
     }
 
@@ -74,6 +88,7 @@ public class DaemonDiagnostics implements Serializable {
     public String describe() {
         return "Daemon pid: " + pid + "\n"
              + "  log file: " + daemonLog + "\n"
+             + (health == null ? "" : "  health: " + health + "\n")
              + tailDaemonLog();
     }
 }
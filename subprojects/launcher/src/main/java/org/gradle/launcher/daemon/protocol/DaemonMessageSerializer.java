@@ -0,0 +1,127 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.protocol;
+
+import org.gradle.logging.internal.OutputEvent;
+import org.gradle.logging.internal.OutputEventSerializers;
+import org.gradle.messaging.remote.internal.BinaryMessageSerializer;
+import org.gradle.messaging.remote.internal.TypeSerializer;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The serializer for messages sent between daemon clients and daemons. Output events and the frequent protocol
+ * messages use a binary format, build requests and anything else use Java serialization.
+ */
+public class DaemonMessageSerializer extends BinaryMessageSerializer<Object> {
+    public DaemonMessageSerializer(ClassLoader classLoader) {
+        super(classLoader);
+        OutputEventSerializers.register(this);
+        register(OutputEventBatch.class, new OutputEventBatchSerializer());
+        register(ForwardInput.class, new ForwardInputSerializer());
+        register(CloseInput.class, new CloseInputSerializer());
+        register(Stop.class, new StopSerializer());
+        register(Success.class, new SuccessSerializer());
+        register(CommandFailure.class, new CommandFailureSerializer());
+        register(DaemonFailure.class, new DaemonFailureSerializer());
+    }
+
+    private static class OutputEventBatchSerializer implements TypeSerializer<OutputEventBatch> {
+        public OutputEventBatch read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            int count = inputStream.readInt();
+            List<OutputEvent> events = new ArrayList<OutputEvent>(count);
+            for (int i = 0; i < count; i++) {
+                events.add((OutputEvent) serializer.readObject(inputStream));
+            }
+            return new OutputEventBatch(events);
+        }
+
+        public void write(DataOutputStream outputStream, OutputEventBatch value, BinaryMessageSerializer<?> serializer) throws Exception {
+            outputStream.writeInt(value.getEvents().size());
+            for (OutputEvent event : value.getEvents()) {
+                serializer.writeObject(outputStream, event);
+            }
+        }
+    }
+
+    private static class ForwardInputSerializer implements TypeSerializer<ForwardInput> {
+        public ForwardInput read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            Object identifier = serializer.readObject(inputStream);
+            byte[] bytes = new byte[inputStream.readInt()];
+            inputStream.readFully(bytes);
+            return new ForwardInput(identifier, bytes);
+        }
+
+        public void write(DataOutputStream outputStream, ForwardInput value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getIdentifier());
+            outputStream.writeInt(value.getBytes().length);
+            outputStream.write(value.getBytes());
+        }
+    }
+
+    private static class CloseInputSerializer implements TypeSerializer<CloseInput> {
+        public CloseInput read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            return new CloseInput(serializer.readObject(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, CloseInput value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getIdentifier());
+        }
+    }
+
+    private static class StopSerializer implements TypeSerializer<Stop> {
+        public Stop read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            return new Stop(serializer.readObject(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, Stop value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getIdentifier());
+        }
+    }
+
+    private static class SuccessSerializer implements TypeSerializer<Success> {
+        public Success read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            return new Success(serializer.readObject(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, Success value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getValue());
+        }
+    }
+
+    private static class CommandFailureSerializer implements TypeSerializer<CommandFailure> {
+        public CommandFailure read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            return new CommandFailure((Throwable) serializer.readObject(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, CommandFailure value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getValue());
+        }
+    }
+
+    private static class DaemonFailureSerializer implements TypeSerializer<DaemonFailure> {
+        public DaemonFailure read(DataInputStream inputStream, BinaryMessageSerializer<?> serializer) throws Exception {
+            return new DaemonFailure((Throwable) serializer.readObject(inputStream));
+        }
+
+        public void write(DataOutputStream outputStream, DaemonFailure value, BinaryMessageSerializer<?> serializer) throws Exception {
+            serializer.writeObject(outputStream, value.getValue());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.registry;
+
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.cache.Serializer;
+import org.gradle.launcher.daemon.context.DaemonContext;
+import org.gradle.launcher.daemon.context.DefaultDaemonContext;
+import org.gradle.messaging.remote.Address;
+import org.gradle.messaging.remote.internal.inet.MultiChoiceAddress;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the daemon registry in a compact binary format, so that clients can scan the registry without the cost of
+ * Java serialization. The common address and context implementations are written field by field, any other
+ * implementation falls back to Java serialization.
+ *
+ * <p>A file that was written in a different format is read as an empty registry.</p>
+ */
+public class DaemonRegistryContentSerializer implements Serializer<DaemonRegistryContent> {
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte SERIALIZED = 0;
+    private static final byte MULTI_CHOICE_ADDRESS = 1;
+    private static final byte DEFAULT_CONTEXT = 1;
+
+    private final DefaultSerializer<Object> fallbackSerializer = new DefaultSerializer<Object>(getClass().getClassLoader());
+
+    public DaemonRegistryContent read(InputStream instr) throws Exception {
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(instr));
+        if (inputStream.readByte() != FORMAT_VERSION) {
+            return null;
+        }
+        DaemonRegistryContent content = new DaemonRegistryContent();
+        int count = inputStream.readInt();
+        for (int i = 0; i < count; i++) {
+            Address address = readAddress(inputStream);
+            DaemonContext context = readContext(inputStream);
+            String password = readNullableString(inputStream);
+            boolean idle = inputStream.readBoolean();
+            content.setStatus(address, new DaemonInfo(address, context, password).setIdle(idle));
+        }
+        return content;
+    }
+
+    public void write(OutputStream outstr, DaemonRegistryContent value) throws Exception {
+        DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(outstr));
+        outputStream.writeByte(FORMAT_VERSION);
+        List<DaemonInfo> infos = value.getInfos();
+        outputStream.writeInt(infos.size());
+        for (DaemonInfo info : infos) {
+            writeAddress(outputStream, info.getAddress());
+            writeContext(outputStream, info.getContext());
+            writeNullableString(outputStream, info.getPassword());
+            outputStream.writeBoolean(info.isIdle());
+        }
+        outputStream.flush();
+    }
+
+    private Address readAddress(DataInputStream inputStream) throws Exception {
+        if (inputStream.readByte() != MULTI_CHOICE_ADDRESS) {
+            return (Address) readSerialized(inputStream);
+        }
+        UUID uuid = new UUID(inputStream.readLong(), inputStream.readLong());
+        int port = inputStream.readInt();
+        int addressCount = inputStream.readInt();
+        List<InetAddress> candidates = new ArrayList<InetAddress>(addressCount);
+        for (int i = 0; i < addressCount; i++) {
+            byte[] binAddress = new byte[inputStream.readInt()];
+            inputStream.readFully(binAddress);
+            candidates.add(InetAddress.getByAddress(binAddress));
+        }
+        return new MultiChoiceAddress(uuid, port, candidates);
+    }
+
+    private void writeAddress(DataOutputStream outputStream, Address address) throws Exception {
+        if (!(address instanceof MultiChoiceAddress) || !(((MultiChoiceAddress) address).getCanonicalAddress() instanceof UUID)) {
+            outputStream.writeByte(SERIALIZED);
+            writeSerialized(outputStream, address);
+            return;
+        }
+        MultiChoiceAddress multiChoiceAddress = (MultiChoiceAddress) address;
+        UUID uuid = (UUID) multiChoiceAddress.getCanonicalAddress();
+        outputStream.writeByte(MULTI_CHOICE_ADDRESS);
+        outputStream.writeLong(uuid.getMostSignificantBits());
+        outputStream.writeLong(uuid.getLeastSignificantBits());
+        outputStream.writeInt(multiChoiceAddress.getPort());
+        outputStream.writeInt(multiChoiceAddress.getCandidates().size());
+        for (InetAddress candidate : multiChoiceAddress.getCandidates()) {
+            byte[] binAddress = candidate.getAddress();
+            outputStream.writeInt(binAddress.length);
+            outputStream.write(binAddress);
+        }
+    }
+
+    private DaemonContext readContext(DataInputStream inputStream) throws Exception {
+        if (inputStream.readByte() != DEFAULT_CONTEXT) {
+            return (DaemonContext) readSerialized(inputStream);
+        }
+        String uid = readNullableString(inputStream);
+        File javaHome = readNullableFile(inputStream);
+        File daemonRegistryDir = readNullableFile(inputStream);
+        Long pid = inputStream.readBoolean() ? inputStream.readLong() : null;
+        Integer idleTimeout = inputStream.readBoolean() ? inputStream.readInt() : null;
+        int optCount = inputStream.readInt();
+        List<String> daemonOpts = new ArrayList<String>(optCount);
+        for (int i = 0; i < optCount; i++) {
+            daemonOpts.add(inputStream.readUTF());
+        }
+        return new DefaultDaemonContext(uid, javaHome, daemonRegistryDir, pid, idleTimeout, daemonOpts);
+    }
+
+    private void writeContext(DataOutputStream outputStream, DaemonContext context) throws Exception {
+        if (!(context instanceof DefaultDaemonContext)) {
+            outputStream.writeByte(SERIALIZED);
+            writeSerialized(outputStream, context);
+            return;
+        }
+        outputStream.writeByte(DEFAULT_CONTEXT);
+        writeNullableString(outputStream, context.getUid());
+        writeNullableFile(outputStream, context.getJavaHome());
+        writeNullableFile(outputStream, context.getDaemonRegistryDir());
+        outputStream.writeBoolean(context.getPid() != null);
+        if (context.getPid() != null) {
+            outputStream.writeLong(context.getPid());
+        }
+        outputStream.writeBoolean(context.getIdleTimeout() != null);
+        if (context.getIdleTimeout() != null) {
+            outputStream.writeInt(context.getIdleTimeout());
+        }
+        outputStream.writeInt(context.getDaemonOpts().size());
+        for (String daemonOpt : context.getDaemonOpts()) {
+            outputStream.writeUTF(daemonOpt);
+        }
+    }
+
+    private File readNullableFile(DataInputStream inputStream) throws IOException {
+        String path = readNullableString(inputStream);
+        return path == null ? null : new File(path);
+    }
+
+    private void writeNullableFile(DataOutputStream outputStream, File file) throws IOException {
+        writeNullableString(outputStream, file == null ? null : file.getPath());
+    }
+
+    private String readNullableString(DataInputStream inputStream) throws IOException {
+        return inputStream.readBoolean() ? inputStream.readUTF() : null;
+    }
+
+    private void writeNullableString(DataOutputStream outputStream, String value) throws IOException {
+        outputStream.writeBoolean(value != null);
+        if (value != null) {
+            outputStream.writeUTF(value);
+        }
+    }
+
+    private Object readSerialized(DataInputStream inputStream) throws Exception {
+        byte[] bytes = new byte[inputStream.readInt()];
+        inputStream.readFully(bytes);
+        return fallbackSerializer.read(new ByteArrayInputStream(bytes));
+    }
+
+    private void writeSerialized(DataOutputStream outputStream, Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        fallbackSerializer.write(bytes, value);
+        outputStream.writeInt(bytes.size());
+        bytes.writeTo(outputStream);
+    }
+}
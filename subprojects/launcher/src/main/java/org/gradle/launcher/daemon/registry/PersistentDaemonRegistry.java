@@ -18,7 +18,6 @@ package org.gradle.launcher.daemon.registry;
 
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.cache.DefaultSerializer;
 import org.gradle.cache.PersistentStateCache;
 import org.gradle.cache.internal.FileIntegrityViolationSuppressingPersistentStateCacheDecorator;
 import org.gradle.cache.internal.FileLockManager;
@@ -54,7 +53,7 @@ public class PersistentDaemonRegistry implements DaemonRegistry {
                                 registryFile,
                                 "daemon addresses registry",
                                 fileLockManager),
-                        new DefaultSerializer<DaemonRegistryContent>()
+                        new DaemonRegistryContentSerializer()
                 ));
     }
 
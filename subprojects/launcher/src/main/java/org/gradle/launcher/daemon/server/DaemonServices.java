@@ -15,8 +15,10 @@
  */
 package org.gradle.launcher.daemon.server;
 
+import org.gradle.api.internal.project.GlobalServicesRegistry;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.initialization.BuildProcess;
 import org.gradle.initialization.DefaultGradleLauncherFactory;
 import org.gradle.internal.nativeplatform.ProcessEnvironment;
 import org.gradle.internal.nativeplatform.services.NativeServices;
@@ -29,6 +31,7 @@ import org.gradle.launcher.daemon.registry.DaemonDir;
 import org.gradle.launcher.daemon.registry.DaemonRegistry;
 import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
 import org.gradle.launcher.daemon.server.exec.DefaultDaemonCommandExecuter;
+import org.gradle.launcher.daemon.server.health.DaemonHealthMonitor;
 import org.gradle.logging.LoggingManagerInternal;
 import org.gradle.messaging.concurrent.DefaultExecutorFactory;
 import org.gradle.messaging.concurrent.ExecutorFactory;
@@ -79,6 +82,14 @@ public class DaemonServices extends DefaultServiceRegistry {
         return new File(get(DaemonDir.class).getVersionedDir(), fileName);
     }
 
+    protected DefaultGradleLauncherFactory createGradleLauncherFactory() {
+        return new DefaultGradleLauncherFactory(new DaemonGlobalServices(loggingServices));
+    }
+
+    protected DaemonHealthMonitor createDaemonHealthMonitor() {
+        return new DaemonHealthMonitor();
+    }
+
     protected Daemon createDaemon() {
         return new Daemon(
                 new DaemonTcpServerConnector(),
@@ -86,12 +97,26 @@ public class DaemonServices extends DefaultServiceRegistry {
                 get(DaemonContext.class),
                 "password",
                 new DefaultDaemonCommandExecuter(
-                        new DefaultGradleLauncherFactory(loggingServices),
+                        get(DefaultGradleLauncherFactory.class),
                         get(ExecutorFactory.class),
                         get(ProcessEnvironment.class),
                         loggingManager,
-                        getDaemonLogFile()),
+                        getDaemonLogFile(),
+                        get(DaemonHealthMonitor.class)),
                 get(ExecutorFactory.class));
     }
 
+    /**
+     * The services shared by the builds which this daemon runs.
+     */
+    private static class DaemonGlobalServices extends GlobalServicesRegistry {
+        private DaemonGlobalServices(ServiceRegistry loggingServices) {
+            super(loggingServices);
+        }
+
+        @Override
+        protected BuildProcess createBuildProcess() {
+            return new BuildProcess(true);
+        }
+    }
 }
@@ -17,11 +17,11 @@ package org.gradle.launcher.daemon.server;
 
 import org.gradle.api.Action;
 import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.launcher.daemon.protocol.DaemonMessageSerializer;
 import org.gradle.messaging.concurrent.DefaultExecutorFactory;
 import org.gradle.messaging.remote.Address;
 import org.gradle.messaging.remote.ConnectEvent;
 import org.gradle.messaging.remote.internal.Connection;
-import org.gradle.messaging.remote.internal.DefaultMessageSerializer;
 import org.gradle.messaging.remote.internal.inet.InetAddressFactory;
 import org.gradle.messaging.remote.internal.inet.TcpIncomingConnector;
 
@@ -41,7 +41,7 @@ public class DaemonTcpServerConnector implements DaemonServerConnector {
     public DaemonTcpServerConnector() {
         this.incomingConnector = new TcpIncomingConnector<Object>(
                 new DefaultExecutorFactory(),
-                new DefaultMessageSerializer<Object>(getClass().getClassLoader()),
+                new DaemonMessageSerializer(getClass().getClassLoader()),
                 new InetAddressFactory(),
                 new UUIDGenerator()
         );
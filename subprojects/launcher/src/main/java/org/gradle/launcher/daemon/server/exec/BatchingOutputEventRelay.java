@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.internal.Stoppable;
+import org.gradle.launcher.daemon.protocol.OutputEventBatch;
+import org.gradle.logging.internal.OutputEvent;
+import org.gradle.logging.internal.OutputEventListener;
+import org.gradle.logging.internal.ProgressEvent;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.messaging.dispatch.Dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Forwards output events to the client in batches. A batch is sent when it holds a number of events, or a short
+ * interval after its first event. When the client does not keep up, intermediate progress events are dropped and
+ * other events block the thread that generates them until the pending batch has been sent.
+ */
+class BatchingOutputEventRelay implements OutputEventListener, Stoppable {
+    static final int MAX_BATCH_SIZE = 200;
+    static final long FLUSH_INTERVAL_MILLIS = 20;
+    static final int MAX_PENDING_EVENTS = 2000;
+
+    private final Dispatch<Object> connection;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private final int maxPendingEvents;
+    private final StoppableExecutor executor;
+    private final Lock lock = new ReentrantLock();
+    private final Condition eventsAvailable = lock.newCondition();
+    private final Condition spaceAvailable = lock.newCondition();
+    private List<OutputEvent> pending = new ArrayList<OutputEvent>();
+    private long firstPendingTime;
+    private Thread forwarder;
+    private boolean stopped;
+    private boolean disconnected;
+
+    BatchingOutputEventRelay(Dispatch<Object> connection, ExecutorFactory executorFactory) {
+        this(connection, executorFactory, MAX_BATCH_SIZE, FLUSH_INTERVAL_MILLIS, MAX_PENDING_EVENTS);
+    }
+
+    BatchingOutputEventRelay(Dispatch<Object> connection, ExecutorFactory executorFactory, int maxBatchSize, long flushIntervalMillis, int maxPendingEvents) {
+        this.connection = connection;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxPendingEvents = maxPendingEvents;
+        executor = executorFactory.create("Output event relay");
+        executor.execute(new Runnable() {
+            public void run() {
+                forwardEvents();
+            }
+        });
+    }
+
+    public void onOutput(OutputEvent event) {
+        lock.lock();
+        try {
+            // Never block the forwarding thread, as it is the one that frees up space
+            while (!disconnected && !stopped && pending.size() >= maxPendingEvents && Thread.currentThread() != forwarder) {
+                if (event instanceof ProgressEvent) {
+                    return;
+                }
+                spaceAvailable.awaitUninterruptibly();
+            }
+            if (disconnected) {
+                return;
+            }
+            pending.add(event);
+            if (pending.size() == 1) {
+                firstPendingTime = System.currentTimeMillis();
+                eventsAvailable.signalAll();
+            } else if (pending.size() == maxBatchSize) {
+                eventsAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forwardEvents() {
+        lock.lock();
+        try {
+            forwarder = Thread.currentThread();
+        } finally {
+            lock.unlock();
+        }
+        while (true) {
+            List<OutputEvent> batch = takeBatch();
+            if (batch == null) {
+                return;
+            }
+            send(batch);
+        }
+    }
+
+    private List<OutputEvent> takeBatch() {
+        lock.lock();
+        try {
+            while (pending.isEmpty() && !stopped) {
+                eventsAvailable.awaitUninterruptibly();
+            }
+            while (!stopped && pending.size() < maxBatchSize) {
+                long remaining = firstPendingTime + flushIntervalMillis - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                eventsAvailable.await(remaining, TimeUnit.MILLISECONDS);
+            }
+            if (pending.isEmpty()) {
+                return null;
+            }
+            List<OutputEvent> batch = pending;
+            pending = new ArrayList<OutputEvent>();
+            spaceAvailable.signalAll();
+            return batch;
+        } catch (InterruptedException e) {
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<OutputEvent> batch) {
+        try {
+            connection.dispatch(new OutputEventBatch(batch));
+        } catch (Exception e) {
+            //Ignore. It means the client has disconnected so no point sending it any more log output.
+            lock.lock();
+            try {
+                disconnected = true;
+                pending.clear();
+                spaceAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Sends any pending events and stops forwarding.
+     */
+    public void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            eventsAvailable.signalAll();
+            spaceAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        executor.stop();
+
+        List<OutputEvent> remaining;
+        lock.lock();
+        try {
+            remaining = pending;
+            pending = new ArrayList<OutputEvent>();
+        } finally {
+            lock.unlock();
+        }
+        if (!remaining.isEmpty()) {
+            send(remaining);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import org.gradle.internal.nativeplatform.ProcessEnvironment;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics;
 import org.gradle.launcher.daemon.protocol.Command;
+import org.gradle.launcher.daemon.server.health.DaemonHealthMonitor;
 import org.gradle.logging.LoggingManagerInternal;
 import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.messaging.remote.internal.Connection;
@@ -40,9 +41,20 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
     private final GradleLauncherFactory launcherFactory;
     private final ProcessEnvironment processEnvironment;
     private final File daemonLog;
+    private final DaemonHealthMonitor healthMonitor;
 
     public DefaultDaemonCommandExecuter(GradleLauncherFactory launcherFactory, ExecutorFactory executorFactory,
                                         ProcessEnvironment processEnvironment, LoggingManagerInternal loggingManager, File daemonLog) {
+        this(launcherFactory, executorFactory, processEnvironment, loggingManager, daemonLog, null);
+    }
+
+    /**
+     * @param healthMonitor The monitor of the health of the daemon process, or null to not expire the daemon based on its health.
+     */
+    public DefaultDaemonCommandExecuter(GradleLauncherFactory launcherFactory, ExecutorFactory executorFactory,
+                                        ProcessEnvironment processEnvironment, LoggingManagerInternal loggingManager, File daemonLog,
+                                        DaemonHealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
         this.executorFactory = executorFactory;
         this.processEnvironment = processEnvironment;
         this.daemonLog = daemonLog;
@@ -61,21 +73,27 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
     }
 
     protected List<DaemonCommandAction> createActions(DaemonContext daemonContext) {
-        DaemonDiagnostics daemonDiagnostics = new DaemonDiagnostics(daemonLog, daemonContext.getPid());
-        return new LinkedList<DaemonCommandAction>(Arrays.asList(
+        DaemonDiagnostics daemonDiagnostics = new DaemonDiagnostics(daemonLog, daemonContext.getPid(), healthMonitor == null ? null : healthMonitor.getSummary());
+        List<DaemonCommandAction> actions = new LinkedList<DaemonCommandAction>(Arrays.asList(
             new StopConnectionAfterExecution(),
             new HandleClientDisconnectBeforeSendingCommand(),
             new CatchAndForwardDaemonFailure(),
             new HandleStop(),
             new StartBuildOrRespondWithBusy(daemonDiagnostics),
             new EstablishBuildEnvironment(processEnvironment),
-            new LogToClient(loggingManager, daemonDiagnostics), // from this point down, logging is sent back to the client
+            new ReturnResult(), // sends the result after all logging has been sent back to the client
+            new LogToClient(loggingManager, daemonDiagnostics, executorFactory), // from this point down, logging is sent back to the client
             new ForwardClientInput(executorFactory),
-            new ReturnResult(),
-            new StartStopIfBuildAndStop(),
+            new StartStopIfBuildAndStop()
+        ));
+        if (healthMonitor != null) {
+            actions.add(new MonitorDaemonHealth(healthMonitor));
+        }
+        actions.addAll(Arrays.asList(
             new ResetDeprecationLogger(),
             new WatchForDisconnection(),
             new ExecuteBuild(launcherFactory)
         ));
+        return actions;
     }
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ import org.gradle.launcher.daemon.protocol.Build;
 import org.gradle.logging.LoggingManagerInternal;
 import org.gradle.logging.internal.OutputEvent;
 import org.gradle.logging.internal.OutputEventListener;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 
 class LogToClient extends BuildCommandOnly {
 
@@ -31,23 +32,21 @@ class LogToClient extends BuildCommandOnly {
 
     private final LoggingManagerInternal loggingManager;
     private final DaemonDiagnostics diagnostics;
+    private final ExecutorFactory executorFactory;
 
-    public LogToClient(LoggingManagerInternal loggingManager, DaemonDiagnostics diagnostics) {
+    public LogToClient(LoggingManagerInternal loggingManager, DaemonDiagnostics diagnostics, ExecutorFactory executorFactory) {
         this.loggingManager = loggingManager;
         this.diagnostics = diagnostics;
+        this.executorFactory = executorFactory;
     }
 
     protected void doBuild(final DaemonCommandExecution execution, Build build) {
         final LogLevel buildLogLevel = build.getParameters().getLogLevel();
+        final BatchingOutputEventRelay relay = new BatchingOutputEventRelay(execution.getConnection(), executorFactory);
         OutputEventListener listener = new OutputEventListener() {
             public void onOutput(OutputEvent event) {
-                try {
-                    if (event.getLogLevel().compareTo(buildLogLevel) >= 0) {
-                        execution.getConnection().dispatch(event);
-                    }
-                } catch (Exception e) {
-                    //Ignore. It means the client has disconnected so no point sending him any log output.
-                    //we should be checking if client still listens elsewhere anyway.
+                if (event.getLogLevel().compareTo(buildLogLevel) >= 0) {
+                    relay.onOutput(event);
                 }
             }
         };
@@ -55,11 +54,15 @@ class LogToClient extends BuildCommandOnly {
         LOGGER.info(DaemonMessages.ABOUT_TO_START_RELAYING_LOGS);
         loggingManager.addOutputEventListener(listener);
         LOGGER.info(DaemonMessages.STARTED_RELAYING_LOGS + diagnostics.getPid() + "). The daemon log file: " + diagnostics.getDaemonLog());
+        if (diagnostics.getHealth() != null) {
+            LOGGER.info("Daemon health: {}", diagnostics.getHealth());
+        }
 
         try {
             execution.proceed();
         } finally {
             loggingManager.removeOutputEventListener(listener);
+            relay.stop();
         }
     } 
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server.exec;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.initialization.GradleLauncherAction;
+import org.gradle.launcher.daemon.protocol.Build;
+import org.gradle.launcher.daemon.protocol.BuildAndStop;
+import org.gradle.launcher.daemon.server.health.DaemonHealthMonitor;
+import org.gradle.launcher.exec.InitializationAware;
+
+import java.util.Arrays;
+
+/**
+ * Records the health of the daemon around each build, and stops the daemon once the build has finished if its health
+ * has degraded. The daemon is removed from the registry straight away, so the next client starts a fresh daemon.
+ */
+public class MonitorDaemonHealth extends BuildCommandOnly {
+
+    private static final Logger LOGGER = Logging.getLogger(MonitorDaemonHealth.class);
+
+    private final DaemonHealthMonitor healthMonitor;
+
+    public MonitorDaemonHealth(DaemonHealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
+    }
+
+    protected void doBuild(DaemonCommandExecution execution, Build build) {
+        healthMonitor.buildStarted();
+        try {
+            execution.proceed();
+        } finally {
+            healthMonitor.buildFinished(buildKind(build));
+        }
+
+        LOGGER.info("Daemon health: {}", healthMonitor.getSummary());
+        String expirationReason = healthMonitor.getExpirationReason();
+        if (expirationReason != null && !(build instanceof BuildAndStop)) {
+            LOGGER.info("Expiring the daemon after this build because {}.", expirationReason);
+            execution.getDaemonStateControl().stopAsSoonAsIdle();
+        }
+    }
+
+    /**
+     * Builds are only compared with earlier builds in the same directory which request the same tasks with the same
+     * arguments, as running different tasks can take very different amounts of time.
+     */
+    private static Object buildKind(Build build) {
+        GradleLauncherAction<?> action = build.getAction();
+        Object request = action instanceof InitializationAware ? ((InitializationAware) action).configureStartParameter() : action.getClass();
+        return Arrays.asList(build.getParameters().getCurrentDir(), request);
+    }
+}
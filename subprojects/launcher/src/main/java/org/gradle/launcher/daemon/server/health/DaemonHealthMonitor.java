@@ -0,0 +1,204 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.launcher.daemon.server.health;
+
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Tracks the health of the daemon across the builds it runs, so that a daemon which has degraded can be expired rather
+ * than keep running ever slower builds. The following are tracked:
+ *
+ * <ul>
+ * <li>The share of the build time spent in garbage collection.</li>
+ * <li>The occupancy of the old generation after its last collection.</li>
+ * <li>The duration of recent builds compared with earlier builds of the same kind. Builds are of the same kind when
+ * they run in the same directory and request the same tasks with the same arguments.</li>
+ * </ul>
+ *
+ * <p>A daemon is only expired when the same problem has been seen in several consecutive builds. Builds which spend
+ * little time in garbage collection do not count towards the garbage collection problems, however large their share of
+ * garbage collection time, and short builds are not used to compare build durations.</p>
+ *
+ * <p>The daemon runs one build at a time, so builds are recorded by one thread at a time. The health may be queried
+ * from other threads.</p>
+ */
+public class DaemonHealthMonitor {
+    static final double GC_TIME_RATIO_THRESHOLD = 0.5;
+    static final double OLD_GEN_OCCUPANCY_THRESHOLD = 0.9;
+    static final double OLD_GEN_GC_TIME_RATIO_THRESHOLD = 0.1;
+    static final double SLOWDOWN_THRESHOLD = 2.5;
+    static final int TRACKED_BUILDS = 5;
+    static final int TRACKED_BUILD_KINDS = 20;
+    static final int UNHEALTHY_BUILDS_BEFORE_EXPIRATION = 3;
+    static final long MIN_GC_TIME = 1000;
+    static final long MIN_BUILD_DURATION = 1000;
+    private final TimeProvider timeProvider;
+    private final Map<Object, BuildDurations> durations = new LinkedHashMap<Object, BuildDurations>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, BuildDurations> eldest) {
+            return size() > TRACKED_BUILD_KINDS;
+        }
+    };
+    private volatile int buildCount;
+    private long buildStartedAt;
+    private long gcTimeAtBuildStart;
+    private volatile double lastGcTimeRatio;
+    private volatile double lastOldGenOccupancy = -1;
+    private volatile double lastSlowdown = 1;
+    private volatile int gcBoundBuilds;
+    private volatile int oldGenBoundBuilds;
+    private volatile int slowBuilds;
+
+    public DaemonHealthMonitor() {
+        this(new TrueTimeProvider());
+    }
+
+    DaemonHealthMonitor(TimeProvider timeProvider) {
+        this.timeProvider = timeProvider;
+    }
+
+    public void buildStarted() {
+        buildStartedAt = timeProvider.getCurrentTime();
+        gcTimeAtBuildStart = getGarbageCollectionTime();
+    }
+
+    /**
+     * Records the end of a build.
+     *
+     * @param buildKind Identifies the kind of build. The duration of the build is only compared with the durations of
+     * earlier builds of an equal kind.
+     */
+    public void buildFinished(Object buildKind) {
+        long duration = Math.max(timeProvider.getCurrentTime() - buildStartedAt, 1);
+        long gcTime = getGarbageCollectionTime() - gcTimeAtBuildStart;
+        buildCount++;
+        lastGcTimeRatio = Math.min((double) gcTime / duration, 1);
+        lastOldGenOccupancy = getOldGenOccupancy();
+
+        boolean significantGcTime = gcTime >= MIN_GC_TIME;
+        gcBoundBuilds = significantGcTime && lastGcTimeRatio >= GC_TIME_RATIO_THRESHOLD ? gcBoundBuilds + 1 : 0;
+        oldGenBoundBuilds = significantGcTime && lastOldGenOccupancy >= OLD_GEN_OCCUPANCY_THRESHOLD && lastGcTimeRatio >= OLD_GEN_GC_TIME_RATIO_THRESHOLD ? oldGenBoundBuilds + 1 : 0;
+
+        if (duration < MIN_BUILD_DURATION) {
+            // The duration of a short build varies too much to be compared
+            return;
+        }
+        BuildDurations buildDurations = durations.get(buildKind);
+        if (buildDurations == null) {
+            buildDurations = new BuildDurations();
+            durations.put(buildKind, buildDurations);
+        }
+        lastSlowdown = buildDurations.add(duration);
+        slowBuilds = lastSlowdown >= SLOWDOWN_THRESHOLD ? slowBuilds + 1 : 0;
+    }
+
+    /**
+     * Returns the reason why the daemon should be expired, or null when the daemon is healthy.
+     */
+    public String getExpirationReason() {
+        if (gcBoundBuilds >= UNHEALTHY_BUILDS_BEFORE_EXPIRATION) {
+            return String.format("at least %.0f%% of each of the last %d builds was spent in garbage collection", GC_TIME_RATIO_THRESHOLD * 100, gcBoundBuilds);
+        }
+        if (oldGenBoundBuilds >= UNHEALTHY_BUILDS_BEFORE_EXPIRATION) {
+            return String.format("the old generation is %.0f%% full after garbage collection", lastOldGenOccupancy * 100);
+        }
+        if (slowBuilds >= UNHEALTHY_BUILDS_BEFORE_EXPIRATION) {
+            return String.format("recent builds are %.1f times slower than earlier builds", lastSlowdown);
+        }
+        return null;
+    }
+
+    /**
+     * Returns a short description of the health of the daemon, for diagnostics.
+     */
+    public String getSummary() {
+        double occupancy = getOldGenOccupancy();
+        return String.format("builds run: %d, GC time in last build: %.0f%%, old generation after GC: %s, recent build time vs. earlier builds: %.1fx",
+                buildCount, lastGcTimeRatio * 100, occupancy < 0 ? "unknown" : String.format("%.0f%%", occupancy * 100), lastSlowdown);
+    }
+
+    /**
+     * Returns the total time spent in garbage collection by this JVM, in milliseconds.
+     */
+    protected long getGarbageCollectionTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(collector.getCollectionTime(), 0);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the fraction of the old generation in use after its last collection, or -1 when not known.
+     */
+    protected double getOldGenOccupancy() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            // Of the heap pools, only the old generation supports usage thresholds
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported()) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null || usage.getMax() <= 0) {
+                return -1;
+            }
+            return (double) usage.getUsed() / usage.getMax();
+        }
+        return -1;
+    }
+
+    /**
+     * The durations of the first and the most recent builds of a given kind. The fastest of the first builds is the
+     * baseline, and the fastest of the recent builds is compared with it, so that a single slow build does not count
+     * as a slowdown.
+     */
+    private static class BuildDurations {
+        private final LinkedList<Long> first = new LinkedList<Long>();
+        private final LinkedList<Long> recent = new LinkedList<Long>();
+
+        double add(long duration) {
+            if (first.size() < TRACKED_BUILDS) {
+                first.add(duration);
+                return 1;
+            }
+            recent.add(duration);
+            if (recent.size() > TRACKED_BUILDS) {
+                recent.removeFirst();
+            }
+            if (recent.size() < TRACKED_BUILDS) {
+                return 1;
+            }
+            return (double) min(recent) / min(first);
+        }
+
+        private static long min(Iterable<Long> durations) {
+            long min = Long.MAX_VALUE;
+            for (Long duration : durations) {
+                min = Math.min(min, duration);
+            }
+            return min;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.gradle.api.specs.Spec
 import org.gradle.initialization.GradleLauncherAction
 import org.gradle.launcher.daemon.context.DaemonContext
 import org.gradle.launcher.exec.BuildActionParameters
+import org.gradle.logging.internal.OutputEvent
 import org.gradle.logging.internal.OutputEventListener
 import org.gradle.messaging.remote.internal.Connection
 import org.gradle.util.ConcurrentSpecification
@@ -128,6 +129,28 @@ class DaemonClientTest extends ConcurrentSpecification {
         connection.receive() >>> [Mock(DaemonBusy), null, Mock(BuildStarted), new Success('')]
     }
 
+    def "forwards batched output events in order"() {
+        def event1 = Mock(OutputEvent)
+        def event2 = Mock(OutputEvent)
+        def event3 = Mock(OutputEvent)
+
+        given:
+        connector.connect(compatibilitySpec) >> daemonConnection
+        connection.receive() >>> [Mock(BuildStarted), new OutputEventBatch([event1, event2]), event3, new Success('')]
+
+        when:
+        client.execute(Mock(GradleLauncherAction), Mock(BuildActionParameters))
+
+        then:
+        1 * outputEventListener.onOutput(event1)
+
+        then:
+        1 * outputEventListener.onOutput(event2)
+
+        then:
+        1 * outputEventListener.onOutput(event3)
+    }
+
     def "does not loop forever finding usable daemons"() {
         given:
         connector.connect(compatibilitySpec) >> daemonConnection
@@ -168,5 +168,19 @@ class DefaultDaemonConnectorTest extends Specification {
         numAllDaemons == 1
     }
 
+    def "connect() tells the standby daemon starter which daemon it has taken"() {
+        StandbyDaemonStarter standbyDaemonStarter = Mock()
+        def spec = {it.pid < 12} as Spec
 
-}
\ No newline at end of file
+        given:
+        connector.standbyDaemonStarter = standbyDaemonStarter
+        startIdleDaemon()
+
+        when:
+        def connection = connector.connect(spec)
+
+        then:
+        connection.uid == "0"
+        1 * standbyDaemonStarter.daemonTaken("0", spec)
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.client
+
+import org.gradle.api.specs.Spec
+import org.gradle.launcher.daemon.context.DefaultDaemonContext
+import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo
+import org.gradle.launcher.daemon.registry.EmbeddedDaemonRegistry
+import org.gradle.messaging.remote.Address
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class StandbyDaemonStarterTest extends Specification {
+    final EmbeddedDaemonRegistry registry = new EmbeddedDaemonRegistry()
+    final DaemonStarter daemonStarter = Mock()
+    final Spec compatible = { it.pid < 10 } as Spec
+    final StandbyDaemonStarter standbyStarter = new StandbyDaemonStarter(registry, daemonStarter, 1)
+
+    def "starts a standby daemon when no other compatible daemon is idle"() {
+        def started = new CountDownLatch(1)
+        def standbyStarter = new StandbyDaemonStarter(registry, { started.countDown(); new DaemonStartupInfo("standby", null) } as DaemonStarter, 1)
+
+        given:
+        idleDaemon(1)
+        idleDaemon(20)
+
+        when:
+        standbyStarter.daemonTaken("1", compatible)
+
+        then:
+        started.await(5, TimeUnit.SECONDS)
+    }
+
+    def "does not start a standby daemon when enough compatible daemons are idle"() {
+        given:
+        idleDaemon(1)
+        idleDaemon(2)
+
+        when:
+        standbyStarter.daemonTaken("1", compatible)
+
+        then:
+        0 * daemonStarter._
+    }
+
+    private void idleDaemon(int num) {
+        def address = { String.valueOf(num) } as Address
+        registry.store(address, new DefaultDaemonContext(String.valueOf(num), new File("java"), new File("dir"), num, 1000, []), "password")
+    }
+}
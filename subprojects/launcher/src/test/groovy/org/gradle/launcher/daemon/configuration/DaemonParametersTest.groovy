@@ -29,6 +29,7 @@ class DaemonParametersTest extends Specification {
     def "has reasonable default values"() {
         expect:
         !parameters.enabled
+        parameters.standbyDaemons == 0
         parameters.idleTimeout == DaemonParameters.DEFAULT_IDLE_TIMEOUT
         def baseDir = new File(StartParameter.DEFAULT_GRADLE_USER_HOME, "daemon")
         parameters.baseDir == baseDir
@@ -64,6 +65,14 @@ class DaemonParametersTest extends Specification {
         parameters.idleTimeout == 4000
     }
 
+    def "can configure number of standby daemons using system property"() {
+        when:
+        parameters.configureFromSystemProperties((DaemonParameters.STANDBY_SYS_PROPERTY): '2')
+
+        then:
+        parameters.standbyDaemons == 2
+    }
+
     def "nice message for invalid idle timeout"() {
         when:
         parameters.configureFromSystemProperties((DaemonParameters.IDLE_TIMEOUT_SYS_PROPERTY): 'asdf')
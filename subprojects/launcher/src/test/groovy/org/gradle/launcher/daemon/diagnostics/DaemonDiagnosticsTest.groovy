@@ -52,4 +52,13 @@ class DaemonDiagnosticsTest extends Specification {
         desc.contains log.name
         desc.contains "hey joe!"
     }
+
+    def "describes the health of the daemon when known"() {
+        given:
+        def diagnostics = new DaemonDiagnostics(new File("does not exist"), 123, "builds run: 12")
+
+        expect:
+        diagnostics.describe().contains "health: builds run: 12"
+        !new DaemonDiagnostics(new File("does not exist"), 123).describe().contains("health:")
+    }
 }
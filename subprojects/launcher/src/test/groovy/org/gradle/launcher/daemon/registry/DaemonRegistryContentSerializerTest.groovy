@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.registry
+
+import org.gradle.launcher.daemon.context.DefaultDaemonContext
+import org.gradle.messaging.remote.Address
+import org.gradle.messaging.remote.internal.inet.MultiChoiceAddress
+import spock.lang.Specification
+
+class DaemonRegistryContentSerializerTest extends Specification {
+    final DaemonRegistryContentSerializer serializer = new DaemonRegistryContentSerializer()
+
+    def "writes and reads daemon infos"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getByName("127.0.0.1")])
+        def context = new DefaultDaemonContext("uid", new File("java-home"), new File("registry"), 123L, 3000, ["-Xmx1g", "-Dfoo=bar"])
+        def content = new DaemonRegistryContent()
+        content.setStatus(address, new DaemonInfo(address, context, "password").setIdle(false))
+
+        when:
+        def result = roundTrip(content)
+
+        then:
+        result.infos.size() == 1
+        def info = result.getInfo(address)
+        info.address == address
+        info.address.port == 1234
+        info.address.candidates == [InetAddress.getByName("127.0.0.1")]
+        info.password == "password"
+        !info.idle
+        info.context.uid == "uid"
+        info.context.javaHome == new File("java-home")
+        info.context.daemonRegistryDir == new File("registry")
+        info.context.pid == 123L
+        info.context.idleTimeout == 3000
+        info.context.daemonOpts == ["-Xmx1g", "-Dfoo=bar"]
+    }
+
+    def "writes and reads null context values"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [])
+        def context = new DefaultDaemonContext("uid", new File("java-home"), new File("registry"), null, null, [])
+        def content = new DaemonRegistryContent()
+        content.setStatus(address, new DaemonInfo(address, context, null))
+
+        when:
+        def info = roundTrip(content).getInfo(address)
+
+        then:
+        info.idle
+        info.password == null
+        info.context.pid == null
+        info.context.idleTimeout == null
+        info.context.daemonOpts.empty
+    }
+
+    def "uses serialization for other address types"() {
+        def address = new TestAddress("address")
+        def context = new DefaultDaemonContext("uid", new File("java-home"), new File("registry"), 123L, 3000, [])
+        def content = new DaemonRegistryContent()
+        content.setStatus(address, new DaemonInfo(address, context, "password"))
+
+        when:
+        def info = roundTrip(content).getInfo(address)
+
+        then:
+        info.address == address
+        info.context.uid == "uid"
+    }
+
+    def "reads content in another format as empty"() {
+        def outstr = new ByteArrayOutputStream()
+        new ObjectOutputStream(outstr).writeObject(new DaemonRegistryContent())
+
+        expect:
+        serializer.read(new ByteArrayInputStream(outstr.toByteArray())) == null
+    }
+
+    DaemonRegistryContent roundTrip(DaemonRegistryContent content) {
+        def outstr = new ByteArrayOutputStream()
+        serializer.write(outstr, content)
+        return serializer.read(new ByteArrayInputStream(outstr.toByteArray()))
+    }
+
+    private static class TestAddress implements Address {
+        final String displayName
+
+        TestAddress(String displayName) {
+            this.displayName = displayName
+        }
+
+        boolean equals(Object o) {
+            return o instanceof TestAddress && o.displayName == displayName
+        }
+
+        int hashCode() {
+            return displayName.hashCode()
+        }
+    }
+}
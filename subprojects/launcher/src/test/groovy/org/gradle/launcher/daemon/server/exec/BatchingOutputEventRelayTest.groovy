@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.exec
+
+import org.gradle.launcher.daemon.protocol.OutputEventBatch
+import org.gradle.logging.internal.OutputEvent
+import org.gradle.logging.internal.ProgressEvent
+import org.gradle.logging.internal.StyledTextOutputEvent
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import org.gradle.messaging.dispatch.Dispatch
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class BatchingOutputEventRelayTest extends Specification {
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final List<OutputEventBatch> batches = [].asSynchronized()
+    final Dispatch<Object> connection = { batches << it } as Dispatch
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "sends events in batches in the order they were generated"() {
+        def relay = new BatchingOutputEventRelay(connection, executorFactory, 3, 10000, 100)
+        def events = (1..7).collect { event(it) }
+
+        when:
+        events.each { relay.onOutput(it) }
+        relay.stop()
+
+        then:
+        batches.collect { it.events }.flatten() == events
+        batches.size() >= 3
+    }
+
+    def "sends pending events after the flush interval"() {
+        def relay = new BatchingOutputEventRelay(connection, executorFactory, 100, 10, 100)
+        def event = event(1)
+
+        when:
+        relay.onOutput(event)
+        waitFor { !batches.empty }
+
+        then:
+        batches[0].events == [event]
+
+        cleanup:
+        relay.stop()
+    }
+
+    def "drops progress events while the client does not keep up"() {
+        def dispatching = new CountDownLatch(1)
+        def release = new CountDownLatch(1)
+        def slowConnection = { OutputEventBatch batch ->
+            dispatching.countDown()
+            release.await(10, TimeUnit.SECONDS)
+            batches << batch
+        } as Dispatch
+        def relay = new BatchingOutputEventRelay(slowConnection, executorFactory, 1, 10000, 2)
+
+        when:
+        relay.onOutput(event(1))
+        dispatching.await(10, TimeUnit.SECONDS)
+        relay.onOutput(event(2))
+        relay.onOutput(event(3))
+        relay.onOutput(new ProgressEvent(0, "category", "status"))
+        release.countDown()
+        relay.stop()
+
+        then:
+        batches.collect { it.events }.flatten().collect { it.toString() } == [event(1), event(2), event(3)].collect { it.toString() }
+    }
+
+    def "does not block or fail once the client has disconnected"() {
+        def failures = 0
+        def brokenConnection = { failures++; throw new RuntimeException("broken") } as Dispatch
+        def relay = new BatchingOutputEventRelay(brokenConnection, executorFactory, 1, 10000, 1)
+
+        when:
+        (1..10).each { relay.onOutput(event(it)) }
+        relay.stop()
+
+        then:
+        failures >= 1
+    }
+
+    OutputEvent event(int i) {
+        return new StyledTextOutputEvent(0, "category", "event $i")
+    }
+
+    void waitFor(Closure condition) {
+        long expiry = System.currentTimeMillis() + 10000
+        while (!condition() && System.currentTimeMillis() < expiry) {
+            Thread.sleep(10)
+        }
+        assert condition()
+    }
+}
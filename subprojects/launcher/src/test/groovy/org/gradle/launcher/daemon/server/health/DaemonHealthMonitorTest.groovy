@@ -0,0 +1,161 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.internal.TimeProvider
+import spock.lang.Specification
+
+class DaemonHealthMonitorTest extends Specification {
+    static final int UNHEALTHY_BUILDS = DaemonHealthMonitor.UNHEALTHY_BUILDS_BEFORE_EXPIRATION
+    long now
+    final TimeProvider timeProvider = { now } as TimeProvider
+    long gcTime
+    double oldGenOccupancy = 0.5
+    final DaemonHealthMonitor monitor = new DaemonHealthMonitor(timeProvider) {
+        @Override
+        protected long getGarbageCollectionTime() {
+            return gcTime
+        }
+
+        @Override
+        protected double getOldGenOccupancy() {
+            return oldGenOccupancy
+        }
+    }
+    final File dir = new File("build-dir")
+
+    def "is healthy when builds spend little time in garbage collection"() {
+        when:
+        build(dir, 1000, 100)
+
+        then:
+        monitor.expirationReason == null
+        monitor.summary.contains("builds run: 1")
+        monitor.summary.contains("GC time in last build: 10%")
+    }
+
+    def "expires when several consecutive builds spend most of their time in garbage collection"() {
+        when:
+        (UNHEALTHY_BUILDS - 1).times { build(dir, 4000, 2400) }
+
+        then:
+        monitor.expirationReason == null
+
+        when:
+        build(dir, 4000, 2400)
+
+        then:
+        monitor.expirationReason.contains("at least 50% of each of the last 3 builds was spent in garbage collection")
+    }
+
+    def "a build which spends little time in garbage collection resets the count of unhealthy builds"() {
+        when:
+        (UNHEALTHY_BUILDS - 1).times { build(dir, 4000, 2400) }
+        build(dir, 4000, 100)
+        (UNHEALTHY_BUILDS - 1).times { build(dir, 4000, 2400) }
+
+        then:
+        monitor.expirationReason == null
+    }
+
+    def "ignores the garbage collection share of builds which spend little time in garbage collection"() {
+        when:
+        (UNHEALTHY_BUILDS * 2).times { build(dir, 200, 150) }
+
+        then:
+        monitor.expirationReason == null
+        monitor.summary.contains("GC time in last build: 75%")
+    }
+
+    def "expires when the old generation stays full and garbage collection is busy"() {
+        given:
+        oldGenOccupancy = 0.95
+
+        when:
+        (UNHEALTHY_BUILDS * 2).times { build(dir, 4000, 200) }
+
+        then:
+        monitor.expirationReason == null
+
+        when:
+        UNHEALTHY_BUILDS.times { build(dir, 4000, 1000) }
+
+        then:
+        monitor.expirationReason.contains("old generation is 95% full")
+    }
+
+    def "expires when several consecutive recent builds are much slower than earlier builds in the same directory"() {
+        when:
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build(dir, 1000, 0) }
+        (DaemonHealthMonitor.TRACKED_BUILDS + UNHEALTHY_BUILDS - 2).times { build(dir, 3000, 0) }
+
+        then:
+        monitor.expirationReason == null
+
+        when:
+        build(dir, 3000, 0)
+
+        then:
+        monitor.expirationReason.contains("3.0 times slower")
+    }
+
+    def "does not compare the durations of short builds"() {
+        when:
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build(dir, 100, 0) }
+        (DaemonHealthMonitor.TRACKED_BUILDS + UNHEALTHY_BUILDS).times { build(dir, 900, 0) }
+
+        then:
+        monitor.expirationReason == null
+    }
+
+    def "compares build times per kind of build"() {
+        when:
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build(dir, 1000, 0) }
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build(new File("other"), 5000, 0) }
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build([dir, ['clean', 'build']], 5000, 0) }
+
+        then:
+        monitor.expirationReason == null
+    }
+
+    def "forgets the least recently run kinds of build"() {
+        when:
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build(dir, 1000, 0) }
+        DaemonHealthMonitor.TRACKED_BUILD_KINDS.times { build("kind $it", 1000, 0) }
+        (DaemonHealthMonitor.TRACKED_BUILDS + UNHEALTHY_BUILDS).times { build(dir, 3000, 0) }
+
+        then:
+        monitor.expirationReason == null
+    }
+
+    def "a single slow build does not count as a slowdown"() {
+        when:
+        DaemonHealthMonitor.TRACKED_BUILDS.times { build(dir, 1000, 0) }
+        (DaemonHealthMonitor.TRACKED_BUILDS - 1).times { build(dir, 3000, 0) }
+        build(dir, 1100, 0)
+
+        then:
+        monitor.expirationReason == null
+    }
+
+    private void build(Object buildKind, long duration, long gcDuration) {
+        monitor.buildStarted()
+        now += duration
+        gcTime += gcDuration
+        monitor.buildFinished(buildKind)
+    }
+}
@@ -36,6 +36,7 @@ class ProjectGeneratorTask extends DefaultTask {
     int sourceFiles = 1
     Integer testSourceFiles
     int linesOfCodePerSourceFile = 5
+    int testOutputLines
     @InputFiles FileCollection testDependencies
 
     final List<TestProject> projects = []
@@ -121,7 +122,7 @@ class ProjectGeneratorTask extends DefaultTask {
             }
         }
 
-        args += [projectName: testProject.name, groovyProject: groovyProject, propertyCount: (testProject.linesOfCodePerSourceFile.intdiv(7))]
+        args += [projectName: testProject.name, groovyProject: groovyProject, propertyCount: (testProject.linesOfCodePerSourceFile.intdiv(7)), testOutputLines: testOutputLines]
 
         files.each {String name ->
             generate(name, name, args)
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.listener
+
+import org.gradle.messaging.dispatch.ProxyDispatchAdapter
+import spock.lang.Specification
+
+/**
+ * Compares the cost of broadcasting an event using a proxy and reflection, and using a generated broadcast source.
+ */
+class ListenerBroadcastBenchmarkTest extends Specification {
+    static final int LISTENERS = 4
+    static final int EVENTS = 2000000
+
+    def "measures broadcast throughput"() {
+        when:
+        measure(proxySource())
+        measure(generatedSource())
+        def proxy = measure(proxySource())
+        def generated = measure(generatedSource())
+        println "Proxy broadcast: $proxy events/second"
+        println "Generated broadcast: $generated events/second"
+
+        then:
+        proxy > 0
+        generated > 0
+    }
+
+    BenchmarkListener proxySource() {
+        def broadcast = new BroadcastDispatch<BenchmarkListener>(BenchmarkListener)
+        LISTENERS.times { broadcast.add(new CountingListener()) }
+        return new ProxyDispatchAdapter<BenchmarkListener>(broadcast, BenchmarkListener).source
+    }
+
+    BenchmarkListener generatedSource() {
+        def broadcast = new ListenerBroadcast<BenchmarkListener>(BenchmarkListener)
+        LISTENERS.times { broadcast.add(new CountingListener()) }
+        assert broadcast.source instanceof BroadcastSource
+        return broadcast.source
+    }
+
+    long measure(BenchmarkListener source) {
+        long start = System.nanoTime()
+        for (int i = 0; i < EVENTS; i++) {
+            source.event("event", i)
+        }
+        long elapsed = Math.max(System.nanoTime() - start, 1L)
+        return (EVENTS * 1000000000L).intdiv(elapsed)
+    }
+
+    public interface BenchmarkListener {
+        void event(String name, int value)
+    }
+
+    static class CountingListener implements BenchmarkListener {
+        long count
+
+        void event(String name, int value) {
+            count += value
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.messaging.dispatch
+
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Compares the throughput of {@link AsyncDispatch} and {@link RingBufferAsyncDispatch} when many threads dispatch
+ * messages to a single handler.
+ */
+class AsyncDispatchBenchmarkTest extends Specification {
+    static final int PRODUCERS = 8
+    static final int MESSAGES_PER_PRODUCER = 100000
+    final def executorFactory = new DefaultExecutorFactory()
+
+    def "measures contended throughput"() {
+        when:
+        measure { executor, target -> new AsyncDispatch<String>(executor, target) }
+        measure { executor, target -> new RingBufferAsyncDispatch<String>(executor, target) }
+        def locking = measure { executor, target -> new AsyncDispatch<String>(executor, target) }
+        def ringBuffer = measure { executor, target -> new RingBufferAsyncDispatch<String>(executor, target) }
+        println "AsyncDispatch: $locking messages/second"
+        println "RingBufferAsyncDispatch: $ringBuffer messages/second"
+
+        then:
+        locking > 0
+        ringBuffer > 0
+    }
+
+    long measure(Closure<StoppableDispatch<String>> factory) {
+        def executor = executorFactory.create("dispatch")
+        def received = new AtomicLong()
+        StoppableDispatch<String> dispatch = factory.call(executor, { received.incrementAndGet() } as Dispatch)
+        def producers = (0..<PRODUCERS).collect {
+            new Thread({
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                    dispatch.dispatch("message")
+                }
+            })
+        }
+
+        long start = System.nanoTime()
+        producers*.start()
+        producers*.join()
+        dispatch.stop()
+        long elapsed = Math.max(System.nanoTime() - start, 1L)
+        executor.stop()
+
+        long total = PRODUCERS * (long) MESSAGES_PER_PRODUCER
+        assert received.get() == total
+        return (total * 1000000000L).intdiv(elapsed)
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.messaging.remote.internal
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.logging.internal.*
+import org.gradle.messaging.remote.internal.protocol.ProtocolMessageSerializers
+import org.gradle.messaging.remote.internal.protocol.RemoteMethodInvocation
+import org.gradle.messaging.remote.internal.protocol.Request
+import spock.lang.Specification
+
+/**
+ * Compares the throughput and message size of Java serialization with the binary message format, for the messages that
+ * are relayed during a build.
+ */
+class MessageSerializerBenchmarkTest extends Specification {
+    static final int MESSAGES = 20000
+
+    def "binary format writes fewer bytes per message than java serialization"() {
+        def binarySerializer = new BinaryMessageSerializer<Object>(getClass().classLoader)
+        ProtocolMessageSerializers.register(binarySerializer)
+        OutputEventSerializers.register(binarySerializer)
+        def javaSerializer = new DefaultMessageSerializer<Object>(getClass().classLoader)
+
+        when:
+        measure(javaSerializer)
+        measure(binarySerializer)
+        def java = measure(javaSerializer)
+        def binary = measure(binarySerializer)
+        println "Java serialization: $java"
+        println "Binary format: $binary"
+
+        then:
+        binary.bytesPerMessage < java.bytesPerMessage
+    }
+
+    Result measure(MessageSerializer<Object> serializer) {
+        def messages = messages()
+        def bytes = new ByteArrayOutputStream()
+        def outputStream = new DataOutputStream(bytes)
+        long start = System.nanoTime()
+        for (int i = 0; i < MESSAGES; i++) {
+            serializer.write(messages[i % messages.size()], outputStream)
+        }
+        outputStream.flush()
+        def inputStream = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+        for (int i = 0; i < MESSAGES; i++) {
+            serializer.read(inputStream, null, null)
+        }
+        long elapsed = System.nanoTime() - start
+        return new Result(messagesPerSecond: MESSAGES * 1000000000L / Math.max(elapsed, 1L), bytesPerMessage: bytes.size() / MESSAGES)
+    }
+
+    List<Object> messages() {
+        return [
+                new StyledTextOutputEvent(System.currentTimeMillis(), "org.gradle.api.Task", LogLevel.QUIET, "Compiling source file 12 of 40"),
+                new LogEvent(System.currentTimeMillis(), "org.gradle.api.internal.project.DefaultProject", LogLevel.INFO, "Evaluating project ':core' using build file 'core.gradle'.", null),
+                new ProgressStartEvent(System.currentTimeMillis(), "org.gradle.execution.TaskExecutionLogger", "Execute :core:compileJava", ":core:compileJava", ":core:compileJava", null),
+                new ProgressEvent(System.currentTimeMillis(), "org.gradle.execution.TaskExecutionLogger", "UP-TO-DATE"),
+                new ProgressCompleteEvent(System.currentTimeMillis(), "org.gradle.execution.TaskExecutionLogger", "UP-TO-DATE"),
+                new Request(UUID.randomUUID(), new RemoteMethodInvocation(3, [new StyledTextOutputEvent(System.currentTimeMillis(), "system.out", LogLevel.QUIET, "test output line")] as Object[]))
+        ]
+    }
+
+    static class Result {
+        long messagesPerSecond
+        BigDecimal bytesPerMessage
+
+        String toString() {
+            return "$messagesPerSecond messages/second, $bytesPerMessage bytes/message"
+        }
+    }
+}
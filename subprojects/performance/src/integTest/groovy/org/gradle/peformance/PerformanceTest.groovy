@@ -37,9 +37,10 @@ class PerformanceTest extends Specification {
         result.assertCurrentReleaseIsNotSlower()
 
         where:
-        testProject | runs | accuracyMs
-        "small"     | 10   | 500
-        "multi"     | 10   | 1000
+        testProject  | runs | accuracyMs
+        "small"      | 10   | 500
+        "multi"      | 10   | 1000
+        "testOutput" | 10   | 1000
     }
 
     @Unroll("Project '#testProject' with heap size: #heapSize. Current release does not require more memory than the previous one.")
@@ -8,5 +8,10 @@ public class ${testClassName} {
     @org.junit.Test
     public void test() {
         assertEquals(production.getProperty(), "value");
+<% if (testOutputLines) { %>
+        for (int i = 0; i < ${testOutputLines}; i++) {
+            System.out.println("test output line " + i);
+        }
+<% } %>
     }
 }
\ No newline at end of file
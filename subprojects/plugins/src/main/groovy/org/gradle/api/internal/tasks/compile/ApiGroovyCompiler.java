@@ -18,21 +18,51 @@ package org.gradle.api.internal.tasks.compile;
 
 import com.google.common.collect.Iterables;
 import groovy.lang.GroovyClassLoader;
+import org.codehaus.groovy.ast.ClassNode;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.classgen.GeneratorContext;
 import org.codehaus.groovy.control.*;
 import org.codehaus.groovy.control.messages.SimpleMessage;
-import org.codehaus.groovy.tools.javac.*;
-import org.gradle.api.specs.Spec;
+import org.codehaus.groovy.tools.javac.JavaAwareResolveVisitor;
+import org.codehaus.groovy.tools.javac.JavaStubGenerator;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.file.TmpDirTemporaryFileProvider;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.DefaultExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
 import org.gradle.util.FilteringClassLoader;
+import org.gradle.util.GFileUtils;
+import org.gradle.util.hash.HashUtil;
+import org.gradle.util.hash.HashValue;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.Serializable;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
+/**
+ * Compiles Groovy and Java sources together, using the Groovy compiler API.
+ *
+ * <p>Java sources which do not depend on the Groovy sources are compiled first, on a separate thread, while the Groovy
+ * sources are parsed and stubs are generated for them. These Java sources are compiled into a temporary directory,
+ * which is merged into the destination directory once the stubs have been generated, so that the Groovy compiler
+ * never reads class files which are still being written. The remaining Java sources are then compiled against the
+ * stubs, before the Groovy sources are compiled.</p>
+ *
+ * <p>The stubs are generated into a temporary directory. They are kept in the stub directory along with a hash of their
+ * content, and the stub directory is only rewritten when a later compilation generates stubs with different content,
+ * for example when the signatures of the Groovy classes change.</p>
+ */
 public class ApiGroovyCompiler implements Compiler<GroovyJavaJointCompileSpec>, Serializable {
+    private static final String STUB_HASH_FILE_NAME = "stubs.hash";
+
     private final Compiler<JavaCompileSpec> javaCompiler;
 
     public ApiGroovyCompiler(Compiler<JavaCompileSpec> javaCompiler) {
@@ -45,17 +75,13 @@ public class ApiGroovyCompiler implements Compiler<GroovyJavaJointCompileSpec>,
         configuration.setSourceEncoding(spec.getGroovyCompileOptions().getEncoding());
         configuration.setTargetBytecode(spec.getTargetCompatibility());
         configuration.setTargetDirectory(spec.getDestinationDir());
-        Map<String, Object> jointCompilationOptions = new HashMap<String, Object>();
-        jointCompilationOptions.put("stubDir", spec.getGroovyCompileOptions().getStubDir());
-        jointCompilationOptions.put("keepStubs", spec.getGroovyCompileOptions().isKeepStubs());
-        configuration.setJointCompilationOptions(jointCompilationOptions);
 
         // The most accurate setup would be to have one class loader that only loads the spec's compile class path, and
         // another one for AST transforms that loads compiler classes (or maybe all classes in the Groovy Jar)
         // from getClass().getClassLoader() and everything else from the former class loader.
         // This would allow to use different versions for Groovy compiler and Groovy compile dependency.
-        // However, JavaAwareCompilationUnit doesn't provide a way to set a separate class loader for transforms
-        // like CompilationUnit does. Therefore, we opt for a setup with a single class loader that's used both for
+        // However, the compilation unit doesn't provide a way to set a separate class loader for transforms
+        // when compiling jointly with Java. Therefore, we opt for a setup with a single class loader that's used both for
         // the compile class path and AST transforms. This class loader always prefers the Groovy version of
         // getClass().getClassLoader() (which is the one added to the 'groovy' configuration) over that
         // on the spec's compile class path. In all likelihood, they will be the same anyway.
@@ -82,35 +108,224 @@ public class ApiGroovyCompiler implements Compiler<GroovyJavaJointCompileSpec>,
             compilationUnitClassLoader.addClasspath(file.getPath());
         }
 
-        JavaAwareCompilationUnit unit = new JavaAwareCompilationUnit(configuration, compilationUnitClassLoader);
-        unit.addSources(Iterables.toArray(spec.getSource(), File.class));
-        unit.setCompilerFactory(new org.codehaus.groovy.tools.javac.JavaCompilerFactory() {
-            public JavaCompiler createCompiler(final CompilerConfiguration config) {
-                return new JavaCompiler() {
-                    public void compile(List<String> files, CompilationUnit cu) {
-                        spec.setSource(spec.getSource().filter(new Spec<File>() {
-                            public boolean isSatisfiedBy(File file) {
-                                return file.getName().endsWith(".java");
-                            }
-                        }));
-                        spec.getCompileOptions().getCompilerArgs().add("-sourcepath");
-                        spec.getCompileOptions().getCompilerArgs().add(((File) config.getJointCompilationOptions().get("stubDir")).getAbsolutePath());
-                        try {
-                            javaCompiler.execute(spec);
-                        } catch (CompilationFailedException e) {
-                            cu.getErrorCollector().addFatalError(new SimpleMessage(e.getMessage(), cu));
+        List<File> groovySources = new ArrayList<File>();
+        List<File> javaSources = new ArrayList<File>();
+        for (File source : spec.getSource()) {
+            if (source.getName().endsWith(".java")) {
+                javaSources.add(source);
+            } else {
+                groovySources.add(source);
+            }
+        }
+        JavaSourcePartitioner partitioner = new JavaSourcePartitioner(spec.getGroovyCompileOptions().getEncoding(), spec.getCompileOptions().getEncoding());
+        final Set<File> independentJavaSources = partitioner.findIndependentJavaSources(groovySources, javaSources);
+        final List<File> dependentJavaSources = new ArrayList<File>(javaSources);
+        dependentJavaSources.removeAll(independentJavaSources);
+
+        final File stubDir = spec.getGroovyCompileOptions().getStubDir();
+
+        TmpDirTemporaryFileProvider temporaryFileProvider = new TmpDirTemporaryFileProvider();
+        StoppableExecutor executor = new DefaultExecutorFactory().create("Java compiler");
+        try {
+            final File generatedStubDir = dependentJavaSources.isEmpty() ? null : temporaryFileProvider.createTemporaryDirectory("gradle", "groovy-stubs");
+            final File independentClassesDir = independentJavaSources.isEmpty() ? null : temporaryFileProvider.createTemporaryDirectory("gradle", "java-classes");
+            final FutureTask<WorkResult> independentJavaCompilation = new FutureTask<WorkResult>(new Callable<WorkResult>() {
+                public WorkResult call() {
+                    if (independentJavaSources.isEmpty()) {
+                        return new SimpleWorkResult(false);
+                    }
+                    return javaCompiler.execute(new JavaSourcesSpec(spec, new SimpleFileCollection(independentJavaSources), independentClassesDir));
+                }
+            });
+            executor.execute(independentJavaCompilation);
+
+            final CompilationUnit unit = new CompilationUnit(configuration, null, compilationUnitClassLoader) {
+                @Override
+                public void gotoPhase(int phase) throws org.codehaus.groovy.control.CompilationFailedException {
+                    super.gotoPhase(phase);
+                    if (phase == Phases.SEMANTIC_ANALYSIS) {
+                        await(independentJavaCompilation, independentClassesDir, spec.getDestinationDir());
+                        if (!dependentJavaSources.isEmpty()) {
+                            updateStubs(generatedStubDir, stubDir);
+                            compileDependentJavaSources(this, spec, dependentJavaSources, stubDir);
                         }
                     }
-                };
+                }
+            };
+            unit.addSources(Iterables.toArray(groovySources, File.class));
+            if (!dependentJavaSources.isEmpty()) {
+                addStubGeneration(unit, configuration, generatedStubDir);
             }
-        });
 
-        try {
-            unit.compile();
-        } catch (org.codehaus.groovy.control.CompilationFailedException e) {
-            throw new CompilationFailedException(e.getMessage());
+            try {
+                unit.compile();
+            } catch (org.codehaus.groovy.control.CompilationFailedException e) {
+                throw new CompilationFailedException(e.getMessage());
+            }
+            await(independentJavaCompilation, independentClassesDir, spec.getDestinationDir());
+        } finally {
+            try {
+                executor.stop();
+            } finally {
+                temporaryFileProvider.deleteAllCreated();
+            }
         }
 
         return new SimpleWorkResult(true);
     }
+
+    private void addStubGeneration(final CompilationUnit unit, CompilerConfiguration configuration, File stubDir) {
+        boolean useJava5 = CompilerConfiguration.POST_JDK5.equals(configuration.getTargetBytecode());
+        final JavaStubGenerator stubGenerator = new JavaStubGenerator(stubDir, false, useJava5, configuration.getSourceEncoding());
+        unit.addPhaseOperation(new CompilationUnit.PrimaryClassNodeOperation() {
+            public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws org.codehaus.groovy.control.CompilationFailedException {
+                new JavaAwareResolveVisitor(unit).startResolving(classNode, source);
+            }
+        }, Phases.CONVERSION);
+        unit.addPhaseOperation(new CompilationUnit.PrimaryClassNodeOperation() {
+            public void call(SourceUnit source, GeneratorContext context, ClassNode classNode) throws org.codehaus.groovy.control.CompilationFailedException {
+                try {
+                    stubGenerator.generateClass(classNode);
+                } catch (FileNotFoundException e) {
+                    source.addException(e);
+                }
+            }
+        }, Phases.CONVERSION);
+    }
+
+    private void compileDependentJavaSources(CompilationUnit unit, GroovyJavaJointCompileSpec spec, List<File> dependentJavaSources, File stubDir) {
+        // The stub generator resolves imports early, so they need to be resolved again once the Java classes exist
+        for (ModuleNode module : unit.getAST().getModules()) {
+            module.setImportsResolved(false);
+        }
+        spec.setSource(new SimpleFileCollection(dependentJavaSources));
+        spec.getCompileOptions().getCompilerArgs().add("-sourcepath");
+        spec.getCompileOptions().getCompilerArgs().add(stubDir.getAbsolutePath());
+        try {
+            javaCompiler.execute(spec);
+        } catch (CompilationFailedException e) {
+            unit.getErrorCollector().addFatalError(new SimpleMessage(e.getMessage(), unit));
+        }
+    }
+
+    /**
+     * Waits for the compilation of the independent Java sources, then moves its output into the destination directory.
+     * Does nothing for a compilation whose output has already been moved.
+     */
+    private static void await(FutureTask<WorkResult> compilation, File classesDir, File destinationDir) {
+        try {
+            compilation.get();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } catch (ExecutionException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        }
+        if (classesDir != null && classesDir.isDirectory()) {
+            GFileUtils.copyDirectory(classesDir, destinationDir);
+            GFileUtils.deleteDirectory(classesDir);
+        }
+    }
+
+    /**
+     * Replaces the stubs in the stub directory with the generated stubs, unless the stub directory already contains
+     * stubs with the same content.
+     */
+    private static void updateStubs(File generatedStubDir, File stubDir) {
+        String stubHash = hashStubs(generatedStubDir);
+        if (stubHash.equals(readStubHash(stubDir))) {
+            return;
+        }
+        // Remove the stubs of a previous compilation, which may be for classes which no longer exist
+        GFileUtils.deleteDirectory(stubDir);
+        GFileUtils.copyDirectory(generatedStubDir, stubDir);
+        GFileUtils.writeStringToFile(new File(stubDir, STUB_HASH_FILE_NAME), stubHash);
+    }
+
+    private static String hashStubs(File stubDir) {
+        MessageDigest digest = HashUtil.createMessageDigest("MD5");
+        int prefixLength = stubDir.getAbsolutePath().length();
+        for (File stub : new TreeSet<File>(listFiles(stubDir))) {
+            digest.update(stub.getAbsolutePath().substring(prefixLength).getBytes());
+            digest.update(HashUtil.createHash(stub, "MD5").asByteArray());
+        }
+        return new HashValue(digest.digest()).asCompactString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<File> listFiles(File directory) {
+        return GFileUtils.listFiles(directory, null, true);
+    }
+
+    private static String readStubHash(File stubDir) {
+        File hashFile = new File(stubDir, STUB_HASH_FILE_NAME);
+        return hashFile.isFile() ? GFileUtils.readFileToString(hashFile) : null;
+    }
+
+    /**
+     * A view of a joint compile spec, with its own sources and destination directory. All other properties are read
+     * from, and written to, the joint compile spec.
+     */
+    private static class JavaSourcesSpec implements JavaCompileSpec {
+        private final JavaCompileSpec spec;
+        private FileCollection source;
+        private File destinationDir;
+
+        private JavaSourcesSpec(JavaCompileSpec spec, FileCollection source, File destinationDir) {
+            this.spec = spec;
+            this.source = source;
+            this.destinationDir = destinationDir;
+        }
+
+        public FileCollection getSource() {
+            return source;
+        }
+
+        public void setSource(FileCollection source) {
+            this.source = source;
+        }
+
+        public CompileOptions getCompileOptions() {
+            return spec.getCompileOptions();
+        }
+
+        public File getDependencyCacheDir() {
+            return spec.getDependencyCacheDir();
+        }
+
+        public void setDependencyCacheDir(File dependencyCacheDir) {
+            spec.setDependencyCacheDir(dependencyCacheDir);
+        }
+
+        public String getSourceCompatibility() {
+            return spec.getSourceCompatibility();
+        }
+
+        public void setSourceCompatibility(String sourceCompatibility) {
+            spec.setSourceCompatibility(sourceCompatibility);
+        }
+
+        public String getTargetCompatibility() {
+            return spec.getTargetCompatibility();
+        }
+
+        public void setTargetCompatibility(String targetCompatibility) {
+            spec.setTargetCompatibility(targetCompatibility);
+        }
+
+        public File getDestinationDir() {
+            return destinationDir;
+        }
+
+        public void setDestinationDir(File destinationDir) {
+            this.destinationDir = destinationDir;
+        }
+
+        public Iterable<File> getClasspath() {
+            return spec.getClasspath();
+        }
+
+        public void setClasspath(Iterable<File> classpath) {
+            spec.setClasspath(classpath);
+        }
+    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.internal.project.PluginServiceRegistry;
+import org.gradle.initialization.BuildProcess;
+import org.gradle.internal.service.DefaultServiceRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+
+/**
+ * Contributes the compiler services to the build process and to each build.
+ */
+public class CompilerServices implements PluginServiceRegistry {
+    public ServiceRegistry createGlobalServices(ServiceRegistry globalServices) {
+        return new GlobalCompilerServices();
+    }
+
+    public ServiceRegistry createBuildServices(ServiceRegistry buildServices) {
+        return new BuildCompilerServices(buildServices);
+    }
+
+    private static class GlobalCompilerServices extends DefaultServiceRegistry {
+        protected SharedJavaFileManagerPool createSharedJavaFileManagerPool() {
+            return new SharedJavaFileManagerPool();
+        }
+    }
+
+    private static class BuildCompilerServices extends DefaultServiceRegistry {
+        private final ServiceRegistry buildServices;
+
+        private BuildCompilerServices(ServiceRegistry buildServices) {
+            this.buildServices = buildServices;
+        }
+
+        protected InProcessJavaCompilerFactory createInProcessJavaCompilerFactory() {
+            return new InProcessJavaCompilerFactory(buildServices.get(SharedJavaFileManagerPool.class), buildServices.get(BuildProcess.class));
+        }
+    }
+}
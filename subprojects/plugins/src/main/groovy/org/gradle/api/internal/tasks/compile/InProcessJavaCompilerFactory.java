@@ -17,11 +17,25 @@ package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.api.GradleException;
 import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.initialization.BuildProcess;
+import org.gradle.internal.Stoppable;
 import org.gradle.internal.jvm.Jvm;
 import org.gradle.util.ReflectionUtil;
 
-public class InProcessJavaCompilerFactory implements JavaCompilerFactory {
+/**
+ * Creates the compilers which run in the build process. The JDK 6 compilers created by this factory use the pool of
+ * javac file managers shared by all builds run by the process. When the process runs a single build, the pool is
+ * stopped when this factory is stopped at the end of the build. Otherwise, the pool is kept for later builds.
+ */
+public class InProcessJavaCompilerFactory implements JavaCompilerFactory, Stoppable {
     private static final boolean SUN_COMPILER_AVAILABLE = ReflectionUtil.isClassAvailable("com.sun.tools.javac.Main");
+    private final SharedJavaFileManagerPool fileManagerPool;
+    private final BuildProcess buildProcess;
+
+    public InProcessJavaCompilerFactory(SharedJavaFileManagerPool fileManagerPool, BuildProcess buildProcess) {
+        this.fileManagerPool = fileManagerPool;
+        this.buildProcess = buildProcess;
+    }
 
     public Compiler<JavaCompileSpec> create(CompileOptions options) {
         if (Jvm.current().isJava6Compatible()) {
@@ -36,13 +50,20 @@ public class InProcessJavaCompilerFactory implements JavaCompilerFactory {
     private Compiler<JavaCompileSpec> createJdk6Compiler() {
         try {
             // excluded when Gradle is compiled against JDK5, hence we can't reference it statically
+            Class<?> poolClass = getClass().getClassLoader().loadClass("org.gradle.api.internal.tasks.compile.jdk6.JavaFileManagerPool");
             Class<?> clazz = getClass().getClassLoader().loadClass("org.gradle.api.internal.tasks.compile.jdk6.Jdk6JavaCompiler");
-            return (Compiler<JavaCompileSpec>) clazz.newInstance();
+            return (Compiler<JavaCompileSpec>) clazz.getConstructor(poolClass).newInstance(fileManagerPool.get(poolClass));
         } catch (Exception e) {
             throw new GradleException("Internal error: couldn't load or instantiate class Jdk6JavaCompiler", e);
         }
     }
 
+    public void stop() {
+        if (!buildProcess.isLongLived()) {
+            fileManagerPool.stop();
+        }
+    }
+
     // nested class to enforce lazy class loading
     private static class SunCompilerFactory {
         Compiler<JavaCompileSpec> create() {
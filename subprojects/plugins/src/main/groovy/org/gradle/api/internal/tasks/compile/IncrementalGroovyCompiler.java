@@ -16,6 +16,10 @@
 package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter;
+import org.gradle.api.internal.changedetection.DefaultHasher;
+import org.gradle.api.internal.tasks.compile.incremental.SelectiveGroovyCompiler;
+import org.gradle.api.tasks.WorkResult;
 
 public class IncrementalGroovyCompiler extends IncrementalJavaCompilerSupport<GroovyJavaJointCompileSpec> {
     private final Compiler<GroovyJavaJointCompileSpec> compiler;
@@ -26,6 +30,14 @@ public class IncrementalGroovyCompiler extends IncrementalJavaCompilerSupport<Gr
         this.taskOutputs = taskOutputs;
     }
 
+    @Override
+    public WorkResult execute(GroovyJavaJointCompileSpec spec) {
+        if (spec.getCompileOptions().isIncremental() && spec.getDependencyCacheDir() != null) {
+            return new SelectiveGroovyCompiler(compiler, taskOutputs, new DefaultFileSnapshotter(new DefaultHasher())).execute(spec);
+        }
+        return super.execute(spec);
+    }
+
     @Override
     protected Compiler<GroovyJavaJointCompileSpec> getCompiler() {
         return compiler;
@@ -16,6 +16,10 @@
 package org.gradle.api.internal.tasks.compile;
 
 import org.gradle.api.AntBuilder;
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter;
+import org.gradle.api.internal.changedetection.DefaultHasher;
+import org.gradle.api.internal.tasks.compile.incremental.SelectiveJavaCompiler;
+import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.TaskOutputsInternal;
 
@@ -31,6 +35,14 @@ public class IncrementalJavaCompiler extends IncrementalJavaCompilerSupport<Java
         this.taskOutputs = taskOutputs;
     }
 
+    @Override
+    public WorkResult execute(JavaCompileSpec spec) {
+        if (spec.getCompileOptions().isIncremental() && spec.getDependencyCacheDir() != null) {
+            return new SelectiveJavaCompiler<JavaCompileSpec>(compiler, taskOutputs, new DefaultFileSnapshotter(new DefaultHasher())).execute(spec);
+        }
+        return super.execute(spec);
+    }
+
     @Override
     protected Compiler<JavaCompileSpec> getCompiler() {
         return compiler;
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.io.Files;
+import org.gradle.api.UncheckedIOException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Determines which Java sources of a joint compilation can be compiled independently of the Groovy sources, so that they
+ * can be compiled without stubs, and concurrently with stub generation.
+ *
+ * <p>The analysis is textual: a Java source is considered to depend on the Groovy sources when it mentions, as an
+ * identifier, the simple name of a type declared by a Groovy source, or by another Java source which depends on the
+ * Groovy sources. Comments and names which happen to clash with the name of an unrelated type make the analysis
+ * conservative, never wrong.</p>
+ */
+public class JavaSourcePartitioner {
+    private static final Pattern TYPE_DECLARATION = Pattern.compile("\\b(?:class|interface|enum)\\s+([\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*)");
+    private static final Pattern IDENTIFIER = Pattern.compile("[\\p{javaJavaIdentifierStart}][\\p{javaJavaIdentifierPart}]*");
+
+    private final Charset groovyEncoding;
+    private final Charset javaEncoding;
+
+    public JavaSourcePartitioner(String groovyEncoding, String javaEncoding) {
+        this.groovyEncoding = charset(groovyEncoding);
+        this.javaEncoding = charset(javaEncoding);
+    }
+
+    /**
+     * Returns those of the given Java sources which do not depend on any of the given Groovy sources.
+     */
+    public Set<File> findIndependentJavaSources(Collection<File> groovySources, Collection<File> javaSources) {
+        Set<String> dependentTypes = new HashSet<String>();
+        for (File groovySource : groovySources) {
+            dependentTypes.addAll(declaredTypes(groovySource, read(groovySource, groovyEncoding)));
+        }
+
+        Map<File, String> independent = new LinkedHashMap<File, String>();
+        for (File javaSource : javaSources) {
+            independent.put(javaSource, read(javaSource, javaEncoding));
+        }
+
+        boolean changed = !dependentTypes.isEmpty();
+        while (changed) {
+            changed = false;
+            Iterator<Map.Entry<File, String>> iterator = independent.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<File, String> entry = iterator.next();
+                if (mentionsAny(entry.getValue(), dependentTypes)) {
+                    dependentTypes.addAll(declaredTypes(entry.getKey(), entry.getValue()));
+                    iterator.remove();
+                    changed = true;
+                }
+            }
+        }
+        return independent.keySet();
+    }
+
+    private static Set<String> declaredTypes(File source, String text) {
+        Set<String> types = new HashSet<String>();
+        String fileName = source.getName();
+        int extension = fileName.lastIndexOf('.');
+        types.add(extension < 0 ? fileName : fileName.substring(0, extension));
+        Matcher matcher = TYPE_DECLARATION.matcher(text);
+        while (matcher.find()) {
+            types.add(matcher.group(1));
+        }
+        return types;
+    }
+
+    private static boolean mentionsAny(String text, Set<String> types) {
+        Matcher matcher = IDENTIFIER.matcher(text);
+        while (matcher.find()) {
+            if (types.contains(matcher.group())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String read(File source, Charset encoding) {
+        try {
+            return Files.toString(source, encoding);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Charset charset(String encoding) {
+        return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+    }
+}
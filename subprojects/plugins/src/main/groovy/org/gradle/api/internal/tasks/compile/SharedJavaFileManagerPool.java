@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.internal.Stoppable;
+
+/**
+ * Holds the pool of javac file managers which the JDK 6 compilers of all builds run by the build process share. The
+ * pool is created when first used, and is kept until it is stopped.
+ */
+public class SharedJavaFileManagerPool implements Stoppable {
+    private Stoppable pool;
+
+    /**
+     * Returns the pool, creating it when required.
+     *
+     * @param poolClass The pool implementation, which cannot be referenced statically when Gradle is compiled against JDK 5.
+     */
+    public synchronized Object get(Class<?> poolClass) throws Exception {
+        if (pool == null) {
+            pool = (Stoppable) poolClass.newInstance();
+        }
+        return pool;
+    }
+
+    /**
+     * Closes the file managers of the pool. A new pool is created when the pool is next used.
+     */
+    public synchronized void stop() {
+        if (pool != null) {
+            pool.stop();
+            pool = null;
+        }
+    }
+}
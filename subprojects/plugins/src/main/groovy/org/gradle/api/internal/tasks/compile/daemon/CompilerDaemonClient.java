@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile.daemon;
 import org.gradle.api.internal.tasks.compile.CompileSpec;
 import org.gradle.api.internal.tasks.compile.Compiler;
 import org.gradle.internal.UncheckedException;
+import org.gradle.process.internal.WorkerProcess;
 
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.SynchronousQueue;
@@ -25,11 +26,13 @@ import java.util.concurrent.SynchronousQueue;
 public class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClientProtocol {
     private final DaemonForkOptions forkOptions;
     private final CompilerDaemonServerProtocol server;
+    private final WorkerProcess process;
     private final BlockingQueue<CompileResult> compileResults = new SynchronousQueue<CompileResult>();
 
-    public CompilerDaemonClient(DaemonForkOptions forkOptions, CompilerDaemonServerProtocol server) {
+    public CompilerDaemonClient(DaemonForkOptions forkOptions, CompilerDaemonServerProtocol server, WorkerProcess process) {
         this.forkOptions = forkOptions;
         this.server = server;
+        this.process = process;
     }
 
     public <T extends CompileSpec> CompileResult execute(Compiler<T> compiler, T spec) {
@@ -47,6 +50,7 @@ public class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClien
 
     public void stop() {
         server.stop();
+        process.waitForStop();
     }
 
     public void executed(CompileResult result) {
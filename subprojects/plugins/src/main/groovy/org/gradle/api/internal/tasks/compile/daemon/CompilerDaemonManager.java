@@ -15,89 +15,155 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
-import net.jcip.annotations.NotThreadSafe;
-
+import net.jcip.annotations.ThreadSafe;
 import org.gradle.BuildAdapter;
 import org.gradle.BuildResult;
 import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
-import org.gradle.internal.jvm.Jvm;
-import org.gradle.process.internal.JavaExecHandleBuilder;
-import org.gradle.process.internal.WorkerProcess;
-import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.initialization.BuildProcess;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.UncheckedException;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Controls the lifecycle of the compiler daemon and provides access to it.
+ * Manages a pool of compiler daemons. A compiler daemon is reused by any compilation whose fork options it is
+ * compatible with, and whose build uses the same working directory and log level, and executes one compilation at a
+ * time. When all daemons are busy or incompatible, a new daemon is started, up to a maximum number of daemons. Beyond
+ * that, the least recently used idle daemon is replaced, or the compilation waits for a daemon to become idle. Daemons
+ * which have been idle for a while are stopped.
+ *
+ * <p>When the build runs in the Gradle daemon, the compiler daemons are kept for later builds. Otherwise, they are
+ * stopped when the build finishes.</p>
  */
-@NotThreadSafe
+@ThreadSafe
 public class CompilerDaemonManager {
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonManager.class);
-    private static final CompilerDaemonManager INSTANCE = new CompilerDaemonManager();
-    
-    private volatile CompilerDaemonClient client;
-    private volatile WorkerProcess process;
-    
+    private static final int MAX_DAEMONS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+    private static final long MAX_IDLE_TIME = TimeUnit.MINUTES.toMillis(10);
+    private static final CompilerDaemonManager INSTANCE = new CompilerDaemonManager(new CompilerDaemonStarter(), MAX_DAEMONS, MAX_IDLE_TIME, new TrueTimeProvider());
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("Compiler daemon shutdown") {
+            @Override
+            public void run() {
+                INSTANCE.stop();
+            }
+        });
+    }
+
+    private final CompilerDaemonStarter starter;
+    private final int maxDaemons;
+    private final long maxIdleTime;
+    private final TimeProvider timeProvider;
+    private final Object lock = new Object();
+    private final List<PooledDaemon> daemons = new ArrayList<PooledDaemon>();
+    private int starting;
+
+    public CompilerDaemonManager(CompilerDaemonStarter starter, int maxDaemons, long maxIdleTime, TimeProvider timeProvider) {
+        this.starter = starter;
+        this.maxDaemons = maxDaemons;
+        this.maxIdleTime = maxIdleTime;
+        this.timeProvider = timeProvider;
+    }
+
     public static CompilerDaemonManager getInstance() {
         return INSTANCE;
     }
-    
+
+    /**
+     * Returns a daemon compatible with the given fork options, for the exclusive use of the caller. The daemon must be
+     * returned using {@link #release(CompilerDaemon)}.
+     */
     public CompilerDaemon getDaemon(ProjectInternal project, DaemonForkOptions forkOptions) {
-        if (client != null && !client.isCompatibleWith(forkOptions)) {
-            stop();
+        File workingDir = project.getRootProject().getProjectDir();
+        LogLevel logLevel = project.getGradle().getStartParameter().getLogLevel();
+        List<PooledDaemon> toStop = new ArrayList<PooledDaemon>();
+        try {
+            synchronized (lock) {
+                removeExpired(toStop);
+                while (true) {
+                    PooledDaemon compatible = findIdle(forkOptions, workingDir, logLevel);
+                    if (compatible != null) {
+                        compatible.busy = true;
+                        return compatible.daemon;
+                    }
+                    if (daemons.size() + starting < maxDaemons) {
+                        break;
+                    }
+                    PooledDaemon leastRecentlyUsed = findIdle(null, null, null);
+                    if (leastRecentlyUsed != null) {
+                        daemons.remove(leastRecentlyUsed);
+                        toStop.add(leastRecentlyUsed);
+                        break;
+                    }
+                    lock.wait();
+                }
+                starting++;
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            stop(toStop);
         }
-        if (client == null) {
-            startDaemon(project, forkOptions);
-            stopDaemonOnceBuildFinished(project);
+
+        CompilerDaemon daemon = null;
+        try {
+            daemon = starter.startDaemon(project, forkOptions);
+        } finally {
+            synchronized (lock) {
+                starting--;
+                if (daemon != null) {
+                    PooledDaemon pooledDaemon = new PooledDaemon(daemon, workingDir, logLevel);
+                    pooledDaemon.busy = true;
+                    daemons.add(pooledDaemon);
+                }
+                lock.notifyAll();
+            }
         }
-        return client;
-    }
-    
-    public void stop() {
-        if (client == null) {
-            return;
+        if (!project.getServices().get(BuildProcess.class).isLongLived()) {
+            stopDaemonsOnceBuildFinished(project);
         }
-
-        LOGGER.info("Stopping Gradle compiler daemon.");
-
-        client.stop();
-        client = null;
-        process.waitForStop();
-        process = null;
-
-        LOGGER.info("Gradle compiler daemon stopped.");
+        return daemon;
     }
-    
-    private void startDaemon(ProjectInternal project, DaemonForkOptions forkOptions) {
-        LOGGER.info("Starting Gradle compiler daemon.");
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug(forkOptions.toString());
+
+    /**
+     * Returns a daemon to the pool, once the compilation it was used for has finished.
+     */
+    public void release(CompilerDaemon daemon) {
+        List<PooledDaemon> toStop = new ArrayList<PooledDaemon>();
+        synchronized (lock) {
+            for (PooledDaemon pooledDaemon : daemons) {
+                if (pooledDaemon.daemon == daemon) {
+                    pooledDaemon.busy = false;
+                    pooledDaemon.lastUsed = timeProvider.getCurrentTime();
+                }
+            }
+            removeExpired(toStop);
+            lock.notifyAll();
         }
+        stop(toStop);
+    }
 
-        WorkerProcessBuilder builder = project.getServices().getFactory(WorkerProcessBuilder.class).create();
-        builder.setLogLevel(project.getGradle().getStartParameter().getLogLevel()); // NOTE: might make sense to respect per-compile-task log level
-        builder.applicationClasspath(forkOptions.getClasspath());
-        builder.sharedPackages(forkOptions.getSharedPackages());
-        File toolsJar = Jvm.current().getToolsJar();
-        if (toolsJar != null) {
-            builder.getApplicationClasspath().add(toolsJar); // for SunJavaCompiler
+    /**
+     * Stops all daemons.
+     */
+    public void stop() {
+        List<PooledDaemon> toStop;
+        synchronized (lock) {
+            toStop = new ArrayList<PooledDaemon>(daemons);
+            daemons.clear();
         }
-        JavaExecHandleBuilder javaCommand = builder.getJavaCommand();
-        javaCommand.setMinHeapSize(forkOptions.getMinHeapSize());
-        javaCommand.setMaxHeapSize(forkOptions.getMaxHeapSize());
-        javaCommand.setWorkingDir(project.getRootProject().getProjectDir());
-        process = builder.worker(new CompilerDaemonServer()).build();
-        process.start();
-        CompilerDaemonServerProtocol server = process.getConnection().addOutgoing(CompilerDaemonServerProtocol.class);
-        client = new CompilerDaemonClient(forkOptions, server);
-        process.getConnection().addIncoming(CompilerDaemonClientProtocol.class, client);
-
-        LOGGER.info("Gradle compiler daemon started.");
+        stop(toStop);
     }
-    
-    private void stopDaemonOnceBuildFinished(ProjectInternal project) {
+
+    private void stopDaemonsOnceBuildFinished(ProjectInternal project) {
         project.getGradle().addBuildListener(new BuildAdapter() {
             @Override
             public void buildFinished(BuildResult result) {
@@ -105,4 +171,53 @@ public class CompilerDaemonManager {
             }
         });
     }
+
+    private PooledDaemon findIdle(DaemonForkOptions forkOptions, File workingDir, LogLevel logLevel) {
+        PooledDaemon result = null;
+        for (PooledDaemon pooledDaemon : daemons) {
+            if (pooledDaemon.busy) {
+                continue;
+            }
+            if (forkOptions != null && !(pooledDaemon.workingDir.equals(workingDir) && pooledDaemon.logLevel == logLevel && pooledDaemon.daemon.isCompatibleWith(forkOptions))) {
+                continue;
+            }
+            if (result == null || pooledDaemon.lastUsed < result.lastUsed) {
+                result = pooledDaemon;
+            }
+        }
+        return result;
+    }
+
+    private void removeExpired(List<PooledDaemon> toStop) {
+        long expiry = timeProvider.getCurrentTime() - maxIdleTime;
+        for (PooledDaemon pooledDaemon : new ArrayList<PooledDaemon>(daemons)) {
+            if (!pooledDaemon.busy && pooledDaemon.lastUsed < expiry) {
+                daemons.remove(pooledDaemon);
+                toStop.add(pooledDaemon);
+            }
+        }
+    }
+
+    private void stop(List<PooledDaemon> toStop) {
+        for (PooledDaemon pooledDaemon : toStop) {
+            LOGGER.info("Stopping Gradle compiler daemon.");
+            pooledDaemon.daemon.stop();
+            LOGGER.info("Gradle compiler daemon stopped.");
+        }
+    }
+
+    private class PooledDaemon {
+        private final CompilerDaemon daemon;
+        private final File workingDir;
+        private final LogLevel logLevel;
+        private boolean busy;
+        private long lastUsed;
+
+        private PooledDaemon(CompilerDaemon daemon, File workingDir, LogLevel logLevel) {
+            this.daemon = daemon;
+            this.workingDir = workingDir;
+            this.logLevel = logLevel;
+            lastUsed = timeProvider.getCurrentTime();
+        }
+    }
 }
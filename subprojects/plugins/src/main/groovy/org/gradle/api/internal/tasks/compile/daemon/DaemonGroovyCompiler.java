@@ -43,8 +43,14 @@ public class DaemonGroovyCompiler implements Compiler<GroovyJavaJointCompileSpec
 
     public WorkResult execute(GroovyJavaJointCompileSpec spec) {
         DaemonForkOptions daemonForkOptions = createDaemonForkOptions(spec);
-        CompilerDaemon daemon = CompilerDaemonManager.getInstance().getDaemon(project, daemonForkOptions);
-        CompileResult result = daemon.execute(delegate, spec);
+        CompilerDaemonManager daemonManager = CompilerDaemonManager.getInstance();
+        CompilerDaemon daemon = daemonManager.getDaemon(project, daemonForkOptions);
+        CompileResult result;
+        try {
+            result = daemon.execute(delegate, spec);
+        } finally {
+            daemonManager.release(daemon);
+        }
         if (result.isSuccess()) {
             return result;
         }
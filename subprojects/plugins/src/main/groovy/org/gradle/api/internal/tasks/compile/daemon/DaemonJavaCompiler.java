@@ -39,8 +39,14 @@ public class DaemonJavaCompiler implements Compiler<JavaCompileSpec> {
         DaemonForkOptions daemonForkOptions = new DaemonForkOptions(
                 forkOptions.getMemoryInitialSize(), forkOptions.getMemoryMaximumSize(), forkOptions.getJvmArgs(),
                 Collections.<File>emptyList(), Collections.singleton("com.sun.tools.javac"));
-        CompilerDaemon daemon = CompilerDaemonManager.getInstance().getDaemon(project, daemonForkOptions);
-        CompileResult result = daemon.execute(delegate, spec);
+        CompilerDaemonManager daemonManager = CompilerDaemonManager.getInstance();
+        CompilerDaemon daemon = daemonManager.getDaemon(project, daemonForkOptions);
+        CompileResult result;
+        try {
+            result = daemon.execute(delegate, spec);
+        } finally {
+            daemonManager.release(daemon);
+        }
         if (result.isSuccess()) {
             return result;
         }
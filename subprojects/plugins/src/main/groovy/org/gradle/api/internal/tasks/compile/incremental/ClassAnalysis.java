@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The information extracted from a compiled class file.
+ */
+public class ClassAnalysis implements Serializable {
+    private final String className;
+    private final String sourceFileName;
+    private final Set<String> dependencies;
+    private final Map<String, Object> constants;
+
+    public ClassAnalysis(String className, String sourceFileName, Set<String> dependencies, Map<String, Object> constants) {
+        this.className = className;
+        this.sourceFileName = sourceFileName;
+        this.dependencies = dependencies;
+        this.constants = constants;
+    }
+
+    /**
+     * Returns the binary name of the class, for example {@code org.gradle.Foo$Bar}.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the name of the source file the class was compiled from, without its directory. Returns null when the
+     * class file does not record its source file.
+     */
+    public String getSourceFileName() {
+        return sourceFileName;
+    }
+
+    /**
+     * Returns the binary names of the classes referenced by the class file, excluding the class itself.
+     */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Returns the values of the non-private compile-time constants declared by the class, keyed by field name. The
+     * value of a constant is inlined into the classes which use it, so these classes may not refer to the class which
+     * declares it.
+     */
+    public Map<String, Object> getConstants() {
+        return constants;
+    }
+
+    /**
+     * Returns the path of the source file, relative to the source directory, based on the package of the class.
+     */
+    public String getRelativeSourcePath() {
+        if (sourceFileName == null) {
+            return null;
+        }
+        int packageEnd = className.lastIndexOf('.');
+        return packageEnd < 0 ? sourceFileName : className.substring(0, packageEnd).replace('.', '/') + '/' + sourceFileName;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.changedetection.FileCollectionSnapshot;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The classes produced by a compilation, the source file each class was compiled from and the classes each class
+ * depends on.
+ */
+public class ClassDependencyGraph implements Serializable {
+    private final String compileSettings;
+    private FileCollectionSnapshot sourceSnapshot;
+    private FileCollectionSnapshot classpathSnapshot;
+    private final Map<String, ClassAnalysis> classes = new HashMap<String, ClassAnalysis>();
+    private final Map<String, File> classSources = new HashMap<String, File>();
+    private boolean complete = true;
+
+    public ClassDependencyGraph(String compileSettings) {
+        this.compileSettings = compileSettings;
+    }
+
+    public String getCompileSettings() {
+        return compileSettings;
+    }
+
+    public FileCollectionSnapshot getSourceSnapshot() {
+        return sourceSnapshot;
+    }
+
+    public FileCollectionSnapshot getClasspathSnapshot() {
+        return classpathSnapshot;
+    }
+
+    public void setSnapshots(FileCollectionSnapshot sourceSnapshot, FileCollectionSnapshot classpathSnapshot) {
+        this.sourceSnapshot = sourceSnapshot;
+        this.classpathSnapshot = classpathSnapshot;
+    }
+
+    /**
+     * Returns false when the source file of some class could not be determined, in which case the graph cannot be used
+     * to select the source files to recompile.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public Set<String> getClassNames() {
+        return classes.keySet();
+    }
+
+    public boolean contains(String className) {
+        return classes.containsKey(className);
+    }
+
+    public ClassAnalysis getClass(String className) {
+        return classes.get(className);
+    }
+
+    /**
+     * Adds a class compiled from the given source file. The source file may be null when it could not be determined.
+     */
+    public void add(ClassAnalysis analysis, File sourceFile) {
+        classes.put(analysis.getClassName(), analysis);
+        classSources.put(analysis.getClassName(), sourceFile);
+        if (sourceFile == null) {
+            complete = false;
+        }
+    }
+
+    public void remove(String className) {
+        classes.remove(className);
+        classSources.remove(className);
+    }
+
+    public File getSourceFile(String className) {
+        return classSources.get(className);
+    }
+
+    /**
+     * Returns the names of the classes compiled from the given source files.
+     */
+    public Set<String> getClassesFor(Set<File> sourceFiles) {
+        Set<String> result = new HashSet<String>();
+        for (Map.Entry<String, File> entry : classSources.entrySet()) {
+            if (sourceFiles.contains(entry.getValue())) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the names of the classes which depend on any of the given classes, directly or transitively.
+     */
+    public Set<String> getDependents(Set<String> classNames) {
+        Map<String, List<String>> dependents = new HashMap<String, List<String>>();
+        for (ClassAnalysis analysis : classes.values()) {
+            for (String dependency : analysis.getDependencies()) {
+                if (classes.containsKey(dependency)) {
+                    List<String> classDependents = dependents.get(dependency);
+                    if (classDependents == null) {
+                        classDependents = new ArrayList<String>();
+                        dependents.put(dependency, classDependents);
+                    }
+                    classDependents.add(analysis.getClassName());
+                }
+            }
+        }
+
+        Set<String> result = new HashSet<String>();
+        LinkedList<String> queue = new LinkedList<String>(classNames);
+        while (!queue.isEmpty()) {
+            List<String> classDependents = dependents.get(queue.removeFirst());
+            if (classDependents == null) {
+                continue;
+            }
+            for (String dependent : classDependents) {
+                if (!classNames.contains(dependent) && result.add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,452 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.GradleException;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Extracts the dependencies of a class from its class file. The dependencies are the classes referenced from the
+ * constant pool, either directly or from a type descriptor, plus the classes used in the descriptors and generic
+ * signatures of the class, its fields, methods and local variables, and in the annotations attached to them.
+ *
+ * <p>The values of the compile-time constants which other classes can refer to are extracted too.</p>
+ *
+ * <p>Optionally, string constants which look like class names are treated as dependencies too. Code generated by the
+ * Groovy compiler refers to some classes by name only, for example through {@code Class.forName()}.</p>
+ */
+public class ClassFileAnalyzer {
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private final boolean includeClassNameStrings;
+
+    public ClassFileAnalyzer() {
+        this(false);
+    }
+
+    public ClassFileAnalyzer(boolean includeClassNameStrings) {
+        this.includeClassNameStrings = includeClassNameStrings;
+    }
+
+    public ClassAnalysis analyze(File classFile) {
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(classFile)));
+            try {
+                return analyze(input);
+            } finally {
+                input.close();
+            }
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not analyze class file %s.", classFile), e);
+        }
+    }
+
+    private ClassAnalysis analyze(DataInputStream input) throws IOException {
+        if (input.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file.");
+        }
+        input.readUnsignedShort(); // minor version
+        input.readUnsignedShort(); // major version
+
+        int count = input.readUnsignedShort();
+        String[] strings = new String[count];
+        int[] classEntries = new int[count];
+        int[] descriptorEntries = new int[count];
+        int[] stringEntries = new int[count];
+        Object[] values = new Object[count];
+        for (int i = 1; i < count; i++) {
+            int tag = input.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    strings[i] = input.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                    classEntries[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_NAME_AND_TYPE:
+                    input.readUnsignedShort();
+                    descriptorEntries[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_METHOD_TYPE:
+                    descriptorEntries[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_STRING:
+                    stringEntries[i] = input.readUnsignedShort();
+                    break;
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    input.readUnsignedShort();
+                    break;
+                case CONSTANT_INTEGER:
+                    values[i] = input.readInt();
+                    break;
+                case CONSTANT_FLOAT:
+                    values[i] = input.readFloat();
+                    break;
+                case CONSTANT_LONG:
+                    values[i] = input.readLong();
+                    i++;
+                    break;
+                case CONSTANT_DOUBLE:
+                    values[i] = input.readDouble();
+                    i++;
+                    break;
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    input.readInt();
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    input.readUnsignedByte();
+                    input.readUnsignedShort();
+                    break;
+                default:
+                    throw new IOException(String.format("Unexpected constant pool tag %s.", tag));
+            }
+        }
+
+        Set<String> dependencies = new HashSet<String>();
+        for (int i = 1; i < count; i++) {
+            if (classEntries[i] != 0) {
+                String name = strings[classEntries[i]];
+                if (name.startsWith("[")) {
+                    addDescriptorTypes(name, dependencies);
+                } else {
+                    dependencies.add(name);
+                }
+            } else if (descriptorEntries[i] != 0) {
+                addDescriptorTypes(strings[descriptorEntries[i]], dependencies);
+            } else if (stringEntries[i] != 0 && includeClassNameStrings && isClassName(strings[stringEntries[i]])) {
+                dependencies.add(strings[stringEntries[i]].replace('.', '/'));
+            }
+        }
+
+        input.readUnsignedShort(); // access flags
+        String className = strings[classEntries[input.readUnsignedShort()]];
+        input.readUnsignedShort(); // super class
+        int interfaces = input.readUnsignedShort();
+        for (int i = 0; i < interfaces; i++) {
+            input.readUnsignedShort();
+        }
+
+        Map<String, Object> constants = new HashMap<String, Object>();
+        int fields = input.readUnsignedShort();
+        for (int i = 0; i < fields; i++) {
+            int accessFlags = input.readUnsignedShort();
+            String fieldName = strings[input.readUnsignedShort()];
+            addDescriptorTypes(strings[input.readUnsignedShort()], dependencies);
+            int attributes = input.readUnsignedShort();
+            for (int j = 0; j < attributes; j++) {
+                String name = strings[input.readUnsignedShort()];
+                int length = input.readInt();
+                if ("ConstantValue".equals(name)) {
+                    int valueIndex = input.readUnsignedShort();
+                    // Private constants can only be inlined into the classes compiled from the same source file
+                    if ((accessFlags & (ACC_PRIVATE | ACC_STATIC | ACC_FINAL)) == (ACC_STATIC | ACC_FINAL)) {
+                        constants.put(fieldName, values[valueIndex] != null ? values[valueIndex] : strings[stringEntries[valueIndex]]);
+                    }
+                } else {
+                    readAttribute(name, length, input, strings, dependencies);
+                }
+            }
+        }
+
+        int methods = input.readUnsignedShort();
+        for (int i = 0; i < methods; i++) {
+            input.readUnsignedShort(); // access flags
+            input.readUnsignedShort(); // name
+            addDescriptorTypes(strings[input.readUnsignedShort()], dependencies);
+            readAttributes(input, strings, dependencies);
+        }
+
+        String sourceFileName = null;
+        int attributes = input.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            String name = strings[input.readUnsignedShort()];
+            int length = input.readInt();
+            if ("SourceFile".equals(name)) {
+                sourceFileName = strings[input.readUnsignedShort()];
+            } else {
+                readAttribute(name, length, input, strings, dependencies);
+            }
+        }
+
+        dependencies.remove(className);
+        Set<String> dependencyNames = new HashSet<String>();
+        for (String dependency : dependencies) {
+            dependencyNames.add(dependency.replace('/', '.'));
+        }
+        return new ClassAnalysis(className.replace('/', '.'), sourceFileName, dependencyNames, constants);
+    }
+
+    private void addDescriptorTypes(String descriptor, Set<String> types) {
+        int pos = 0;
+        while (pos < descriptor.length()) {
+            if (descriptor.charAt(pos) == 'L') {
+                int end = descriptor.indexOf(';', pos);
+                types.add(descriptor.substring(pos + 1, end));
+                pos = end + 1;
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private boolean isClassName(String value) {
+        if (value.length() == 0 || value.startsWith(".") || value.endsWith(".") || value.contains("..")) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch != '.' && !Character.isJavaIdentifierPart(ch)) {
+                return false;
+            }
+        }
+        return Character.isJavaIdentifierStart(value.charAt(0));
+    }
+
+    private void readAttributes(DataInputStream input, String[] strings, Set<String> dependencies) throws IOException {
+        int attributes = input.readUnsignedShort();
+        for (int i = 0; i < attributes; i++) {
+            String name = strings[input.readUnsignedShort()];
+            readAttribute(name, input.readInt(), input, strings, dependencies);
+        }
+    }
+
+    /**
+     * Reads the types referenced by the given attribute. Types which are used only in generic signatures, annotations
+     * or local variable tables are not otherwise referenced from the constant pool.
+     */
+    private void readAttribute(String name, int length, DataInputStream input, String[] strings, Set<String> dependencies) throws IOException {
+        if ("Signature".equals(name)) {
+            addSignatureTypes(strings[input.readUnsignedShort()], dependencies);
+        } else if ("RuntimeVisibleAnnotations".equals(name) || "RuntimeInvisibleAnnotations".equals(name)) {
+            readAnnotations(input, strings, dependencies);
+        } else if ("RuntimeVisibleParameterAnnotations".equals(name) || "RuntimeInvisibleParameterAnnotations".equals(name)) {
+            int parameters = input.readUnsignedByte();
+            for (int i = 0; i < parameters; i++) {
+                readAnnotations(input, strings, dependencies);
+            }
+        } else if ("AnnotationDefault".equals(name)) {
+            readElementValue(input, strings, dependencies);
+        } else if ("Code".equals(name)) {
+            input.readUnsignedShort(); // max stack
+            input.readUnsignedShort(); // max locals
+            skip(input, input.readInt());
+            skip(input, input.readUnsignedShort() * 8); // exception table
+            readAttributes(input, strings, dependencies);
+        } else if ("LocalVariableTable".equals(name) || "LocalVariableTypeTable".equals(name)) {
+            int variables = input.readUnsignedShort();
+            for (int i = 0; i < variables; i++) {
+                skip(input, 6); // start, length and name
+                String descriptor = strings[input.readUnsignedShort()];
+                if ("LocalVariableTable".equals(name)) {
+                    addDescriptorTypes(descriptor, dependencies);
+                } else {
+                    addSignatureTypes(descriptor, dependencies);
+                }
+                input.readUnsignedShort(); // index
+            }
+        } else {
+            skip(input, length);
+        }
+    }
+
+    private void readAnnotations(DataInputStream input, String[] strings, Set<String> dependencies) throws IOException {
+        int annotations = input.readUnsignedShort();
+        for (int i = 0; i < annotations; i++) {
+            readAnnotation(input, strings, dependencies);
+        }
+    }
+
+    private void readAnnotation(DataInputStream input, String[] strings, Set<String> dependencies) throws IOException {
+        addDescriptorTypes(strings[input.readUnsignedShort()], dependencies);
+        int elements = input.readUnsignedShort();
+        for (int i = 0; i < elements; i++) {
+            input.readUnsignedShort(); // name
+            readElementValue(input, strings, dependencies);
+        }
+    }
+
+    private void readElementValue(DataInputStream input, String[] strings, Set<String> dependencies) throws IOException {
+        int tag = input.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                addDescriptorTypes(strings[input.readUnsignedShort()], dependencies);
+                input.readUnsignedShort(); // constant name
+                break;
+            case 'c':
+                addDescriptorTypes(strings[input.readUnsignedShort()], dependencies);
+                break;
+            case '@':
+                readAnnotation(input, strings, dependencies);
+                break;
+            case '[':
+                int values = input.readUnsignedShort();
+                for (int i = 0; i < values; i++) {
+                    readElementValue(input, strings, dependencies);
+                }
+                break;
+            default:
+                input.readUnsignedShort(); // constant value
+        }
+    }
+
+    /**
+     * Adds the classes named in the given generic signature. Unlike a descriptor, a signature contains type variables
+     * and type parameter names, which are not classes.
+     */
+    private void addSignatureTypes(String signature, Set<String> types) {
+        new SignatureParser(signature, types).parse();
+    }
+
+    private void skip(DataInputStream input, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static class SignatureParser {
+        private final String signature;
+        private final Set<String> types;
+        private int pos;
+
+        private SignatureParser(String signature, Set<String> types) {
+            this.signature = signature;
+            this.types = types;
+        }
+
+        void parse() {
+            if (peek() == '<') {
+                parseTypeParameters();
+            }
+            while (pos < signature.length()) {
+                char ch = peek();
+                if (ch == 'L' || ch == 'T' || ch == '[') {
+                    parseReferenceType();
+                } else {
+                    // Primitive types, void, and the parentheses and throws markers of a method signature
+                    pos++;
+                }
+            }
+        }
+
+        private char peek() {
+            return pos < signature.length() ? signature.charAt(pos) : 0;
+        }
+
+        private void parseTypeParameters() {
+            pos++;
+            while (peek() != '>') {
+                pos = signature.indexOf(':', pos);
+                while (peek() == ':') {
+                    pos++;
+                    char ch = peek();
+                    if (ch == 'L' || ch == 'T' || ch == '[') {
+                        parseReferenceType();
+                    }
+                }
+            }
+            pos++;
+        }
+
+        private void parseReferenceType() {
+            char ch = peek();
+            if (ch == 'T') {
+                pos = signature.indexOf(';', pos) + 1;
+            } else if (ch == '[') {
+                pos++;
+                if (peek() == 'L' || peek() == 'T' || peek() == '[') {
+                    parseReferenceType();
+                } else {
+                    pos++;
+                }
+            } else {
+                parseClassType();
+            }
+        }
+
+        private void parseClassType() {
+            pos++;
+            String name = readIdentifier();
+            while (true) {
+                char ch = peek();
+                if (ch == '<') {
+                    parseTypeArguments();
+                } else if (ch == '.') {
+                    pos++;
+                    types.add(name);
+                    name = name + '$' + readIdentifier();
+                } else {
+                    pos++;
+                    types.add(name);
+                    return;
+                }
+            }
+        }
+
+        private String readIdentifier() {
+            int start = pos;
+            while (pos < signature.length() && ";<.".indexOf(signature.charAt(pos)) < 0) {
+                pos++;
+            }
+            return signature.substring(start, pos);
+        }
+
+        private void parseTypeArguments() {
+            pos++;
+            while (peek() != '>') {
+                char ch = peek();
+                if (ch == '*') {
+                    pos++;
+                } else {
+                    if (ch == '+' || ch == '-') {
+                        pos++;
+                    }
+                    parseReferenceType();
+                }
+            }
+            pos++;
+        }
+    }
+}
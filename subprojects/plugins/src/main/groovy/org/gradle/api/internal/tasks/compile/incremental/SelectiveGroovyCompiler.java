@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.changedetection.FileSnapshotter;
+import org.gradle.api.internal.tasks.compile.Compiler;
+import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompileSpec;
+import org.gradle.api.tasks.compile.GroovyCompileOptions;
+
+import java.io.File;
+import java.util.TreeMap;
+
+/**
+ * A Groovy/Java joint compiler which recompiles only the source files which have changed since the previous
+ * compilation, plus the source files of the classes which depend on them. Groovy refers to some classes by name only,
+ * so string constants which look like class names are treated as dependencies too.
+ *
+ * <p>All source files are recompiled when the Groovy compile options or the Groovy classpath have changed, in addition
+ * to the cases handled by {@link SelectiveJavaCompiler}.</p>
+ */
+public class SelectiveGroovyCompiler extends SelectiveJavaCompiler<GroovyJavaJointCompileSpec> {
+    public SelectiveGroovyCompiler(Compiler<GroovyJavaJointCompileSpec> compiler, TaskOutputsInternal taskOutputs, FileSnapshotter snapshotter) {
+        super(compiler, taskOutputs, snapshotter, new ClassFileAnalyzer(true));
+    }
+
+    @Override
+    protected String compileSettings(GroovyJavaJointCompileSpec spec) {
+        GroovyCompileOptions options = spec.getGroovyCompileOptions();
+        StringBuilder settings = new StringBuilder(super.compileSettings(spec));
+        settings.append(new TreeMap<String, Object>(options.optionMap())).append('\n');
+        for (File file : spec.getGroovyClasspath()) {
+            settings.append(file.getAbsolutePath()).append(File.pathSeparatorChar);
+        }
+        settings.append('\n');
+        return settings.toString();
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.file.EmptyFileVisitor;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.TaskOutputsInternal;
+import org.gradle.api.internal.changedetection.FileCollectionSnapshot;
+import org.gradle.api.internal.changedetection.FileSnapshotter;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.tasks.compile.Compiler;
+import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.SimpleStaleClassCleaner;
+import org.gradle.api.internal.tasks.compile.SimpleWorkResult;
+import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.util.PatternSet;
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.util.ChangeListener;
+import org.gradle.util.hash.HashUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * A Java compiler which recompiles only the source files which have changed since the previous compilation, plus the
+ * source files of the classes which depend on the classes compiled from them, directly or transitively. The class
+ * dependencies are extracted from the compiled class files, and kept in a state file in the dependency cache
+ * directory.
+ *
+ * <p>All source files are recompiled when there is no usable state from the previous compilation, when the compile
+ * settings or the compile classpath have changed, or when recompiling changes the value of a non-private compile-time
+ * constant, which may have been inlined into classes which do not otherwise refer to it.</p>
+ */
+public class SelectiveJavaCompiler<T extends JavaCompileSpec> implements Compiler<T> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SelectiveJavaCompiler.class);
+    private final Compiler<T> compiler;
+    private final TaskOutputsInternal taskOutputs;
+    private final FileSnapshotter snapshotter;
+    private final ClassFileAnalyzer analyzer;
+
+    public SelectiveJavaCompiler(Compiler<T> compiler, TaskOutputsInternal taskOutputs, FileSnapshotter snapshotter) {
+        this(compiler, taskOutputs, snapshotter, new ClassFileAnalyzer());
+    }
+
+    protected SelectiveJavaCompiler(Compiler<T> compiler, TaskOutputsInternal taskOutputs, FileSnapshotter snapshotter, ClassFileAnalyzer analyzer) {
+        this.compiler = compiler;
+        this.taskOutputs = taskOutputs;
+        this.snapshotter = snapshotter;
+        this.analyzer = analyzer;
+    }
+
+    public WorkResult execute(T spec) {
+        File stateFile = new File(spec.getDependencyCacheDir(), String.format("classDependencies-%s.bin", HashUtil.createCompactMD5(spec.getDestinationDir().getAbsolutePath())));
+        String compileSettings = compileSettings(spec);
+        FileCollectionSnapshot sourceSnapshot = snapshotter.snapshot(spec.getSource());
+        FileCollectionSnapshot classpathSnapshot = snapshotter.snapshot(new SimpleFileCollection(toList(spec.getClasspath())));
+        Map<String, File> sourceFiles = sourceFiles(spec.getSource().getAsFileTree());
+
+        ClassDependencyGraph previous = load(stateFile);
+        Set<File> changedSources = previous == null ? null : findChangedSources(previous, compileSettings, sourceSnapshot, classpathSnapshot, spec.getDestinationDir());
+        stateFile.delete();
+
+        WorkResult result = null;
+        ClassDependencyGraph graph = previous;
+        if (changedSources != null) {
+            result = compileChangedSources(spec, graph, changedSources, sourceFiles);
+        }
+        if (result == null) {
+            removeStaleClasses(previous, spec.getDestinationDir());
+            graph = new ClassDependencyGraph(compileSettings);
+            result = compiler.execute(spec);
+            addCompiledClasses(spec.getDestinationDir(), "", graph, sourceFiles);
+        }
+
+        graph.setSnapshots(sourceSnapshot, classpathSnapshot);
+        store(stateFile, graph);
+        return result;
+    }
+
+    private Set<File> findChangedSources(ClassDependencyGraph graph, String compileSettings, FileCollectionSnapshot sourceSnapshot,
+                                         FileCollectionSnapshot classpathSnapshot, File destinationDir) {
+        if (!graph.getCompileSettings().equals(compileSettings)) {
+            LOGGER.info("Compile settings have changed. Recompiling all source files.");
+            return null;
+        }
+        if (!graph.isComplete()) {
+            LOGGER.info("Source files of some classes are not known. Recompiling all source files.");
+            return null;
+        }
+        for (String className : graph.getClassNames()) {
+            if (!classFile(destinationDir, className).isFile()) {
+                LOGGER.info("Class file for {} has been removed. Recompiling all source files.", className);
+                return null;
+            }
+        }
+        final boolean[] classpathChanged = new boolean[1];
+        classpathSnapshot.changesSince(graph.getClasspathSnapshot(), new ChangeListener<File>() {
+            public void added(File element) {
+                classpathChanged[0] = true;
+            }
+
+            public void removed(File element) {
+                classpathChanged[0] = true;
+            }
+
+            public void changed(File element) {
+                classpathChanged[0] = true;
+            }
+        });
+        if (classpathChanged[0]) {
+            LOGGER.info("Compile classpath has changed. Recompiling all source files.");
+            return null;
+        }
+
+        final Set<File> changedSources = new HashSet<File>();
+        sourceSnapshot.changesSince(graph.getSourceSnapshot(), new ChangeListener<File>() {
+            public void added(File element) {
+                changedSources.add(element);
+            }
+
+            public void removed(File element) {
+                changedSources.add(element);
+            }
+
+            public void changed(File element) {
+                changedSources.add(element);
+            }
+        });
+        return changedSources;
+    }
+
+    private void removeStaleClasses(ClassDependencyGraph previous, File destinationDir) {
+        if (previous == null) {
+            SimpleStaleClassCleaner cleaner = new SimpleStaleClassCleaner(taskOutputs);
+            cleaner.setDestinationDir(destinationDir);
+            cleaner.execute();
+            return;
+        }
+        // Only remove the classes produced by the previous compilation, which the state records
+        for (String className : previous.getClassNames()) {
+            classFile(destinationDir, className).delete();
+        }
+    }
+
+    /**
+     * Recompiles the given source files and the source files of their dependents, and adds the recompiled classes to
+     * the graph. Returns null when all source files need to be recompiled, as the value of a constant has changed.
+     */
+    private WorkResult compileChangedSources(T spec, ClassDependencyGraph graph, Set<File> changedSources, Map<String, File> sourceFiles) {
+        Set<String> staleClasses = graph.getClassesFor(changedSources);
+        Set<File> recompile = new HashSet<File>(changedSources);
+        for (String dependent : graph.getDependents(staleClasses)) {
+            recompile.add(graph.getSourceFile(dependent));
+        }
+        staleClasses.addAll(graph.getClassesFor(recompile));
+        Map<String, Map<String, Object>> staleConstants = new HashMap<String, Map<String, Object>>();
+        for (String className : staleClasses) {
+            Map<String, Object> constants = graph.getClass(className).getConstants();
+            if (!constants.isEmpty()) {
+                staleConstants.put(className, constants);
+            }
+            classFile(spec.getDestinationDir(), className).delete();
+            graph.remove(className);
+        }
+
+        WorkResult result = compileSelectedSources(spec, recompile, staleClasses, sourceFiles);
+        addCompiledClasses(spec.getDestinationDir(), "", graph, sourceFiles);
+
+        for (Map.Entry<String, Map<String, Object>> entry : staleConstants.entrySet()) {
+            ClassAnalysis recompiled = graph.getClass(entry.getKey());
+            if (recompiled == null || !recompiled.getConstants().equals(entry.getValue())) {
+                LOGGER.info("Constants declared by class {} have changed. Recompiling all source files.", entry.getKey());
+                return null;
+            }
+        }
+        return result;
+    }
+
+    private WorkResult compileSelectedSources(T spec, Set<File> recompile, Set<String> staleClasses, Map<String, File> sourceFiles) {
+
+        PatternSet includes = new PatternSet();
+        for (Map.Entry<String, File> entry : sourceFiles.entrySet()) {
+            if (recompile.contains(entry.getValue())) {
+                includes.include(entry.getKey());
+            }
+        }
+        if (includes.getIncludes().isEmpty()) {
+            LOGGER.info("No source files need to be recompiled.");
+            return new SimpleWorkResult(!staleClasses.isEmpty());
+        }
+        LOGGER.info("Recompiling {} of {} source files.", includes.getIncludes().size(), sourceFiles.size());
+
+        // Compile the selected source files against the classes which have not been recompiled
+        FileCollection source = spec.getSource();
+        Iterable<File> classpath = spec.getClasspath();
+        List<File> selectiveClasspath = new ArrayList<File>();
+        selectiveClasspath.add(spec.getDestinationDir());
+        selectiveClasspath.addAll(toList(classpath));
+        spec.setSource(source.getAsFileTree().matching(includes));
+        spec.setClasspath(selectiveClasspath);
+        try {
+            return compiler.execute(spec);
+        } finally {
+            spec.setSource(source);
+            spec.setClasspath(classpath);
+        }
+    }
+
+    private void addCompiledClasses(File dir, String packagePrefix, ClassDependencyGraph graph, Map<String, File> sourceFiles) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                addCompiledClasses(file, packagePrefix + file.getName() + ".", graph, sourceFiles);
+            } else if (file.getName().endsWith(".class")) {
+                String className = packagePrefix + file.getName().substring(0, file.getName().length() - ".class".length());
+                if (!graph.contains(className)) {
+                    ClassAnalysis analysis = analyzer.analyze(file);
+                    graph.add(analysis, sourceFiles.get(analysis.getRelativeSourcePath()));
+                }
+            }
+        }
+    }
+
+    private File classFile(File destinationDir, String className) {
+        return new File(destinationDir, className.replace('.', '/') + ".class");
+    }
+
+    private Map<String, File> sourceFiles(FileTree source) {
+        final Map<String, File> sourceFiles = new HashMap<String, File>();
+        source.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                sourceFiles.put(fileDetails.getRelativePath().getPathString(), fileDetails.getFile());
+            }
+        });
+        return sourceFiles;
+    }
+
+    /**
+     * Returns the settings which affect the compiled classes. All source files are recompiled when these change.
+     */
+    protected String compileSettings(T spec) {
+        CompileOptions options = spec.getCompileOptions();
+        StringBuilder settings = new StringBuilder();
+        settings.append(spec.getDestinationDir().getAbsolutePath()).append('\n');
+        settings.append(spec.getSourceCompatibility()).append('\n');
+        settings.append(spec.getTargetCompatibility()).append('\n');
+        settings.append(new TreeMap<String, Object>(options.optionMap())).append('\n');
+        settings.append(new TreeMap<String, Object>(options.getForkOptions().optionMap())).append('\n');
+        settings.append(options.getCompilerArgs()).append('\n');
+        return settings.toString();
+    }
+
+    private List<File> toList(Iterable<File> files) {
+        List<File> list = new ArrayList<File>();
+        for (File file : files) {
+            list.add(file);
+        }
+        return list;
+    }
+
+    private ClassDependencyGraph load(File stateFile) {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(stateFile));
+            try {
+                return new DefaultSerializer<ClassDependencyGraph>(getClass().getClassLoader()).read(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read class dependencies from %s. Recompiling all source files.", stateFile), e);
+            return null;
+        }
+    }
+
+    private void store(File stateFile, ClassDependencyGraph graph) {
+        try {
+            stateFile.getParentFile().mkdirs();
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(stateFile));
+            try {
+                new DefaultSerializer<ClassDependencyGraph>().write(outputStream, graph);
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not write class dependencies to %s.", stateFile), e);
+            stateFile.delete();
+        }
+    }
+}
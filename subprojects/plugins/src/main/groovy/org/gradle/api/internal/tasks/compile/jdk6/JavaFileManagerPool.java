@@ -0,0 +1,217 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.jdk6;
+
+import org.gradle.internal.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pool of javac file managers, shared by the compilations of the builds run by the build process. A file manager
+ * keeps the archives it has opened, along with their indexes, until it is closed. Reusing file managers means the jars
+ * of the compile classpath are opened and indexed once rather than once per compilation.
+ *
+ * <p>A file manager is discarded when one of the jars it has read has changed, and when the jars it has read exceed
+ * the archive budget. At most a fixed number of idle file managers are kept. All idle file managers are closed when
+ * the pool is stopped.</p>
+ */
+public class JavaFileManagerPool implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(JavaFileManagerPool.class);
+    private final JavaCompiler compiler;
+    private final int maxIdle;
+    private final long maxArchiveBytes;
+    private final LinkedList<PooledFileManager> idle = new LinkedList<PooledFileManager>();
+    private boolean stopped;
+
+    public JavaFileManagerPool() {
+        this(ToolProvider.getSystemJavaCompiler(), 4, 256L * 1024 * 1024);
+    }
+
+    public JavaFileManagerPool(JavaCompiler compiler, int maxIdle, long maxArchiveBytes) {
+        this.compiler = compiler;
+        this.maxIdle = maxIdle;
+        this.maxArchiveBytes = maxArchiveBytes;
+    }
+
+    /**
+     * Returns the compiler which the file managers of this pool belong to.
+     */
+    public JavaCompiler getCompiler() {
+        return compiler;
+    }
+
+    /**
+     * Returns a file manager for the given charset, reusing an idle one when possible. The file manager must be
+     * returned using {@link #release(PooledFileManager, Iterable, boolean)}.
+     */
+    public PooledFileManager acquire(Charset charset) {
+        synchronized (idle) {
+            Iterator<PooledFileManager> iterator = idle.iterator();
+            while (iterator.hasNext()) {
+                PooledFileManager candidate = iterator.next();
+                if (!equal(candidate.charset, charset)) {
+                    continue;
+                }
+                iterator.remove();
+                if (candidate.isStale()) {
+                    LOGGER.debug("Discarding file manager as a jar it has read has changed.");
+                    candidate.close();
+                    continue;
+                }
+                candidate.resetLocations();
+                return candidate;
+            }
+        }
+        return new PooledFileManager(charset, compiler.getStandardFileManager(null, null, charset));
+    }
+
+    /**
+     * Returns a file manager to this pool.
+     *
+     * @param fileManager The file manager.
+     * @param classpath The classpath the file manager has been used with.
+     * @param reusable Whether the file manager can be used again. Should be false when the compilation failed
+     * unexpectedly.
+     */
+    public void release(PooledFileManager fileManager, Iterable<File> classpath, boolean reusable) {
+        if (!reusable) {
+            fileManager.close();
+            return;
+        }
+        fileManager.archivesRead(classpath);
+        if (fileManager.archiveBytes > maxArchiveBytes) {
+            LOGGER.debug("Discarding file manager as the jars it has read exceed the archive budget.");
+            fileManager.close();
+            return;
+        }
+        PooledFileManager evicted = null;
+        synchronized (idle) {
+            if (stopped) {
+                evicted = fileManager;
+            } else {
+                idle.addFirst(fileManager);
+                if (idle.size() > maxIdle) {
+                    evicted = idle.removeLast();
+                }
+            }
+        }
+        if (evicted != null) {
+            evicted.close();
+        }
+    }
+
+    /**
+     * Closes the idle file managers. File managers which are in use are closed when they are released.
+     */
+    public void stop() {
+        List<PooledFileManager> toClose;
+        synchronized (idle) {
+            stopped = true;
+            toClose = new ArrayList<PooledFileManager>(idle);
+            idle.clear();
+        }
+        for (PooledFileManager fileManager : toClose) {
+            fileManager.close();
+        }
+    }
+
+    private static boolean equal(Charset a, Charset b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    public static class PooledFileManager {
+        private final Charset charset;
+        private final StandardJavaFileManager fileManager;
+        private final Map<File, ArchiveState> archives = new HashMap<File, ArchiveState>();
+        private long archiveBytes;
+
+        private PooledFileManager(Charset charset, StandardJavaFileManager fileManager) {
+            this.charset = charset;
+            this.fileManager = fileManager;
+        }
+
+        public StandardJavaFileManager getFileManager() {
+            return fileManager;
+        }
+
+        private void archivesRead(Iterable<File> classpath) {
+            for (File file : classpath) {
+                if (file.isFile() && !archives.containsKey(file)) {
+                    ArchiveState state = new ArchiveState(file);
+                    archives.put(file, state);
+                    archiveBytes += state.length;
+                }
+            }
+        }
+
+        private boolean isStale() {
+            for (Map.Entry<File, ArchiveState> entry : archives.entrySet()) {
+                if (!entry.getValue().isCurrent(entry.getKey())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void resetLocations() {
+            // The locations are set from the compiler options of each compilation. Reset them so that locations set
+            // by a previous compilation do not leak into this one
+            for (StandardLocation location : StandardLocation.values()) {
+                try {
+                    fileManager.setLocation(location, null);
+                } catch (Exception e) {
+                    // Location cannot be reset - ignore
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close file manager.", e);
+            }
+        }
+    }
+
+    private static class ArchiveState {
+        private final long lastModified;
+        private final long length;
+
+        private ArchiveState(File file) {
+            lastModified = file.lastModified();
+            length = file.length();
+        }
+
+        private boolean isCurrent(File file) {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+    }
+}
@@ -32,25 +32,37 @@ import java.util.List;
 
 public class Jdk6JavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(Jdk6JavaCompiler.class);
+    // Not sent to a compiler daemon, which uses a new file manager for each compilation
+    private final transient JavaFileManagerPool pool;
+
+    public Jdk6JavaCompiler(JavaFileManagerPool pool) {
+        this.pool = pool;
+    }
 
     public WorkResult execute(JavaCompileSpec spec) {
         LOGGER.info("Compiling with JDK 6 Java compiler API.");
 
-        JavaCompiler.CompilationTask task = createCompileTask(spec);
-        boolean success = task.call();
-        if (!success) {
-            throw new CompilationFailedException();
+        JavaFileManagerPool pool = this.pool != null ? this.pool : new JavaFileManagerPool(ToolProvider.getSystemJavaCompiler(), 0, 0);
+        CompileOptions compileOptions = spec.getCompileOptions();
+        JavaFileManagerPool.PooledFileManager fileManager = pool.acquire(compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+        boolean reusable = false;
+        try {
+            JavaCompiler.CompilationTask task = createCompileTask(spec, pool.getCompiler(), fileManager.getFileManager());
+            boolean success = task.call();
+            reusable = true;
+            if (!success) {
+                throw new CompilationFailedException();
+            }
+        } finally {
+            pool.release(fileManager, spec.getClasspath(), reusable);
         }
 
         return new SimpleWorkResult(true);
     }
 
-    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec) {
+    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, JavaCompiler compiler, StandardJavaFileManager fileManager) {
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
-        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-        CompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
         Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
-        return compiler.getTask(null, null, null, options, null, compilationUnits);
+        return compiler.getTask(null, fileManager, null, options, null, compilationUnits);
     }
 }
@@ -16,20 +16,22 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.messaging.concurrent.DefaultExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+import org.gradle.util.hash.HashUtil;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * @author Tom Eyckmans
@@ -42,22 +44,27 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private final FileCollection testClasspath;
     private List<File> testClassDirectories;
     private final ClassFileExtractionManager classFileExtractionManager;
-    private final Map<File, Boolean> superClasses;
+    private final TestClassDetectionIndex detectionIndex;
+    private final Map<String, Boolean> superClasses;
+    private final Map<File, TestClassInfo> preparedClasses;
     private TestClassProcessor testClassProcessor;
     private final List<String> knownTestCaseClassNames;
 
-    protected AbstractTestFrameworkDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager) {
+    protected AbstractTestFrameworkDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager,
+                                            TestClassDetectionIndex detectionIndex) {
         this.testClassesDirectory = testClassesDirectory;
         this.testClasspath = testClasspath;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.detectionIndex = detectionIndex;
+        this.superClasses = new HashMap<String, Boolean>();
+        this.preparedClasses = new ConcurrentHashMap<File, TestClassInfo>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
 
     protected abstract T createClassVisitor();
 
-    protected File getSuperTestClassFile(String superClassName) {
+    protected TestClassInfo getSuperTestClass(String superClassName) {
         prepareClasspath();
         if (StringUtils.isEmpty(superClassName)) {
             throw new IllegalArgumentException("superClassName is empty!");
@@ -75,9 +82,10 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
 
         if (superTestClassFile != null) {
-            return superTestClassFile;
+            return classInfo(superTestClassFile);
         } else { // super test class file not in test class directories
-            return classFileExtractionManager.getLibraryClassFile(superClassName);
+            final byte[] superTestClassBytes = classFileExtractionManager.getLibraryClassBytes(superClassName);
+            return superTestClassBytes == null ? null : classInfo(superTestClassBytes, superClassName);
         }
     }
 
@@ -99,38 +107,92 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    protected TestClassVisitor classVisitor(final File testClassFile) {
+    /**
+     * Returns the scan result for the given class file. The result is taken from the detection index when a class file
+     * with the same content has been scanned before.
+     */
+    protected TestClassInfo classInfo(final File testClassFile) {
+        final TestClassInfo preparedClass = preparedClasses.get(testClassFile);
+        if (preparedClass != null) {
+            return preparedClass;
+        }
+
+        final byte[] classBytes;
+        try {
+            classBytes = FileUtils.readFileToByteArray(testClassFile);
+        } catch (Throwable e) {
+            throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
+        }
+        return classInfo(classBytes, testClassFile.getAbsolutePath());
+    }
+
+    private TestClassInfo classInfo(byte[] classBytes, String displayName) {
+        final String contentHash = HashUtil.sha1(classBytes).asCompactString();
+        TestClassInfo classInfo = detectionIndex.get(contentHash);
+        if (classInfo == null) {
+            classInfo = new TestClassInfo(classVisitor(classBytes, displayName));
+            detectionIndex.put(contentHash, classInfo);
+        }
+        return classInfo;
+    }
+
+    protected TestClassVisitor classVisitor(byte[] classBytes, String displayName) {
         final TestClassVisitor classVisitor = createClassVisitor();
 
-        InputStream classStream = null;
         try {
-            classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(classStream);
+            final ClassReader classReader = new ClassReader(classBytes);
             classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
         } catch (Throwable e) {
-            throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
-        } finally {
-            IOUtils.closeQuietly(classStream);
+            throw new GradleException("failed to read class file " + displayName, e);
         }
 
         return classVisitor;
     }
 
+    /**
+     * Scans the given class files using a number of worker threads, so that the subsequent calls to {@link
+     * #processTestClass(java.io.File)} for these files only need to resolve super classes.
+     */
+    public void prepareTestClasses(Collection<File> testClassFiles) {
+        final int workerCount = Math.min(Runtime.getRuntime().availableProcessors(), testClassFiles.size());
+        if (workerCount <= 1) {
+            return;
+        }
+
+        final Queue<File> pending = new ConcurrentLinkedQueue<File>(testClassFiles);
+        final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+        final StoppableExecutor executor = executorFactory.create("Test class scanner");
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        File testClassFile;
+                        while ((testClassFile = pending.poll()) != null) {
+                            preparedClasses.put(testClassFile, classInfo(testClassFile));
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+    }
+
     public boolean processTestClass(File testClassFile) {
-        return processTestClass(testClassFile, false);
+        return processTestClass(classInfo(testClassFile), false);
     }
 
-    protected abstract boolean processTestClass(File testClassFile, boolean superClass);
+    protected abstract boolean processTestClass(TestClassInfo testClass, boolean superClass);
 
-    protected boolean processSuperClass(File testClassFile) {
+    protected boolean processSuperClass(TestClassInfo superTestClass) {
         boolean isTest = false;
 
-        Boolean isSuperTest = superClasses.get(testClassFile);
+        Boolean isSuperTest = superClasses.get(superTestClass.getClassName());
 
         if (isSuperTest == null) {
-            isTest = processTestClass(testClassFile, true);
+            isTest = processTestClass(superTestClass, true);
 
-            superClasses.put(testClassFile, isTest);
+            superClasses.put(superTestClass.getClassName(), isTest);
         } else {
             isTest = isSuperTest;
         }
@@ -143,9 +205,9 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
      * class mode it musn't publish the class otherwise it will get published multiple times (for each extending
      * class).
      */
-    protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
+    protected void publishTestClass(boolean isTest, TestClassInfo testClass, boolean superClass) {
+        if (isTest && !testClass.isAbstract() && !superClass) {
+            String className = Type.getObjectType(testClass.getClassName()).getClassName();
             testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
         }
     }
@@ -154,6 +216,17 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClassProcessor = testClassProcessor;
     }
 
+    public void stopDetection() {
+        try {
+            classFileExtractionManager.stop();
+            detectionIndex.stop();
+        } finally {
+            testClassDirectories = null;
+            superClasses.clear();
+            preparedClasses.clear();
+            testClassProcessor = null;
+        }
+    }
     public void addKnownTestCaseClassNames(String... knownTestCaseClassNames) {
         if (knownTestCaseClassNames != null && knownTestCaseClassNames.length != 0) {
             for (String knownTestCaseClassName : knownTestCaseClassNames) {
@@ -15,32 +15,36 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
-import org.apache.commons.lang.text.StrBuilder;
+import org.apache.commons.io.IOUtils;
 import org.gradle.api.GradleException;
-import org.gradle.util.JarUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages reading class files from library jar files. Each jar file is opened once, when it is added, and
+ * the handle is kept open until {@link #stop()} is called, so class files are read directly from the jar rather than
+ * extracted to temporary files.
  *
  * @author Tom Eyckmans
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
     private final Map<String, Set<File>> packageJarFilesMappings;
-    private final Map<String, File> extractedJarClasses;
+    private final Map<File, ZipFile> openJarFiles;
+    private final Map<String, byte[]> extractedJarClasses;
     private final Set<String> unextractableClasses;
-    private final File tempDir;
 
-    public ClassFileExtractionManager(File tempDir) {
-        this.tempDir = tempDir;
+    public ClassFileExtractionManager() {
         packageJarFilesMappings = new HashMap<String, Set<File>>();
-        extractedJarClasses = new HashMap<String, File>();
+        openJarFiles = new HashMap<File, ZipFile>();
+        extractedJarClasses = new HashMap<String, byte[]>();
         unextractableClasses = new TreeSet<String>();
     }
 
@@ -49,77 +53,92 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
-        new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
-            public void receivePackage(String packageName) {
-                Set<File> jarFiles = packageJarFilesMappings.get(packageName);
-                if (jarFiles == null) {
-                    jarFiles = new TreeSet<File>();
-                }
-                jarFiles.add(libraryJar);
-
-                packageJarFilesMappings.put(packageName, jarFiles);
+    public synchronized void addLibraryJar(final File libraryJar) {
+        if (openJarFiles.containsKey(libraryJar)) {
+            return;
+        }
+
+        final ZipFile zipFile;
+        try {
+            zipFile = new ZipFile(libraryJar);
+        } catch (IOException e) {
+            throw new GradleException("failed to scan jar file for packages (" + libraryJar.getAbsolutePath() + ")", e);
+        }
+        openJarFiles.put(libraryJar, zipFile);
+
+        final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            final String entryName = entries.nextElement().getName();
+            if (entryName.startsWith("META-INF")) {
+                continue;
+            }
+            final int lastSlashIndex = entryName.lastIndexOf('/');
+            if (lastSlashIndex != -1) {
+                receivePackage(entryName.substring(0, lastSlashIndex + 1), libraryJar);
             }
-        });
+        }
+    }
+
+    private void receivePackage(String packageName, File libraryJar) {
+        Set<File> jarFiles = packageJarFilesMappings.get(packageName);
+        if (jarFiles == null) {
+            jarFiles = new TreeSet<File>();
+            packageJarFilesMappings.put(packageName, jarFiles);
+        }
+        jarFiles.add(libraryJar);
     }
 
     /**
-     * Retrieve the file that contains the extracted class file. <p/> This method will extract the class file if it is
-     * not extracted yet. Extracted class files are deleted on exit of the Gradle process. The same class is only
-     * extracted once.
+     * Retrieve the content of a class file from the library jars. <p/> The same class is only read once.
      *
-     * @param className Name of the class to extract.
-     * @return File that contains the extracted class file.
+     * @param className Name of the class to read.
+     * @return The content of the class file, or null when the class is not found in any of the library jars.
      */
-    public File getLibraryClassFile(final String className) {
+    public synchronized byte[] getLibraryClassBytes(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
-        } else {
-            if (!extractedJarClasses.containsKey(className)) {
-                if (!extractClassFile(className)) {
-                    unextractableClasses.add(className);
-                }
-            }
+        }
 
-            return extractedJarClasses.get(className);
+        byte[] classBytes = extractedJarClasses.get(className);
+        if (classBytes == null) {
+            classBytes = extractClassBytes(className);
+            if (classBytes == null) {
+                unextractableClasses.add(className);
+            } else {
+                extractedJarClasses.put(className, classBytes);
+            }
         }
+        return classBytes;
     }
 
-    private boolean extractClassFile(final String className) {
-        boolean classFileExtracted = false;
-
-        final File extractedClassFile = tempFile();
-        final String classFileName = new StrBuilder().append(className).append(".class").toString();
-        final String classNamePackage = classNamePackage(className);
-        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
-
-        File classFileSourceJar = null;
-
-        if (packageJarFiles != null && !packageJarFiles.isEmpty()) {
-            final Iterator<File> packageJarFilesIt = packageJarFiles.iterator();
+    private byte[] extractClassBytes(final String className) {
+        final String classFileName = className + ".class";
+        final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage(className));
 
-            while (!classFileExtracted && packageJarFilesIt.hasNext()) {
-                final File jarFile = packageJarFilesIt.next();
-
-                try {
-                    classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
+        if (packageJarFiles == null) {
+            return null; // super class not on the classpath - unable to scan parent class
+        }
 
-                    if (classFileExtracted) {
-                        classFileSourceJar = jarFile;
-                    }
-                } catch (IOException e) {
-                    throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
-                }
+        for (File jarFile : packageJarFiles) {
+            final ZipFile zipFile = openJarFiles.get(jarFile);
+            final ZipEntry zipEntry = zipFile.getEntry(classFileName);
+            if (zipEntry == null) {
+                continue;
             }
 
-            if (classFileExtracted) {
-                LOGGER.debug("extracted class {} from {}", className, classFileSourceJar.getName());
-
-                extractedJarClasses.put(className, extractedClassFile);
+            InputStream inputStream = null;
+            try {
+                inputStream = zipFile.getInputStream(zipEntry);
+                final byte[] classBytes = IOUtils.toByteArray(inputStream);
+                LOGGER.debug("extracted class {} from {}", className, jarFile.getName());
+                return classBytes;
+            } catch (IOException e) {
+                throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
+            } finally {
+                IOUtils.closeQuietly(inputStream);
             }
-        } // super class not on the classpath - unable to scan parent class
-
-        return classFileExtracted;
+        }
+        return null;
     }
 
     private String classNamePackage(final String className) {
@@ -132,13 +151,20 @@ public class ClassFileExtractionManager {
         }
     }
 
-    private File tempFile() {
-        try {
-            final File tempFile = File.createTempFile("jar_extract_", "_tmp", tempDir);
-            tempFile.deleteOnExit();
-            return tempFile;
-        } catch (IOException e) {
-            throw new GradleException("failed to create temp file to extract class from jar into", e);
+    /**
+     * Closes all open jar files and discards the read class files.
+     */
+    public synchronized void stop() {
+        for (Map.Entry<File, ZipFile> entry : openJarFiles.entrySet()) {
+            try {
+                entry.getValue().close();
+            } catch (IOException e) {
+                LOGGER.debug("failed to close jar file {}", entry.getKey());
+            }
         }
+        openJarFiles.clear();
+        packageJarFilesMappings.clear();
+        extractedJarClasses.clear();
+        unextractableClasses.clear();
     }
 }
@@ -24,6 +24,8 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The default test class scanner depending on the availability of a test framework detecter a detection or filename
@@ -52,12 +54,22 @@ public class DefaultTestClassScanner implements Runnable {
     }
 
     private void detectionScan() {
-        testFrameworkDetector.startDetection(testClassProcessor);
+        final List<File> classFiles = new ArrayList<File>();
         candidateClassFiles.visit(new ClassFileVisitor() {
             public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
+                classFiles.add(fileDetails.getFile());
             }
         });
+
+        testFrameworkDetector.startDetection(testClassProcessor);
+        try {
+            testFrameworkDetector.prepareTestClasses(classFiles);
+            for (File classFile : classFiles) {
+                testFrameworkDetector.processTestClass(classFile);
+            }
+        } finally {
+            testFrameworkDetector.stopDetection();
+        }
     }
 
     private void filenameScan() {
@@ -17,11 +17,16 @@
 package org.gradle.api.internal.tasks.testing.detection;
 
 import org.gradle.api.file.FileTree;
+import org.gradle.api.internal.changedetection.FileCollectionSnapshot;
+import org.gradle.api.internal.changedetection.FileSnapshotter;
+import org.gradle.api.internal.changedetection.TaskArtifactStateCacheAccess;
 import org.gradle.internal.Factory;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
+import org.gradle.api.internal.tasks.testing.impact.ImpactedTestClassProcessor;
+import org.gradle.api.internal.tasks.testing.impact.TestImpactAnalysis;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
@@ -30,6 +35,9 @@ import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.TrueTimeProvider;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.util.hash.HashUtil;
+
+import java.io.File;
 
 /**
  * The default test class scanner factory.
@@ -39,17 +47,28 @@ import org.gradle.process.internal.WorkerProcessBuilder;
 public class DefaultTestExecuter implements TestExecuter {
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactor;
+    private final FileSnapshotter fileSnapshotter;
+    private final TaskArtifactStateCacheAccess cacheAccess;
 
-    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor) {
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactor, FileSnapshotter fileSnapshotter,
+                               TaskArtifactStateCacheAccess cacheAccess) {
         this.workerFactory = workerFactory;
         this.actorFactor = actorFactor;
+        this.fileSnapshotter = fileSnapshotter;
+        this.cacheAccess = cacheAccess;
     }
 
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
         final TestFramework testFramework = testTask.getTestFramework();
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
+        final TestImpactAnalysis impactAnalysis = testTask.isSelectImpactedTests() ? createImpactAnalysis(testTask) : null;
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
+                if (impactAnalysis != null) {
+                    return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
+                            testTask.getClasspath(), testFramework.getWorkerConfigurationAction(),
+                            impactAnalysis.getClassDirs(), impactAnalysis.createWorkerListener());
+                }
                 return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
                         testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
             }
@@ -62,6 +81,9 @@ public class DefaultTestExecuter implements TestExecuter {
 
         TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
                 reforkingProcessorFactory, actorFactor);
+        if (impactAnalysis != null) {
+            processor = new ImpactedTestClassProcessor(processor, impactAnalysis);
+        }
 
         final FileTree testClassFiles = testTask.getCandidateClassFiles();
 
@@ -74,4 +96,16 @@ public class DefaultTestExecuter implements TestExecuter {
         }
         new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider()).run();
     }
+
+    private TestImpactAnalysis createImpactAnalysis(final Test testTask) {
+        String executionSettings = HashUtil.createCompactMD5(String.format("%s|%s|%s|%s",
+                testTask.getTestFramework().getClass().getName(), testTask.getAllJvmArgs(), testTask.getEnvironment(), testTask.getWorkingDir()));
+        FileCollectionSnapshot classpathSnapshot = cacheAccess.useCache("snapshot test classpath", new Factory<FileCollectionSnapshot>() {
+            public FileCollectionSnapshot create() {
+                return fileSnapshotter.snapshot(testTask.getClasspath());
+            }
+        });
+        return new TestImpactAnalysis(new File(testTask.getTemporaryDir(), "testClassDependencies.bin"), testTask.getClasspath(),
+                executionSettings, classpathSnapshot);
+    }
 }
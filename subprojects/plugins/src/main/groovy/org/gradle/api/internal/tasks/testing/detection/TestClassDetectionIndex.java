@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.cache.DefaultSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A persistent index of {@link TestClassInfo}s, keyed by the hash of the content of the class file they were
+ * created from. Allows unchanged class files to skip scanning on subsequent runs.
+ *
+ * <p>The index is loaded from its file on first use and written back on {@link #stop()}. Only the entries that
+ * were used during the current run are kept, so the index does not grow with classes that have been removed or
+ * changed.</p>
+ */
+public class TestClassDetectionIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestClassDetectionIndex.class);
+    private final File indexFile;
+    private Map<String, TestClassInfo> previous;
+    private final Map<String, TestClassInfo> current = new ConcurrentHashMap<String, TestClassInfo>();
+    private boolean modified;
+
+    public TestClassDetectionIndex(File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public TestClassInfo get(String contentHash) {
+        TestClassInfo classInfo = getPrevious().get(contentHash);
+        if (classInfo != null) {
+            current.put(contentHash, classInfo);
+        }
+        return classInfo;
+    }
+
+    public void put(String contentHash, TestClassInfo classInfo) {
+        current.put(contentHash, classInfo);
+        synchronized (this) {
+            modified = true;
+        }
+    }
+
+    private synchronized Map<String, TestClassInfo> getPrevious() {
+        if (previous == null) {
+            previous = load();
+        }
+        return previous;
+    }
+
+    private Map<String, TestClassInfo> load() {
+        if (!indexFile.isFile()) {
+            return new HashMap<String, TestClassInfo>();
+        }
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(indexFile));
+            try {
+                Map<String, TestClassInfo> content = new DefaultSerializer<Map<String, TestClassInfo>>(getClass().getClassLoader()).read(inputStream);
+                if (content != null) {
+                    return content;
+                }
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read test class index %s. Ignoring.", indexFile), e);
+        }
+        return new HashMap<String, TestClassInfo>();
+    }
+
+    /**
+     * Writes the entries used during this run back to the index file, if anything has changed.
+     */
+    public synchronized void stop() {
+        if (previous == null) {
+            return;
+        }
+        if (modified || current.size() != previous.size()) {
+            try {
+                indexFile.getParentFile().mkdirs();
+                OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(indexFile));
+                try {
+                    new DefaultSerializer<Map<String, TestClassInfo>>().write(outputStream, new HashMap<String, TestClassInfo>(current));
+                } finally {
+                    outputStream.close();
+                }
+            } catch (Exception e) {
+                LOGGER.debug(String.format("Could not write test class index %s. Ignoring.", indexFile), e);
+            }
+        }
+        previous = null;
+        current.clear();
+        modified = false;
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.detection;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 
 import java.io.File;
+import java.util.Collection;
 
 /**
  * @author Tom Eyckmans
@@ -25,5 +26,16 @@ import java.io.File;
 public interface TestFrameworkDetector {
     void startDetection(TestClassProcessor testClassProcessor);
 
+    /**
+     * Gives the detector the chance to scan the given candidate class files up front, before they are passed to {@link
+     * #processTestClass(java.io.File)}. Implementations may scan the files concurrently.
+     */
+    void prepareTestClasses(Collection<File> testClassFiles);
+
     boolean processTestClass(File testClassFile);
+
+    /**
+     * Releases any resources held for the current detection run.
+     */
+    void stopDetection();
 }
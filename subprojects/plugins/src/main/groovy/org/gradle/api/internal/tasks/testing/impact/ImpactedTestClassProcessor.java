@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Passes on only those test classes which are impacted by the changes since the previous run.
+ */
+public class ImpactedTestClassProcessor implements TestClassProcessor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImpactedTestClassProcessor.class);
+    private final TestClassProcessor processor;
+    private final TestImpactAnalysis impactAnalysis;
+
+    public ImpactedTestClassProcessor(TestClassProcessor processor, TestImpactAnalysis impactAnalysis) {
+        this.processor = processor;
+        this.impactAnalysis = impactAnalysis;
+    }
+
+    public void startProcessing(TestResultProcessor resultProcessor) {
+        processor.startProcessing(impactAnalysis.recordFailures(resultProcessor));
+    }
+
+    public void processTestClass(TestClassRunInfo testClass) {
+        if (impactAnalysis.isImpacted(testClass.getTestClassName())) {
+            processor.processTestClass(testClass);
+        } else {
+            LOGGER.debug("Skipping test class {}, as it is not affected by any changes.", testClass.getTestClassName());
+        }
+    }
+
+    public void stop() {
+        try {
+            processor.stop();
+        } finally {
+            impactAnalysis.stop();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.internal.changedetection.FileCollectionSnapshot;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The classes loaded by each test class during a test run, along with the state of the test classpath and the test
+ * classes which failed.
+ *
+ * <p>A class is loaded only once by each test worker, so the classes loaded by a test class are recorded as a position
+ * in the sequence of classes loaded by its worker: the test class depends on every class loaded by its worker up to
+ * and including the last of its tests. This is conservative when several test classes run in the same worker.</p>
+ */
+public class TestClassDependencies implements Serializable {
+    private final String executionSettings;
+    private final FileCollectionSnapshot classpathSnapshot;
+    private final List<List<String>> loadSequences = new ArrayList<List<String>>();
+    private final Map<String, LoadPosition> testClasses = new HashMap<String, LoadPosition>();
+    private final Set<String> failedTestClasses = new HashSet<String>();
+
+    public TestClassDependencies(String executionSettings, FileCollectionSnapshot classpathSnapshot) {
+        this.executionSettings = executionSettings;
+        this.classpathSnapshot = classpathSnapshot;
+    }
+
+    public String getExecutionSettings() {
+        return executionSettings;
+    }
+
+    public FileCollectionSnapshot getClasspathSnapshot() {
+        return classpathSnapshot;
+    }
+
+    /**
+     * Starts a new load sequence, for a new test worker.
+     *
+     * @return The index of the sequence.
+     */
+    public int startSequence() {
+        loadSequences.add(new ArrayList<String>());
+        return loadSequences.size() - 1;
+    }
+
+    public void classesLoaded(int sequence, String testClassName, List<String> loadedClasses) {
+        List<String> loadSequence = loadSequences.get(sequence);
+        loadSequence.addAll(loadedClasses);
+        testClasses.put(testClassName, new LoadPosition(sequence, loadSequence.size()));
+    }
+
+    /**
+     * Copies the recorded dependencies of the given test class from the given dependencies into this one.
+     *
+     * @param sequenceMapping The sequences of the other dependencies which have already been copied, mapped to their
+     * index in this dependencies. Updated by this method.
+     */
+    public void copyFrom(TestClassDependencies other, String testClassName, Map<Integer, Integer> sequenceMapping) {
+        LoadPosition position = other.testClasses.get(testClassName);
+        if (position == null) {
+            return;
+        }
+        Integer sequence = sequenceMapping.get(position.sequence);
+        if (sequence == null) {
+            loadSequences.add(other.loadSequences.get(position.sequence));
+            sequence = loadSequences.size() - 1;
+            sequenceMapping.put(position.sequence, sequence);
+        }
+        testClasses.put(testClassName, new LoadPosition(sequence, position.loadedCount));
+    }
+
+    public void failed(String testClassName) {
+        failedTestClasses.add(testClassName);
+    }
+
+    /**
+     * Returns the test classes which need to run, given the set of classes which have changed since these dependencies
+     * were recorded. These are the test classes which depend on a changed class, plus those which failed.
+     *
+     * @return The test classes to run. Test classes which were not executed in the recorded run are never included.
+     */
+    public Set<String> getImpactedTestClasses(Set<String> changedClasses) {
+        int[] firstChanged = new int[loadSequences.size()];
+        for (int i = 0; i < firstChanged.length; i++) {
+            List<String> loadSequence = loadSequences.get(i);
+            firstChanged[i] = Integer.MAX_VALUE;
+            for (int j = 0; j < loadSequence.size(); j++) {
+                if (changedClasses.contains(loadSequence.get(j))) {
+                    firstChanged[i] = j;
+                    break;
+                }
+            }
+        }
+
+        Set<String> impacted = new HashSet<String>(failedTestClasses);
+        for (Map.Entry<String, LoadPosition> entry : testClasses.entrySet()) {
+            LoadPosition position = entry.getValue();
+            if (firstChanged[position.sequence] < position.loadedCount) {
+                impacted.add(entry.getKey());
+            }
+        }
+        return impacted;
+    }
+
+    public boolean isRecorded(String testClassName) {
+        return testClasses.containsKey(testClassName);
+    }
+
+    private static class LoadPosition implements Serializable {
+        private final int sequence;
+        private final int loadedCount;
+
+        private LoadPosition(int sequence, int loadedCount) {
+            this.sequence = sequence;
+            this.loadedCount = loadedCount;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact;
+
+import org.gradle.api.internal.changedetection.FileCollectionSnapshot;
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.internal.tasks.testing.worker.TestClassDependencyListener;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.cache.DefaultSerializer;
+import org.gradle.util.ChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Decides which test classes need to run, based on the classes they loaded in the previous run and the changes made to
+ * the test classpath since then. Also records the classes loaded by each test class in this run, for use by the next
+ * run.
+ *
+ * <p>All test classes are run when there is no previous run, when the execution settings have changed, or when
+ * anything other than a class file in a classpath directory has changed.</p>
+ */
+public class TestImpactAnalysis {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TestImpactAnalysis.class);
+    private final File stateFile;
+    private final List<File> classDirs = new ArrayList<File>();
+    private final TestClassDependencies previous;
+    private final TestClassDependencies current;
+    private final Set<String> impactedTestClasses;
+    private final Map<Integer, Integer> copiedSequences = new HashMap<Integer, Integer>();
+
+    public TestImpactAnalysis(File stateFile, Iterable<File> classpath, String executionSettings, FileCollectionSnapshot classpathSnapshot) {
+        this.stateFile = stateFile;
+        for (File file : classpath) {
+            if (file.isDirectory()) {
+                classDirs.add(file);
+            }
+        }
+
+        current = new TestClassDependencies(executionSettings, classpathSnapshot);
+        previous = load();
+        impactedTestClasses = previous != null && previous.getExecutionSettings().equals(executionSettings)
+                ? findImpactedTestClasses(classpathSnapshot, previous)
+                : null;
+    }
+
+    private TestClassDependencies load() {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(stateFile));
+            try {
+                return new DefaultSerializer<TestClassDependencies>(getClass().getClassLoader()).read(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not read test class dependencies from %s. Running all tests.", stateFile), e);
+            return null;
+        }
+    }
+
+    private Set<String> findImpactedTestClasses(FileCollectionSnapshot classpathSnapshot, TestClassDependencies previous) {
+        final Set<String> changedClasses = new HashSet<String>();
+        final boolean[] otherChanges = new boolean[1];
+        classpathSnapshot.changesSince(previous.getClasspathSnapshot(), new ChangeListener<File>() {
+            public void added(File element) {
+                changed(element);
+            }
+
+            public void removed(File element) {
+                changed(element);
+            }
+
+            public void changed(File element) {
+                String className = toClassName(element);
+                if (className != null) {
+                    changedClasses.add(className);
+                } else if (!element.isDirectory()) {
+                    otherChanges[0] = true;
+                }
+            }
+        });
+        if (otherChanges[0]) {
+            LOGGER.info("Test classpath has changed. Running all tests.");
+            return null;
+        }
+        return previous.getImpactedTestClasses(changedClasses);
+    }
+
+    private String toClassName(File file) {
+        String path = file.getAbsolutePath();
+        if (!path.endsWith(".class")) {
+            return null;
+        }
+        for (File classDir : classDirs) {
+            String prefix = classDir.getAbsolutePath() + File.separator;
+            if (path.startsWith(prefix)) {
+                return path.substring(prefix.length(), path.length() - ".class".length()).replace(File.separatorChar, '.');
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the class directories of the test classpath, whose classes are tracked as dependencies.
+     */
+    public List<File> getClassDirs() {
+        return classDirs;
+    }
+
+    /**
+     * Returns true when the given test class needs to be executed. When it does not, the dependencies recorded for it
+     * in the previous run are carried over into this run.
+     */
+    public synchronized boolean isImpacted(String testClassName) {
+        if (impactedTestClasses == null || impactedTestClasses.contains(testClassName) || !previous.isRecorded(testClassName)) {
+            return true;
+        }
+        current.copyFrom(previous, testClassName, copiedSequences);
+        return false;
+    }
+
+    /**
+     * Creates a listener to receive the classes loaded by a single test worker.
+     */
+    public TestClassDependencyListener createWorkerListener() {
+        final int sequence;
+        synchronized (this) {
+            sequence = current.startSequence();
+        }
+        return new TestClassDependencyListener() {
+            public void completed(String testClassName, List<String> loadedClasses) {
+                synchronized (TestImpactAnalysis.this) {
+                    current.classesLoaded(sequence, testClassName, loadedClasses);
+                }
+            }
+        };
+    }
+
+    /**
+     * Decorates the given result processor to record the test classes which fail.
+     */
+    public TestResultProcessor recordFailures(final TestResultProcessor processor) {
+        return new TestResultProcessor() {
+            private final Map<Object, String> testClassNames = new HashMap<Object, String>();
+
+            public void started(TestDescriptorInternal test, TestStartEvent event) {
+                if (test.getClassName() != null) {
+                    synchronized (testClassNames) {
+                        testClassNames.put(test.getId(), test.getClassName());
+                    }
+                }
+                processor.started(test, event);
+            }
+
+            public void completed(Object testId, TestCompleteEvent event) {
+                String testClassName;
+                synchronized (testClassNames) {
+                    testClassName = testClassNames.remove(testId);
+                }
+                if (testClassName != null && event.getResultType() == TestResult.ResultType.FAILURE) {
+                    failed(testClassName);
+                }
+                processor.completed(testId, event);
+            }
+
+            public void output(Object testId, TestOutputEvent event) {
+                processor.output(testId, event);
+            }
+
+            public void failure(Object testId, Throwable result) {
+                String testClassName;
+                synchronized (testClassNames) {
+                    testClassName = testClassNames.get(testId);
+                }
+                if (testClassName != null) {
+                    failed(testClassName);
+                }
+                processor.failure(testId, result);
+            }
+        };
+    }
+
+    private synchronized void failed(String testClassName) {
+        current.failed(testClassName);
+    }
+
+    /**
+     * Writes the dependencies recorded in this run, for use by the next run.
+     */
+    public synchronized void stop() {
+        try {
+            stateFile.getParentFile().mkdirs();
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(stateFile));
+            try {
+                new DefaultSerializer<TestClassDependencies>().write(outputStream, current);
+            } finally {
+                outputStream.close();
+            }
+        } catch (Exception e) {
+            LOGGER.debug(String.format("Could not write test class dependencies to %s.", stateFile), e);
+            stateFile.delete();
+        }
+    }
+}
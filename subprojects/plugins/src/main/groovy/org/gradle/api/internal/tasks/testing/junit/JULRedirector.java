@@ -16,8 +16,9 @@
 
 package org.gradle.api.internal.tasks.testing.junit;
 
+import org.gradle.api.logging.StandardOutputListener;
 import org.gradle.logging.StandardOutputCapture;
-import org.gradle.logging.internal.DefaultStandardOutputRedirector;
+import org.gradle.logging.StandardOutputRedirector;
 
 import java.util.logging.ConsoleHandler;
 import java.util.logging.LogManager;
@@ -26,17 +27,36 @@ import java.util.logging.Logger;
 /**
  * Some hackery to get JUL output redirected to test output
  */
-public class JULRedirector extends DefaultStandardOutputRedirector {
+public class JULRedirector implements StandardOutputRedirector {
+    private final StandardOutputRedirector redirector;
     private boolean reset;
 
-    @Override
+    public JULRedirector(StandardOutputRedirector redirector) {
+        this.redirector = redirector;
+    }
+
+    public void redirectStandardOutputTo(StandardOutputListener stdOutDestination) {
+        redirector.redirectStandardOutputTo(stdOutDestination);
+    }
+
+    public void redirectStandardErrorTo(StandardOutputListener stdErrDestination) {
+        redirector.redirectStandardErrorTo(stdErrDestination);
+    }
+
     public StandardOutputCapture start() {
-        super.start();
-        if (!reset) {
-            LogManager.getLogManager().reset();
-            Logger.getLogger("").addHandler(new ConsoleHandler());
-            reset = true;
+        redirector.start();
+        synchronized (this) {
+            if (!reset) {
+                LogManager.getLogManager().reset();
+                Logger.getLogger("").addHandler(new ConsoleHandler());
+                reset = true;
+            }
         }
         return this;
     }
+
+    public StandardOutputCapture stop() {
+        redirector.stop();
+        return this;
+    }
 }
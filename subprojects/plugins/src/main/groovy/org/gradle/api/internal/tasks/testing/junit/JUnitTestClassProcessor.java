@@ -23,37 +23,78 @@ import org.gradle.api.internal.tasks.testing.processors.CaptureTestOutputTestRes
 import org.gradle.api.internal.tasks.testing.results.AttachParentTestResultProcessor;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.listener.ListenerBroadcast;
 import org.gradle.logging.StandardOutputRedirector;
 import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
+/**
+ * Executes JUnit test classes. By default, test classes are executed one at a time by the thread which calls {@link
+ * #processTestClass(TestClassRunInfo)}. When more than one concurrent test class is allowed, test classes are queued
+ * and executed by a pool of threads. Each of these threads has its own result processor chain, so that the events and
+ * output of a test class are attributed to it, and the output redirector must support concurrent use.
+ */
 public class JUnitTestClassProcessor implements TestClassProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(JUnitTestClassProcessor.class);
+    private static final String END_OF_TEST_CLASSES = "";
     private final File testResultsDir;
     private final IdGenerator<?> idGenerator;
     private final ActorFactory actorFactory;
+    private final ExecutorFactory executorFactory;
+    private final int maxParallelTestClasses;
     private final StandardOutputRedirector outputRedirector;
     private final TimeProvider timeProvider = new TrueTimeProvider();
+    private ClassLoader applicationClassLoader;
     private JUnitTestClassExecuter executer;
     private Actor resultProcessorActor;
+    private BlockingQueue<String> testClasses;
+    private StoppableExecutor testClassExecutor;
 
     public JUnitTestClassProcessor(File testResultsDir, IdGenerator<?> idGenerator, ActorFactory actorFactory,
                                    StandardOutputRedirector standardOutputRedirector) {
+        this(testResultsDir, idGenerator, actorFactory, null, 1, standardOutputRedirector);
+    }
+
+    public JUnitTestClassProcessor(File testResultsDir, IdGenerator<?> idGenerator, ActorFactory actorFactory, ExecutorFactory executorFactory,
+                                   int maxParallelTestClasses, StandardOutputRedirector standardOutputRedirector) {
         this.testResultsDir = testResultsDir;
         this.idGenerator = idGenerator;
         this.actorFactory = actorFactory;
+        this.executorFactory = executorFactory;
+        this.maxParallelTestClasses = maxParallelTestClasses;
         this.outputRedirector = standardOutputRedirector;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
+        applicationClassLoader = Thread.currentThread().getContextClassLoader();
+        if (maxParallelTestClasses <= 1) {
+            resultProcessorActor = createResultProcessorActor(resultProcessor);
+            executer = createExecuter(resultProcessorActor);
+            return;
+        }
+
+        // Share a thread-safe view of the result processor between the test class threads, each of which builds its own chain
+        resultProcessorActor = actorFactory.createBlockingActor(resultProcessor);
+        TestResultProcessor threadSafeResultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
+        testClasses = new LinkedBlockingQueue<String>();
+        testClassExecutor = executorFactory.create("Test class executer");
+        for (int i = 0; i < maxParallelTestClasses; i++) {
+            testClassExecutor.execute(new TestClassWorker(threadSafeResultProcessor));
+        }
+    }
+
+    private Actor createResultProcessorActor(TestResultProcessor resultProcessor) {
         // Build a result processor chain
-        ClassLoader applicationClassLoader = Thread.currentThread().getContextClassLoader();
         ListenerBroadcast<TestResultProcessor> processors = new ListenerBroadcast<TestResultProcessor>(TestResultProcessor.class);
         processors.add(new JUnitXmlReportGenerator(testResultsDir));
         processors.add(resultProcessor);
@@ -61,21 +102,72 @@ public class JUnitTestClassProcessor implements TestClassProcessor {
         TestClassExecutionEventGenerator eventGenerator = new TestClassExecutionEventGenerator(resultProcessorChain, idGenerator, timeProvider);
 
         // Wrap the result processor chain up in a blocking actor, to make the whole thing thread-safe
-        resultProcessorActor = actorFactory.createBlockingActor(eventGenerator);
+        return actorFactory.createBlockingActor(eventGenerator);
+    }
+
+    private JUnitTestClassExecuter createExecuter(Actor resultProcessorActor) {
         TestResultProcessor threadSafeResultProcessor = resultProcessorActor.getProxy(TestResultProcessor.class);
         TestClassExecutionListener threadSafeTestClassListener = resultProcessorActor.getProxy(TestClassExecutionListener.class);
 
         // Build the JUnit adaptor stuff
         JUnitTestEventAdapter junitEventAdapter = new JUnitTestEventAdapter(threadSafeResultProcessor, timeProvider, idGenerator);
-        executer = new JUnitTestClassExecuter(applicationClassLoader, junitEventAdapter, threadSafeTestClassListener);
+        return new JUnitTestClassExecuter(applicationClassLoader, junitEventAdapter, threadSafeTestClassListener);
     }
 
     public void processTestClass(TestClassRunInfo testClass) {
+        if (testClassExecutor != null) {
+            LOGGER.debug("Queueing test {}", testClass.getTestClassName());
+            testClasses.add(testClass.getTestClassName());
+            return;
+        }
         LOGGER.debug("Executing test {}", testClass.getTestClassName());
         executer.execute(testClass.getTestClassName());
     }
 
     public void stop() {
-        resultProcessorActor.stop();
+        try {
+            if (testClassExecutor != null) {
+                for (int i = 0; i < maxParallelTestClasses; i++) {
+                    testClasses.add(END_OF_TEST_CLASSES);
+                }
+                testClassExecutor.stop();
+            }
+        } finally {
+            testClassExecutor = null;
+            resultProcessorActor.stop();
+        }
+    }
+
+    private class TestClassWorker implements Runnable {
+        private final TestResultProcessor resultProcessor;
+
+        public TestClassWorker(TestResultProcessor resultProcessor) {
+            this.resultProcessor = resultProcessor;
+        }
+
+        public void run() {
+            Thread.currentThread().setContextClassLoader(applicationClassLoader);
+            Actor threadResultProcessorActor = createResultProcessorActor(resultProcessor);
+            try {
+                JUnitTestClassExecuter testClassExecuter = createExecuter(threadResultProcessorActor);
+                String testClassName;
+                while (!(testClassName = takeTestClass()).equals(END_OF_TEST_CLASSES)) {
+                    LOGGER.debug("Executing test {}", testClassName);
+                    testClassExecuter.execute(testClassName);
+                    // Discard any interrupt left behind by the test, so it does not affect the next test class
+                    Thread.interrupted();
+                }
+            } finally {
+                threadResultProcessorActor.stop();
+            }
+        }
+
+        private String takeTestClass() {
+            try {
+                return testClasses.take();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
     }
 }
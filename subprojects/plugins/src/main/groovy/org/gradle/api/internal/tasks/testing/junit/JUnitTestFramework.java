@@ -23,11 +23,16 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionIndex;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
+import org.gradle.logging.StandardOutputRedirector;
+import org.gradle.logging.internal.DefaultStandardOutputRedirector;
+import org.gradle.logging.internal.PerThreadStandardOutputRedirector;
 import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
@@ -46,12 +51,13 @@ public class JUnitTestFramework implements TestFramework {
         this.testTask = testTask;
         reporter = new DefaultTestReport();
         options = new JUnitOptions();
-        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath(), new ClassFileExtractionManager(testTask.getTemporaryDir()));
+        detector = new JUnitDetector(testTask.getTestClassesDir(), testTask.getClasspath(), new ClassFileExtractionManager(),
+                new TestClassDetectionIndex(new File(testTask.getTemporaryDir(), "junitTestClasses.bin")));
     }
 
     public WorkerTestClassProcessorFactory getProcessorFactory() {
         final File testResultsDir = testTask.getTestResultsDir();
-        return new TestClassProcessorFactoryImpl(testResultsDir);
+        return new TestClassProcessorFactoryImpl(testResultsDir, testTask.getMaxParallelTestClassesPerFork());
     }
 
     public Action<WorkerProcessBuilder> getWorkerConfigurationAction() {
@@ -95,13 +101,17 @@ public class JUnitTestFramework implements TestFramework {
 
     private static class TestClassProcessorFactoryImpl implements WorkerTestClassProcessorFactory, Serializable {
         private final File testResultsDir;
+        private final int maxParallelTestClasses;
 
-        public TestClassProcessorFactoryImpl(File testResultsDir) {
+        public TestClassProcessorFactoryImpl(File testResultsDir, int maxParallelTestClasses) {
             this.testResultsDir = testResultsDir;
+            this.maxParallelTestClasses = maxParallelTestClasses;
         }
 
         public TestClassProcessor create(ServiceRegistry serviceRegistry) {
-            return new JUnitTestClassProcessor(testResultsDir, serviceRegistry.get(IdGenerator.class), serviceRegistry.get(ActorFactory.class), new JULRedirector());
+            StandardOutputRedirector outputRedirector = maxParallelTestClasses > 1 ? new PerThreadStandardOutputRedirector() : new DefaultStandardOutputRedirector();
+            return new JUnitTestClassProcessor(testResultsDir, serviceRegistry.get(IdGenerator.class), serviceRegistry.get(ActorFactory.class),
+                    serviceRegistry.get(ExecutorFactory.class), maxParallelTestClasses, new JULRedirector(outputRedirector));
         }
     }
 }
@@ -18,7 +18,8 @@ package org.gradle.api.internal.tasks.testing.testng;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
-import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
+import org.gradle.api.internal.tasks.testing.detection.TestClassDetectionIndex;
+import org.gradle.api.internal.tasks.testing.detection.TestClassInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,8 +31,9 @@ import java.io.File;
 class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetecter> {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestNGDetector.class);
 
-    TestNGDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager) {
-        super(testClassesDirectory, testClasspath, classFileExtractionManager);
+    TestNGDetector(File testClassesDirectory, FileCollection testClasspath, ClassFileExtractionManager classFileExtractionManager,
+                   TestClassDetectionIndex detectionIndex) {
+        super(testClassesDirectory, testClasspath, classFileExtractionManager, detectionIndex);
     }
 
     protected TestNGTestClassDetecter createClassVisitor() {
@@ -47,29 +49,27 @@ class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetect
      * <p/>
      * When a parent class is a test class all the extending classes are marked as test classes.
      *
-     * @param testClassFile
+     * @param testClass
      * @param superClass
      * @return
      */
-    protected boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
-
-        boolean isTest = classVisitor.isTest();
+    protected boolean processTestClass(final TestClassInfo testClass, boolean superClass) {
+        boolean isTest = testClass.isTest();
 
         if (!isTest) {
-            final String superClassName = classVisitor.getSuperClassName();
+            final String superClassName = testClass.getSuperClassName();
 
-            final File superClassFile = getSuperTestClassFile(superClassName);
+            final TestClassInfo superTestClass = getSuperTestClass(superClassName);
 
-            if (superClassFile != null) {
-                isTest = processSuperClass(superClassFile);
+            if (superTestClass != null) {
+                isTest = processSuperClass(superTestClass);
             } else {
                 LOGGER.debug("test-class-scan : failed to scan parent class {}, could not find the class file",
                         superClassName);
             }
         }
 
-        publishTestClass(isTest, classVisitor, superClass);
+        publishTestClass(isTest, testClass, superClass);
 
         return isTest;
     }
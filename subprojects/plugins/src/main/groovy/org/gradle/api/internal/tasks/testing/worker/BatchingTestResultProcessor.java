@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.Stoppable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.messaging.concurrent.ExecutorFactory;
+import org.gradle.messaging.concurrent.StoppableExecutor;
+
+/**
+ * Collects test events into {@link TestEventBatch}es and forwards them to a {@link TestEventBatchProcessor}. A batch is
+ * forwarded when it holds a certain number of events or amount of output, or when its first event has been waiting
+ * for a short time. Events are forwarded in the order they are received.
+ */
+public class BatchingTestResultProcessor implements TestResultProcessor, Stoppable {
+    static final int MAX_EVENTS = 500;
+    static final int MAX_OUTPUT_LENGTH = 32 * 1024;
+    static final long MAX_DELAY_MILLIS = 50;
+
+    private final TestEventBatchProcessor processor;
+    private final StoppableExecutor executor;
+    private final Object lock = new Object();
+    private TestEventBatch batch = new TestEventBatch();
+    private long batchStarted;
+    private boolean stopped;
+
+    public BatchingTestResultProcessor(TestEventBatchProcessor processor, ExecutorFactory executorFactory) {
+        this.processor = processor;
+        executor = executorFactory.create("Test event batcher");
+        executor.execute(new Runnable() {
+            public void run() {
+                flushPeriodically();
+            }
+        });
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        synchronized (lock) {
+            batch.started(test, event);
+            added();
+        }
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        synchronized (lock) {
+            batch.completed(testId, event);
+            added();
+        }
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        synchronized (lock) {
+            batch.output(testId, event);
+            added();
+        }
+    }
+
+    public void failure(Object testId, Throwable result) {
+        synchronized (lock) {
+            batch.failure(testId, result);
+            added();
+        }
+    }
+
+    private void added() {
+        if (batch.size() >= MAX_EVENTS || batch.getOutputLength() >= MAX_OUTPUT_LENGTH) {
+            flush();
+        } else if (batch.size() == 1) {
+            batchStarted = System.currentTimeMillis();
+            lock.notifyAll();
+        }
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            processor.processBatch(batch);
+            batch = new TestEventBatch();
+        }
+    }
+
+    private void flushPeriodically() {
+        synchronized (lock) {
+            try {
+                while (!stopped) {
+                    if (batch.isEmpty()) {
+                        lock.wait();
+                        continue;
+                    }
+                    long remaining = batchStarted + MAX_DELAY_MILLIS - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        flush();
+                    } else {
+                        lock.wait(remaining);
+                    }
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    /**
+     * Forwards any pending events and stops the background flushing.
+     */
+    public void stop() {
+        synchronized (lock) {
+            flush();
+            stopped = true;
+            lock.notifyAll();
+        }
+        executor.stop();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Notifies a {@link TestClassDependencyListener} of the classes loaded so far whenever a test completes.
+ */
+public class DependencyRecordingTestResultProcessor implements TestResultProcessor {
+    private final TestResultProcessor processor;
+    private final LoadedClassTracker loadedClassTracker;
+    private final TestClassDependencyListener listener;
+    private final Map<Object, String> testClassNames = new HashMap<Object, String>();
+
+    public DependencyRecordingTestResultProcessor(TestResultProcessor processor, LoadedClassTracker loadedClassTracker,
+                                                  TestClassDependencyListener listener) {
+        this.processor = processor;
+        this.loadedClassTracker = loadedClassTracker;
+        this.listener = listener;
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        if (test.getClassName() != null) {
+            synchronized (testClassNames) {
+                testClassNames.put(test.getId(), test.getClassName());
+            }
+        }
+        processor.started(test, event);
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        String testClassName;
+        synchronized (testClassNames) {
+            testClassName = testClassNames.remove(testId);
+        }
+        if (testClassName != null) {
+            listener.completed(testClassName, loadedClassTracker.takeLoadedClasses());
+        }
+        processor.completed(testId, event);
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        processor.output(testId, event);
+    }
+
+    public void failure(Object testId, Throwable result) {
+        processor.failure(testId, result);
+    }
+}
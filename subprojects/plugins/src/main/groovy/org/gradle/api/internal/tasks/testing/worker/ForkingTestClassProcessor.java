@@ -27,6 +27,7 @@ import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
+import java.util.List;
 
 public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Factory<WorkerProcessBuilder> workerFactory;
@@ -34,16 +35,29 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final JavaForkOptions options;
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final List<File> dependencyClassDirs;
+    private final TestClassDependencyListener dependencyListener;
     private RemoteTestClassProcessor remoteProcessor;
     private WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
 
     public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
+        this(workerFactory, processorFactory, options, classPath, buildConfigAction, null, null);
+    }
+
+    /**
+     * Creates a processor whose worker reports the classes loaded from the given class directories to the given
+     * listener.
+     */
+    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction,
+                                     List<File> dependencyClassDirs, TestClassDependencyListener dependencyListener) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
         this.classPath = classPath;
         this.buildConfigAction = buildConfigAction;
+        this.dependencyClassDirs = dependencyClassDirs;
+        this.dependencyListener = dependencyListener;
     }
 
     public void startProcessing(TestResultProcessor resultProcessor) {
@@ -55,14 +69,21 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
             WorkerProcessBuilder builder = workerFactory.create();
             builder.applicationClasspath(classPath);
             builder.setLoadApplicationInSystemClassLoader(true);
-            builder.worker(new TestWorker(processorFactory));
+            builder.worker(new TestWorker(processorFactory, dependencyListener == null ? null : dependencyClassDirs));
             options.copyTo(builder.getJavaCommand());
             buildConfigAction.execute(builder);
             
             workerProcess = builder.build();
             workerProcess.start();
 
-            workerProcess.getConnection().addIncoming(TestResultProcessor.class, resultProcessor);
+            workerProcess.getConnection().addIncoming(TestEventBatchProcessor.class, new TestEventBatchProcessor() {
+                public void processBatch(TestEventBatch batch) {
+                    batch.replay(resultProcessor);
+                }
+            });
+            if (dependencyListener != null) {
+                workerProcess.getConnection().addIncoming(TestClassDependencyListener.class, dependencyListener);
+            }
             remoteProcessor = workerProcess.getConnection().addOutgoing(RemoteTestClassProcessor.class);
 
             remoteProcessor.startProcessing();
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Tracks which of the classes found in a set of class directories have been loaded by a class loader.
+ *
+ * <p>Each class loader keeps a list of the classes it has defined, in the order they were defined. This tracker reads
+ * the new entries of these lists for the class loader and its parents each time it is asked, so the cost of each query
+ * is proportional to the number of classes loaded since the previous query. When the lists cannot be accessed, all
+ * classes are reported as loaded.</p>
+ */
+public class LoadedClassTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadedClassTracker.class);
+    private final Set<String> notLoaded = new LinkedHashSet<String>();
+    private final List<DefinedClasses> definedClasses;
+
+    public LoadedClassTracker(Iterable<File> classDirs, ClassLoader classLoader) {
+        for (File classDir : classDirs) {
+            addClasses(classDir, "");
+        }
+        definedClasses = lookupDefinedClasses(classLoader);
+    }
+
+    private void addClasses(File dir, String packagePrefix) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isDirectory()) {
+                addClasses(file, packagePrefix + name + ".");
+            } else if (name.endsWith(".class")) {
+                notLoaded.add(packagePrefix + name.substring(0, name.length() - ".class".length()));
+            }
+        }
+    }
+
+    private static List<DefinedClasses> lookupDefinedClasses(ClassLoader classLoader) {
+        try {
+            Field classesField = ClassLoader.class.getDeclaredField("classes");
+            classesField.setAccessible(true);
+            List<DefinedClasses> result = new ArrayList<DefinedClasses>();
+            for (ClassLoader current = classLoader; current != null; current = current.getParent()) {
+                result.add(new DefinedClasses((List<?>) classesField.get(current)));
+            }
+            return result;
+        } catch (Exception e) {
+            LOGGER.debug("Cannot query loaded classes. Treating all classes as loaded.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the classes which have been loaded since the previous call to this method.
+     */
+    public synchronized List<String> takeLoadedClasses() {
+        List<String> loaded = new ArrayList<String>();
+        if (definedClasses == null) {
+            loaded.addAll(notLoaded);
+            notLoaded.clear();
+            return loaded;
+        }
+        for (DefinedClasses classes : definedClasses) {
+            classes.takeNew(notLoaded, loaded);
+        }
+        return loaded;
+    }
+
+    private static class DefinedClasses {
+        private final List<?> classes;
+        private int seen;
+
+        private DefinedClasses(List<?> classes) {
+            this.classes = classes;
+        }
+
+        void takeNew(Set<String> notLoaded, List<String> loaded) {
+            // The class loader adds to the list while holding its lock
+            synchronized (classes) {
+                for (; seen < classes.size(); seen++) {
+                    String className = ((Class<?>) classes.get(seen)).getName();
+                    if (notLoaded.remove(className)) {
+                        loaded.add(className);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import java.util.List;
+
+/**
+ * Receives the classes loaded by a test worker, as test classes complete.
+ */
+public interface TestClassDependencyListener {
+    /**
+     * Notifies this listener that a test of the given test class has completed.
+     *
+     * @param testClassName The test class.
+     * @param loadedClasses The classes which have been loaded by the worker since the previous notification, in the
+     * order they were detected.
+     */
+    void completed(String testClassName, List<String> loadedClasses);
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.*;
+
+/**
+ * A sequence of test events, in the order they were generated. Uses a compact encoding for the common descriptor and
+ * event types: test ids and names which occur more than once in a batch are only written once, and the default
+ * descriptor types and output events are written field by field. Anything else falls back to Java serialization.
+ */
+public class TestEventBatch implements Externalizable {
+    private static final byte STARTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte OUTPUT = 3;
+    private static final byte FAILURE = 4;
+
+    private static final byte SUITE_DESCRIPTOR = 1;
+    private static final byte CLASS_DESCRIPTOR = 2;
+    private static final byte METHOD_DESCRIPTOR = 3;
+    private static final byte TEST_DESCRIPTOR = 4;
+    private static final byte OTHER_DESCRIPTOR = 5;
+
+    private static final int NULL_REF = -2;
+    private static final int NEW_REF = -1;
+    private static final int MAX_UTF_LENGTH = 65535 / 3;
+
+    private final List<Event> events = new ArrayList<Event>();
+    private int outputLength;
+
+    public TestEventBatch() {
+    }
+
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        Event started = new Event(STARTED, test.getId());
+        started.descriptor = test;
+        started.time = event.getStartTime();
+        started.parentId = event.getParentId();
+        events.add(started);
+    }
+
+    public void completed(Object testId, TestCompleteEvent event) {
+        Event completed = new Event(COMPLETED, testId);
+        completed.time = event.getEndTime();
+        completed.resultType = event.getResultType();
+        events.add(completed);
+    }
+
+    public void output(Object testId, TestOutputEvent event) {
+        Event output = new Event(OUTPUT, testId);
+        output.destination = event.getDestination();
+        output.message = event.getMessage();
+        events.add(output);
+        outputLength += output.message.length();
+    }
+
+    public void failure(Object testId, Throwable result) {
+        Event failure = new Event(FAILURE, testId);
+        failure.failure = result;
+        events.add(failure);
+    }
+
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Returns the number of characters of test output held in this batch.
+     */
+    public int getOutputLength() {
+        return outputLength;
+    }
+
+    /**
+     * Sends the events in this batch to the given processor, in the order they were added.
+     */
+    public void replay(TestResultProcessor processor) {
+        for (Event event : events) {
+            switch (event.type) {
+                case STARTED:
+                    processor.started(event.descriptor, new TestStartEvent(event.time, event.parentId));
+                    break;
+                case COMPLETED:
+                    processor.completed(event.testId, new TestCompleteEvent(event.time, event.resultType));
+                    break;
+                case OUTPUT:
+                    processor.output(event.testId, new DefaultTestOutputEvent(event.destination, event.message));
+                    break;
+                case FAILURE:
+                    processor.failure(event.testId, event.failure);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected event type " + event.type);
+            }
+        }
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        Encoder encoder = new Encoder(out);
+        out.writeInt(events.size());
+        for (Event event : events) {
+            out.writeByte(event.type);
+            switch (event.type) {
+                case STARTED:
+                    encoder.writeDescriptor(event.descriptor);
+                    out.writeLong(event.time);
+                    encoder.writeRef(event.parentId);
+                    break;
+                case COMPLETED:
+                    encoder.writeRef(event.testId);
+                    out.writeLong(event.time);
+                    out.writeByte(event.resultType == null ? -1 : event.resultType.ordinal());
+                    break;
+                case OUTPUT:
+                    encoder.writeRef(event.testId);
+                    out.writeByte(event.destination.ordinal());
+                    encoder.writeText(event.message);
+                    break;
+                case FAILURE:
+                    encoder.writeRef(event.testId);
+                    out.writeObject(event.failure);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected event type " + event.type);
+            }
+        }
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        Decoder decoder = new Decoder(in);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            byte type = in.readByte();
+            Event event;
+            switch (type) {
+                case STARTED:
+                    TestDescriptorInternal descriptor = decoder.readDescriptor();
+                    event = new Event(type, descriptor.getId());
+                    event.descriptor = descriptor;
+                    event.time = in.readLong();
+                    event.parentId = decoder.readRef();
+                    break;
+                case COMPLETED:
+                    event = new Event(type, decoder.readRef());
+                    event.time = in.readLong();
+                    byte resultType = in.readByte();
+                    event.resultType = resultType < 0 ? null : TestResult.ResultType.values()[resultType];
+                    break;
+                case OUTPUT:
+                    event = new Event(type, decoder.readRef());
+                    event.destination = TestOutputEvent.Destination.values()[in.readByte()];
+                    event.message = decoder.readText();
+                    outputLength += event.message.length();
+                    break;
+                case FAILURE:
+                    event = new Event(type, decoder.readRef());
+                    event.failure = (Throwable) in.readObject();
+                    break;
+                default:
+                    throw new IOException("Unexpected event type " + type);
+            }
+            events.add(event);
+        }
+    }
+
+    private static class Event {
+        private final byte type;
+        private final Object testId;
+        private TestDescriptorInternal descriptor;
+        private long time;
+        private Object parentId;
+        private TestResult.ResultType resultType;
+        private TestOutputEvent.Destination destination;
+        private String message;
+        private Throwable failure;
+
+        private Event(byte type, Object testId) {
+            this.type = type;
+            this.testId = testId;
+        }
+    }
+
+    private static class Encoder {
+        private final ObjectOutput out;
+        private final Map<Object, Integer> refs = new HashMap<Object, Integer>();
+
+        private Encoder(ObjectOutput out) {
+            this.out = out;
+        }
+
+        void writeDescriptor(TestDescriptorInternal descriptor) throws IOException {
+            Class<?> type = descriptor.getClass();
+            if (type == DefaultTestSuiteDescriptor.class) {
+                out.writeByte(SUITE_DESCRIPTOR);
+                writeRef(descriptor.getId());
+                writeRef(descriptor.getName());
+            } else if (type == DefaultTestClassDescriptor.class) {
+                out.writeByte(CLASS_DESCRIPTOR);
+                writeRef(descriptor.getId());
+                writeRef(descriptor.getClassName());
+            } else if (type == DefaultTestMethodDescriptor.class) {
+                out.writeByte(METHOD_DESCRIPTOR);
+                writeRef(descriptor.getId());
+                writeRef(descriptor.getClassName());
+                writeRef(descriptor.getName());
+            } else if (type == DefaultTestDescriptor.class) {
+                out.writeByte(TEST_DESCRIPTOR);
+                writeRef(descriptor.getId());
+                writeRef(descriptor.getClassName());
+                writeRef(descriptor.getName());
+            } else {
+                out.writeByte(OTHER_DESCRIPTOR);
+                out.writeObject(descriptor);
+            }
+        }
+
+        /**
+         * Writes an id or name. Values which have already been written to this batch are written as a reference to
+         * the earlier value.
+         */
+        void writeRef(Object value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL_REF);
+                return;
+            }
+            Integer ref = refs.get(value);
+            if (ref != null) {
+                out.writeInt(ref);
+                return;
+            }
+            refs.put(value, refs.size());
+            out.writeInt(NEW_REF);
+            if (value instanceof String && ((String) value).length() <= MAX_UTF_LENGTH) {
+                out.writeBoolean(true);
+                out.writeUTF((String) value);
+            } else {
+                out.writeBoolean(false);
+                out.writeObject(value);
+            }
+        }
+
+        void writeText(String text) throws IOException {
+            if (text.length() <= MAX_UTF_LENGTH) {
+                out.writeBoolean(true);
+                out.writeUTF(text);
+            } else {
+                out.writeBoolean(false);
+                out.writeObject(text);
+            }
+        }
+    }
+
+    private static class Decoder {
+        private final ObjectInput in;
+        private final List<Object> refs = new ArrayList<Object>();
+
+        private Decoder(ObjectInput in) {
+            this.in = in;
+        }
+
+        TestDescriptorInternal readDescriptor() throws IOException, ClassNotFoundException {
+            byte type = in.readByte();
+            switch (type) {
+                case SUITE_DESCRIPTOR:
+                    return new DefaultTestSuiteDescriptor(readRef(), (String) readRef());
+                case CLASS_DESCRIPTOR:
+                    return new DefaultTestClassDescriptor(readRef(), (String) readRef());
+                case METHOD_DESCRIPTOR:
+                    return new DefaultTestMethodDescriptor(readRef(), (String) readRef(), (String) readRef());
+                case TEST_DESCRIPTOR:
+                    return new DefaultTestDescriptor(readRef(), (String) readRef(), (String) readRef());
+                case OTHER_DESCRIPTOR:
+                    return (TestDescriptorInternal) in.readObject();
+                default:
+                    throw new IOException("Unexpected descriptor type " + type);
+            }
+        }
+
+        Object readRef() throws IOException, ClassNotFoundException {
+            int ref = in.readInt();
+            if (ref == NULL_REF) {
+                return null;
+            }
+            if (ref != NEW_REF) {
+                return refs.get(ref);
+            }
+            Object value = in.readBoolean() ? in.readUTF() : in.readObject();
+            refs.add(value);
+            return value;
+        }
+
+        String readText() throws IOException, ClassNotFoundException {
+            return in.readBoolean() ? in.readUTF() : (String) in.readObject();
+        }
+    }
+}
@@ -38,19 +38,32 @@ import org.gradle.process.internal.WorkerProcessContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.Serializable;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClassProcessor, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWorker.class);
     public static final String WORKER_ID_SYS_PROPERTY = "org.gradle.test.worker";
     private final WorkerTestClassProcessorFactory factory;
+    private final List<File> dependencyClassDirs;
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private BatchingTestResultProcessor batchingResultProcessor;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
+        this(factory, null);
+    }
+
+    /**
+     * @param dependencyClassDirs The class directories whose classes should be reported to the {@link
+     * TestClassDependencyListener} as they are loaded. Use null to not report loaded classes.
+     */
+    public TestWorker(WorkerTestClassProcessorFactory factory, List<File> dependencyClassDirs) {
         this.factory = factory;
+        this.dependencyClassDirs = dependencyClassDirs;
     }
 
     public void execute(final WorkerProcessContext workerProcessContext) {
@@ -86,7 +99,14 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         processor = proxy.getSource();
 
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
-        this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        batchingResultProcessor = new BatchingTestResultProcessor(serverConnection.addOutgoing(TestEventBatchProcessor.class),
+                testServices.get(ExecutorFactory.class));
+        this.resultProcessor = batchingResultProcessor;
+        if (dependencyClassDirs != null) {
+            LoadedClassTracker loadedClassTracker = new LoadedClassTracker(dependencyClassDirs, workerProcessContext.getApplicationClassLoader());
+            this.resultProcessor = new DependencyRecordingTestResultProcessor(resultProcessor, loadedClassTracker,
+                    serverConnection.addOutgoing(TestClassDependencyListener.class));
+        }
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
     }
 
@@ -105,7 +125,11 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
 
     public void stop() {
         try {
-            processor.stop();
+            try {
+                processor.stop();
+            } finally {
+                batchingResultProcessor.stop();
+            }
         } finally {
             completed.countDown();
         }
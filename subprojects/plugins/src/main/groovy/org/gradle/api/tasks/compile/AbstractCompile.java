@@ -37,7 +37,7 @@ public abstract class AbstractCompile extends SourceTask {
      *
      * @return The classpath.
      */
-    @InputFiles
+    @InputFiles @CompileClasspath
     public FileCollection getClasspath() {
         return classpath;
     }
@@ -41,7 +41,7 @@ public class Compile extends AbstractCompile {
 
     public Compile() {
         Factory<AntBuilder> antBuilderFactory = getServices().getFactory(AntBuilder.class);
-        JavaCompilerFactory inProcessCompilerFactory = new InProcessJavaCompilerFactory();
+        JavaCompilerFactory inProcessCompilerFactory = getServices().get(InProcessJavaCompilerFactory.class);
         ProjectInternal projectInternal = (ProjectInternal) getProject();
         TemporaryFileProvider tempFileProvider = projectInternal.getServices().get(TemporaryFileProvider.class);
         JavaCompilerFactory defaultCompilerFactory = new DefaultJavaCompilerFactory(projectInternal, tempFileProvider, antBuilderFactory, inProcessCompilerFactory);
@@ -215,6 +215,26 @@ public class CompileOptions extends AbstractOptions {
         this.useDepend = useDepend;
     }
 
+    /**
+     * Specifies whether to recompile only the source files affected by the changes since the previous compilation.
+     * When {@code true}, the dependencies between the compiled classes are recorded, and only the changed source files
+     * plus the source files of the classes depending on them are recompiled. All source files are recompiled when the
+     * compile classpath or compile options change. The default is {@code false}.
+     *
+     * <p>For Groovy compile tasks, this applies to both the Groovy and the Java source files.</p>
+     *
+     * <p>This is an experimental feature. It takes precedence over {@link #isUseDepend()}.</p>
+     */
+    private boolean incremental;
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
     /**
      * The options for using the Ant {@code <depend>} task.
      */
@@ -347,7 +367,7 @@ public class CompileOptions extends AbstractOptions {
     }
 
     protected List<String> excludedFieldsFromOptionMap() {
-        return Arrays.asList("debugOptions", "forkOptions", "compilerArgs", "dependOptions", "useDepend", "useAnt");
+        return Arrays.asList("debugOptions", "forkOptions", "compilerArgs", "dependOptions", "useDepend", "useAnt", "incremental");
     }
 
     protected Map<String, String> fieldName2AntMap() {
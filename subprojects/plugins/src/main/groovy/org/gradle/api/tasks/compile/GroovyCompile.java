@@ -51,7 +51,7 @@ public class GroovyCompile extends AbstractCompile {
         IsolatedAntBuilder antBuilder = getServices().get(IsolatedAntBuilder.class);
         ClassPathRegistry classPathRegistry = getServices().get(ClassPathRegistry.class);
         Factory<AntBuilder> antBuilderFactory = getServices().getFactory(AntBuilder.class);
-        JavaCompilerFactory inProcessCompilerFactory = new InProcessJavaCompilerFactory();
+        JavaCompilerFactory inProcessCompilerFactory = getServices().get(InProcessJavaCompilerFactory.class);
         tempFileProvider = projectInternal.getServices().get(TemporaryFileProvider.class);
         DefaultJavaCompilerFactory javaCompilerFactory = new DefaultJavaCompilerFactory(projectInternal, tempFileProvider, antBuilderFactory, inProcessCompilerFactory);
         javaCompilerFactory.setGroovyJointCompilation(false);
@@ -69,6 +69,7 @@ public class GroovyCompile extends AbstractCompile {
         spec.setSourceCompatibility(getSourceCompatibility());
         spec.setTargetCompatibility(getTargetCompatibility());
         spec.setGroovyClasspath(taskClasspath);
+        spec.setDependencyCacheDir(getTemporaryDir());
         if (spec.getGroovyCompileOptions().getStubDir() == null) {
             File dir = tempFileProvider.newTemporaryFile("groovy-java-stubs");
             dir.mkdirs();
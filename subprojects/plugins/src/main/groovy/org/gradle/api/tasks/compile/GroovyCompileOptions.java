@@ -18,6 +18,7 @@ package org.gradle.api.tasks.compile;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.gradle.api.tasks.Input;
+import org.gradle.util.DeprecationLogger;
 
 import java.io.File;
 import java.util.List;
@@ -159,13 +160,24 @@ public class GroovyCompileOptions extends AbstractOptions {
         this.stubDir = stubDir;
     }
 
+    /**
+     * Has no effect. The Java stubs generated for joint compilation are always kept in the stub directory, so that
+     * they can be reused by later compilations.
+     *
+     * @deprecated The stubs are always kept.
+     */
+    @Deprecated
     private boolean keepStubs;
 
+    @Deprecated
     public boolean isKeepStubs() {
         return keepStubs;
     }
 
+    @Deprecated
     public void setKeepStubs(boolean keepStubs) {
+        DeprecationLogger.nagUserOfDiscontinuedProperty("GroovyCompileOptions.keepStubs",
+                "The Java stubs are always kept in the stub directory, so that they can be reused by later compilations.");
         this.keepStubs = keepStubs;
     }
 
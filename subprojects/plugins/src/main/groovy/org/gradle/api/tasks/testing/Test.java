@@ -22,6 +22,8 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.changedetection.FileSnapshotter;
+import org.gradle.api.internal.changedetection.TaskArtifactStateCacheAccess;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
@@ -103,6 +105,8 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private boolean scanForTestClasses = true;
     private long forkEvery;
     private int maxParallelForks = 1;
+    private int maxParallelTestClassesPerFork = 1;
+    private boolean selectImpactedTests;
     private ListenerBroadcast<TestListener> testListenerBroadcaster;
     private final ListenerBroadcast<TestOutputListener> testOutputListenerBroadcaster;
     private final TestLogging testLogging = new DefaultTestLogging();
@@ -112,7 +116,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
                 TestListener.class);
         testOutputListenerBroadcaster = getServices().get(ListenerManager.class).createAnonymousBroadcaster(TestOutputListener.class);
         this.testExecuter = new DefaultTestExecuter(getServices().getFactory(WorkerProcessBuilder.class), getServices().get(
-                ActorFactory.class));
+                ActorFactory.class), getServices().get(FileSnapshotter.class), getServices().get(TaskArtifactStateCacheAccess.class));
         options = new DefaultJavaForkOptions(getServices().get(FileResolver.class));
         options.setEnableAssertions(true);
     }
@@ -892,6 +896,56 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Returns the maximum number of test classes to execute in parallel within each forked test process. The default
+     * value is 1 (test classes are executed one at a time by each test process).
+     *
+     * <p>The output written by a test to System.out and System.err is attributed to the test which wrote it, provided
+     * the output is written by the thread executing the test, or a thread created by it. This setting is currently
+     * only supported for JUnit.</p>
+     *
+     * @return The maximum number of test classes to execute in parallel within each test process.
+     */
+    public int getMaxParallelTestClassesPerFork() {
+        return getDebug() ? 1 : maxParallelTestClassesPerFork;
+    }
+
+    /**
+     * Sets the maximum number of test classes to execute in parallel within each forked test process. Set to 1 to
+     * disable parallel test execution within a test process.
+     *
+     * @param maxParallelTestClassesPerFork The maximum number of test classes to execute in parallel within each test
+     * process.
+     */
+    public void setMaxParallelTestClassesPerFork(int maxParallelTestClassesPerFork) {
+        if (maxParallelTestClassesPerFork < 1) {
+            throw new IllegalArgumentException("Cannot set maxParallelTestClassesPerFork to a value less than 1.");
+        }
+        this.maxParallelTestClassesPerFork = maxParallelTestClassesPerFork;
+    }
+
+    /**
+     * Specifies whether only the test classes affected by changes since the previous execution of this task should be
+     * executed. When {@code true}, the classes loaded by each test class are recorded, and on the next execution only
+     * those test classes which loaded a changed class, plus those which failed, are executed. All test classes are
+     * executed when the JVM settings change, or when anything other than a class file in a classpath directory changes.
+     * The default value is {@code false}.
+     *
+     * <p>A class is only loaded once by a forked test process, so a test class is treated as depending on all classes
+     * loaded by its test process before it completed. Use {@link #setForkEvery(Long)} to make the selection more
+     * precise.</p>
+     *
+     * <p>This is an experimental feature.</p>
+     */
+    @Input
+    public boolean isSelectImpactedTests() {
+        return selectImpactedTests;
+    }
+
+    public void setSelectImpactedTests(boolean selectImpactedTests) {
+        this.selectImpactedTests = selectImpactedTests;
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
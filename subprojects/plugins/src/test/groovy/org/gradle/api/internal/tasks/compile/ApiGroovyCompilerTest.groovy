@@ -0,0 +1,179 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.tasks.WorkResult
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.ToolProvider
+
+class ApiGroovyCompilerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    final List<Map<String, Object>> javaCompilations = []
+    final Compiler<JavaCompileSpec> javaCompiler = new Compiler<JavaCompileSpec>() {
+        WorkResult execute(JavaCompileSpec spec) {
+            javaCompilations << [source: spec.source.files, destinationDir: spec.destinationDir, destinationContent: listClasses(spec.destinationDir)]
+            def args = ['-d', spec.destinationDir.path, '-classpath', spec.classpath.collect { it.path }.join(File.pathSeparator)]
+            args.addAll(spec.compileOptions.compilerArgs)
+            args.addAll(spec.source.files.collect { it.path })
+            if (ToolProvider.systemJavaCompiler.run(null, null, null, args as String[]) != 0) {
+                throw new CompilationFailedException()
+            }
+            return new SimpleWorkResult(true)
+        }
+    }
+    final ApiGroovyCompiler compiler = new ApiGroovyCompiler(javaCompiler)
+    final DefaultGroovyJavaJointCompileSpec spec = new DefaultGroovyJavaJointCompileSpec()
+    TestFile destinationDir
+    TestFile stubDir
+    TestFile independentJava
+    TestFile dependentJava
+    TestFile groovy
+
+    def setup() {
+        destinationDir = tmpDir.createDir('classes')
+        stubDir = tmpDir.createDir('stubs')
+        independentJava = tmpDir.file('src/Independent.java').write('public class Independent { }')
+        dependentJava = tmpDir.file('src/Dependent.java').write('public class Dependent extends GroovyThing { }')
+        groovy = tmpDir.file('src/GroovyThing.groovy').write('class GroovyThing { Independent independent }')
+        spec.destinationDir = destinationDir
+        spec.classpath = []
+        spec.groovyCompileOptions.stubDir = stubDir
+    }
+
+    def "compiles independent Java sources into a separate directory before the dependent Java sources"() {
+        when:
+        compile(independentJava, dependentJava, groovy)
+
+        then:
+        javaCompilations.size() == 2
+        javaCompilations[0].source == [independentJava] as Set
+        javaCompilations[0].destinationDir != destinationDir
+        javaCompilations[1].source == [dependentJava] as Set
+        javaCompilations[1].destinationDir == destinationDir
+        javaCompilations[1].destinationContent == ['Independent.class']
+        listClasses(destinationDir) == ['Dependent.class', 'GroovyThing.class', 'Independent.class']
+        !javaCompilations[0].destinationDir.exists()
+    }
+
+    def "compiles only independent Java sources when no Java source depends on the Groovy sources"() {
+        when:
+        compile(independentJava, groovy)
+
+        then:
+        javaCompilations.size() == 1
+        javaCompilations[0].source == [independentJava] as Set
+        listClasses(destinationDir) == ['GroovyThing.class', 'Independent.class']
+        stubDir.list() as List == []
+    }
+
+    def "does not rewrite stubs when their content has not changed"() {
+        given:
+        compile(independentJava, dependentJava, groovy)
+        def stub = stubDir.file('GroovyThing.java').assertIsFile()
+        stub.text = stub.text + '// kept'
+        cleanDestinationDir()
+
+        when:
+        compile(independentJava, dependentJava, groovy)
+
+        then:
+        stub.text.endsWith('// kept')
+    }
+
+    def "does not rewrite stubs when only the implementation of the Groovy sources has changed"() {
+        given:
+        groovy.write('class GroovyThing { Independent independent; void run() { println "a" } }')
+        compile(independentJava, dependentJava, groovy)
+        def stub = stubDir.file('GroovyThing.java')
+        stub.text = stub.text + '// kept'
+        cleanDestinationDir()
+        groovy.write('class GroovyThing { Independent independent; void run() { println "b" } }')
+
+        when:
+        compile(independentJava, dependentJava, groovy)
+
+        then:
+        stub.text.endsWith('// kept')
+    }
+
+    def "does not rewrite stubs when only the classpath has changed"() {
+        given:
+        compile(independentJava, dependentJava, groovy)
+        def stub = stubDir.file('GroovyThing.java')
+        stub.text = stub.text + '// kept'
+        cleanDestinationDir()
+        spec.classpath = [tmpDir.createDir('lib')]
+
+        when:
+        compile(independentJava, dependentJava, groovy)
+
+        then:
+        stub.text.endsWith('// kept')
+    }
+
+    def "rewrites stubs when the signatures of the Groovy sources have changed"() {
+        given:
+        compile(independentJava, dependentJava, groovy)
+        def stub = stubDir.file('GroovyThing.java')
+        stub.text = stub.text + '// kept'
+        cleanDestinationDir()
+        groovy.write('class GroovyThing { Independent independent; String name }')
+
+        when:
+        compile(independentJava, dependentJava, groovy)
+
+        then:
+        !stub.text.endsWith('// kept')
+        stub.text.contains('getName')
+    }
+
+    def "removes stubs of Groovy classes which no longer exist"() {
+        given:
+        def otherGroovy = tmpDir.file('src/OtherGroovyThing.groovy').write('class OtherGroovyThing { }')
+        compile(independentJava, dependentJava, groovy, otherGroovy)
+        stubDir.file('OtherGroovyThing.java').assertIsFile()
+        cleanDestinationDir()
+
+        when:
+        compile(independentJava, dependentJava, groovy)
+
+        then:
+        !stubDir.file('OtherGroovyThing.java').exists()
+        stubDir.file('GroovyThing.java').assertIsFile()
+    }
+
+    def compile(File... sources) {
+        javaCompilations.clear()
+        spec.source = new SimpleFileCollection(sources)
+        spec.compileOptions.compilerArgs = []
+        compiler.execute(spec)
+        // The compiler adds the destination directory to the classpath
+        spec.classpath = spec.classpath.findAll { it != destinationDir }
+    }
+
+    def cleanDestinationDir() {
+        destinationDir.listFiles().each { it.delete() }
+    }
+
+    static List<String> listClasses(File dir) {
+        return dir.list().findAll { it.endsWith('.class') }.sort()
+    }
+}
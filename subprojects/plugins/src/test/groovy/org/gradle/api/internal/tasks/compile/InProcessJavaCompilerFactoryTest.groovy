@@ -15,14 +15,16 @@
  */
 package org.gradle.api.internal.tasks.compile
 
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.initialization.BuildProcess
 import org.gradle.util.Requires
 import org.gradle.util.TestPrecondition
-import org.gradle.api.tasks.compile.CompileOptions
 
 import spock.lang.Specification
 
 class InProcessJavaCompilerFactoryTest extends Specification {
-    def factory = new InProcessJavaCompilerFactory()
+    def fileManagerPool = new SharedJavaFileManagerPool()
+    def factory = new InProcessJavaCompilerFactory(fileManagerPool, new BuildProcess(false))
     def options = new CompileOptions()
     
     @Requires(TestPrecondition.JDK6)
@@ -31,6 +33,42 @@ class InProcessJavaCompilerFactoryTest extends Specification {
         factory.create(options).getClass().name == "org.gradle.api.internal.tasks.compile.jdk6.Jdk6JavaCompiler"
     }
 
+    @Requires(TestPrecondition.JDK6)
+    def "JDK 6 compilers share a file manager pool until stopped when the process runs a single build"() {
+        when:
+        def compiler1 = factory.create(options)
+        def compiler2 = factory.create(options)
+
+        then:
+        compiler1.pool != null
+        compiler1.pool.is(compiler2.pool)
+
+        when:
+        factory.stop()
+
+        then:
+        compiler1.pool.stopped
+        !factory.create(options).pool.is(compiler1.pool)
+    }
+
+    @Requires(TestPrecondition.JDK6)
+    def "JDK 6 compilers of later builds share the file manager pool when the process is long lived"() {
+        def firstBuildFactory = new InProcessJavaCompilerFactory(fileManagerPool, new BuildProcess(true))
+        def secondBuildFactory = new InProcessJavaCompilerFactory(fileManagerPool, new BuildProcess(true))
+
+        when:
+        def compiler1 = firstBuildFactory.create(options)
+        firstBuildFactory.stop()
+        def compiler2 = secondBuildFactory.create(options)
+
+        then:
+        !compiler1.pool.stopped
+        compiler1.pool.is(compiler2.pool)
+
+        cleanup:
+        fileManagerPool.stop()
+    }
+
     @Requires(TestPrecondition.JDK5)
     def "creates Sun compiler on JDK 5"() {
         expect:
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class JavaSourcePartitionerTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final JavaSourcePartitioner partitioner = new JavaSourcePartitioner(null, null)
+
+    def "Java sources which do not mention Groovy types are independent"() {
+        def groovy = tmpDir.file('GroovyThing.groovy').write('class GroovyThing { }')
+        def java = tmpDir.file('JavaThing.java').write('public class JavaThing { String name; }')
+
+        expect:
+        partitioner.findIndependentJavaSources([groovy], [java]) == [java] as Set
+    }
+
+    def "Java sources which mention Groovy types are dependent"() {
+        def groovy = tmpDir.file('GroovyThing.groovy').write('class GroovyThing { }\ninterface OtherGroovyThing { }')
+        def java1 = tmpDir.file('Java1.java').write('public class Java1 { GroovyThing thing; }')
+        def java2 = tmpDir.file('Java2.java').write('public class Java2 implements org.test.OtherGroovyThing { }')
+        def java3 = tmpDir.file('Java3.java').write('public class Java3 { }')
+
+        expect:
+        partitioner.findIndependentJavaSources([groovy], [java1, java2, java3]) == [java3] as Set
+    }
+
+    def "Java sources which mention dependent Java types are dependent"() {
+        def groovy = tmpDir.file('GroovyThing.groovy').write('class GroovyThing { }')
+        def java1 = tmpDir.file('Java1.java').write('public class Java1 { Java2 other; }')
+        def java2 = tmpDir.file('Java2.java').write('public class Java2 { Java3 other; }')
+        def java3 = tmpDir.file('Java3.java').write('public class Java3 { GroovyThing thing; }')
+        def java4 = tmpDir.file('Java4.java').write('public class Java4 { }')
+
+        expect:
+        partitioner.findIndependentJavaSources([groovy], [java1, java2, java3, java4]) == [java4] as Set
+    }
+
+    def "all Java sources are independent when there are no Groovy sources"() {
+        def java1 = tmpDir.file('Java1.java').write('public class Java1 { Java2 other; }')
+        def java2 = tmpDir.file('Java2.java').write('public class Java2 { }')
+
+        expect:
+        partitioner.findIndependentJavaSources([], [java1, java2]) == [java1, java2] as Set
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.BuildListener
+import org.gradle.StartParameter
+import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ServiceRegistryFactory
+import org.gradle.api.logging.LogLevel
+import org.gradle.initialization.BuildProcess
+import org.gradle.internal.TimeProvider
+import spock.lang.Specification
+
+class CompilerDaemonManagerTest extends Specification {
+    def starter = Mock(CompilerDaemonStarter)
+    def timeProvider = Mock(TimeProvider)
+    def project = Mock(ProjectInternal)
+    def rootProject = Mock(ProjectInternal)
+    def gradle = Mock(GradleInternal)
+    def services = Mock(ServiceRegistryFactory)
+    def startParameter = new StartParameter()
+    def buildProcess = new BuildProcess(true)
+    def forkOptions = new DaemonForkOptions("128m", "1g", [])
+    def otherForkOptions = new DaemonForkOptions("128m", "2g", [])
+    def manager = new CompilerDaemonManager(starter, 2, 1000, timeProvider)
+    long now = 0
+
+    def setup() {
+        _ * project.rootProject >> rootProject
+        _ * rootProject.projectDir >> new File("root")
+        _ * timeProvider.currentTime >> { now }
+        _ * project.gradle >> gradle
+        _ * gradle.startParameter >> startParameter
+        _ * project.services >> services
+        _ * services.get(BuildProcess) >> { buildProcess }
+    }
+
+    def "reuses idle compatible daemon"() {
+        def daemon = daemon()
+
+        when:
+        def first = manager.getDaemon(project, forkOptions)
+        manager.release(first)
+        def second = manager.getDaemon(project, forkOptions)
+
+        then:
+        1 * starter.startDaemon(project, forkOptions) >> daemon
+        first == daemon
+        second == daemon
+    }
+
+    def "starts new daemon when compatible daemon is busy"() {
+        def daemon1 = daemon()
+        def daemon2 = daemon()
+
+        when:
+        def first = manager.getDaemon(project, forkOptions)
+        def second = manager.getDaemon(project, forkOptions)
+
+        then:
+        2 * starter.startDaemon(project, forkOptions) >>> [daemon1, daemon2]
+        first == daemon1
+        second == daemon2
+    }
+
+    def "starts new daemon when idle daemon is not compatible"() {
+        def daemon1 = daemon()
+        def daemon2 = daemon()
+
+        when:
+        manager.release(manager.getDaemon(project, forkOptions))
+        def daemon = manager.getDaemon(project, otherForkOptions)
+
+        then:
+        1 * starter.startDaemon(project, forkOptions) >> daemon1
+        1 * starter.startDaemon(project, otherForkOptions) >> daemon2
+        daemon == daemon2
+        0 * daemon1.stop()
+    }
+
+    def "starts new daemon when idle daemon was started with a different log level"() {
+        def daemon1 = daemon()
+        def daemon2 = daemon()
+
+        when:
+        manager.release(manager.getDaemon(project, forkOptions))
+        startParameter.logLevel = LogLevel.DEBUG
+        def daemon = manager.getDaemon(project, forkOptions)
+
+        then:
+        2 * starter.startDaemon(project, forkOptions) >>> [daemon1, daemon2]
+        daemon == daemon2
+    }
+
+    def "stops daemons when the build finishes when not running in the Gradle daemon"() {
+        def daemon1 = daemon()
+        BuildListener listener = null
+        buildProcess = new BuildProcess(false)
+
+        given:
+        starter.startDaemon(project, forkOptions) >> daemon1
+
+        when:
+        manager.release(manager.getDaemon(project, forkOptions))
+
+        then:
+        1 * gradle.addBuildListener(_) >> { BuildListener l -> listener = l }
+
+        when:
+        listener.buildFinished(null)
+
+        then:
+        1 * daemon1.stop()
+    }
+
+    def "keeps daemons when the build finishes when running in the Gradle daemon"() {
+        def daemon1 = daemon()
+
+        given:
+        starter.startDaemon(project, forkOptions) >> daemon1
+
+        when:
+        manager.release(manager.getDaemon(project, forkOptions))
+
+        then:
+        0 * gradle.addBuildListener(_)
+        0 * daemon1.stop()
+    }
+
+    def "replaces least recently used idle daemon when maximum number of daemons are running"() {
+        def daemon1 = daemon()
+        def daemon2 = daemon()
+        def daemon3 = daemon()
+        starter.startDaemon(project, forkOptions) >>> [daemon1, daemon2]
+        starter.startDaemon(project, otherForkOptions) >> daemon3
+
+        given:
+        def first = manager.getDaemon(project, forkOptions)
+        def second = manager.getDaemon(project, forkOptions)
+        now = 10
+        manager.release(first)
+        now = 20
+        manager.release(second)
+
+        when:
+        def daemon = manager.getDaemon(project, otherForkOptions)
+
+        then:
+        1 * daemon1.stop()
+        0 * daemon2.stop()
+        daemon == daemon3
+    }
+
+    def "stops daemons which have been idle for too long"() {
+        def daemon1 = daemon()
+        def daemon2 = daemon()
+        starter.startDaemon(project, forkOptions) >>> [daemon1, daemon2]
+
+        given:
+        manager.release(manager.getDaemon(project, forkOptions))
+        now = 1001
+
+        when:
+        def daemon = manager.getDaemon(project, forkOptions)
+
+        then:
+        1 * daemon1.stop()
+        daemon == daemon2
+    }
+
+    def "stops all daemons"() {
+        def daemon1 = daemon()
+        def daemon2 = daemon()
+        starter.startDaemon(project, forkOptions) >>> [daemon1, daemon2]
+
+        given:
+        manager.getDaemon(project, forkOptions)
+        manager.release(manager.getDaemon(project, forkOptions))
+
+        when:
+        manager.stop()
+
+        then:
+        1 * daemon1.stop()
+        1 * daemon2.stop()
+    }
+
+    def daemon() {
+        def daemon = Mock(CompilerDaemon)
+        _ * daemon.isCompatibleWith(_) >> { DaemonForkOptions options -> options.is(forkOptions) }
+        return daemon
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental
+
+import spock.lang.Specification
+
+class ClassDependencyGraphTest extends Specification {
+    private final ClassDependencyGraph graph = new ClassDependencyGraph('settings')
+    private final File aSource = new File('A.java')
+    private final File bSource = new File('B.java')
+    private final File cSource = new File('C.java')
+
+    def setup() {
+        graph.add(analysis('A'), aSource)
+        graph.add(analysis('A$Inner', 'A'), aSource)
+        graph.add(analysis('B', 'A', 'java.lang.String'), bSource)
+        graph.add(analysis('C', 'B'), cSource)
+    }
+
+    def "finds classes compiled from source files"() {
+        expect:
+        graph.getClassesFor([aSource] as Set) == ['A', 'A$Inner'] as Set
+        graph.getClassesFor([cSource] as Set) == ['C'] as Set
+        graph.getClassesFor([new File('D.java')] as Set).empty
+    }
+
+    def "finds transitive dependents of classes"() {
+        expect:
+        graph.getDependents(['A'] as Set) == ['A$Inner', 'B', 'C'] as Set
+        graph.getDependents(['B'] as Set) == ['C'] as Set
+        graph.getDependents(['C'] as Set).empty
+    }
+
+    def "is incomplete when the source file of some class is not known"() {
+        expect:
+        graph.complete
+
+        when:
+        graph.add(analysis('D'), null)
+
+        then:
+        !graph.complete
+    }
+
+    def "can remove classes"() {
+        when:
+        graph.remove('B')
+
+        then:
+        !graph.contains('B')
+        graph.getDependents(['A'] as Set) == ['A$Inner'] as Set
+    }
+
+    private ClassAnalysis analysis(String className, String... dependencies) {
+        return new ClassAnalysis(className, className + '.java', dependencies as Set, [:])
+    }
+}
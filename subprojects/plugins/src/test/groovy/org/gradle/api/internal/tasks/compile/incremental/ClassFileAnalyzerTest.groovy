@@ -0,0 +1,99 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental
+
+import spock.lang.Specification
+
+class ClassFileAnalyzerTest extends Specification {
+    private final ClassFileAnalyzer analyzer = new ClassFileAnalyzer()
+
+    def "extracts class name, source file and dependencies"() {
+        when:
+        def analysis = analyzer.analyze(classFile(SomeClass))
+
+        then:
+        analysis.className == SomeClass.name
+        analysis.sourceFileName == 'ClassFileAnalyzerTest.groovy'
+        analysis.relativeSourcePath == 'org/gradle/api/internal/tasks/compile/incremental/ClassFileAnalyzerTest.groovy'
+        analysis.dependencies.containsAll([SomeDependency.name, FieldType.name, ParameterType.name])
+        !analysis.dependencies.contains(SomeClass.name)
+        analysis.constants.isEmpty()
+    }
+
+    def "extracts the values of non-private static compile-time constants"() {
+        expect:
+        analyzer.analyze(classFile(ClassWithConstants)).constants == [VALUE: 12, LONG_VALUE: 12L, TEXT: 'text']
+    }
+
+    def "includes classes used only in generic signatures"() {
+        when:
+        def analysis = analyzer.analyze(classFile(ClassWithGenerics))
+
+        then:
+        analysis.dependencies.containsAll([GenericBound.name, FieldTypeArgument.name, MethodTypeArgument.name, ParameterTypeArgument.name, LocalVariableTypeArgument.name])
+        !analysis.dependencies.contains('T')
+    }
+
+    def "includes classes used only in annotations"() {
+        when:
+        def analysis = analyzer.analyze(classFile(ClassWithAnnotations))
+
+        then:
+        analysis.dependencies.containsAll([TypeAnnotation.name, ClassAnnotationValue.name, FieldAnnotation.name, AnnotationEnum.name, ParameterAnnotation.name])
+    }
+
+    def "includes classes used only in annotation defaults"() {
+        expect:
+        analyzer.analyze(classFile(AnnotationWithDefault)).dependencies.contains(DefaultValue.name)
+    }
+
+    def "treats string constants which look like class names as dependencies when requested"() {
+        when:
+        def analysis = new ClassFileAnalyzer(true).analyze(classFile(ClassReferencingNames))
+
+        then:
+        analysis.dependencies.contains('org.gradle.SomeClass')
+        !analysis.dependencies.contains('not a class name')
+
+        and:
+        !analyzer.analyze(classFile(ClassReferencingNames)).dependencies.contains('org.gradle.SomeClass')
+    }
+
+    private File classFile(Class<?> type) {
+        return new File(type.getResource(type.simpleName + '.class').toURI())
+    }
+}
+
+class SomeClass extends SomeDependency {
+    FieldType field
+
+    void method(ParameterType[] parameter) {
+    }
+}
+
+class SomeDependency {
+}
+
+class FieldType {
+}
+
+class ParameterType {
+}
+
+class ClassReferencingNames {
+    String className = 'org.gradle.SomeClass'
+    String text = 'not a class name'
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@TypeAnnotation(ClassAnnotationValue.class)
+public class ClassWithAnnotations {
+    @FieldAnnotation(AnnotationEnum.VALUE)
+    String field;
+
+    void method(@ParameterAnnotation String parameter) {
+    }
+}
+
+@Retention(RetentionPolicy.CLASS)
+@interface TypeAnnotation {
+    Class<?> value();
+}
+
+@Retention(RetentionPolicy.RUNTIME)
+@interface FieldAnnotation {
+    AnnotationEnum value();
+}
+
+@Retention(RetentionPolicy.RUNTIME)
+@interface ParameterAnnotation {
+}
+
+@interface AnnotationWithDefault {
+    Class<?> value() default DefaultValue.class;
+}
+
+class ClassAnnotationValue {
+}
+
+enum AnnotationEnum {
+    VALUE
+}
+
+class DefaultValue {
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import java.util.List;
+import java.util.Map;
+
+public class ClassWithGenerics<T extends GenericBound> {
+    List<FieldTypeArgument> field;
+
+    Map<String, ? extends MethodTypeArgument> method(List<? super ParameterTypeArgument> parameter) {
+        List<LocalVariableTypeArgument> local = null;
+        return local == null ? null : null;
+    }
+}
+
+class GenericBound {
+}
+
+class FieldTypeArgument {
+}
+
+class MethodTypeArgument {
+}
+
+class ParameterTypeArgument {
+}
+
+class LocalVariableTypeArgument {
+}
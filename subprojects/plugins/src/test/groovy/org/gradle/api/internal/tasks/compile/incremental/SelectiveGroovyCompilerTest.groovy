@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter
+import org.gradle.api.internal.changedetection.DefaultHasher
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.compile.Compiler
+import org.gradle.api.internal.tasks.compile.DefaultGroovyJavaJointCompileSpec
+import org.gradle.api.internal.tasks.compile.GroovyJavaJointCompileSpec
+import org.gradle.api.internal.tasks.compile.SimpleWorkResult
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class SelectiveGroovyCompilerTest extends Specification {
+    private static final String PACKAGE_DIR = 'org/gradle/api/internal/tasks/compile/incremental'
+    private static final Map<String, List<Class<?>>> CLASSES = [
+            ClassWithClassNameString: [ClassWithClassNameString],
+            ReferencedByName: [ReferencedByName]
+    ]
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final Compiler<GroovyJavaJointCompileSpec> target = Mock()
+    private final TaskOutputsInternal taskOutputs = Mock()
+    private final DefaultFileSnapshotter snapshotter = new DefaultFileSnapshotter(new DefaultHasher())
+    private final SelectiveGroovyCompiler compiler = new SelectiveGroovyCompiler(target, taskOutputs, snapshotter)
+    private final SelectiveGroovyCompiler initialCompiler = new SelectiveGroovyCompiler({ GroovyJavaJointCompileSpec compileSpec -> compile(compileSpec) } as Compiler, taskOutputs, snapshotter)
+    private final DefaultGroovyJavaJointCompileSpec spec = new DefaultGroovyJavaJointCompileSpec()
+    private TestFile srcDir
+    private TestFile destDir
+    private final List<String> compiledSources = []
+
+    def setup() {
+        srcDir = tmpDir.createDir('src')
+        destDir = tmpDir.createDir('classes')
+        CLASSES.keySet().each { name -> sourceFile(name).write(name) }
+        taskOutputs.previousFiles >> new SimpleFileCollection()
+        spec.source = new FileTreeAdapter(new DirectoryFileTree(srcDir))
+        spec.destinationDir = destDir
+        spec.dependencyCacheDir = tmpDir.createDir('dependency-cache')
+        spec.classpath = []
+        spec.groovyClasspath = [tmpDir.file('lib/groovy.jar').write('groovy')]
+    }
+
+    def "recompiles the source files of classes which refer to a changed class by name"() {
+        given:
+        compileAll()
+
+        when:
+        sourceFile('ReferencedByName').text = 'changed'
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { GroovyJavaJointCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithClassNameString', 'ReferencedByName']
+    }
+
+    def "does not compile anything when no source file has changed"() {
+        given:
+        compileAll()
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        0 * target._
+    }
+
+    def "recompiles all source files when the Groovy compile options have changed"() {
+        given:
+        compileAll()
+
+        when:
+        spec.groovyCompileOptions.encoding = 'ISO-8859-1'
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { GroovyJavaJointCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithClassNameString', 'ReferencedByName']
+    }
+
+    def "recompiles all source files when the Groovy classpath has changed"() {
+        given:
+        compileAll()
+
+        when:
+        spec.groovyClasspath = [tmpDir.file('lib/groovy-other.jar').write('groovy')]
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { GroovyJavaJointCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithClassNameString', 'ReferencedByName']
+    }
+
+    private void compileAll() {
+        initialCompiler.execute(spec)
+        compiledSources.clear()
+    }
+
+    private SimpleWorkResult compile(GroovyJavaJointCompileSpec compileSpec) {
+        compileSpec.source.files.collect { it.name - '.java' }.sort().each { name ->
+            compiledSources << name
+            CLASSES[name].each { type ->
+                classFile(type).copyFrom(type.getResource(type.simpleName + '.class'))
+            }
+        }
+        return new SimpleWorkResult(true)
+    }
+
+    private TestFile sourceFile(String name) {
+        return srcDir.file("${PACKAGE_DIR}/${name}.java")
+    }
+
+    private TestFile classFile(Class<?> type) {
+        return destDir.file("${PACKAGE_DIR}/${type.simpleName}.class")
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.TaskOutputsInternal
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter
+import org.gradle.api.internal.changedetection.DefaultHasher
+import org.gradle.api.internal.file.collections.DirectoryFileTree
+import org.gradle.api.internal.file.collections.FileTreeAdapter
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.compile.Compiler
+import org.gradle.api.internal.tasks.compile.DefaultJavaCompileSpec
+import org.gradle.api.internal.tasks.compile.JavaCompileSpec
+import org.gradle.api.internal.tasks.compile.SimpleWorkResult
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class SelectiveJavaCompilerTest extends Specification {
+    private static final String PACKAGE_DIR = 'org/gradle/api/internal/tasks/compile/incremental'
+    private static final Map<String, List<Class<?>>> CLASSES = [
+            ClassWithGenerics: [ClassWithGenerics, GenericBound, FieldTypeArgument, MethodTypeArgument, ParameterTypeArgument, LocalVariableTypeArgument],
+            ClassWithConstants: [ClassWithConstants],
+            ClassWithAnnotations: [ClassWithAnnotations, ClassAnnotationValue, AnnotationEnum, DefaultValue]
+    ]
+
+    @Rule
+    public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final Compiler<JavaCompileSpec> target = Mock()
+    private final TaskOutputsInternal taskOutputs = Mock()
+    private final DefaultFileSnapshotter snapshotter = new DefaultFileSnapshotter(new DefaultHasher())
+    private final SelectiveJavaCompiler<JavaCompileSpec> compiler = new SelectiveJavaCompiler<JavaCompileSpec>(target, taskOutputs, snapshotter)
+    private final SelectiveJavaCompiler<JavaCompileSpec> initialCompiler = new SelectiveJavaCompiler<JavaCompileSpec>({ JavaCompileSpec compileSpec -> compile(compileSpec) } as Compiler, taskOutputs, snapshotter)
+    private final DefaultJavaCompileSpec spec = new DefaultJavaCompileSpec()
+    private TestFile srcDir
+    private TestFile destDir
+    private TestFile classpathJar
+    private final List<String> compiledSources = []
+    private final List<File> compiledClasspath = []
+
+    def setup() {
+        srcDir = tmpDir.createDir('src')
+        destDir = tmpDir.createDir('classes')
+        classpathJar = tmpDir.file('lib/lib.jar').write('lib')
+        CLASSES.keySet().each { name -> sourceFile(name).write(name) }
+        taskOutputs.previousFiles >> new SimpleFileCollection()
+        spec.source = new FileTreeAdapter(new DirectoryFileTree(srcDir))
+        spec.destinationDir = destDir
+        spec.dependencyCacheDir = tmpDir.createDir('dependency-cache')
+        spec.classpath = [classpathJar]
+    }
+
+    def "compiles all source files and deletes stale class files when there is no previous state"() {
+        def staleClass = destDir.createFile("${PACKAGE_DIR}/Stale.class")
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        1 * taskOutputs.previousFiles >> new SimpleFileCollection(staleClass)
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithAnnotations', 'ClassWithConstants', 'ClassWithGenerics']
+        !staleClass.exists()
+        classFile(ClassWithGenerics).exists()
+    }
+
+    def "recompiles only the changed source files and the source files of their dependents"() {
+        given:
+        compileAll()
+
+        when:
+        sourceFile('ClassWithGenerics').text = 'changed'
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithGenerics']
+        compiledClasspath == [destDir, classpathJar]
+
+        and:
+        spec.source.files == [sourceFile('ClassWithAnnotations'), sourceFile('ClassWithConstants'), sourceFile('ClassWithGenerics')] as Set
+        spec.classpath == [classpathJar]
+    }
+
+    def "does not compile anything when no source file has changed"() {
+        given:
+        compileAll()
+
+        when:
+        compiler.execute(spec)
+
+        then:
+        0 * target._
+    }
+
+    def "deletes the class files produced by the previous compilation before recompiling all source files"() {
+        given:
+        compileAll()
+        def unrelatedFile = destDir.createFile('resource.txt')
+
+        when:
+        spec.sourceCompatibility = '1.6'
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec ->
+            assert !classFile(ClassWithGenerics).exists()
+            assert !classFile(ClassWithConstants).exists()
+            assert !classFile(AnnotationEnum).exists()
+            compile(compileSpec)
+        }
+        0 * taskOutputs._
+        compiledSources == ['ClassWithAnnotations', 'ClassWithConstants', 'ClassWithGenerics']
+        unrelatedFile.exists()
+    }
+
+    def "recompiles only the changed source file when the constants it declares keep their values"() {
+        given:
+        compileAll()
+
+        when:
+        sourceFile('ClassWithConstants').text = 'changed'
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithConstants']
+        compiledClasspath == [destDir, classpathJar]
+    }
+
+    def "recompiles all source files when a constant is removed"() {
+        given:
+        compileAll()
+
+        when:
+        sourceFile('ClassWithConstants').delete()
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec ->
+            assert !classFile(ClassWithGenerics).exists()
+            compile(compileSpec)
+        }
+        compiledSources == ['ClassWithAnnotations', 'ClassWithGenerics']
+        compiledClasspath == [classpathJar]
+        !classFile(ClassWithConstants).exists()
+    }
+
+    def "recompiles all source files with the original classpath when the classpath has changed"() {
+        given:
+        compileAll()
+
+        when:
+        classpathJar.write('changed')
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithAnnotations', 'ClassWithConstants', 'ClassWithGenerics']
+        compiledClasspath == [classpathJar]
+    }
+
+    def "recompiles all source files when a class file has been removed"() {
+        given:
+        compileAll()
+
+        when:
+        classFile(FieldTypeArgument).delete()
+        compiler.execute(spec)
+
+        then:
+        1 * target.execute(spec) >> { JavaCompileSpec compileSpec -> compile(compileSpec) }
+        compiledSources == ['ClassWithAnnotations', 'ClassWithConstants', 'ClassWithGenerics']
+        classFile(FieldTypeArgument).exists()
+    }
+
+    private void compileAll() {
+        initialCompiler.execute(spec)
+        compiledSources.clear()
+        compiledClasspath.clear()
+    }
+
+    private SimpleWorkResult compile(JavaCompileSpec compileSpec) {
+        compiledClasspath.addAll(compileSpec.classpath)
+        compileSpec.source.files.collect { it.name - '.java' }.sort().each { name ->
+            compiledSources << name
+            CLASSES[name].each { type ->
+                classFile(type).copyFrom(type.getResource(type.simpleName + '.class'))
+            }
+        }
+        return new SimpleWorkResult(true)
+    }
+
+    private TestFile sourceFile(String name) {
+        return srcDir.file("${PACKAGE_DIR}/${name}.java")
+    }
+
+    private TestFile classFile(Class<?> type) {
+        return destDir.file("${PACKAGE_DIR}/${type.simpleName}.class")
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.compile.jdk6
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.ToolProvider
+import java.nio.charset.Charset
+
+class JavaFileManagerPoolTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+    private final JavaFileManagerPool pool = new JavaFileManagerPool(ToolProvider.systemJavaCompiler, 2, 100)
+
+    def "reuses released file manager"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+
+        when:
+        def fileManager = pool.acquire(null)
+        pool.release(fileManager, [jar], true)
+
+        then:
+        pool.acquire(null) == fileManager
+    }
+
+    def "does not reuse file manager which cannot be reused"() {
+        when:
+        def fileManager = pool.acquire(null)
+        pool.release(fileManager, [], false)
+
+        then:
+        pool.acquire(null) != fileManager
+    }
+
+    def "does not reuse file manager with different charset"() {
+        when:
+        def fileManager = pool.acquire(null)
+        pool.release(fileManager, [], true)
+
+        then:
+        pool.acquire(Charset.forName('UTF-8')) != fileManager
+        pool.acquire(null) == fileManager
+    }
+
+    def "discards file manager when a jar it has read changes"() {
+        def jar = tmpDir.file('lib.jar').write('content')
+
+        when:
+        def fileManager = pool.acquire(null)
+        pool.release(fileManager, [jar], true)
+        jar.write('changed content')
+
+        then:
+        pool.acquire(null) != fileManager
+    }
+
+    def "discards file manager when the jars it has read exceed the archive budget"() {
+        def jar = tmpDir.file('lib.jar').write('x' * 101)
+
+        when:
+        def fileManager = pool.acquire(null)
+        pool.release(fileManager, [jar], true)
+
+        then:
+        pool.acquire(null) != fileManager
+    }
+
+    def "keeps a limited number of idle file managers"() {
+        when:
+        def fileManager1 = pool.acquire(null)
+        def fileManager2 = pool.acquire(null)
+        def fileManager3 = pool.acquire(null)
+        pool.release(fileManager1, [], true)
+        pool.release(fileManager2, [], true)
+        pool.release(fileManager3, [], true)
+
+        then:
+        pool.acquire(null) == fileManager3
+        pool.acquire(null) == fileManager2
+        pool.acquire(null) != fileManager1
+    }
+
+    def "does not reuse file managers once stopped"() {
+        when:
+        def fileManager1 = pool.acquire(null)
+        def fileManager2 = pool.acquire(null)
+        pool.release(fileManager1, [], true)
+        pool.stop()
+        pool.release(fileManager2, [], true)
+
+        then:
+        def fileManager = pool.acquire(null)
+        fileManager != fileManager1
+        fileManager != fileManager2
+    }
+}
@@ -48,9 +48,14 @@ public class DefaultTestClassScannerTest {
             }
             one(detector).startDetection(processor)
             inSequence(sequence)
+            one(detector).prepareTestClasses([new File('class1.class'), new File('class2.class')])
+            inSequence(sequence)
             one(detector).processTestClass(new File('class1.class'))
+            inSequence(sequence)
             one(detector).processTestClass(new File('class2.class'))
             inSequence(sequence)
+            one(detector).stopDetection()
+            inSequence(sequence)
         }
         
         scanner.run()
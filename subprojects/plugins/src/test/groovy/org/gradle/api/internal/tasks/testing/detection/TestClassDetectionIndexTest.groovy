@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestClassDetectionIndexTest extends Specification {
+    @Rule public final TemporaryFolder tmpDir = new TemporaryFolder()
+
+    def "entries are available in the next run"() {
+        def indexFile = tmpDir.file('index.bin')
+        def index = new TestClassDetectionIndex(indexFile)
+
+        when:
+        index.get('hash1')
+        index.put('hash1', new TestClassInfo('org/gradle/SomeTest', 'java/lang/Object', true, false))
+        index.stop()
+
+        then:
+        indexFile.file
+
+        when:
+        def nextIndex = new TestClassDetectionIndex(indexFile)
+        def info = nextIndex.get('hash1')
+
+        then:
+        info.className == 'org/gradle/SomeTest'
+        info.superClassName == 'java/lang/Object'
+        info.test
+        !info.isAbstract()
+    }
+
+    def "discards entries which were not used in the last run"() {
+        def indexFile = tmpDir.file('index.bin')
+        def index = new TestClassDetectionIndex(indexFile)
+        index.get('hash1')
+        index.put('hash1', new TestClassInfo('org/gradle/SomeTest', 'java/lang/Object', true, false))
+        index.put('hash2', new TestClassInfo('org/gradle/OtherTest', 'java/lang/Object', true, false))
+        index.stop()
+
+        when:
+        index = new TestClassDetectionIndex(indexFile)
+        index.get('hash1')
+        index.stop()
+
+        then:
+        def nextIndex = new TestClassDetectionIndex(indexFile)
+        nextIndex.get('hash1') != null
+        nextIndex.get('hash2') == null
+    }
+
+    def "ignores a corrupt index file"() {
+        def indexFile = tmpDir.file('index.bin')
+        indexFile.text = 'not an index'
+
+        expect:
+        new TestClassDetectionIndex(indexFile).get('hash1') == null
+    }
+}
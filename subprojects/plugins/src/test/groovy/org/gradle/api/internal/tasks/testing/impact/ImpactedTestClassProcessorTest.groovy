@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class ImpactedTestClassProcessorTest extends Specification {
+    final TestClassProcessor target = Mock()
+    final TestImpactAnalysis impactAnalysis = Mock()
+    final ImpactedTestClassProcessor processor = new ImpactedTestClassProcessor(target, impactAnalysis)
+
+    def "starts target processor with a result processor which records failures"() {
+        TestResultProcessor resultProcessor = Mock()
+        TestResultProcessor recordingProcessor = Mock()
+
+        when:
+        processor.startProcessing(resultProcessor)
+
+        then:
+        1 * impactAnalysis.recordFailures(resultProcessor) >> recordingProcessor
+        1 * target.startProcessing(recordingProcessor)
+    }
+
+    def "passes on only impacted test classes"() {
+        TestClassRunInfo impacted = new DefaultTestClassRunInfo('Impacted')
+        TestClassRunInfo notImpacted = new DefaultTestClassRunInfo('NotImpacted')
+        _ * impactAnalysis.isImpacted('Impacted') >> true
+        _ * impactAnalysis.isImpacted('NotImpacted') >> false
+
+        when:
+        processor.processTestClass(impacted)
+        processor.processTestClass(notImpacted)
+
+        then:
+        1 * target.processTestClass(impacted)
+        0 * target.processTestClass(notImpacted)
+    }
+
+    def "stops impact analysis when target processor fails to stop"() {
+        def failure = new RuntimeException()
+
+        when:
+        processor.stop()
+
+        then:
+        1 * target.stop() >> { throw failure }
+        1 * impactAnalysis.stop()
+        def e = thrown(RuntimeException)
+        e == failure
+    }
+}
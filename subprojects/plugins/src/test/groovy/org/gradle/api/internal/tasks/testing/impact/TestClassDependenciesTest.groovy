@@ -0,0 +1,67 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.changedetection.FileCollectionSnapshot
+import spock.lang.Specification
+
+class TestClassDependenciesTest extends Specification {
+    final TestClassDependencies dependencies = new TestClassDependencies("settings", Mock(FileCollectionSnapshot))
+
+    def "test class depends on classes loaded by its worker up to its completion"() {
+        def worker1 = dependencies.startSequence()
+        def worker2 = dependencies.startSequence()
+        dependencies.classesLoaded(worker1, "Test1", ["Test1", "A"])
+        dependencies.classesLoaded(worker1, "Test2", ["Test2", "B"])
+        dependencies.classesLoaded(worker2, "Test3", ["Test3", "B"])
+
+        expect:
+        dependencies.getImpactedTestClasses(["A"] as Set) == ["Test1", "Test2"] as Set
+        dependencies.getImpactedTestClasses(["B"] as Set) == ["Test2", "Test3"] as Set
+        dependencies.getImpactedTestClasses(["Test2"] as Set) == ["Test2"] as Set
+        dependencies.getImpactedTestClasses(["C"] as Set).empty
+    }
+
+    def "failed test classes are always impacted"() {
+        def worker = dependencies.startSequence()
+        dependencies.classesLoaded(worker, "Test1", ["Test1"])
+        dependencies.failed("Test1")
+        dependencies.failed("Test2")
+
+        expect:
+        dependencies.getImpactedTestClasses([] as Set) == ["Test1", "Test2"] as Set
+    }
+
+    def "copies dependencies of a test class from another run"() {
+        def previous = new TestClassDependencies("settings", Mock(FileCollectionSnapshot))
+        def worker = previous.startSequence()
+        previous.classesLoaded(worker, "Test1", ["Test1", "A"])
+        previous.classesLoaded(worker, "Test2", ["Test2", "B"])
+        def mapping = [:]
+
+        when:
+        dependencies.copyFrom(previous, "Test1", mapping)
+        dependencies.copyFrom(previous, "Test2", mapping)
+        dependencies.copyFrom(previous, "Unknown", mapping)
+
+        then:
+        dependencies.isRecorded("Test1")
+        dependencies.isRecorded("Test2")
+        !dependencies.isRecorded("Unknown")
+        dependencies.getImpactedTestClasses(["B"] as Set) == ["Test2"] as Set
+        dependencies.getImpactedTestClasses(["A"] as Set) == ["Test1", "Test2"] as Set
+    }
+}
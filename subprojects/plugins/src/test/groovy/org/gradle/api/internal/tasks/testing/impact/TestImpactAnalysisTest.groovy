@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.impact
+
+import org.gradle.api.internal.changedetection.DefaultFileSnapshotter
+import org.gradle.api.internal.changedetection.DefaultHasher
+import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.testing.DefaultTestDescriptor
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.internal.tasks.testing.TestStartEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class TestImpactAnalysisTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TestFile stateFile = tmpDir.file('state.bin')
+    final TestFile classesDir = tmpDir.createDir('classes')
+    final TestFile jar = tmpDir.createFile('lib.jar')
+
+    def setup() {
+        classesDir.file('org/A.class').text = 'A'
+        classesDir.file('org/B.class').text = 'B'
+    }
+
+    def "runs all test classes when there is no previous run"() {
+        def analysis = analysis()
+
+        expect:
+        analysis.classDirs == [classesDir]
+        analysis.isImpacted('Test1')
+    }
+
+    def "runs only the test classes which loaded a changed class"() {
+        given:
+        recordRun()
+        classesDir.file('org/B.class').text = 'changed'
+
+        when:
+        def analysis = analysis()
+
+        then:
+        !analysis.isImpacted('Test1')
+        analysis.isImpacted('Test2')
+        analysis.isImpacted('Test3')
+    }
+
+    def "runs no recorded test classes when nothing has changed"() {
+        given:
+        recordRun()
+
+        when:
+        def analysis = analysis()
+
+        then:
+        !analysis.isImpacted('Test1')
+        !analysis.isImpacted('Test2')
+    }
+
+    def "carries over the dependencies of test classes which are not run"() {
+        given:
+        recordRun()
+        def analysis = analysis()
+        analysis.isImpacted('Test1')
+        analysis.isImpacted('Test2')
+        analysis.stop()
+        classesDir.file('org/A.class').text = 'changed'
+
+        when:
+        analysis = analysis()
+
+        then:
+        analysis.isImpacted('Test1')
+        analysis.isImpacted('Test2')
+    }
+
+    def "runs all test classes when the execution settings have changed"() {
+        given:
+        recordRun()
+
+        when:
+        def analysis = analysis('other settings')
+
+        then:
+        analysis.isImpacted('Test1')
+        analysis.isImpacted('Test2')
+    }
+
+    def "runs all test classes when something other than a class file has changed"() {
+        given:
+        recordRun()
+        jar.text = 'changed'
+
+        when:
+        def analysis = analysis()
+
+        then:
+        analysis.isImpacted('Test1')
+        analysis.isImpacted('Test2')
+    }
+
+    def "runs all test classes when the previous run cannot be read"() {
+        given:
+        stateFile.text = 'broken'
+
+        when:
+        def analysis = analysis()
+
+        then:
+        analysis.isImpacted('Test1')
+    }
+
+    def "runs failed test classes again"() {
+        given:
+        def analysis = analysis()
+        def listener = analysis.createWorkerListener()
+        listener.completed('Test1', ['Test1'])
+        listener.completed('Test2', ['Test2'])
+        def processor = analysis.recordFailures(Mock(TestResultProcessor))
+        processor.started(new DefaultTestDescriptor(1, 'Test1', 'ok'), new TestStartEvent(0))
+        processor.completed(1, new TestCompleteEvent(0, TestResult.ResultType.SUCCESS))
+        processor.started(new DefaultTestDescriptor(2, 'Test2', 'broken'), new TestStartEvent(0))
+        processor.completed(2, new TestCompleteEvent(0, TestResult.ResultType.FAILURE))
+        analysis.stop()
+
+        when:
+        analysis = analysis()
+
+        then:
+        !analysis.isImpacted('Test1')
+        analysis.isImpacted('Test2')
+    }
+
+    private void recordRun() {
+        def analysis = analysis()
+        def listener = analysis.createWorkerListener()
+        listener.completed('Test1', ['Test1', 'org.A'])
+        listener.completed('Test2', ['Test2', 'org.B'])
+        analysis.stop()
+    }
+
+    private TestImpactAnalysis analysis(String settings = 'settings') {
+        def snapshot = new DefaultFileSnapshotter(new DefaultHasher()).snapshot(new SimpleFileCollection(classesDir, jar))
+        return new TestImpactAnalysis(stateFile, [classesDir, jar], settings, snapshot)
+    }
+}
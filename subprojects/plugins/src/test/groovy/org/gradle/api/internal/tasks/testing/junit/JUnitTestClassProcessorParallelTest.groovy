@@ -0,0 +1,168 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.junit
+
+import org.gradle.api.internal.tasks.testing.*
+import org.gradle.internal.id.LongIdGenerator
+import org.gradle.logging.StandardOutputRedirector
+import org.gradle.messaging.actor.TestActorFactory
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.util.TemporaryFolder
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.TimeUnit
+
+class JUnitTestClassProcessorParallelTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final RecordingResultProcessor resultProcessor = new RecordingResultProcessor()
+    final JUnitTestClassProcessor processor = new JUnitTestClassProcessor(tmpDir.dir, new LongIdGenerator(), new TestActorFactory(),
+            executorFactory, 2, {} as StandardOutputRedirector)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "executes test classes concurrently"() {
+        ABlockingTestClass.barrier = new CyclicBarrier(2)
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass(ABlockingTestClass))
+        processor.processTestClass(testClass(AnotherBlockingTestClass))
+        processor.stop()
+
+        then:
+        resultProcessor.failures.empty
+        resultProcessor.completedClasses() as Set == [ABlockingTestClass.name, AnotherBlockingTestClass.name] as Set
+    }
+
+    def "delivers the events of each test class in order"() {
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass(ATestClass))
+        processor.processTestClass(testClass(AJunit3TestClass))
+        processor.processTestClass(testClass(ATestClassWithIgnoredMethod))
+        processor.stop()
+
+        then:
+        [ATestClass, AJunit3TestClass, ATestClassWithIgnoredMethod].each { type ->
+            def events = resultProcessor.events.findAll { it.className == type.name }
+            assert events.collect { it.type } == ['started', 'started', 'completed', 'completed']
+            def classId = events[0].id
+            def testId = events[1].id
+            assert events[0].parentId == null
+            assert events[1].parentId == classId
+            assert events[2].id == testId
+            assert events[3].id == classId
+        }
+    }
+
+    def "reports the failures of a broken test class and executes the other test classes"() {
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass(ABrokenTestClass))
+        processor.processTestClass(testClass(ATestClass))
+        processor.stop()
+
+        then:
+        resultProcessor.failures == [ABrokenTestClass.failure]
+        resultProcessor.completedClasses() as Set == [ABrokenTestClass.name, ATestClass.name] as Set
+    }
+
+    def "stop executes all queued test classes before returning"() {
+        def testClasses = [ATestClass, AJunit3TestClass, ATestClassWithIgnoredMethod, ABrokenTestClass, AnIgnoredTestClass]
+
+        when:
+        processor.startProcessing(resultProcessor)
+        testClasses.each { processor.processTestClass(testClass(it)) }
+        processor.stop()
+
+        then:
+        resultProcessor.completedClasses() as Set == testClasses.collect { it.name } as Set
+    }
+
+    def "stop rethrows a failure which stops a test class thread"() {
+        def failure = new RuntimeException("broken")
+        resultProcessor.failOnStart = failure
+
+        when:
+        processor.startProcessing(resultProcessor)
+        processor.processTestClass(testClass(ATestClass))
+        processor.stop()
+
+        then:
+        RuntimeException e = thrown()
+        e == failure || e.cause == failure
+    }
+
+    private TestClassRunInfo testClass(Class<?> type) {
+        return new DefaultTestClassRunInfo(type.name)
+    }
+
+    static class RecordingResultProcessor implements TestResultProcessor {
+        final List<Map<String, Object>> events = []
+        final List<Throwable> failures = []
+        final Map<Object, String> classNames = [:]
+        RuntimeException failOnStart
+
+        synchronized void started(TestDescriptorInternal test, TestStartEvent event) {
+            if (failOnStart != null) {
+                throw failOnStart
+            }
+            classNames[test.id] = test.className
+            events << [type: 'started', id: test.id, parentId: event.parentId, className: test.className]
+        }
+
+        synchronized void completed(Object testId, TestCompleteEvent event) {
+            events << [type: 'completed', id: testId, className: classNames[testId]]
+        }
+
+        synchronized void output(Object testId, TestOutputEvent event) {
+        }
+
+        synchronized void failure(Object testId, Throwable result) {
+            failures << result
+        }
+
+        synchronized List<String> completedClasses() {
+            return events.findAll { it.type == 'completed' && isClass(it.id) }.collect { it.className }
+        }
+
+        private boolean isClass(Object id) {
+            return events.find { it.type == 'started' && it.id == id }.parentId == null
+        }
+    }
+}
+
+class ABlockingTestClass {
+    static CyclicBarrier barrier
+
+    @org.junit.Test
+    public void ok() {
+        barrier.await(10, TimeUnit.SECONDS)
+    }
+}
+
+class AnotherBlockingTestClass {
+    @org.junit.Test
+    public void ok() {
+        ABlockingTestClass.barrier.await(10, TimeUnit.SECONDS)
+    }
+}
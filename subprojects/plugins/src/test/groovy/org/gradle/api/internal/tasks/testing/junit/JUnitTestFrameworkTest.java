@@ -24,6 +24,7 @@ import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.junit.report.TestReporter;
 import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.messaging.actor.ActorFactory;
+import org.gradle.messaging.concurrent.ExecutorFactory;
 import org.jmock.Expectations;
 import org.junit.Before;
 
@@ -72,11 +73,14 @@ public class JUnitTestFrameworkTest extends AbstractTestFrameworkTest {
         jUnitTestFramework = new JUnitTestFramework(testMock);
         setMocks();
         final ActorFactory actorFactory = context.mock(ActorFactory.class);
+        final ExecutorFactory executorFactory = context.mock(ExecutorFactory.class);
 
         context.checking(new Expectations() {{
             one(testMock).getTestResultsDir(); will(returnValue(testResultsDir));
+            one(testMock).getMaxParallelTestClassesPerFork(); will(returnValue(1));
             one(serviceRegistry).get(IdGenerator.class); will(returnValue(idGenerator));
             one(serviceRegistry).get(ActorFactory.class); will(returnValue(actorFactory));
+            one(serviceRegistry).get(ExecutorFactory.class); will(returnValue(executorFactory));
         }});
 
         TestClassProcessor testClassProcessor = jUnitTestFramework.getProcessorFactory().create(serviceRegistry);
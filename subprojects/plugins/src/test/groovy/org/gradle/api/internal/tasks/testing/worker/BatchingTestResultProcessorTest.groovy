@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.messaging.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class BatchingTestResultProcessorTest extends Specification {
+    final List<TestEventBatch> batches = [].asSynchronized()
+    final TestEventBatchProcessor target = { batch -> batches << batch } as TestEventBatchProcessor
+    final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory()
+    final BatchingTestResultProcessor processor = new BatchingTestResultProcessor(target, executorFactory)
+
+    def cleanup() {
+        processor.stop()
+        executorFactory.stop()
+    }
+
+    def "forwards pending events when stopped"() {
+        when:
+        processor.completed("id", new TestCompleteEvent(100L))
+        processor.stop()
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 1
+    }
+
+    def "forwards a batch once it holds the maximum number of events"() {
+        when:
+        BatchingTestResultProcessor.MAX_EVENTS.times { processor.completed(it, new TestCompleteEvent(100L)) }
+
+        then:
+        batches.size() == 1
+        batches[0].size() == BatchingTestResultProcessor.MAX_EVENTS
+    }
+
+    def "forwards a batch once it holds the maximum amount of output"() {
+        when:
+        processor.output("id", new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "x" * BatchingTestResultProcessor.MAX_OUTPUT_LENGTH))
+
+        then:
+        batches.size() == 1
+    }
+
+    def "forwards a batch after a short delay"() {
+        when:
+        processor.completed("id", new TestCompleteEvent(100L))
+        waitForBatch()
+
+        then:
+        batches.size() == 1
+        batches[0].size() == 1
+    }
+
+    def "forwards nothing when there are no events"() {
+        when:
+        processor.stop()
+
+        then:
+        batches.empty
+    }
+
+    def "events are forwarded in the order they are received"() {
+        TestResultProcessor resultProcessor = Mock()
+        def count = BatchingTestResultProcessor.MAX_EVENTS + 10
+        def received = []
+        _ * resultProcessor.completed(_, _) >> { args -> received << args[0] }
+
+        when:
+        count.times { processor.completed(it, new TestCompleteEvent(100L)) }
+        processor.stop()
+        batches.each { it.replay(resultProcessor) }
+
+        then:
+        batches.size() >= 2
+        received == (0..<count).toList()
+    }
+
+    private void waitForBatch() {
+        def deadline = System.currentTimeMillis() + 5000
+        while (batches.empty && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10)
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.internal.Factory
+import org.gradle.util.TemporaryFolder
+import org.gradle.util.TestFile
+import org.junit.Rule
+import spock.lang.Specification
+
+class LoadedClassTrackerTest extends Specification {
+    @Rule final TemporaryFolder tmpDir = new TemporaryFolder()
+    final TestFile classesDir = tmpDir.createDir('classes')
+
+    def setup() {
+        copyClassFile(TestClassDependencyListener)
+        copyClassFile(Factory)
+    }
+
+    def "reports classes from the class directories once they have been loaded"() {
+        def classLoader = new URLClassLoader([classesDir.toURI().toURL()] as URL[], (ClassLoader) null)
+        def tracker = new LoadedClassTracker([classesDir], classLoader)
+
+        expect:
+        tracker.takeLoadedClasses() == []
+
+        when:
+        classLoader.loadClass(Factory.name)
+
+        then:
+        tracker.takeLoadedClasses() == [Factory.name]
+        tracker.takeLoadedClasses() == []
+
+        when:
+        classLoader.loadClass(TestClassDependencyListener.name)
+        classLoader.loadClass(Factory.name)
+
+        then:
+        tracker.takeLoadedClasses() == [TestClassDependencyListener.name]
+    }
+
+    def "reports classes loaded by a parent class loader"() {
+        def parent = new URLClassLoader([classesDir.toURI().toURL()] as URL[], (ClassLoader) null)
+        def classLoader = new URLClassLoader([] as URL[], parent)
+        def tracker = new LoadedClassTracker([classesDir], classLoader)
+
+        when:
+        classLoader.loadClass(Factory.name)
+
+        then:
+        tracker.takeLoadedClasses() == [Factory.name]
+    }
+
+    def "ignores classes which are not in the class directories"() {
+        def classLoader = new URLClassLoader([classesDir.toURI().toURL()] as URL[], (ClassLoader) null)
+        def tracker = new LoadedClassTracker([tmpDir.createDir('other')], classLoader)
+
+        when:
+        classLoader.loadClass(Factory.name)
+
+        then:
+        tracker.takeLoadedClasses() == []
+    }
+
+    private void copyClassFile(Class<?> type) {
+        def path = type.name.replace('.', '/') + '.class'
+        classesDir.file(path).copyFrom(type.classLoader.getResource(path))
+    }
+}
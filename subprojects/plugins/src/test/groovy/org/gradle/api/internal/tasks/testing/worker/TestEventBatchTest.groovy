@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.gradle.api.internal.tasks.testing.worker
+
+import org.gradle.api.internal.tasks.testing.*
+import org.gradle.api.tasks.testing.TestOutputEvent
+import org.gradle.api.tasks.testing.TestResult
+import org.gradle.internal.id.CompositeIdGenerator
+import org.gradle.internal.id.LongIdGenerator
+import spock.lang.Specification
+
+class TestEventBatchTest extends Specification {
+    final TestResultProcessor target = Mock()
+
+    def "replays events in order after serialization"() {
+        def batch = new TestEventBatch()
+        def idGenerator = new CompositeIdGenerator("worker", new LongIdGenerator())
+        def classId = idGenerator.generateId()
+        def methodId = idGenerator.generateId()
+        def failure = new RuntimeException("broken")
+        batch.started(new DefaultTestClassDescriptor(classId, "org.gradle.SomeTest"), new TestStartEvent(100L, "root"))
+        batch.started(new DefaultTestMethodDescriptor(methodId, "org.gradle.SomeTest", "someMethod"), new TestStartEvent(101L, classId))
+        batch.output(methodId, new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "output"))
+        batch.failure(methodId, failure)
+        batch.completed(methodId, new TestCompleteEvent(102L, TestResult.ResultType.FAILURE))
+        batch.completed(classId, new TestCompleteEvent(103L))
+
+        when:
+        serialize(batch).replay(target)
+
+        then:
+        1 * target.started({ it instanceof DefaultTestClassDescriptor && it.id == classId && it.className == "org.gradle.SomeTest" }, { it.startTime == 100L && it.parentId == "root" })
+        then:
+        1 * target.started({ it instanceof DefaultTestMethodDescriptor && it.id == methodId && it.name == "someMethod" }, { it.parentId == classId })
+        then:
+        1 * target.output(methodId, { it.destination == TestOutputEvent.Destination.StdOut && it.message == "output" })
+        then:
+        1 * target.failure(methodId, { it instanceof RuntimeException && it.message == "broken" })
+        then:
+        1 * target.completed(methodId, { it.endTime == 102L && it.resultType == TestResult.ResultType.FAILURE })
+        then:
+        1 * target.completed(classId, { it.endTime == 103L && it.resultType == null })
+        0 * target._
+    }
+
+    def "can serialize long output"() {
+        def batch = new TestEventBatch()
+        def text = "x" * 100000
+        batch.output("id", new DefaultTestOutputEvent(TestOutputEvent.Destination.StdErr, text))
+
+        when:
+        serialize(batch).replay(target)
+
+        then:
+        1 * target.output("id", { it.message == text })
+    }
+
+    def "uses Java serialization for other descriptor types"() {
+        def batch = new TestEventBatch()
+        def descriptor = new DefaultTestSuiteDescriptor("id", "suite") {}
+        batch.started(descriptor, new TestStartEvent(100L))
+
+        when:
+        serialize(batch).replay(target)
+
+        then:
+        1 * target.started({ it.id == "id" && it.name == "suite" }, _)
+    }
+
+    def serialize(TestEventBatch batch) {
+        def outstr = new ByteArrayOutputStream()
+        def oos = new ObjectOutputStream(outstr)
+        oos.writeObject(batch)
+        oos.close()
+        return new ObjectInputStream(new ByteArrayInputStream(outstr.toByteArray())).readObject()
+    }
+}